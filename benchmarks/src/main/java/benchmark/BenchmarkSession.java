@@ -0,0 +1,103 @@
+package benchmark;
+
+import connection.Message;
+import servidor.ClientSession;
+import servidor.Server;
+import servidor.ServerConfig;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+
+/**
+ * Clase BenchmarkSession, sesión de cliente sin socket empleada en las mediciones de rendimiento. Extiende
+ * ClientSession a través de su API protegida, igual que las sesiones de hilo por cliente y NIO, y pertenece a un
+ * servidor real, de modo que el ingreso y la salida recorren notifyConnection y notifyDisconnection completos. Las
+ * tramas encoladas se descartan de inmediato en lugar de escribirse, de modo que las mediciones incluyen la
+ * codificación y el encolado de las tramas pero no la escritura en la red
+ * @Author Jorge Luis Velasquez Venegas
+ */
+public class BenchmarkSession extends ClientSession {
+
+    /**
+     * PORT: puerto en el que escucha el servidor de las mediciones
+     */
+    private static final int PORT = 20222;
+
+    /**
+     * Constructor de la clase BenchmarkSession
+     * @param server servidor al que pertenece la sesión
+     * @param idClient nombre que identifica al cliente
+     */
+    public BenchmarkSession(Server server, String idClient) {
+        super(server);
+        this.idClient = idClient;
+    }
+
+    /**
+     * Inicia un servidor sin bitácora para las mediciones, con los buzones en un directorio temporal. La consola del
+     * servidor se descarta, de modo que las mediciones no incluyen la escritura en la terminal; debe cerrarse con
+     * Server.close
+     * @return servidor en escucha
+     * @throws IOException si no es posible crear el directorio de los buzones o abrir el socket de servidor
+     */
+    public static Server startServer() throws IOException {
+        ServerConfig config = new ServerConfig();
+        config.setJournalEnabled(false);
+        config.setMailboxDirectory(Files.createTempDirectory("benchmark-mailbox").toString());
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        return new Server(PORT, config);
+    }
+
+    /**
+     * Ingresa el cliente al servidor como lo hace el protocolo al recibir "connect": se agrega al listado, recibe la
+     * confirmación con el listado completo y se notifica a los demás clientes
+     */
+    public void connect() {
+        this.notifyConnection(new Message("connect", this.idClient));
+    }
+
+    /**
+     * Retira el cliente del servidor como lo hace el protocolo al perder la conexión: se elimina del listado y se
+     * notifica a los demás clientes. Una sesión solo puede desconectarse una vez
+     */
+    public void disconnect() {
+        this.notifyDisconnection(new Message("disconnect", this.idClient));
+    }
+
+    /**
+     * Codifica y encola un mensaje hacia la sesión, como lo hace el servidor con cada destinatario
+     * @param message mensaje a enviar
+     */
+    public void send(Message message) {
+        this.sendMessage(message);
+    }
+
+    /**
+     * Descarta las tramas pendientes de la cola de salida
+     */
+    @Override
+    protected void writeRequested() {
+        ByteBuffer frame;
+        do {
+            frame = outbound.poll();
+        } while (frame != null);
+    }
+
+    /**
+     * Descarta las tramas pendientes, la sesión no tiene socket que cerrar
+     */
+    @Override
+    protected void closeAfterFlush() {
+        this.writeRequested();
+    }
+
+    /**
+     * La sesión no tiene socket que cerrar
+     */
+    @Override
+    public void endConnection() {
+    }
+}
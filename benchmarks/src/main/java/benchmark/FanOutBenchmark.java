@@ -0,0 +1,105 @@
+package benchmark;
+
+import connection.Message;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import servidor.ClientSession;
+import servidor.Server;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Clase FanOutBenchmark, mide el costo de notificar a todos los clientes conectados de un servidor real: el ingreso y
+ * salida de un cliente con notifyConnection y notifyDisconnection (instantánea del listado para el cliente que
+ * ingresa y un cambio del listado para cada cliente conectado en cada sentido), y el envío de un mismo mensaje a todos
+ * los clientes con Server.broadcast, que lo codifica una sola vez, o codificándolo una vez por destinatario. Las
+ * sesiones descartan las tramas al encolarlas, de modo que se mide la codificación y el encolado pero no la escritura
+ * en la red
+ * @Author Jorge Luis Velasquez Venegas
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class FanOutBenchmark {
+
+    /**
+     * Clients: número de clientes conectados
+     */
+    @Param({"10", "1000", "10000"})
+    public int clients;
+
+    /**
+     * Server: servidor al que se conectan los clientes
+     */
+    private Server server;
+
+    /**
+     * Message: mensaje que se envía a todos los clientes
+     */
+    private Message message;
+
+    /**
+     * Inicia el servidor y conecta los clientes
+     * @throws IOException si no es posible iniciar el servidor
+     */
+    @Setup
+    public void setup() throws IOException {
+        server = BenchmarkSession.startServer();
+        for (int i = 0; i < clients; i++) {
+            new BenchmarkSession(server, "cliente" + i).connect();
+        }
+        message = new Message("message", null, "ana", "Hola a todos");
+    }
+
+    /**
+     * Detiene el servidor
+     * @throws IOException si no es posible cerrar el socket de servidor
+     */
+    @TearDown
+    public void tearDown() throws IOException {
+        server.close();
+    }
+
+    /**
+     * Ingreso y salida de un cliente por la misma ruta que el protocolo. Cada operación crea la sesión que ingresa,
+     * pues una sesión solo puede desconectarse una vez
+     */
+    @Benchmark
+    public void notifyConnectionDisconnection() {
+        BenchmarkSession joining = new BenchmarkSession(server, "nuevo");
+        joining.connect();
+        joining.disconnect();
+    }
+
+    /**
+     * Envío de un mensaje a todos los clientes codificando una única trama compartida
+     */
+    @Benchmark
+    public void broadcastSharedFrame() {
+        server.broadcast(message, null);
+    }
+
+    /**
+     * Envío de un mensaje a todos los clientes codificándolo una vez por destinatario
+     */
+    @Benchmark
+    public void broadcastPerRecipient() {
+        for (ClientSession session : server.getClients()) {
+            ((BenchmarkSession) session).send(message);
+        }
+    }
+}
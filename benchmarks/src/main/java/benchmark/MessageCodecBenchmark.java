@@ -0,0 +1,123 @@
+package benchmark;
+
+import connection.Message;
+import connection.MessageCodec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Clase MessageCodecBenchmark, mide el costo de codificar y decodificar un objeto Message con la serialización de
+ * Java (ObjectOutputStream / ObjectInputStream) y con el formato binario de MessageCodec, para un mensaje de texto y
+ * para un mensaje con el listado de destinatarios
+ * @Author Jorge Luis Velasquez Venegas
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MessageCodecBenchmark {
+
+    /**
+     * Destinies: número de destinatarios del listado que acompaña al mensaje
+     */
+    @Param({"0", "100"})
+    public int destinies;
+
+    /**
+     * Message: mensaje a codificar
+     */
+    private Message message;
+
+    /**
+     * Serialized: mensaje codificado con la serialización de Java
+     */
+    private byte[] serialized;
+
+    /**
+     * Encoded: mensaje codificado con MessageCodec
+     */
+    private byte[] encoded;
+
+    /**
+     * Construye el mensaje y sus dos codificaciones
+     * @throws IOException si el mensaje no puede codificarse
+     */
+    @Setup
+    public void setup() throws IOException {
+        message = new Message("message", "pedro", "ana", "Hola Pedro, ¿a qué hora es la reunión de mañana?");
+        message.setSequence(42);
+        if (destinies > 0) {
+            ArrayList<String> names = new ArrayList<>(destinies);
+            for (int i = 0; i < destinies; i++) names.add("cliente" + i);
+            message.setDestinies(names);
+        }
+        serialized = this.serializationEncode();
+        encoded = MessageCodec.encode(message);
+    }
+
+    /**
+     * Codifica el mensaje con la serialización de Java
+     * @return bytes del mensaje
+     * @throws IOException si el mensaje no puede codificarse
+     */
+    @Benchmark
+    public byte[] serializationEncode() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(message);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Decodifica el mensaje con la serialización de Java
+     * @return mensaje decodificado
+     * @throws IOException si los bytes no corresponden a un mensaje
+     * @throws ClassNotFoundException si la clase del mensaje no se encuentra
+     */
+    @Benchmark
+    public Object serializationDecode() throws IOException, ClassNotFoundException {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(serialized))) {
+            return in.readObject();
+        }
+    }
+
+    /**
+     * Codifica el mensaje con MessageCodec
+     * @return cuerpo de la trama
+     * @throws IOException si el mensaje no puede codificarse
+     */
+    @Benchmark
+    public byte[] codecEncode() throws IOException {
+        return MessageCodec.encode(message);
+    }
+
+    /**
+     * Decodifica el mensaje con MessageCodec
+     * @return mensaje decodificado
+     * @throws IOException si los bytes no corresponden a un mensaje
+     */
+    @Benchmark
+    public Message codecDecode() throws IOException {
+        return MessageCodec.decode(encoded, 0, encoded.length);
+    }
+}
@@ -0,0 +1,118 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import servidor.ClientSession;
+import servidor.RoutingTable;
+import servidor.Server;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Clase RoutingBenchmark, mide el costo de localizar al destinatario de un mensaje entre los clientes conectados:
+ * recorriendo las sesiones de Server.getClients() y comparando su nombre, como se hacía antes del índice, o
+ * consultando el índice RoutingTable. Los destinatarios se eligen al azar y con mayúsculas distintas a las de su
+ * nombre, pues la búsqueda no distingue mayúsculas de minúsculas
+ * @Author Jorge Luis Velasquez Venegas
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RoutingBenchmark {
+
+    /**
+     * TARGETS: número de destinatarios precalculados, potencia de dos
+     */
+    private static final int TARGETS = 1024;
+
+    /**
+     * Clients: número de clientes conectados
+     */
+    @Param({"10", "1000", "100000"})
+    public int clients;
+
+    /**
+     * Server: servidor al que pertenecen las sesiones
+     */
+    private Server server;
+
+    /**
+     * Table: índice de las sesiones de los clientes conectados
+     */
+    private RoutingTable table;
+
+    /**
+     * Targets: nombres de los destinatarios que se buscan
+     */
+    private String[] targets;
+
+    /**
+     * Next: posición del siguiente destinatario a buscar
+     */
+    private int next;
+
+    /**
+     * Registra las sesiones de los clientes conectados y elige los destinatarios. Las sesiones se registran
+     * directamente en el índice, sin notificar a los demás clientes, pues solo se mide la búsqueda
+     * @throws IOException si no es posible iniciar el servidor
+     */
+    @Setup
+    public void setup() throws IOException {
+        server = BenchmarkSession.startServer();
+        table = new RoutingTable();
+        for (int i = 0; i < clients; i++) {
+            table.add(new BenchmarkSession(server, "cliente" + i));
+        }
+        Random random = new Random(2022);
+        targets = new String[TARGETS];
+        for (int i = 0; i < TARGETS; i++) {
+            targets[i] = "Cliente" + random.nextInt(clients);
+        }
+    }
+
+    /**
+     * Detiene el servidor
+     * @throws IOException si no es posible cerrar el socket de servidor
+     */
+    @TearDown
+    public void tearDown() throws IOException {
+        server.close();
+    }
+
+    /**
+     * Busca el destinatario recorriendo las sesiones de los clientes conectados
+     * @return sesión del destinatario
+     */
+    @Benchmark
+    public ClientSession scanLookup() {
+        String target = targets[next++ & (TARGETS - 1)];
+        for (ClientSession session : table.sessions()) {
+            if (session.getIdClient().equalsIgnoreCase(target)) return session;
+        }
+        return null;
+    }
+
+    /**
+     * Busca el destinatario en el índice de las sesiones
+     * @return sesión del destinatario
+     */
+    @Benchmark
+    public ClientSession tableLookup() {
+        return table.find(targets[next++ & (TARGETS - 1)]);
+    }
+}
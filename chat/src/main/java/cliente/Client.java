@@ -0,0 +1,703 @@
+package cliente;
+
+import connection.Connection;
+import connection.EventBus;
+import connection.Message;
+import connection.MessageCodec;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * La clase Client permite crear objetos cliente que se conectan mediante sockets con el servidor para entablar el
+ * chat bidireccional. Esta clase hereda de la clase Connection para establecer una conexión empleando sockets, la
+ * clase Connection a su vez hereda de la clase Thread, lo cual permite generar hilos para manejar la concurrencia
+ * del programa. Así mientras la clase principal está atenta a la interfaz, se ejecuta un hilo que se encarga de
+ * enviar y recibir mensajes del servidor
+ * @Author Jorge Luis Velasquez Venegas
+ */
+public class Client extends Connection {
+
+    /**
+     * IpAddress: dirección ip del servidor al que se desea conectar
+     */
+    private String ipAddress;
+
+    /**
+     * IP_ADDRESS: dirección ip del servidor que se establece por defecto cuando se crea una instancia de la clase
+     * cliente sin asignar el valor
+     */
+    private final String IP_ADDRESS = "localhost";
+
+    /**
+     * Port: puerto de conexión con el servidor este debe coincidir con el puerto en el que escucha el servidor
+     */
+    private Integer port;
+
+    /**
+     * PORT: puerto por defecto para conexión con el servidor
+     */
+    private final Integer PORT = 2022;
+
+    /**
+     * IdClient: nombre que identifica al cliente en la conexión
+     */
+    private String idClient;
+
+    /**
+     * Nombre de emisor o remitente de mensaje
+     */
+    private String sender;
+
+    /**
+     * Destinies: destinatarios habilitados en el servidor. Es modificado solo por el hilo de escucha y puede
+     * consultarse desde otros hilos; un listado completo lo reemplaza por un nuevo conjunto
+     */
+    private volatile Set<String> destinies = ConcurrentHashMap.newKeySet();
+
+    /**
+     * DataInputStream: recepción de tramas con objetos de la clase Message
+     */
+    private DataInputStream dataInputStream;
+
+    /**
+     * DataOutputStream: envío de tramas con objetos de la clase Message
+     */
+    private DataOutputStream dataOutputStream;
+
+    /**
+     * DISCONNECT_TIMEOUT: tiempo máximo en milisegundos que se espera la confirmación de desconexión del servidor
+     */
+    private static final long DISCONNECT_TIMEOUT = 2000;
+
+    /**
+     * EVENT_QUEUE_CAPACITY: máximo de eventos pendientes por entregar a los oyentes del cliente
+     */
+    private static final int EVENT_QUEUE_CAPACITY = 65536;
+
+    /**
+     * DisconnectAck: se libera cuando el servidor confirma la desconexión ("disconnect-ack")
+     */
+    private final CountDownLatch disconnectAck = new CountDownLatch(1);
+
+    /**
+     * Closing: indica que el cliente solicitó la desconexión y espera su confirmación
+     */
+    private volatile boolean closing;
+
+    /**
+     * RosterVersion: versión del listado de destinatarios del servidor que refleja la lista local de destinatarios
+     */
+    private long rosterVersion;
+
+    /**
+     * SnapshotRequested: indica que se solicitó al servidor el listado completo y se está a la espera de recibirlo
+     */
+    private boolean snapshotRequested;
+
+    /**
+     * MessageSequence: número de secuencia asignado al último mensaje enviado, el servidor lo retorna en la
+     * confirmación "message-ack" del mensaje
+     */
+    private final AtomicLong messageSequence = new AtomicLong();
+
+    /**
+     * AcknowledgedSequence: número de secuencia del último mensaje que el servidor confirmó como entregado o guardado
+     * en el buzón de su destinatario
+     */
+    private volatile long acknowledgedSequence;
+
+    /**
+     * RejectedSequence: número de secuencia del último mensaje que el servidor rechazó con "message-nack" por estar
+     * dirigido a un destino desconocido
+     */
+    private volatile long rejectedSequence;
+
+    /**
+     * TransactionSequence: identificador asignado a la última transacción abierta
+     */
+    private long transactionSequence;
+
+    /**
+     * OpenTransaction: identificador de la transacción abierta, cero si no hay una transacción abierta
+     */
+    private long openTransaction;
+
+    /**
+     * CommittedTransaction: identificador de la última transacción confirmada por el servidor
+     */
+    private long committedTransaction;
+
+    /**
+     * AbortedTransaction: identificador de la última transacción abortada por el servidor
+     */
+    private long abortedTransaction;
+
+    /**
+     * TransactionLock: candado de las transacciones del cliente, notifica la llegada de sus resultados
+     */
+    private final Object transactionLock = new Object();
+
+    /**
+     * Connected: indica si el cliente se encuentra activo o conectado para escuchar transmisiones
+     */
+    private volatile boolean connected;
+
+    /**
+     * Message: string con el mensaje recibido
+     */
+    private String message;
+
+    /**
+     * Events: bus que entrega los eventos del cliente a los oyentes fuera del hilo de escucha, propio de cada cliente.
+     * Un listado completo de destinatarios reemplaza a los cambios de la lista que lo preceden en una ráfaga. Los
+     * cambios de la lista nunca se pierden: si la cola está llena se reemplazan por el listado completo. Los mensajes
+     * recibidos tampoco: si la cola está llena el hilo de escucha espera a que haya espacio
+     */
+    private final EventBus<EventChangeClient> events = new EventBus<>("cliente", EVENT_QUEUE_CAPACITY,
+            (previous, next) -> previous.isDestiniesChange() && next.getDestinies() != null ? next : null);
+
+    /**
+     * Constructor de la clase Client para crear instancias de client con sockets y crear un chat bidireccional con el
+     * servidor mediante sockets, se ejecuta el método start al terminar de construir el objeto para asi iniciar el
+     * hilo de ejecución concurrente
+     * @param ipAddress Dirección ip del servidor
+     * @param port puerto en que escucha el servidor
+     * @param idClient nombre que identifica la cliente
+     * @throws IOException
+     */
+    public Client(String ipAddress, Integer port, String idClient) throws IOException {
+        super("cliente", port, ipAddress);
+        this.ipAddress = ipAddress.isBlank() ? IP_ADDRESS : ipAddress;
+        this.port = port == null || port < 1024 ? PORT : port;
+        this.idClient = idClient;
+        this.start();
+    }
+
+    /**
+     * Método que se ejecuta al terminar de construir el objeto de la clase Client, el cual da inicio al hilo de
+     * programación concurrente
+     */
+    @Override
+    public void run() {
+        try {
+            dataOutputStream = new DataOutputStream(clientSocket.getOutputStream());
+            dataInputStream = new DataInputStream(new BufferedInputStream(clientSocket.getInputStream()));
+//            Se solicita conexión
+            Message messageObject = new Message("connect", this.idClient);
+            this.send(messageObject);
+//            Se queda en escucha permanente
+            this.connected=true;
+            this.listen();
+        } catch (IOException e) {
+            System.out.println("Error de conexión con el servidor");
+            this.closeConnection();
+        }
+    }
+
+    /**
+     * Envía un mensaje a otro cliente habilitado en el servidor
+     * @param message mensaje a enviar
+     * @param destiny nombre de cliente destino
+     */
+    public void sendMessage(String message, String destiny) {
+        try {
+            if (message.equalsIgnoreCase("chao")) {
+                this.closeConnection();
+            } else if(destiny != null && !destiny.isBlank()) {
+                Message messageObject = new Message("message", destiny, this.getIdClient(), message);
+                messageObject.setSequence(this.messageSequence.incrementAndGet());
+                this.send(messageObject);
+            }
+        } catch (IOException e) {
+            System.out.println("Error enviando mensaje " + e);
+        }
+    }
+
+    /**
+     * Envía un mismo mensaje a varios clientes. El mensaje viaja una sola vez hacia el servidor con la lista de
+     * destinatarios ("multicast") y es el servidor quien lo entrega a cada uno
+     * @param message mensaje a enviar
+     * @param destinies nombres de los clientes destino
+     */
+    public void sendMessage(String message, List<String> destinies) {
+        if (destinies == null || destinies.isEmpty()) return;
+        Message messageObject = new Message("multicast", null, this.getIdClient(), message);
+        messageObject.setDestinies(new ArrayList<>(destinies));
+        this.sendFanOut(messageObject);
+    }
+
+    /**
+     * Envía un mensaje a todos los clientes conectados al servidor, excepto a este cliente. El mensaje viaja una sola
+     * vez hacia el servidor ("broadcast") y es el servidor quien lo entrega a cada cliente
+     * @param message mensaje a enviar
+     */
+    public void broadcastMessage(String message) {
+        this.sendFanOut(new Message("broadcast", null, this.getIdClient(), message));
+    }
+
+    /**
+     * Ingresa a un canal de conversación, el servidor crea el canal si no existe
+     * @param channel nombre del canal
+     */
+    public void joinChannel(String channel) {
+        this.sendChannel("channel-join", channel);
+    }
+
+    /**
+     * Sale de un canal de conversación
+     * @param channel nombre del canal
+     */
+    public void leaveChannel(String channel) {
+        this.sendChannel("channel-leave", channel);
+    }
+
+    /**
+     * Publica un mensaje en un canal de conversación, el servidor lo entrega a los demás miembros del canal
+     * @param channel nombre del canal
+     * @param message mensaje a publicar
+     */
+    public void publish(String channel, String message) {
+        if (channel == null || channel.isBlank()) return;
+        this.sendFanOut(new Message("channel-publish", channel, this.getIdClient(), message));
+    }
+
+    /**
+     * Envía una solicitud de ingreso o salida de un canal
+     * @param type tipo de acción ("channel-join", "channel-leave")
+     * @param channel nombre del canal
+     */
+    private void sendChannel(String type, String channel) {
+        if (channel == null || channel.isBlank()) return;
+        try {
+            this.send(new Message(type, channel, this.getIdClient(), null));
+        } catch (IOException e) {
+            System.out.println("Error enviando " + type + " " + e);
+        }
+    }
+
+    /**
+     * Asigna el número de secuencia a un mensaje con varios destinatarios y lo envía al servidor
+     * @param message mensaje "multicast", "broadcast" o "channel-publish"
+     */
+    private void sendFanOut(Message message) {
+        message.setSequence(this.messageSequence.incrementAndGet());
+        try {
+            this.send(message);
+        } catch (IOException e) {
+            System.out.println("Error enviando mensaje " + e);
+        }
+    }
+
+    /**
+     * Abre una transacción: los mensajes enviados con sendMessage hasta confirmar o abortar la transacción son
+     * enrutados por el servidor todos juntos o ninguno
+     * @return identificador de la transacción
+     * @throws IllegalStateException si ya hay una transacción abierta
+     */
+    public long beginTransaction() {
+        synchronized (transactionLock) {
+            if (this.openTransaction != 0) {
+                throw new IllegalStateException("Ya existe la transacción abierta " + this.openTransaction);
+            }
+            this.openTransaction = ++this.transactionSequence;
+            this.sendTransaction("tx-begin", this.openTransaction);
+            return this.openTransaction;
+        }
+    }
+
+    /**
+     * Confirma la transacción abierta. El servidor responde "tx-ack" una vez todos los mensajes de la transacción son
+     * entregados o guardados en buzones, o "tx-abort" si la transacción no pudo guardarse
+     * @return identificador de la transacción confirmada, cero si no había una transacción abierta
+     */
+    public long commitTransaction() {
+        synchronized (transactionLock) {
+            long id = this.openTransaction;
+            if (id != 0) this.sendTransaction("tx-commit", id);
+            this.openTransaction = 0;
+            return id;
+        }
+    }
+
+    /**
+     * Aborta la transacción abierta, el servidor descarta los mensajes enviados desde su apertura
+     */
+    public void abortTransaction() {
+        synchronized (transactionLock) {
+            if (this.openTransaction != 0) this.sendTransaction("tx-abort", this.openTransaction);
+            this.openTransaction = 0;
+        }
+    }
+
+    /**
+     * Envía varios mensajes a un mismo destinatario en una única transacción
+     * @param messages mensajes a enviar
+     * @param destiny nombre de cliente destino
+     * @return identificador de la transacción
+     */
+    public long sendMessages(List<String> messages, String destiny) {
+        long id = this.beginTransaction();
+        for (String message : messages) {
+            this.sendMessage(message, destiny);
+        }
+        this.commitTransaction();
+        return id;
+    }
+
+    /**
+     * Espera el resultado de una transacción confirmada
+     * @param id identificador de la transacción
+     * @param timeoutMillis tiempo máximo de espera en milisegundos
+     * @return true si el servidor confirmó la transacción, false si la abortó o no respondió a tiempo
+     * @throws InterruptedException si el hilo es interrumpido durante la espera
+     */
+    public boolean awaitTransaction(long id, long timeoutMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        synchronized (transactionLock) {
+            while (this.committedTransaction < id && this.abortedTransaction < id) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) return false;
+                transactionLock.wait(remaining);
+            }
+            return this.committedTransaction >= id && this.abortedTransaction != id;
+        }
+    }
+
+    /**
+     * Envía una trama de control de transacción
+     * @param type tipo de acción ("tx-begin", "tx-commit", "tx-abort")
+     * @param id identificador de la transacción
+     */
+    private void sendTransaction(String type, long id) {
+        Message message = new Message(type, this.idClient);
+        message.setSequence(id);
+        try {
+            this.send(message);
+        } catch (IOException e) {
+            System.out.println("Error enviando " + type + " " + e);
+        }
+    }
+
+    /**
+     * Registra el resultado de una transacción recibido del servidor y notifica a quien lo espera
+     * @param message resultado "tx-ack" o "tx-abort" con el identificador de la transacción
+     */
+    private void transactionResult(Message message) {
+        synchronized (transactionLock) {
+            if (message.getType().equals("tx-ack")) {
+                this.committedTransaction = Math.max(this.committedTransaction, message.getSequence());
+            } else {
+                System.out.println("Transacción " + message.getSequence() + " abortada por el servidor");
+                this.abortedTransaction = Math.max(this.abortedTransaction, message.getSequence());
+            }
+            transactionLock.notifyAll();
+        }
+    }
+
+    /**
+     * Escribe una trama en el socket. Las escrituras se sincronizan porque el hilo de escucha también envía tramas
+     * (solicitud del listado completo) mientras la interfaz envía mensajes
+     * @param message objeto a enviar
+     * @throws IOException
+     */
+    private void send(Message message) throws IOException {
+        synchronized (dataOutputStream) {
+            MessageCodec.writeFrame(dataOutputStream, message);
+        }
+    }
+
+    /**
+     * Loop para escucha activa de mensajes enviados desde el servidor. Finaliza cuando el servidor cierra su extremo
+     * del socket
+     */
+    public void listen() {
+        while (connected || closing) {
+            try {
+                Message message = MessageCodec.readFrame(dataInputStream);
+                this.operations(message);
+            } catch (EOFException e) {
+                if (!closing) System.out.println("El servidor cerró la conexión");
+                this.connected = false;
+                return;
+            } catch (IOException e) {
+                if (!clientSocket.isClosed()) System.out.println("error en listen() de cliente " + e);
+                if (closing || clientSocket.isClosed()) return;
+            }
+        }
+    }
+
+    /**
+     * Ejecuta la acción determinada en el atributo type del objeto message (conexión aceptada "connection-accept",
+     * nuevo cliente "new-client", cliente desconectado "disconnect-client", listado completo "roster-snapshot",
+     * confirmación de desconexión "disconnect-ack", confirmación de mensaje enrutado "message-ack", mensaje
+     * rechazado "message-nack", resultado de una transacción "tx-ack" o "tx-abort", mensaje "message", mensaje
+     * publicado en un canal "channel-message")
+     * @param message objeto que contiene la acción a ejecutar y los datos a procesar
+     */
+    private void operations(Message message) {
+        switch (message.getType()) {
+            case "connection-accept":
+            case "roster-snapshot":
+                this.snapshotRequested = false;
+                this.rosterVersion = message.getSequence();
+                this.setDestinies(message.getDestinies());
+                break;
+            case "new-client":
+                if (this.acceptRosterDelta(message)) this.addDestiny(message.getSender());
+                break;
+            case "disconnect-client":
+                if (this.acceptRosterDelta(message)) this.removeDestiny(message.getSender());
+                break;
+            case "disconnect-ack":
+                this.disconnectAck.countDown();
+                break;
+            case "message-ack":
+                this.acknowledgedSequence = Math.max(this.acknowledgedSequence, message.getSequence());
+                break;
+            case "message-nack":
+                System.out.println("Mensaje " + message.getSequence() + " rechazado por el servidor, destinos: "
+                        + message.getDestinies());
+                this.rejectedSequence = Math.max(this.rejectedSequence, message.getSequence());
+                break;
+            case "tx-ack":
+            case "tx-abort":
+                this.transactionResult(message);
+                break;
+            case "message":
+                this.sender = message.getSender();
+                this.setMessage(message.getMessage());
+                System.out.println(this.sender + " -> " + this.message);
+                break;
+            case "channel-message":
+                this.sender = message.getSender();
+                this.setMessage(message.getMessage());
+                System.out.println("#" + message.getDestiny() + " " + this.sender + " -> " + this.message);
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Valida la versión de un cambio del listado de destinatarios. El cambio se aplica solo si corresponde a la versión
+     * siguiente a la local; si se detecta un salto (se perdió algún cambio) se solicita al servidor el listado
+     * completo, y los cambios ya reflejados en la versión local se ignoran
+     * @param message cambio del listado ("new-client" o "disconnect-client")
+     * @return true si el cambio debe aplicarse a la lista local
+     */
+    private boolean acceptRosterDelta(Message message) {
+        long version = message.getSequence();
+        if (!this.snapshotRequested && version == this.rosterVersion + 1) {
+            this.rosterVersion = version;
+            return true;
+        }
+        if (!this.snapshotRequested && version > this.rosterVersion) {
+            this.snapshotRequested = true;
+            try {
+                this.send(new Message("roster-request", this.idClient));
+            } catch (IOException e) {
+                System.out.println("Error solicitando listado de destinatarios " + e);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Notifica el servidor del cierre de conexión y efectúa el cierre ordenado del socket: se envía la solicitud de
+     * desconexión, se espera la confirmación del servidor como máximo DISCONNECT_TIMEOUT milisegundos, se cierra el
+     * sentido de escritura del socket y finalmente se libera el socket
+     */
+    public void closeConnection() {
+        if (this.closing || this.dataOutputStream == null) return;
+        try {
+            this.closing = true;
+            this.connected = false;
+            Message message = new Message("disconnect", this.idClient);
+            this.send(message);
+            if (!this.disconnectAck.await(DISCONNECT_TIMEOUT, TimeUnit.MILLISECONDS)) {
+                System.out.println("El servidor no confirmó la desconexión");
+            }
+            clientSocket.shutdownOutput();
+        } catch (IOException e) {
+            System.out.println("Error cerrando conexión: " + e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            try {
+                clientSocket.close();
+            } catch (IOException e) {
+                System.out.println("Error cerrando conexión: " + e);
+            }
+            this.closing = false;
+        }
+    }
+
+    /**
+     * Retorna una copia de la lista de clientes destino habilitados en el servidor, ordenada alfabéticamente. La copia
+     * no cambia con los ingresos y salidas posteriores, por lo que puede recorrerse desde cualquier hilo
+     * @return lista de clientes destino
+     */
+    public ArrayList<String> getDestinies() {
+        ArrayList<String> copy = new ArrayList<>(destinies);
+        copy.sort(String.CASE_INSENSITIVE_ORDER);
+        return copy;
+    }
+
+    /**
+     * Adiciona un cliente destino a la lista de clientes habilita en el servidor
+     * @param destiny destinatario a agregar en la lista de clientes destino
+     */
+    public void addDestiny(String destiny) {
+        if (this.destinies.add(destiny)) {
+            this.triggerDestinyEvent(destiny, true);
+        }
+    }
+
+    /**
+     * Elimina un cliente destino a la lista de clientes habilita en el servidor
+     * @param destiny destinatario a eliminar en la lista de clientes destino
+     */
+    public void removeDestiny(String destiny) {
+        if (this.destinies.remove(destiny)) {
+            this.triggerDestinyEvent(destiny, false);
+        }
+    }
+
+    /**
+     * Agrega un evento al listado de eventos a escuchar. El oyente es invocado por el bus de eventos, fuera del hilo
+     * de escucha, y recibe en el evento los datos del cambio
+     * @param listener evento a agregar en la lista de eventos a escuchar
+     */
+    public void addEventListener(EventChangeClientListener listener) {
+        events.subscribe(event -> {
+            if (event.isDestiniesChange()) {
+                listener.onDestiniesChange(event);
+            } else {
+                listener.onMessageChange(event);
+            }
+        });
+    }
+
+    /**
+     * Método para disparar el evento cuando cambie la variable message que contiene el mensaje que se debe mostrar
+     * en consola. El evento se publica sin esperar a los oyentes, salvo que la cola de eventos esté llena: en ese caso
+     * el hilo de escucha espera a que los oyentes la vacíen, pues un mensaje ya entregado por el servidor no puede
+     * descartarse, y mientras tanto el servidor retiene los mensajes siguientes en la cola de salida del cliente
+     */
+    private void triggerMessageEvent() {
+        events.publishBlocking(new EventChangeClient(this, this, sender, message));
+    }
+
+    /**
+     * Método para disparar el evento cuando se reemplace la variable destinies que contiene la lista de destinatarios
+     * habilitados en el servidor, el evento lleva una copia de la lista y se publica sin esperar a los oyentes
+     */
+    private void triggerDestiniesEvent() {
+        events.publish(this.destiniesEvent(), this::destiniesEvent);
+    }
+
+    /**
+     * Método para disparar el evento cuando se agregue o elimine un destinatario de la variable destinies, el evento
+     * lleva solo el destinatario que cambió y se publica sin esperar a los oyentes
+     * @param destiny destinatario agregado o eliminado
+     * @param added true si el destinatario fue agregado, false si fue eliminado
+     */
+    private void triggerDestinyEvent(String destiny, boolean added) {
+        events.publish(new EventChangeClient(this, this, destiny, added), this::destiniesEvent);
+    }
+
+    /**
+     * Construye el evento con una copia de la lista completa de destinatarios, reemplaza a los cambios de la lista
+     * descartados por el bus de eventos
+     * @return evento con la lista de destinatarios
+     */
+    private EventChangeClient destiniesEvent() {
+        return new EventChangeClient(this, this, new ArrayList<>(destinies));
+    }
+
+
+    /**
+     * Carga la lista de clientes destino habilita en el servidor
+     * @param destinies
+     */
+    public void setDestinies(ArrayList<String> destinies) {
+        Set<String> replacement = ConcurrentHashMap.newKeySet();
+        if (destinies != null) replacement.addAll(destinies);
+        this.destinies = replacement;
+        this.triggerDestiniesEvent();
+    }
+
+    /**
+     * Retorna string que contiene el nombre que identifica al cliente
+     * @return nombre que identifica al cliente
+     */
+    public String getIdClient() {
+        return idClient;
+    }
+
+    /**
+     * Retorna el número de secuencia del último mensaje enviado
+     * @return secuencia del último mensaje enviado
+     */
+    public long getMessageSequence() {
+        return messageSequence.get();
+    }
+
+    /**
+     * Retorna el número de secuencia del último mensaje confirmado por el servidor, los mensajes con secuencia menor o
+     * igual fueron entregados a sus destinatarios conectados (como máximo una vez) o guardados en sus buzones
+     * @return secuencia del último mensaje confirmado
+     */
+    public long getAcknowledgedSequence() {
+        return acknowledgedSequence;
+    }
+
+    /**
+     * Retorna el número de secuencia del último mensaje rechazado por el servidor, por estar dirigido a destinatarios
+     * que nunca se conectaron o a un destino inválido. Los destinos válidos del mensaje sí lo reciben
+     * @return secuencia del último mensaje rechazado
+     */
+    public long getRejectedSequence() {
+        return rejectedSequence;
+    }
+
+    /**
+     * Retorna estado en que se encuentra el cliente para escuchar mensajes
+     * @return estado de conexión
+     */
+    public boolean isConnected() {
+        return connected;
+    }
+
+    /**
+     * Retorna el mensaje recibido
+     * @return String con mensaje recibido
+     */
+    public String getMessage() {
+        return message;
+    }
+
+    /**
+     * Establece el valor del mensaje recibido
+     * @param message String que contiene el mensaje recibido
+     */
+    public void setMessage(String message) {
+        this.message = message;
+        this.triggerMessageEvent();
+    }
+
+    /**
+     * Retorna el nombre o identificador del remitente de un mensaje recibido
+     * @return String que identifica al remitente de un mensaje
+     */
+    public String getSender() {
+        return sender;
+    }
+}
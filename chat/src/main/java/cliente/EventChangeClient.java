@@ -0,0 +1,149 @@
+package cliente;
+
+import java.util.EventObject;
+import java.util.List;
+
+/**
+ * Esta clase permite crear objetos de evento para la clase Client, asi monitorear los cambios en
+ * sus atributos. Esta clase debe extender de EventObject, ya que es la clase raíz de la que se derivarán todos los
+ * objetos de estado de evento.
+ * @Author Jorge Luis Velasquez
+ */
+public class EventChangeClient extends EventObject {
+
+    /**
+     * Client: Atributo que permite recibir la instancia en la que sucede el evento
+     */
+    Client client;
+
+    /**
+     * Sender: remitente del mensaje recibido, null en un cambio de la lista de destinatarios
+     */
+    private final String sender;
+
+    /**
+     * Message: mensaje recibido, null en un cambio de la lista de destinatarios
+     */
+    private final String message;
+
+    /**
+     * Destinies: copia de la lista completa de destinatarios, null si el evento no reemplaza la lista
+     */
+    private final List<String> destinies;
+
+    /**
+     * Added: destinatario agregado a la lista, null si el evento no agrega un destinatario
+     */
+    private final String added;
+
+    /**
+     * Removed: destinatario eliminado de la lista, null si el evento no elimina un destinatario
+     */
+    private final String removed;
+
+    /**
+     * Construye un prototipo de evento de mensaje recibido. El evento se entrega después de ser publicado, por lo que
+     * contiene el mensaje en lugar de consultarlo al cliente
+     *
+     * @param source objeto en el que ocurrió inicialmente el evento
+     * @param client objeto en el que ocurrió inicialmente el evento
+     * @param sender remitente del mensaje recibido
+     * @param message mensaje recibido
+     * @throws IllegalArgumentException if source is null
+     */
+    public EventChangeClient(Object source, Client client, String sender, String message) {
+        super(source);
+        this.client = client;
+        this.sender = sender;
+        this.message = message;
+        this.destinies = null;
+        this.added = null;
+        this.removed = null;
+    }
+
+    /**
+     * Construye un prototipo de evento de reemplazo de la lista completa de destinatarios
+     *
+     * @param source objeto en el que ocurrió inicialmente el evento
+     * @param client objeto en el que ocurrió inicialmente el evento
+     * @param destinies copia de la lista de destinatarios, no debe modificarse
+     * @throws IllegalArgumentException if source is null
+     */
+    public EventChangeClient(Object source, Client client, List<String> destinies) {
+        super(source);
+        this.client = client;
+        this.sender = null;
+        this.message = null;
+        this.destinies = destinies;
+        this.added = null;
+        this.removed = null;
+    }
+
+    /**
+     * Construye un prototipo de evento de ingreso o salida de un destinatario de la lista
+     *
+     * @param source objeto en el que ocurrió inicialmente el evento
+     * @param client objeto en el que ocurrió inicialmente el evento
+     * @param destiny destinatario agregado o eliminado
+     * @param added true si el destinatario fue agregado, false si fue eliminado
+     * @throws IllegalArgumentException if source is null
+     */
+    public EventChangeClient(Object source, Client client, String destiny, boolean added) {
+        super(source);
+        this.client = client;
+        this.sender = null;
+        this.message = null;
+        this.destinies = null;
+        this.added = added ? destiny : null;
+        this.removed = added ? null : destiny;
+    }
+
+    /**
+     * Indica si el evento corresponde a un cambio de la lista de destinatarios: su reemplazo, o el ingreso o salida de
+     * un destinatario
+     * @return true si cambió la lista de destinatarios, false si se recibió un mensaje
+     */
+    public boolean isDestiniesChange() {
+        return destinies != null || added != null || removed != null;
+    }
+
+    /**
+     * Retorna el remitente del mensaje recibido
+     * @return remitente, null en un cambio de la lista de destinatarios
+     */
+    public String getSender() {
+        return sender;
+    }
+
+    /**
+     * Retorna el mensaje recibido
+     * @return mensaje, null en un cambio de la lista de destinatarios
+     */
+    public String getMessage() {
+        return message;
+    }
+
+    /**
+     * Retorna la lista completa de destinatarios cuando el evento la reemplaza
+     * @return lista de destinatarios, null si el evento no reemplaza la lista
+     */
+    public List<String> getDestinies() {
+        return destinies;
+    }
+
+    /**
+     * Retorna el destinatario agregado a la lista
+     * @return destinatario agregado, null si el evento no agrega un destinatario
+     */
+    public String getAdded() {
+        return added;
+    }
+
+    /**
+     * Retorna el destinatario eliminado de la lista
+     * @return destinatario eliminado, null si el evento no elimina un destinatario
+     */
+    public String getRemoved() {
+        return removed;
+    }
+}
@@ -0,0 +1,78 @@
+package cliente;
+
+import javax.swing.*;
+import java.io.IOException;
+
+/**
+ * Clase HistoryListModel, modelo de la lista de mensajes enviados y recibidos de la ventana del cliente respaldado
+ * por un HistoryStore. La lista solo solicita al modelo los mensajes de las filas visibles, y el historial los lee del
+ * archivo por páginas, por lo que el costo de agregar o mostrar un mensaje no depende del tamaño del historial. Debe
+ * emplearse desde el hilo de eventos de Swing
+ * @Author Jorge Luis Velasquez Venegas
+ */
+public class HistoryListModel extends AbstractListModel<String> {
+
+    /**
+     * Store: historial de mensajes en disco
+     */
+    private final HistoryStore store;
+
+    /**
+     * Constructor de la clase HistoryListModel
+     * @param store historial de mensajes en disco
+     */
+    public HistoryListModel(HistoryStore store) {
+        this.store = store;
+    }
+
+    /**
+     * Agrega un mensaje al final de la lista, notificando a la lista de los mensajes descartados por el historial
+     * @param entry texto del mensaje
+     */
+    public void add(String entry) {
+        try {
+            int dropped = store.add(entry);
+            if (dropped > 0) this.fireIntervalRemoved(this, 0, dropped - 1);
+        } catch (IOException e) {
+            System.out.println("Error guardando historial " + e);
+            return;
+        }
+        int index = store.size() - 1;
+        this.fireIntervalAdded(this, index, index);
+    }
+
+    /**
+     * Retorna el número de mensajes de la lista
+     * @return número de mensajes
+     */
+    @Override
+    public int getSize() {
+        return store.size();
+    }
+
+    /**
+     * Retorna el mensaje de una fila de la lista
+     * @param index fila de la lista
+     * @return texto del mensaje, vacío si no es posible leerlo del historial
+     */
+    @Override
+    public String getElementAt(int index) {
+        try {
+            return store.get(index);
+        } catch (IOException e) {
+            System.out.println("Error leyendo historial " + e);
+            return "";
+        }
+    }
+
+    /**
+     * Cierra y elimina el historial en disco
+     */
+    public void close() {
+        try {
+            store.close();
+        } catch (IOException e) {
+            System.out.println("Error cerrando historial " + e);
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package cliente;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Clase HistoryStore, historial de mensajes del cliente guardado en un archivo temporal y leído por páginas. Cada
+ * mensaje se escribe al final del archivo (longitud y texto en UTF-8) y en memoria solo se conserva la posición de
+ * cada mensaje en el archivo y unas pocas páginas de mensajes recientemente leídos, de modo que la memoria empleada
+ * no depende de la duración de la sesión. El historial conserva como máximo un número fijo de mensajes: al llenarse se
+ * descarta la mitad más antigua y el archivo se reescribe con los mensajes restantes. No es seguro para hilos, debe
+ * emplearse desde un único hilo (el hilo de eventos de Swing)
+ * @Author Jorge Luis Velasquez Venegas
+ */
+public class HistoryStore {
+
+    /**
+     * PageRows: número de mensajes de cada página
+     */
+    private final int pageRows;
+
+    /**
+     * MaxEntries: máximo de mensajes que conserva el historial
+     */
+    private final int maxEntries;
+
+    /**
+     * Pages: páginas leídas recientemente, indexadas por su número y ordenadas por su último acceso
+     */
+    private final LinkedHashMap<Integer, String[]> pages;
+
+    /**
+     * Offsets: posición en el archivo de cada mensaje
+     */
+    private long[] offsets = new long[1024];
+
+    /**
+     * Size: número de mensajes del historial
+     */
+    private int size;
+
+    /**
+     * Path: ruta del archivo del historial
+     */
+    private Path path;
+
+    /**
+     * File: archivo del historial
+     */
+    private RandomAccessFile file;
+
+    /**
+     * Constructor de la clase HistoryStore, crea el archivo temporal del historial
+     * @param pageRows número de mensajes de cada página
+     * @param cachedPages número de páginas que se conservan en memoria
+     * @param maxEntries máximo de mensajes que conserva el historial
+     * @throws IOException si no es posible crear el archivo del historial
+     */
+    public HistoryStore(int pageRows, int cachedPages, int maxEntries) throws IOException {
+        this.pageRows = Math.max(1, pageRows);
+        this.maxEntries = Math.max(2, maxEntries);
+        this.pages = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, String[]> eldest) {
+                return size() > Math.max(1, cachedPages);
+            }
+        };
+        this.path = Files.createTempFile("historial-", ".log");
+        this.file = new RandomAccessFile(path.toFile(), "rw");
+    }
+
+    /**
+     * Agrega un mensaje al final del historial. Si el historial está lleno, antes se descarta la mitad más antigua
+     * @param entry texto del mensaje
+     * @return número de mensajes descartados del inicio del historial, cero si no se descartó ninguno
+     * @throws IOException si no es posible escribir el archivo del historial
+     */
+    public int add(String entry) throws IOException {
+        int dropped = 0;
+        if (size == maxEntries) dropped = this.compact(maxEntries / 2);
+        byte[] text = entry.getBytes(StandardCharsets.UTF_8);
+        byte[] record = new byte[Integer.BYTES + text.length];
+        record[0] = (byte) (text.length >>> 24);
+        record[1] = (byte) (text.length >>> 16);
+        record[2] = (byte) (text.length >>> 8);
+        record[3] = (byte) text.length;
+        System.arraycopy(text, 0, record, Integer.BYTES, text.length);
+        long offset = file.length();
+        file.seek(offset);
+        file.write(record);
+
+        if (size == offsets.length) offsets = Arrays.copyOf(offsets, Math.min(maxEntries, size * 2));
+        offsets[size] = offset;
+//      Se agrega el mensaje a su página si se encuentra en memoria, la última página suele estarlo
+        String[] page = pages.get(size / pageRows);
+        if (page == null && size % pageRows == 0) {
+            page = new String[pageRows];
+            pages.put(size / pageRows, page);
+        }
+        if (page != null) page[size % pageRows] = entry;
+        size++;
+        return dropped;
+    }
+
+    /**
+     * Retorna un mensaje del historial, leyendo su página del archivo si no se encuentra en memoria
+     * @param index posición del mensaje, cero es el más antiguo que se conserva
+     * @return texto del mensaje
+     * @throws IOException si no es posible leer el archivo del historial
+     */
+    public String get(int index) throws IOException {
+        if (index < 0 || index >= size) throw new IndexOutOfBoundsException("Mensaje inexistente: " + index);
+        int number = index / pageRows;
+        String[] page = pages.get(number);
+        if (page == null || page[index % pageRows] == null) {
+            page = this.readPage(number);
+            pages.put(number, page);
+        }
+        return page[index % pageRows];
+    }
+
+    /**
+     * Retorna el número de mensajes del historial
+     * @return número de mensajes
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Cierra y elimina el archivo del historial
+     * @throws IOException si no es posible eliminar el archivo
+     */
+    public void close() throws IOException {
+        file.close();
+        Files.deleteIfExists(path);
+    }
+
+    /**
+     * Lee una página del archivo con una sola lectura
+     * @param number número de la página
+     * @return mensajes de la página
+     * @throws IOException si no es posible leer el archivo del historial
+     */
+    private String[] readPage(int number) throws IOException {
+        int first = number * pageRows;
+        int last = Math.min(size, first + pageRows);
+        long start = offsets[first];
+        long end = last < size ? offsets[last] : file.length();
+        byte[] data = new byte[(int) (end - start)];
+        file.seek(start);
+        file.readFully(data);
+
+        String[] page = new String[pageRows];
+        int position = 0;
+        for (int i = first; i < last; i++) {
+            int length = ((data[position] & 0xFF) << 24) | ((data[position + 1] & 0xFF) << 16)
+                    | ((data[position + 2] & 0xFF) << 8) | (data[position + 3] & 0xFF);
+            position += Integer.BYTES;
+            page[i - first] = new String(data, position, length, StandardCharsets.UTF_8);
+            position += length;
+        }
+        return page;
+    }
+
+    /**
+     * Descarta los mensajes más antiguos copiando los restantes a un nuevo archivo
+     * @param count número de mensajes a descartar
+     * @return número de mensajes descartados
+     * @throws IOException si no es posible reescribir el archivo del historial
+     */
+    private int compact(int count) throws IOException {
+        long base = offsets[count];
+        Path compacted = Files.createTempFile("historial-", ".log");
+        RandomAccessFile target = new RandomAccessFile(compacted.toFile(), "rw");
+        try {
+            FileChannel source = file.getChannel();
+            long length = source.size() - base;
+            long copied = 0;
+            while (copied < length) {
+                copied += source.transferTo(base + copied, length - copied, target.getChannel());
+            }
+        } catch (IOException e) {
+            target.close();
+            Files.deleteIfExists(compacted);
+            throw e;
+        }
+        this.close();
+        file = target;
+        path = compacted;
+
+        size -= count;
+        System.arraycopy(offsets, count, offsets, 0, size);
+        for (int i = 0; i < size; i++) {
+            offsets[i] -= base;
+        }
+//      Las páginas cambian de límites al desplazarse los mensajes
+        pages.clear();
+        return count;
+    }
+}
@@ -0,0 +1,314 @@
+package cliente;
+
+import servidor.LatencyHistogram;
+import servidor.Server;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Clase LoadGenerator, generador de carga sin interfaz que simula miles de clientes del chat empleando la clase Client.
+ * Abre las conexiones al ritmo indicado, envía mensajes a un ritmo total constante eligiendo el destinatario de forma
+ * uniforme o concentrada en unos pocos clientes (hot-spot) y, si se indica, desconecta y reconecta clientes para
+ * ejercitar la difusión del listado de clientes conectados. Cada mensaje lleva el instante en que fue enviado, de modo
+ * que su receptor registra la latencia de extremo a extremo; cada segundo se reporta el número de mensajes enviados y
+ * recibidos y al terminar el throughput y los percentiles de la latencia. Los parámetros se definen mediante
+ * propiedades del sistema, por ejemplo: -Dcarga.clients=2000 -Dcarga.connectRate=500 -Dcarga.messageRate=20000
+ * -Dcarga.payloadBytes=128 -Dcarga.distribution=uniform|hotspot -Dcarga.hotSpotClients=10 -Dcarga.hotSpotShare=0.9
+ * -Dcarga.churnRate=5 -Dcarga.durationSec=30 -Dcarga.host=localhost -Dcarga.port=2022. Con -Dcarga.embedded=true se
+ * inicia un servidor en el mismo proceso (configurado con las propiedades -Dservidor.*)
+ * @Author Jorge Luis Velasquez Venegas
+ */
+public class LoadGenerator {
+
+    /**
+     * SEPARATOR: separa el instante de envío del relleno en el texto de cada mensaje
+     */
+    private static final char SEPARATOR = '|';
+
+    /**
+     * Host: dirección del servidor
+     */
+    private final String host;
+
+    /**
+     * Port: puerto del servidor
+     */
+    private final int port;
+
+    /**
+     * Clients: clientes simulados, cada posición conserva siempre el mismo nombre aunque se reconecte
+     */
+    private final AtomicReferenceArray<Client> clients;
+
+    /**
+     * ConnectRate: conexiones abiertas por segundo al iniciar
+     */
+    private final int connectRate;
+
+    /**
+     * MessageRate: mensajes enviados por segundo entre todos los clientes
+     */
+    private final int messageRate;
+
+    /**
+     * Payload: relleno que completa el tamaño de cada mensaje
+     */
+    private final String payload;
+
+    /**
+     * HotSpot: indica si los destinatarios se concentran en unos pocos clientes
+     */
+    private final boolean hotSpot;
+
+    /**
+     * HotSpotClients: número de clientes que concentran el tráfico en la distribución hot-spot
+     */
+    private final int hotSpotClients;
+
+    /**
+     * HotSpotShare: fracción de los mensajes dirigidos a los clientes que concentran el tráfico
+     */
+    private final double hotSpotShare;
+
+    /**
+     * ChurnRate: desconexiones y reconexiones por segundo
+     */
+    private final double churnRate;
+
+    /**
+     * DurationSeconds: duración de la medición, contada desde que se abren todas las conexiones
+     */
+    private final int durationSeconds;
+
+    /**
+     * Latency: histograma de la latencia de extremo a extremo de los mensajes recibidos
+     */
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    /**
+     * Sent: número de mensajes enviados
+     */
+    private final LongAdder sent = new LongAdder();
+
+    /**
+     * Received: número de mensajes recibidos
+     */
+    private final LongAdder received = new LongAdder();
+
+    /**
+     * Reconnections: número de desconexiones y reconexiones realizadas
+     */
+    private final AtomicInteger reconnections = new AtomicInteger();
+
+    /**
+     * Running: indica que la medición sigue en curso
+     */
+    private volatile boolean running = true;
+
+    /**
+     * Report: salida de los reportes, la salida estándar de los clientes se descarta para no medir la consola
+     */
+    private final PrintStream report;
+
+    /**
+     * Constructor de la clase LoadGenerator, lee los parámetros de las propiedades del sistema
+     * @param report salida de los reportes
+     */
+    public LoadGenerator(PrintStream report) {
+        this.report = report;
+        this.host = System.getProperty("carga.host", "localhost");
+        this.port = Integer.getInteger("carga.port", 2022);
+        this.clients = new AtomicReferenceArray<>(Math.max(2, Integer.getInteger("carga.clients", 1000)));
+        this.connectRate = Math.max(1, Integer.getInteger("carga.connectRate", 500));
+        this.messageRate = Math.max(1, Integer.getInteger("carga.messageRate", 10000));
+        this.payload = "x".repeat(Math.max(0, Integer.getInteger("carga.payloadBytes", 64) - 20));
+        this.hotSpot = "hotspot".equalsIgnoreCase(System.getProperty("carga.distribution", "uniform"));
+        this.hotSpotClients = Math.max(1, Math.min(clients.length(), Integer.getInteger("carga.hotSpotClients", 10)));
+        this.hotSpotShare = Double.parseDouble(System.getProperty("carga.hotSpotShare", "0.9"));
+        this.churnRate = Double.parseDouble(System.getProperty("carga.churnRate", "0"));
+        this.durationSeconds = Math.max(1, Integer.getInteger("carga.durationSec", 30));
+    }
+
+    /**
+     * Inicia el generador de carga y, si se indica, un servidor en el mismo proceso
+     * @param args no se emplean, los parámetros se definen mediante propiedades del sistema
+     * @throws Exception si no es posible iniciar el servidor o abrir las conexiones
+     */
+    public static void main(String[] args) throws Exception {
+        PrintStream report = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        if (Boolean.getBoolean("carga.embedded")) {
+            new Server(Integer.getInteger("carga.port", 2022));
+        }
+        new LoadGenerator(report).run();
+        System.exit(0);
+    }
+
+    /**
+     * Ejecuta la medición: abre las conexiones, genera el tráfico y la rotación de clientes durante el tiempo indicado
+     * y reporta los resultados
+     * @throws IOException si no es posible abrir las conexiones iniciales
+     * @throws InterruptedException si el hilo es interrumpido
+     */
+    public void run() throws IOException, InterruptedException {
+        long connectStart = System.nanoTime();
+        long interval = TimeUnit.SECONDS.toNanos(1) / connectRate;
+        for (int i = 0; i < clients.length(); i++) {
+            clients.set(i, this.connect(i));
+            LockSupport.parkNanos(connectStart + (i + 1) * interval - System.nanoTime());
+        }
+        report.printf(Locale.ROOT, "%d clientes conectados en %d ms%n", clients.length(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - connectStart));
+
+        Thread sender = new Thread(this::sendLoop, "LoadGenerator-sender");
+        sender.start();
+        Thread churn = null;
+        if (churnRate > 0) {
+            churn = new Thread(this::churnLoop, "LoadGenerator-churn");
+            churn.start();
+        }
+
+        long start = System.nanoTime();
+        long lastSent = 0;
+        long lastReceived = 0;
+        for (int second = 1; second <= durationSeconds; second++) {
+            LockSupport.parkNanos(start + TimeUnit.SECONDS.toNanos(second) - System.nanoTime());
+            long totalSent = sent.sum();
+            long totalReceived = received.sum();
+            report.printf(Locale.ROOT, "t=%ds enviados/s=%d recibidos/s=%d reconexiones=%d latencia: %s%n", second,
+                    totalSent - lastSent, totalReceived - lastReceived, reconnections.get(), latency);
+            lastSent = totalSent;
+            lastReceived = totalReceived;
+        }
+        running = false;
+        sender.join();
+        if (churn != null) churn.join();
+        double seconds = (System.nanoTime() - start) / 1e9;
+        report.printf(Locale.ROOT, "Resultado: enviados=%d recibidos=%d throughput=%.0f msg/s reconexiones=%d%n",
+                sent.sum(), received.sum(), received.sum() / seconds, reconnections.get());
+        report.printf(Locale.ROOT, "Latencia extremo a extremo: p50=%.1f µs p99=%.1f µs p99.9=%.1f µs max=%.1f µs%n",
+                latency.getPercentile(50) / 1e3, latency.getPercentile(99) / 1e3, latency.getPercentile(99.9) / 1e3,
+                latency.getMax() / 1e3);
+        for (int i = 0; i < clients.length(); i++) {
+            Client client = clients.get(i);
+            if (client != null && client.isConnected()) client.closeConnection();
+        }
+    }
+
+    /**
+     * Abre la conexión del cliente simulado de una posición y registra la latencia de los mensajes que recibe
+     * @param index posición del cliente
+     * @return cliente conectado
+     * @throws IOException si no es posible abrir la conexión
+     */
+    private Client connect(int index) throws IOException {
+        Client client = new Client(host, port, name(index));
+        client.addEventListener(new EventChangeClientListener() {
+            @Override
+            void onMessageChange(EventChangeClient event) {
+                record(event.getMessage());
+            }
+        });
+        return client;
+    }
+
+    /**
+     * Registra la latencia de un mensaje recibido a partir del instante de envío que contiene su texto
+     * @param text texto del mensaje recibido
+     */
+    private void record(String text) {
+        int end = text == null ? -1 : text.indexOf(SEPARATOR);
+        if (end <= 0) return;
+        try {
+            latency.record(System.nanoTime() - Long.parseLong(text, 0, end, 10));
+            received.increment();
+        } catch (NumberFormatException e) {
+//          Se ignoran los mensajes que no fueron generados por el generador de carga
+        }
+    }
+
+    /**
+     * Loop de envío: envía los mensajes al ritmo total indicado desde clientes elegidos al azar. Si el envío se
+     * retrasa respecto al ritmo, los mensajes pendientes se envían de inmediato para no ocultar la latencia del
+     * servidor
+     */
+    private void sendLoop() {
+        long interval = TimeUnit.SECONDS.toNanos(1) / messageRate;
+        long next = System.nanoTime();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (running) {
+            long wait = next - System.nanoTime();
+            if (wait > 0) LockSupport.parkNanos(wait);
+            next += interval;
+            int from = random.nextInt(clients.length());
+            int to = this.recipient(random, from);
+            Client client = clients.get(from);
+            if (to < 0 || client == null || !client.isConnected()) continue;
+            client.sendMessage(System.nanoTime() + String.valueOf(SEPARATOR) + payload, name(to));
+            sent.increment();
+        }
+    }
+
+    /**
+     * Elige el destinatario de un mensaje según la distribución indicada, distinto del emisor. Si el destinatario del
+     * punto caliente es el propio emisor, se elige uno de los demás clientes en lugar de volver a sortear, pues con un
+     * único cliente en el punto caliente el sorteo podría repetir siempre al emisor
+     * @param random generador de números aleatorios
+     * @param from posición del emisor
+     * @return posición del destinatario, -1 si no hay otro cliente al cual enviar
+     */
+    private int recipient(ThreadLocalRandom random, int from) {
+        int count = clients.length();
+        if (count < 2) return -1;
+        if (hotSpot && random.nextDouble() < hotSpotShare) {
+            int to = random.nextInt(hotSpotClients);
+            if (to != from) return to;
+        }
+//      Se elige al azar entre los demás clientes, omitiendo la posición del emisor
+        int to = random.nextInt(count - 1);
+        return to < from ? to : to + 1;
+    }
+
+    /**
+     * Loop de rotación: al ritmo indicado desconecta un cliente elegido al azar y lo vuelve a conectar con el mismo
+     * nombre, lo que genera dos cambios del listado de clientes que el servidor difunde a todos los conectados. Los
+     * mensajes dirigidos al cliente mientras está desconectado se le entregan al reconectarse
+     */
+    private void churnLoop() {
+        long interval = (long) (TimeUnit.SECONDS.toNanos(1) / churnRate);
+        long next = System.nanoTime();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (running) {
+            next += interval;
+            LockSupport.parkNanos(next - System.nanoTime());
+            int index = random.nextInt(clients.length());
+            Client client = clients.getAndSet(index, null);
+            if (client == null) continue;
+            client.closeConnection();
+            try {
+                clients.set(index, this.connect(index));
+                reconnections.incrementAndGet();
+            } catch (IOException e) {
+                report.println("Error reconectando cliente " + name(index) + " " + e);
+            }
+        }
+    }
+
+    /**
+     * Retorna el nombre del cliente simulado de una posición
+     * @param index posición del cliente
+     * @return nombre del cliente
+     */
+    private static String name(int index) {
+        return "carga" + index;
+    }
+}
@@ -0,0 +1,148 @@
+package cliente;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.List;
+
+/**
+ * Clase principal que inicia la ejecución del cliente de chat en consola. El hilo principal no consulta
+ * periódicamente el estado del cliente: espera bloqueado a que los eventos de la clase Client notifiquen cambios de la
+ * lista de destinatarios o a que termine la conexión, y lee la entrada estándar con lecturas bloqueantes, por lo que
+ * no consume CPU mientras no ocurra nada. Los mensajes recibidos se imprimen de forma asíncrona desde el hilo de
+ * escucha del cliente, y los ingresos y salidas de clientes desde el bus de eventos. Los datos de conexión pueden
+ * indicarse como argumentos (ip, puerto y nombre) para iniciar sin preguntas; si la entrada estándar termina, el
+ * cliente permanece conectado recibiendo mensajes hasta que el servidor cierre la conexión, lo que permite ejecutar
+ * muchos clientes sin interfaz en un mismo equipo, por ejemplo:
+ * java cliente.MainCliente localhost 2022 ana &lt; /dev/null
+ * @Author Jorge Luis Velasquez
+ */
+public class MainCliente {
+
+    /**
+     * PRESENCE: monitor en el que el hilo principal espera cambios de la lista de destinatarios o el fin de la conexión
+     */
+    private static final Object PRESENCE = new Object();
+
+    /**
+     * Método main que da inicio a la ejecución del programa
+     * @param args ip del servidor, puerto de conexión y nombre del cliente, todos opcionales
+     * @throws IOException si no es posible conectar con el servidor o leer la entrada estándar
+     * @throws InterruptedException si el hilo principal es interrumpido mientras espera
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+
+        System.out.println("Iniciando cliente");
+
+        BufferedReader input = new BufferedReader(new InputStreamReader(System.in));
+
+        String ip = args.length > 0 ? args[0]
+                : prompt(input, "Ingrese dirección ip de servidor (default= localhost): ");
+
+        Integer port;
+        try {
+            port = Integer.valueOf(args.length > 1 ? args[1] : prompt(input,
+                    "Ingrese puerto de conexión (default= 2022): "));
+        } catch (NumberFormatException e) {
+            port = 0;
+        }
+
+        String name = args.length > 2 ? args[2] : prompt(input, "Ingrese su nombre: ");
+        if (name.isBlank()) name = "Usuario";
+
+        Client client = new Client(ip, port, name);
+        client.addEventListener(new EventChangeClientListener() {
+            @Override
+            void onDestiniesChange(EventChangeClient event) {
+                if (event.getAdded() != null) System.out.println("Cliente conectado: " + event.getAdded());
+                if (event.getRemoved() != null) System.out.println("Cliente desconectado: " + event.getRemoved());
+                signal();
+            }
+        });
+
+//      Se despierta al hilo principal cuando termina el hilo de escucha del cliente
+        Thread watcher = new Thread(() -> {
+            try {
+                client.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            signal();
+        }, "MainCliente-watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+
+        List<String> destinies;
+        while ((destinies = awaitDestinies(client)) != null) {
+            System.out.println("Seleccione destinatario: ");
+            for (int i = 0; i < destinies.size(); i++) {
+                System.out.println(i + 1 + ": " + destinies.get(i));
+            }
+            String option = input.readLine();
+            if (option == null) break;
+            String destiny;
+            try {
+                destiny = destinies.get(Integer.parseInt(option.trim()) - 1);
+            } catch (NumberFormatException | IndexOutOfBoundsException e) {
+                System.out.println("Destinatario inválido: " + option);
+                continue;
+            }
+
+            System.out.print("Ingrese un mensaje: ");
+
+            String message = input.readLine();
+            if (message == null) break;
+
+            client.sendMessage(message, destiny);
+        }
+
+        if (client.isAlive()) {
+            System.out.println("Entrada finalizada, el cliente permanece conectado recibiendo mensajes");
+            client.join();
+        }
+    }
+
+    /**
+     * Espera, sin consumir CPU, a que el cliente esté conectado y haya al menos un destinatario habilitado
+     * @param client cliente de chat
+     * @return copia de la lista de destinatarios, null si la conexión terminó
+     * @throws InterruptedException si el hilo es interrumpido mientras espera
+     */
+    private static List<String> awaitDestinies(Client client) throws InterruptedException {
+        boolean reported = false;
+        synchronized (PRESENCE) {
+            while (client.isAlive()) {
+                if (client.isConnected()) {
+                    List<String> destinies = client.getDestinies();
+                    if (!destinies.isEmpty()) return destinies;
+                    if (!reported) System.out.println("No hay clientes conectados");
+                    reported = true;
+                }
+                PRESENCE.wait();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Despierta al hilo principal para que vuelva a consultar el estado del cliente
+     */
+    private static void signal() {
+        synchronized (PRESENCE) {
+            PRESENCE.notifyAll();
+        }
+    }
+
+    /**
+     * Muestra una pregunta y lee la respuesta de la entrada estándar
+     * @param input entrada estándar
+     * @param question texto de la pregunta
+     * @return respuesta ingresada, vacía si la entrada terminó
+     * @throws IOException si no es posible leer la entrada estándar
+     */
+    private static String prompt(BufferedReader input, String question) throws IOException {
+        System.out.print(question);
+        String answer = input.readLine();
+        return answer == null ? "" : answer;
+    }
+}
@@ -0,0 +1,212 @@
+package cliente;
+
+import javax.swing.*;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+
+/**
+ * Clase RosterModel, modelo ordenado de la lista desplegable de destinatarios de la ventana del cliente. Los nombres
+ * se conservan en un arreglo ordenado alfabéticamente sin distinguir mayúsculas de minúsculas: el ingreso o salida de
+ * un destinatario se ubica con búsqueda binaria y se notifica a la lista solo la fila que cambió, en lugar de
+ * reconstruir la lista completa. El filtro de búsqueda selecciona los nombres que inician con el texto ingresado, que
+ * por el orden del arreglo forman un rango contiguo que se ubica también con búsqueda binaria. La selección se
+ * conserva mientras el destinatario seleccionado siga en la lista. Debe emplearse desde el hilo de eventos de Swing
+ * @Author Jorge Luis Velasquez Venegas
+ */
+public class RosterModel extends AbstractListModel<String> implements ComboBoxModel<String> {
+
+    /**
+     * ORDER: orden alfabético sin distinguir mayúsculas de minúsculas, desempatado por el orden natural
+     */
+    private static final Comparator<String> ORDER =
+            String.CASE_INSENSITIVE_ORDER.thenComparing(Comparator.naturalOrder());
+
+    /**
+     * Names: nombres de los destinatarios ordenados, ocupan las primeras size posiciones
+     */
+    private String[] names = new String[16];
+
+    /**
+     * Size: número de destinatarios
+     */
+    private int size;
+
+    /**
+     * Filter: texto con el que deben iniciar los nombres visibles, vacío para mostrar todos
+     */
+    private String filter = "";
+
+    /**
+     * From: posición en names del primer nombre visible
+     */
+    private int from;
+
+    /**
+     * To: posición en names siguiente al último nombre visible
+     */
+    private int to;
+
+    /**
+     * Selected: destinatario seleccionado, null si no hay selección
+     */
+    private String selected;
+
+    /**
+     * Reemplaza la lista completa de destinatarios
+     * @param destinies nombres de los destinatarios
+     */
+    public void setAll(Collection<String> destinies) {
+        int previous = to - from;
+        names = destinies.toArray(new String[Math.max(16, destinies.size())]);
+        size = destinies.size();
+        Arrays.sort(names, 0, size, ORDER);
+        this.updateRange();
+        if (previous > 0) this.fireIntervalRemoved(this, 0, previous - 1);
+        if (to > from) this.fireIntervalAdded(this, 0, to - from - 1);
+        this.keepSelection();
+    }
+
+    /**
+     * Agrega un destinatario en su posición ordenada, si no se encuentra en la lista
+     * @param destiny nombre del destinatario
+     */
+    public void add(String destiny) {
+        int index = Arrays.binarySearch(names, 0, size, destiny, ORDER);
+        if (index >= 0) return;
+        index = -index - 1;
+        if (size == names.length) names = Arrays.copyOf(names, size * 2);
+        System.arraycopy(names, index, names, index + 1, size - index);
+        names[index] = destiny;
+        size++;
+        if (this.matches(destiny)) {
+            to++;
+            this.fireIntervalAdded(this, index - from, index - from);
+        } else if (index < from) {
+            from++;
+            to++;
+        }
+        if (selected == null) this.keepSelection();
+    }
+
+    /**
+     * Elimina un destinatario de la lista
+     * @param destiny nombre del destinatario
+     */
+    public void remove(String destiny) {
+        int index = Arrays.binarySearch(names, 0, size, destiny, ORDER);
+        if (index < 0) return;
+        System.arraycopy(names, index + 1, names, index, size - index - 1);
+        names[--size] = null;
+        if (index >= from && index < to) {
+            to--;
+            this.fireIntervalRemoved(this, index - from, index - from);
+        } else if (index < from) {
+            from--;
+            to--;
+        }
+        if (destiny.equals(selected)) {
+            selected = null;
+            this.keepSelection();
+        }
+    }
+
+    /**
+     * Establece el filtro de búsqueda, solo quedan visibles los nombres que inician con el texto indicado sin
+     * distinguir mayúsculas de minúsculas
+     * @param filter texto de búsqueda, null o vacío para mostrar todos los nombres
+     */
+    public void setFilter(String filter) {
+        int previous = to - from;
+        this.filter = filter == null ? "" : filter;
+        this.updateRange();
+        if (previous > 0) this.fireIntervalRemoved(this, 0, previous - 1);
+        if (to > from) this.fireIntervalAdded(this, 0, to - from - 1);
+        this.keepSelection();
+    }
+
+    /**
+     * Retorna el número de destinatarios visibles
+     * @return destinatarios que cumplen el filtro
+     */
+    @Override
+    public int getSize() {
+        return to - from;
+    }
+
+    /**
+     * Retorna el destinatario visible de una fila
+     * @param index fila de la lista
+     * @return nombre del destinatario
+     */
+    @Override
+    public String getElementAt(int index) {
+        return names[from + index];
+    }
+
+    /**
+     * Establece el destinatario seleccionado
+     * @param item nombre del destinatario, null para no seleccionar ninguno
+     */
+    @Override
+    public void setSelectedItem(Object item) {
+        if (item == null ? selected == null : item.equals(selected)) return;
+        selected = (String) item;
+        this.fireContentsChanged(this, -1, -1);
+    }
+
+    /**
+     * Retorna el destinatario seleccionado
+     * @return nombre del destinatario, null si no hay selección
+     */
+    @Override
+    public Object getSelectedItem() {
+        return selected;
+    }
+
+    /**
+     * Indica si un nombre cumple el filtro de búsqueda
+     * @param destiny nombre del destinatario
+     * @return true si el nombre inicia con el texto del filtro
+     */
+    private boolean matches(String destiny) {
+        return destiny.regionMatches(true, 0, filter, 0, filter.length());
+    }
+
+    /**
+     * Ubica con búsqueda binaria el rango de nombres que cumplen el filtro
+     */
+    private void updateRange() {
+        if (filter.isEmpty()) {
+            from = 0;
+            to = size;
+            return;
+        }
+//      Primer nombre que no precede al filtro, los que inician con el filtro le siguen de forma contigua
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (String.CASE_INSENSITIVE_ORDER.compare(names[middle], filter) < 0) low = middle + 1;
+            else high = middle;
+        }
+        from = low;
+        high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (this.matches(names[middle])) low = middle + 1;
+            else high = middle;
+        }
+        to = low;
+    }
+
+    /**
+     * Conserva la selección si el destinatario seleccionado sigue visible, de lo contrario selecciona el primer
+     * destinatario visible
+     */
+    private void keepSelection() {
+        if (selected != null && this.matches(selected)
+                && Arrays.binarySearch(names, 0, size, selected, ORDER) >= 0) return;
+        this.setSelectedItem(to > from ? names[from] : null);
+    }
+}
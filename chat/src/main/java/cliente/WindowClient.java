@@ -1,9 +1,12 @@
 package cliente;
 
 import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 import java.awt.*;
 import java.awt.event.*;
 import java.io.IOException;
+import java.util.List;
 
 /**
  * Clase que permite crear la ventana gráfica empleando Javax Swing, Extiende de JFrame para ser usado como contenedor
@@ -13,8 +16,12 @@ import java.io.IOException;
  * configuración, se genera una segunda ventana de tipo JFrame en la cual se visualizan los clientes conectados y los
  * mensajes enviados y recibidos, además de encontrar la opción de enviar mensajes seleccionando alguno de los clientes
  * conectados. El uso de eventos permite la actualización en segundo plano de la lista de clientes a medida que se
- * conectan o desconectan. La lista es visualizada en un JComboBox. El uso de eventos generados en la clase Client
- * permiten la actualización en segundo plano del TextArea en el que se visualizan los mensajes enviados y recibidos
+ * conectan o desconectan. La lista es visualizada en un JComboBox ordenado alfabéticamente, que se actualiza con cada
+ * ingreso o salida sin reconstruirse y puede filtrarse escribiendo el inicio del nombre buscado. El uso de eventos
+ * generados en la clase Client
+ * permiten la actualización en segundo plano de la lista en la que se visualizan los mensajes enviados y recibidos.
+ * La lista solo dibuja las filas visibles y obtiene los mensajes de un historial en disco leído por páginas, de modo
+ * que la memoria de la ventana no crece con la duración de la sesión
  * @Author Jorge Luis Velasquez
  */
 public class WindowClient extends JFrame {
@@ -33,13 +40,28 @@ public class WindowClient extends JFrame {
      * Destinies: lista de destinatarios conectados al servidor. Se visualiza en un JComboBox (lista desplegable), la
      * cual se actualiza en segundo plano gracias a los eventos creados para los atributos de la clase Client
      */
-    private JComboBox destinies;
+    private JComboBox<String> destinies;
 
     /**
-     * Console: Área multi línea de tipo JTextArea que permite visualizar los mensajes recibidos y enviados. Se
+     * RosterModel: modelo ordenado de la lista de destinatarios, aplica los ingresos y salidas de forma incremental
+     */
+    private final RosterModel rosterModel = new RosterModel();
+
+    /**
+     * Filter: entrada de texto de tipo JTextField, filtra la lista de destinatarios por el inicio de su nombre
+     */
+    private JTextField filter;
+
+    /**
+     * History: lista de tipo JList que permite visualizar los mensajes recibidos y enviados, un mensaje por fila. Se
      * actualiza en segundo plano gracias a los eventos creados para los atributos de la clase Client
      */
-    private JTextArea console;
+    private JList<String> history;
+
+    /**
+     * HistoryModel: modelo de la lista de mensajes, respaldado por el historial en disco
+     */
+    private HistoryListModel historyModel;
 
     /**
      * Message: entrada de texto de tipo JTextField, permite el ingreso del mensaje que se desea enviar a otro
@@ -64,6 +86,21 @@ public class WindowClient extends JFrame {
      */
     private final String PORT = "2022";
 
+    /**
+     * HISTORY_PAGE_ROWS: número de mensajes de cada página del historial
+     */
+    private static final int HISTORY_PAGE_ROWS = 128;
+
+    /**
+     * HISTORY_CACHED_PAGES: número de páginas del historial que se conservan en memoria
+     */
+    private static final int HISTORY_CACHED_PAGES = 8;
+
+    /**
+     * HISTORY_MAX_MESSAGES: máximo de mensajes que conserva el historial
+     */
+    private static final int HISTORY_MAX_MESSAGES = 100_000;
+
     /**
      * Client: instancia del tipo Client la cual permite crear un cliente para comunicación con sockets
      */
@@ -81,6 +118,8 @@ public class WindowClient extends JFrame {
         setUp();
         setContentPane(panelMain);
         setDefaultCloseOperation(EXIT_ON_CLOSE);
+        setUpHistory();
+        setUpRoster();
         eventSendMessage();
         eventAddItemComboBox();
         eventPrintMessage();
@@ -124,6 +163,66 @@ public class WindowClient extends JFrame {
         }
     }
 
+    /**
+     * Método que configura la lista de mensajes: su modelo respaldado por el historial en disco y un alto y ancho de
+     * fila fijos, de modo que la lista no recorre todos los mensajes para calcular su tamaño y solo solicita al modelo
+     * las filas visibles. Cada fila muestra su mensaje completo como texto de ayuda
+     */
+    private void setUpHistory() {
+        try {
+            historyModel = new HistoryListModel(
+                    new HistoryStore(HISTORY_PAGE_ROWS, HISTORY_CACHED_PAGES, HISTORY_MAX_MESSAGES));
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        history.setModel(historyModel);
+        history.setPrototypeCellValue("Recibido: cliente -> mensaje");
+        history.setCellRenderer(new DefaultListCellRenderer() {
+            @Override
+            public Component getListCellRendererComponent(JList<?> list, Object value, int index,
+                                                          boolean isSelected, boolean cellHasFocus) {
+                super.getListCellRendererComponent(list, value, index, isSelected, cellHasFocus);
+                this.setToolTipText((String) value);
+                return this;
+            }
+        });
+    }
+
+    /**
+     * Método que configura la lista desplegable de destinatarios con su modelo ordenado y el filtro de búsqueda, que
+     * se aplica al modelo con cada cambio del texto ingresado
+     */
+    private void setUpRoster() {
+        destinies.setModel(rosterModel);
+        filter.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                rosterModel.setFilter(filter.getText());
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                rosterModel.setFilter(filter.getText());
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                rosterModel.setFilter(filter.getText());
+            }
+        });
+    }
+
+    /**
+     * Agrega un mensaje al final de la lista de mensajes, si la lista mostraba el último mensaje se desplaza para
+     * mostrar el nuevo. Se ejecuta en el hilo de eventos de Swing
+     * @param entry texto del mensaje
+     */
+    private void addHistory(String entry) {
+        boolean atEnd = history.getLastVisibleIndex() >= historyModel.getSize() - 1;
+        historyModel.add(entry);
+        if (atEnd) history.ensureIndexIsVisible(historyModel.getSize() - 1);
+    }
+
     /**
      * Método para manejar el evento del click del mouse sobre el botón de enviar mensaje
      */
@@ -136,8 +235,7 @@ public class WindowClient extends JFrame {
                 String destiny = (String) destinies.getSelectedItem();
                 client.sendMessage(messageToSend, destiny);
                 if (destiny!= null && !destiny.isBlank()) {
-                    console.append("**** Mensaje enviado ****\n");
-                    console.append(client.getIdClient() + " -> " + messageToSend + "\n");
+                    addHistory("Enviado: " + client.getIdClient() + " -> " + messageToSend);
                 }
                 if (!client.isConnected()){
                     System.exit(0);
@@ -148,34 +246,43 @@ public class WindowClient extends JFrame {
 
     /**
      * Método para manejar el evento que se genera en el objeto de clase Client cuando se agrega o elimina un cliente
-     * destino de la lista de destinatarios y asi actualizar la lista desplegable en segundo plano
+     * destino de la lista de destinatarios y asi actualizar la lista desplegable en segundo plano. El cambio se aplica
+     * al modelo desde el hilo de eventos de Swing: un ingreso o salida modifica solo su fila, y un listado completo
+     * reemplaza la lista. El cliente se conecta antes de suscribir el oyente, por lo que el listado inicial pudo
+     * publicarse sin oyentes; una vez suscrito se carga la lista actual, y los cambios posteriores se aplican sobre
+     * ella sin duplicar filas
      */
     private void eventAddItemComboBox() {
         EventChangeClientListener clientAddItemComboBox = new EventChangeClientListener() {
             @Override
             public void onDestiniesChange(EventChangeClient event) {
-                if (client.getDestinies() != null && !client.getDestinies().isEmpty()) {
-                    destinies.removeAllItems();
-                    client.getDestinies().forEach(destinies::addItem);
-                    destinies.setSelectedIndex(0);
-                }else{
-                    destinies.removeAllItems();
-                }
+                SwingUtilities.invokeLater(() -> {
+                    if (event.getDestinies() != null) {
+                        rosterModel.setAll(event.getDestinies());
+                    } else if (event.getAdded() != null) {
+                        rosterModel.add(event.getAdded());
+                    } else {
+                        rosterModel.remove(event.getRemoved());
+                    }
+                });
             }
         };
         client.addEventListener(clientAddItemComboBox);
+        List<String> current = client.getDestinies();
+        SwingUtilities.invokeLater(() -> rosterModel.setAll(current));
     }
 
     /**
      * Método para manejar el evento que se genera en el objeto de clase Client cuando se recibe un mensaje y asi
-     * actualizar el área multi línea donde se visualizan los mensajes enviados y recibidos en segundo plano
+     * actualizar la lista donde se visualizan los mensajes enviados y recibidos, el mensaje se agrega desde el hilo de
+     * eventos de Swing
      */
     public void eventPrintMessage() {
         EventChangeClientListener clientPrintMessage = new EventChangeClientListener() {
             @Override
             void onMessageChange(EventChangeClient event) {
-                console.append("**** Mensaje recibido ****\n");
-                console.append(client.getSender() + " -> " +  client.getMessage() + "\n");
+                String entry = "Recibido: " + event.getSender() + " -> " + event.getMessage();
+                SwingUtilities.invokeLater(() -> addHistory(entry));
             }
         };
         client.addEventListener(clientPrintMessage);
@@ -189,6 +296,7 @@ public class WindowClient extends JFrame {
             @Override
             public void windowClosing(WindowEvent e) {
                 client.closeConnection();
+                historyModel.close();
             }
         });
     }
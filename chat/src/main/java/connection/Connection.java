@@ -1,8 +1,10 @@
 package connection;
 
 import java.io.*;
+import java.net.InetSocketAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
+import java.nio.channels.ServerSocketChannel;
 
 /**
  * Clase Connection que permite crear la conexión mediante sockets de un servidor y sus clientes, hereda de la clase
@@ -26,6 +28,11 @@ public class Connection extends Thread{
      */
     protected ServerSocket serverSocket;
 
+    /**
+     * ServerChannel: canal del socket de servidor, permite aceptar conexiones para ser atendidas en modo no bloqueante
+     */
+    protected ServerSocketChannel serverChannel;
+
     /**
      * ClienteSocket: socket de clientes, para crear sockets de comunicación para los clientes
      */
@@ -74,7 +81,9 @@ public class Connection extends Thread{
         host = host.isBlank() ? HOST : host;
 
         if (type.equalsIgnoreCase("servidor")){
-            serverSocket = new ServerSocket(port);
+            serverChannel = ServerSocketChannel.open();
+            serverChannel.bind(new InetSocketAddress(port));
+            serverSocket = serverChannel.socket();
             clientSocket = new Socket();
         }else{
             clientSocket = new Socket(host, port);
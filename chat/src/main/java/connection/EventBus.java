@@ -0,0 +1,322 @@
+package connection;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Clase EventBus, bus de eventos asíncrono y tipado que entrega a sus suscriptores los eventos publicados por los hilos
+ * de red, de modo que un suscriptor lento (por ejemplo una ventana) no detiene la recepción de mensajes. Publicar solo
+ * agrega el evento a una cola acotada sin candados; un hilo del ejecutor vacía la cola y entrega los eventos a los
+ * suscriptores en el orden en que fueron publicados, nunca dos hilos a la vez para un mismo bus. Si se indica una
+ * función de combinación, los eventos consecutivos que se acumularon durante una ráfaga se combinan en uno solo antes
+ * de entregarse. Si la cola está llena el evento se descarta y se contabiliza; los eventos que describen cambios de un
+ * estado, que no pueden perderse, se publican junto con una función que construye un evento con el estado completo, el
+ * cual se entrega en lugar de los eventos descartados una vez entregados los que los precedían. Los eventos que no
+ * pueden perderse ni reemplazarse (por ejemplo los mensajes recibidos) se publican con publishBlocking, que espera a
+ * que la cola tenga espacio y detiene así al hilo que publica en lugar de descartarlos. El listado de
+ * suscriptores es un arreglo que se reemplaza completo al suscribir o retirar un suscriptor, de modo que la entrega lo
+ * recorre sin candados. Los eventos deben contener los datos que describen, pues se entregan después de ser publicados
+ * @param <E> tipo de los eventos
+ * @Author Jorge Luis Velasquez Venegas
+ */
+public class EventBus<E> {
+
+    /**
+     * DISPATCHER: ejecutor compartido por los buses creados sin un ejecutor propio, sus hilos son daemon para no
+     * impedir la terminación del programa
+     */
+    private static final ExecutorService DISPATCHER = Executors.newFixedThreadPool(
+            Math.max(2, Runtime.getRuntime().availableProcessors()), runnable -> {
+                Thread thread = new Thread(runnable, "EventBus-dispatcher");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    /**
+     * BATCH: máximo de eventos que se entregan en cada turno del hilo de entrega, al completarlo se cede el hilo a los
+     * demás buses
+     */
+    private static final int BATCH = 256;
+
+    /**
+     * Name: nombre del bus, identifica sus errores en consola
+     */
+    private final String name;
+
+    /**
+     * Capacity: máximo de eventos pendientes por entregar
+     */
+    private final int capacity;
+
+    /**
+     * Executor: ejecutor en el que se entregan los eventos
+     */
+    private final Executor executor;
+
+    /**
+     * Coalescer: combina dos eventos consecutivos en uno, retorna null si no pueden combinarse. Puede ser null
+     */
+    private final BinaryOperator<E> coalescer;
+
+    /**
+     * Subscribers: suscriptores del bus, el arreglo nunca se modifica, se reemplaza
+     */
+    private final AtomicReference<Object[]> subscribers = new AtomicReference<>(new Object[0]);
+
+    /**
+     * Queue: eventos pendientes por entregar
+     */
+    private final ConcurrentLinkedQueue<E> queue = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Pending: número de eventos en la cola
+     */
+    private final AtomicInteger pending = new AtomicInteger();
+
+    /**
+     * Scheduled: indica que hay un turno de entrega en curso o programado en el ejecutor
+     */
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+
+    /**
+     * Resync: construye el evento con el estado completo que reemplaza a los eventos de estado descartados, null si no
+     * se ha descartado ninguno desde la última entrega
+     */
+    private final AtomicReference<Supplier<? extends E>> resync = new AtomicReference<>();
+
+    /**
+     * Dropped: eventos descartados porque la cola estaba llena
+     */
+    private final LongAdder dropped = new LongAdder();
+
+    /**
+     * Space: monitor en el que esperan los hilos que publican con publishBlocking mientras la cola está llena
+     */
+    private final Object space = new Object();
+
+    /**
+     * Waiting: número de hilos esperando espacio en la cola, el hilo de entrega solo los notifica si hay alguno
+     */
+    private final AtomicInteger waiting = new AtomicInteger();
+
+    /**
+     * Constructor de la clase EventBus, los eventos se entregan en el ejecutor compartido y no se combinan
+     * @param name nombre del bus
+     * @param capacity máximo de eventos pendientes por entregar
+     */
+    public EventBus(String name, int capacity) {
+        this(name, capacity, null, DISPATCHER);
+    }
+
+    /**
+     * Constructor de la clase EventBus, los eventos se entregan en el ejecutor compartido
+     * @param name nombre del bus
+     * @param capacity máximo de eventos pendientes por entregar
+     * @param coalescer combina dos eventos consecutivos en uno, retorna null si no pueden combinarse, puede ser null
+     */
+    public EventBus(String name, int capacity, BinaryOperator<E> coalescer) {
+        this(name, capacity, coalescer, DISPATCHER);
+    }
+
+    /**
+     * Constructor de la clase EventBus
+     * @param name nombre del bus
+     * @param capacity máximo de eventos pendientes por entregar
+     * @param coalescer combina dos eventos consecutivos en uno, retorna null si no pueden combinarse, puede ser null
+     * @param executor ejecutor en el que se entregan los eventos, debe ejecutar todas las tareas que se le envíen
+     */
+    public EventBus(String name, int capacity, BinaryOperator<E> coalescer, Executor executor) {
+        if (capacity <= 0) throw new IllegalArgumentException("Capacidad inválida: " + capacity);
+        this.name = name;
+        this.capacity = capacity;
+        this.coalescer = coalescer;
+        this.executor = executor;
+    }
+
+    /**
+     * Agrega un suscriptor que recibirá los eventos publicados desde este momento
+     * @param subscriber suscriptor a agregar
+     */
+    public void subscribe(Consumer<? super E> subscriber) {
+        Object[] current;
+        Object[] updated;
+        do {
+            current = subscribers.get();
+            updated = Arrays.copyOf(current, current.length + 1);
+            updated[current.length] = subscriber;
+        } while (!subscribers.compareAndSet(current, updated));
+    }
+
+    /**
+     * Retira un suscriptor del bus
+     * @param subscriber suscriptor a retirar
+     * @return true si el suscriptor estaba registrado
+     */
+    public boolean unsubscribe(Consumer<? super E> subscriber) {
+        Object[] current;
+        Object[] updated;
+        do {
+            current = subscribers.get();
+            int index = Arrays.asList(current).indexOf(subscriber);
+            if (index < 0) return false;
+            updated = new Object[current.length - 1];
+            System.arraycopy(current, 0, updated, 0, index);
+            System.arraycopy(current, index + 1, updated, index, updated.length - index);
+        } while (!subscribers.compareAndSet(current, updated));
+        return true;
+    }
+
+    /**
+     * Publica un evento sin esperar a que sea entregado. Si el bus no tiene suscriptores el evento se ignora
+     * @param event evento a publicar
+     * @return true si el evento fue encolado o ignorado, false si se descartó porque la cola estaba llena
+     */
+    public boolean publish(E event) {
+        if (subscribers.get().length == 0) return true;
+        if (pending.incrementAndGet() > capacity) {
+            pending.decrementAndGet();
+            dropped.increment();
+            return false;
+        }
+        queue.offer(event);
+        this.schedule();
+        return true;
+    }
+
+    /**
+     * Publica un evento que describe un cambio de estado sin esperar a que sea entregado. Si la cola está llena el
+     * evento se descarta, y una vez entregados todos los eventos encolados antes del descarte se entrega a los
+     * suscriptores el evento construido por resync, que describe el estado completo en ese momento. Si se descartan
+     * varios eventos antes de la entrega, se entrega un único evento de estado completo
+     * @param event evento a publicar
+     * @param resync construye el evento con el estado completo, se invoca en el hilo de entrega
+     * @return true si el evento fue encolado o ignorado, false si se descartó y será reemplazado por el estado completo
+     */
+    public boolean publish(E event, Supplier<? extends E> resync) {
+        if (this.publish(event)) return true;
+        this.resync.set(resync);
+        this.schedule();
+        return false;
+    }
+
+    /**
+     * Publica un evento que no puede descartarse: si la cola está llena espera a que el hilo de entrega libere
+     * espacio, de modo que un suscriptor lento detiene al hilo que publica (y con él la lectura del socket) en lugar de
+     * perder eventos. No debe invocarse desde un suscriptor del mismo bus. Si el hilo es interrumpido mientras espera,
+     * el evento se encola aunque exceda la capacidad y se conserva el estado de interrupción
+     * @param event evento a publicar
+     */
+    public void publishBlocking(E event) {
+        if (subscribers.get().length == 0) return;
+        boolean interrupted = false;
+        while (pending.incrementAndGet() > capacity) {
+            pending.decrementAndGet();
+            synchronized (space) {
+                waiting.incrementAndGet();
+                try {
+                    while (pending.get() >= capacity) space.wait();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                    pending.incrementAndGet();
+                    break;
+                } finally {
+                    waiting.decrementAndGet();
+                }
+            }
+        }
+        queue.offer(event);
+        this.schedule();
+        if (interrupted) Thread.currentThread().interrupt();
+    }
+
+    /**
+     * Retorna el número de eventos descartados porque la cola estaba llena
+     * @return eventos descartados
+     */
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * Retorna el número de eventos pendientes por entregar
+     * @return eventos pendientes
+     */
+    public int getPending() {
+        return pending.get();
+    }
+
+    /**
+     * Programa un turno de entrega si no hay uno en curso
+     */
+    private void schedule() {
+        if (scheduled.compareAndSet(false, true)) {
+            executor.execute(this::drain);
+        }
+    }
+
+    /**
+     * Turno de entrega: toma hasta BATCH eventos de la cola, combina los consecutivos y los entrega a los suscriptores.
+     * Si no quedan eventos pendientes y se descartaron eventos de estado, entrega a continuación el estado completo. Si
+     * al terminar quedan eventos pendientes se programa un nuevo turno
+     */
+    private void drain() {
+        List<E> batch = new ArrayList<>();
+        E event;
+        while (batch.size() < BATCH && (event = queue.poll()) != null) {
+            pending.decrementAndGet();
+            int last = batch.size() - 1;
+            E merged = last >= 0 && coalescer != null ? coalescer.apply(batch.get(last), event) : null;
+            if (merged != null) {
+                batch.set(last, merged);
+            } else {
+                batch.add(event);
+            }
+        }
+        if (waiting.get() > 0) {
+            synchronized (space) {
+                space.notifyAll();
+            }
+        }
+        for (E pendingEvent : batch) {
+            this.deliver(pendingEvent);
+        }
+//      El estado completo se entrega solo cuando ya se entregaron todos los eventos publicados antes del descarte:
+//      se toma antes de verificar que no queden eventos pendientes, y se conserva para otro turno si quedan
+        Supplier<? extends E> state = resync.getAndSet(null);
+        if (state != null && pending.get() == 0) {
+            this.deliver(state.get());
+        } else if (state != null) {
+            resync.compareAndSet(null, state);
+        }
+        scheduled.set(false);
+//      Se programa un nuevo turno si se publicaron eventos mientras se entregaban los anteriores
+        if (!queue.isEmpty() || resync.get() != null) this.schedule();
+    }
+
+    /**
+     * Entrega un evento a todos los suscriptores, el error de un suscriptor no impide la entrega a los demás
+     * @param event evento a entregar
+     */
+    @SuppressWarnings("unchecked")
+    private void deliver(E event) {
+        for (Object subscriber : subscribers.get()) {
+            try {
+                ((Consumer<? super E>) subscriber).accept(event);
+            } catch (RuntimeException e) {
+                System.out.println("Error entregando evento del bus " + name + ": " + e);
+            }
+        }
+    }
+}
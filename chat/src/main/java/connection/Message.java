@@ -7,7 +7,8 @@ import java.util.Objects;
 /**
  * Clase Message, permite establecer conexión con un servidor enviando un tipo de acción a ejecutar, ya sea de
  * configuración para informar conexión, desconexión o un mensaje nuevo a enviar a otro cliente en la lista de
- * destinatarios, implementa la interfaz Serializable por ser empleada para transmisión de datos a través de ObjetStream
+ * destinatarios. Viaja entre servidor y clientes codificada en tramas binarias por la clase MessageCodec, conserva la
+ * interfaz Serializable para quienes requieran transmitirla a través de ObjetStream
  * @Author Jorge Luis Velasquez Venegas
  */
 public class Message implements Serializable {
@@ -38,6 +39,13 @@ public class Message implements Serializable {
      */
     private ArrayList<String> destinies;
 
+    /**
+     * Sequence: número de secuencia asociado al mensaje. En los mensajes de presencia ("connection-accept",
+     * "new-client", "disconnect-client", "roster-snapshot") corresponde a la versión del listado de clientes conectados
+     * en el servidor
+     */
+    private long sequence;
+
     /**
      * Constructor de la clase Message con cuatro parámetros usado cuando un cliente construye el objeto message para
      * enviar un mensaje a otro cliente
@@ -143,6 +151,22 @@ public class Message implements Serializable {
         this.destinies = destinies;
     }
 
+    /**
+     * Retorna el número de secuencia asociado al mensaje
+     * @return número de secuencia, versión del listado de clientes en los mensajes de presencia
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Establece el número de secuencia asociado al mensaje
+     * @param sequence número de secuencia, versión del listado de clientes en los mensajes de presencia
+     */
+    public void setSequence(long sequence) {
+        this.sequence = sequence;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -152,12 +176,13 @@ public class Message implements Serializable {
                 && Objects.equals(destiny, message1.destiny)
                 && Objects.equals(sender, message1.sender)
                 && Objects.equals(message, message1.message)
-                && Objects.equals(destinies, message1.destinies);
+                && Objects.equals(destinies, message1.destinies)
+                && sequence == message1.sequence;
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(type, destiny, sender, message, destinies);
+        return Objects.hash(type, destiny, sender, message, destinies, sequence);
     }
 
     @Override
@@ -168,6 +193,7 @@ public class Message implements Serializable {
                 ", sender='" + sender + '\'' +
                 ", message='" + message + '\'' +
                 ", destinies=" + destinies +
+                ", sequence=" + sequence +
                 '}';
     }
 }
@@ -0,0 +1,276 @@
+package connection;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+
+/**
+ * Clase MessageCodec, define el formato de trama con el que viajan los objetos Message entre servidor y clientes. Cada
+ * trama está compuesta por un entero de 4 bytes con la longitud del cuerpo, seguido del cuerpo con el objeto Message
+ * codificado en binario. Delimitar los mensajes con su longitud permite que el servidor lea las tramas de forma no
+ * bloqueante (NIO), acumulando bytes hasta completar una trama, y que los servidores bloqueantes y los clientes
+ * compartan el mismo protocolo.
+ * El cuerpo de la trama se compone de: un byte con el código del tipo de acción (OpCode), los campos destiny, sender
+ * y message como texto UTF-8 precedido de su longitud, la lista destinies precedida del número de elementos y el
+ * número de secuencia como varint. Las longitudes y el número de elementos se codifican como varint sumando uno, de
+ * modo que el valor cero representa un campo nulo
+ * @Author Jorge Luis Velasquez Venegas
+ */
+public final class MessageCodec {
+
+    /**
+     * HEADER_LENGTH: número de bytes del encabezado de la trama (longitud del cuerpo)
+     */
+    public static final int HEADER_LENGTH = 4;
+
+    /**
+     * MAX_FRAME_LENGTH: longitud máxima permitida para el cuerpo de una trama, protege al servidor de tramas corruptas
+     * o malintencionadas que intenten reservar memoria sin límite
+     */
+    public static final int MAX_FRAME_LENGTH = 1024 * 1024;
+
+    private MessageCodec() {
+    }
+
+    /**
+     * Codifica el objeto message en el cuerpo de una trama
+     * @param message objeto a codificar
+     * @return arreglo de bytes con el cuerpo de la trama
+     * @throws IOException si el tipo de acción del mensaje es desconocido
+     */
+    public static byte[] encode(Message message) throws IOException {
+        Encoder encoder = new Encoder(HEADER_LENGTH);
+        encoder.writeBody(message);
+        return encoder.toByteArray(HEADER_LENGTH);
+    }
+
+    /**
+     * Decodifica el cuerpo de una trama en un objeto Message
+     * @param data arreglo que contiene el cuerpo de la trama
+     * @param offset posición inicial del cuerpo en el arreglo
+     * @param length longitud del cuerpo
+     * @return objeto message decodificado
+     * @throws IOException si el cuerpo no corresponde a un objeto Message válido
+     */
+    public static Message decode(byte[] data, int offset, int length) throws IOException {
+        Decoder decoder = new Decoder(data, offset, offset + length);
+        OpCode opCode = OpCode.of(decoder.readByte());
+        if (opCode == null) {
+            throw new StreamCorruptedException("Tipo de mensaje desconocido: " + data[offset]);
+        }
+        Message message = new Message(opCode.getType(), decoder.readString(), decoder.readString(),
+                decoder.readString());
+        message.setDestinies(decoder.readList());
+        message.setSequence(decoder.readVarLong());
+        if (decoder.position != decoder.limit) {
+            throw new StreamCorruptedException("Bytes sobrantes en la trama: " + (decoder.limit - decoder.position));
+        }
+        return message;
+    }
+
+    /**
+     * Construye una trama completa (encabezado y cuerpo) lista para ser escrita en un canal
+     * @param message objeto a enviar
+     * @return buffer posicionado al inicio de la trama
+     * @throws IOException si el tipo de acción del mensaje es desconocido
+     */
+    public static ByteBuffer frame(Message message) throws IOException {
+        Encoder encoder = new Encoder(HEADER_LENGTH);
+        encoder.writeBody(message);
+        return encoder.toFrame();
+    }
+
+    /**
+     * Escribe una trama en un stream de salida
+     * @param outputStream stream de salida del socket
+     * @param message objeto a enviar
+     * @throws IOException
+     */
+    public static void writeFrame(DataOutputStream outputStream, Message message) throws IOException {
+        ByteBuffer frame = frame(message);
+        outputStream.write(frame.array(), 0, frame.limit());
+        outputStream.flush();
+    }
+
+    /**
+     * Lee una trama completa de un stream de entrada, bloqueando hasta recibirla
+     * @param inputStream stream de entrada del socket
+     * @return objeto message recibido
+     * @throws IOException si el stream se cierra o la trama no es válida
+     */
+    public static Message readFrame(DataInputStream inputStream) throws IOException {
+        int length = checkLength(inputStream.readInt());
+        byte[] body = new byte[length];
+        inputStream.readFully(body);
+        return decode(body, 0, length);
+    }
+
+    /**
+     * Valida la longitud leída del encabezado de una trama
+     * @param length longitud del cuerpo
+     * @return la misma longitud si es válida
+     * @throws IOException si la longitud está fuera de rango
+     */
+    public static int checkLength(int length) throws IOException {
+        if (length < 0 || length > MAX_FRAME_LENGTH) {
+            throw new StreamCorruptedException("Longitud de trama inválida: " + length);
+        }
+        return length;
+    }
+
+    /**
+     * Escritor de tramas sobre un arreglo de bytes que crece según se necesite
+     */
+    private static final class Encoder {
+
+        private byte[] buffer = new byte[128];
+
+        private int position;
+
+        Encoder(int reserved) {
+            this.position = reserved;
+        }
+
+        void writeBody(Message message) throws IOException {
+            OpCode opCode = OpCode.of(message.getType());
+            if (opCode == null) {
+                throw new IOException("Tipo de mensaje desconocido: " + message.getType());
+            }
+            ensure(1);
+            buffer[position++] = opCode.getCode();
+            writeString(message.getDestiny());
+            writeString(message.getSender());
+            writeString(message.getMessage());
+            writeList(message.getDestinies());
+            writeVarLong(message.getSequence());
+            checkLength(position - HEADER_LENGTH);
+        }
+
+        void writeString(String value) {
+            if (value == null) {
+                writeVarInt(0);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarInt(bytes.length + 1);
+            ensure(bytes.length);
+            System.arraycopy(bytes, 0, buffer, position, bytes.length);
+            position += bytes.length;
+        }
+
+        void writeList(ArrayList<String> values) {
+            if (values == null) {
+                writeVarInt(0);
+                return;
+            }
+            writeVarInt(values.size() + 1);
+            for (String value : values) {
+                writeString(value);
+            }
+        }
+
+        void writeVarInt(int value) {
+            ensure(5);
+            while ((value & ~0x7F) != 0) {
+                buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[position++] = (byte) value;
+        }
+
+        void writeVarLong(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[position++] = (byte) value;
+        }
+
+        void ensure(int bytes) {
+            if (position + bytes > buffer.length) {
+                byte[] grown = new byte[Math.max(buffer.length * 2, position + bytes)];
+                System.arraycopy(buffer, 0, grown, 0, position);
+                buffer = grown;
+            }
+        }
+
+        byte[] toByteArray(int from) {
+            byte[] bytes = new byte[position - from];
+            System.arraycopy(buffer, from, bytes, 0, bytes.length);
+            return bytes;
+        }
+
+        ByteBuffer toFrame() {
+            ByteBuffer frame = ByteBuffer.wrap(buffer, 0, position);
+            frame.putInt(0, position - HEADER_LENGTH);
+            return frame;
+        }
+    }
+
+    /**
+     * Lector de tramas sobre una porción de un arreglo de bytes, valida que ningún campo exceda la trama
+     */
+    private static final class Decoder {
+
+        private final byte[] data;
+
+        private int position;
+
+        private final int limit;
+
+        Decoder(byte[] data, int offset, int limit) {
+            this.data = data;
+            this.position = offset;
+            this.limit = limit;
+        }
+
+        byte readByte() throws IOException {
+            if (position >= limit) throw new StreamCorruptedException("Trama incompleta");
+            return data[position++];
+        }
+
+        int readVarInt() throws IOException {
+            int value = 0;
+            for (int shift = 0; shift < 32; shift += 7) {
+                byte b = readByte();
+                value |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) return value;
+            }
+            throw new StreamCorruptedException("Varint inválido");
+        }
+
+        long readVarLong() throws IOException {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) return value;
+            }
+            throw new StreamCorruptedException("Varint inválido");
+        }
+
+        String readString() throws IOException {
+            int length = readVarInt() - 1;
+            if (length == -1) return null;
+            if (length < 0) throw new StreamCorruptedException("Longitud de campo inválida");
+            if (length > limit - position) throw new StreamCorruptedException("Campo excede la trama");
+            String value = new String(data, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+
+        ArrayList<String> readList() throws IOException {
+            int size = readVarInt() - 1;
+            if (size == -1) return null;
+            if (size < 0) throw new StreamCorruptedException("Tamaño de lista inválido");
+            if (size > limit - position) throw new StreamCorruptedException("Lista excede la trama");
+            ArrayList<String> values = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                values.add(readString());
+            }
+            return values;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package connection;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Enumeración OpCode, asocia a cada tipo de acción de la clase Message el código de un byte con el que viaja en las
+ * tramas binarias. Los códigos son parte del protocolo: no deben reordenarse ni reutilizarse, los tipos nuevos se
+ * agregan al final con un código nuevo
+ * @Author Jorge Luis Velasquez Venegas
+ */
+public enum OpCode {
+
+    CONNECT(1, "connect"),
+    DISCONNECT(2, "disconnect"),
+    MESSAGE(3, "message"),
+    CONNECTION_ACCEPT(4, "connection-accept"),
+    NEW_CLIENT(5, "new-client"),
+    DISCONNECT_CLIENT(6, "disconnect-client"),
+    ROSTER_REQUEST(7, "roster-request"),
+    ROSTER_SNAPSHOT(8, "roster-snapshot"),
+    DISCONNECT_ACK(9, "disconnect-ack"),
+    MESSAGE_ACK(10, "message-ack"),
+    MESSAGE_NACK(11, "message-nack"),
+    TX_BEGIN(12, "tx-begin"),
+    TX_COMMIT(13, "tx-commit"),
+    TX_ABORT(14, "tx-abort"),
+    TX_ACK(15, "tx-ack"),
+    MULTICAST(16, "multicast"),
+    BROADCAST(17, "broadcast"),
+    CHANNEL_JOIN(18, "channel-join"),
+    CHANNEL_LEAVE(19, "channel-leave"),
+    CHANNEL_PUBLISH(20, "channel-publish"),
+    CHANNEL_MESSAGE(21, "channel-message");
+
+    /**
+     * BY_CODE: tabla de búsqueda de los tipos por su código
+     */
+    private static final OpCode[] BY_CODE = new OpCode[256];
+
+    /**
+     * BY_TYPE: tabla de búsqueda de los tipos por el atributo type de la clase Message
+     */
+    private static final Map<String, OpCode> BY_TYPE = new HashMap<>();
+
+    static {
+        for (OpCode opCode : values()) {
+            BY_CODE[opCode.code & 0xFF] = opCode;
+            BY_TYPE.put(opCode.type, opCode);
+        }
+    }
+
+    /**
+     * Code: código de un byte con el que viaja el tipo en la trama
+     */
+    private final byte code;
+
+    /**
+     * Type: tipo de acción empleado en el atributo type de la clase Message
+     */
+    private final String type;
+
+    OpCode(int code, String type) {
+        this.code = (byte) code;
+        this.type = type;
+    }
+
+    /**
+     * Retorna el código de un byte del tipo de acción
+     * @return código del tipo
+     */
+    public byte getCode() {
+        return code;
+    }
+
+    /**
+     * Retorna el tipo de acción empleado en el atributo type de la clase Message
+     * @return tipo de acción
+     */
+    public String getType() {
+        return type;
+    }
+
+    /**
+     * Retorna el tipo correspondiente al código recibido
+     * @param code código leído de la trama
+     * @return tipo de acción, null si el código es desconocido
+     */
+    public static OpCode of(byte code) {
+        return BY_CODE[code & 0xFF];
+    }
+
+    /**
+     * Retorna el tipo correspondiente al atributo type de un objeto Message
+     * @param type tipo de acción
+     * @return tipo de acción, null si el tipo es desconocido
+     */
+    public static OpCode of(String type) {
+        return type == null ? null : BY_TYPE.get(type);
+    }
+}
@@ -0,0 +1,203 @@
+package servidor;
+
+import connection.Message;
+import connection.MessageCodec;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Clase ChannelRegistry, canales (salas de conversación) del servidor. Cada canal conserva sus miembros en un conjunto
+ * concurrente, de modo que publicar en un canal recorre únicamente a sus miembros y no a todos los clientes conectados.
+ * El mensaje publicado se codifica una sola vez y la trama se comparte entre todos los miembros. Los canales con
+ * muchos miembros se reparten en hilos de difusión para no detener la lectura de la conexión del emisor; cada canal
+ * se asigna siempre al mismo hilo, de modo que sus mensajes se entregan en el orden en que fueron publicados
+ * @Author Jorge Luis Velasquez Venegas
+ */
+public class ChannelRegistry {
+
+    /**
+     * Channels: canales con al menos un miembro indexados por su nombre normalizado
+     */
+    private final ConcurrentHashMap<String, Channel> channels = new ConcurrentHashMap<>();
+
+    /**
+     * Workers: hilos de difusión de los canales con muchos miembros
+     */
+    private final ExecutorService[] workers;
+
+    /**
+     * FanOutThreshold: número de miembros a partir del cual la difusión de un canal se delega a su hilo de difusión
+     */
+    private final int fanOutThreshold;
+
+    /**
+     * Constructor de la clase ChannelRegistry, crea los hilos de difusión
+     * @param config parámetros del servidor con el número de hilos de difusión y el umbral de miembros
+     */
+    public ChannelRegistry(ServerConfig config) {
+        this.fanOutThreshold = config.getChannelFanOutThreshold();
+        this.workers = new ExecutorService[config.getFanOutWorkers()];
+        for (int i = 0; i < workers.length; i++) {
+            String name = "FanOut-" + i;
+            workers[i] = Executors.newSingleThreadExecutor(task -> {
+                Thread thread = new Thread(task, name);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /**
+     * Agrega un cliente a un canal, creando el canal si no existe
+     * @param name nombre del canal
+     * @param session sesión del cliente
+     * @return true si el cliente fue agregado, false si el nombre es inválido o ya era miembro
+     */
+    public boolean join(String name, ClientSession session) {
+        String key = RoutingTable.normalize(name);
+        if (key == null || key.isEmpty()) return false;
+        boolean[] added = new boolean[1];
+        channels.compute(key, (k, channel) -> {
+            if (channel == null) channel = new Channel(workers[Math.floorMod(k.hashCode(), workers.length)]);
+            added[0] = channel.members.add(session);
+            return channel;
+        });
+        if (added[0]) session.getChannels().add(key);
+        return added[0];
+    }
+
+    /**
+     * Retira a un cliente de un canal, el canal se elimina cuando queda sin miembros
+     * @param name nombre del canal
+     * @param session sesión del cliente
+     */
+    public void leave(String name, ClientSession session) {
+        String key = RoutingTable.normalize(name);
+        if (key == null) return;
+        channels.computeIfPresent(key, (k, channel) -> {
+            channel.members.remove(session);
+            return channel.members.isEmpty() ? null : channel;
+        });
+        session.getChannels().remove(key);
+    }
+
+    /**
+     * Retira a un cliente de todos los canales a los que pertenece, se invoca al desconectarse el cliente
+     * @param session sesión del cliente
+     */
+    public void leaveAll(ClientSession session) {
+        for (String key : session.getChannels()) {
+            this.leave(key, session);
+        }
+    }
+
+    /**
+     * Publica un mensaje en un canal: se envía a todos sus miembros excepto al emisor como "channel-message", con el
+     * nombre del canal en el atributo destiny. En canales pequeños la difusión se realiza en el hilo que invoca; en
+     * canales grandes, o mientras el canal tenga difusiones pendientes, se delega al hilo de difusión del canal. Solo
+     * los miembros del canal pueden publicar en él
+     * @param message mensaje "channel-publish" con el nombre del canal en el atributo destiny
+     * @param publisher sesión del emisor
+     * @return true si el mensaje fue publicado, false si el canal no existe o el emisor no es miembro
+     * @throws IOException si el mensaje no puede codificarse
+     */
+    public boolean publish(Message message, ClientSession publisher) throws IOException {
+        String key = RoutingTable.normalize(message.getDestiny());
+        Channel channel = key == null ? null : channels.get(key);
+        if (channel == null || !channel.members.contains(publisher)) return false;
+        Message delivered = new Message("channel-message", message.getDestiny(), message.getSender(),
+                message.getMessage());
+        delivered.setSequence(message.getSequence());
+        ByteBuffer frame = MessageCodec.frame(delivered);
+        if (channel.members.size() < fanOutThreshold && channel.pending.get() == 0) {
+            channel.fanOut(frame, publisher);
+        } else {
+            channel.pending.incrementAndGet();
+            channel.worker.execute(() -> {
+                try {
+                    channel.fanOut(frame, publisher);
+                } finally {
+                    channel.pending.decrementAndGet();
+                }
+            });
+        }
+        return true;
+    }
+
+    /**
+     * Indica si un cliente es miembro de un canal, y por lo tanto puede publicar en él
+     * @param name nombre del canal
+     * @param session sesión del cliente
+     * @return true si el canal existe y el cliente es miembro
+     */
+    public boolean isMember(String name, ClientSession session) {
+        String key = RoutingTable.normalize(name);
+        Channel channel = key == null ? null : channels.get(key);
+        return channel != null && channel.members.contains(session);
+    }
+
+    /**
+     * Retorna el número de miembros de un canal
+     * @param name nombre del canal
+     * @return número de miembros, cero si el canal no existe
+     */
+    public int size(String name) {
+        String key = RoutingTable.normalize(name);
+        Channel channel = key == null ? null : channels.get(key);
+        return channel == null ? 0 : channel.members.size();
+    }
+
+    /**
+     * Retorna el número de canales con al menos un miembro
+     * @return número de canales
+     */
+    public int size() {
+        return channels.size();
+    }
+
+    /**
+     * Canal de conversación con sus miembros y su hilo de difusión
+     */
+    private static final class Channel {
+
+        /**
+         * Members: sesiones de los miembros del canal
+         */
+        final Set<ClientSession> members = ConcurrentHashMap.newKeySet();
+
+        /**
+         * Pending: número de difusiones delegadas al hilo de difusión que aún no terminan
+         */
+        final AtomicInteger pending = new AtomicInteger();
+
+        /**
+         * Worker: hilo de difusión asignado al canal
+         */
+        final ExecutorService worker;
+
+        /**
+         * Constructor de la clase Channel
+         * @param worker hilo de difusión asignado al canal
+         */
+        Channel(ExecutorService worker) {
+            this.worker = worker;
+        }
+
+        /**
+         * Encola la trama hacia todos los miembros del canal excepto el emisor
+         * @param frame trama compartida, iniciando en la posición cero
+         * @param publisher sesión del emisor
+         */
+        void fanOut(ByteBuffer frame, ClientSession publisher) {
+            for (ClientSession member : members) {
+                if (member != publisher) member.sendFrame(frame.duplicate());
+            }
+        }
+    }
+}
@@ -0,0 +1,534 @@
+package servidor;
+
+import connection.Message;
+import connection.MessageCodec;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Clase abstracta ClientSession, representa del lado del servidor a un cliente conectado independientemente del
+ * modelo de ejecución empleado para atender su socket (un hilo por cliente o selectores no bloqueantes). Contiene la
+ * lógica del protocolo del chat (conexión, desconexión y envío de mensajes), mientras que las clases que la extienden
+ * se encargan de leer las tramas del socket y de escribir las tramas que se acumulan en su cola de salida
+ * @Author Jorge Luis Velasquez Venegas
+ */
+public abstract class ClientSession {
+
+    /**
+     * Server: instancia de la clase servidor para manejo de los datos de comunicación
+     */
+    protected final Server server;
+
+    /**
+     * IdClient: nombre que identifica el cliente que se encuentra conectado
+     */
+    protected String idClient;
+
+    /**
+     * Outbound: cola acotada de tramas pendientes por escribir en el socket del cliente
+     */
+    protected final OutboundQueue outbound;
+
+    /**
+     * BATCH_FRAMES: máximo de tramas que se agrupan en una sola escritura al socket
+     */
+    protected static final int BATCH_FRAMES = 64;
+
+    /**
+     * Disconnected: indica que la desconexión del cliente ya fue notificada
+     */
+    private final AtomicBoolean disconnected = new AtomicBoolean();
+
+    /**
+     * Channels: nombres normalizados de los canales a los que pertenece el cliente
+     */
+    private final Set<String> channels = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Transaction: mensajes de la transacción abierta por el cliente, null si no hay una transacción abierta. Solo es
+     * usado desde el hilo que lee las tramas del cliente
+     */
+    private ArrayList<Message> transaction;
+
+    /**
+     * TransactionId: identificador asignado por el cliente a la transacción abierta
+     */
+    private long transactionId;
+
+    /**
+     * TransactionFailed: indica que la transacción abierta superó el máximo de mensajes y será abortada al confirmarse
+     */
+    private boolean transactionFailed;
+
+    /**
+     * Constructor de la clase ClientSession
+     * @param server instancia de la clase servidor para manejo de los datos de comunicación
+     */
+    protected ClientSession(Server server) {
+        this.server = server;
+        this.outbound = new OutboundQueue(server.getConfig());
+    }
+
+    /**
+     * Decodifica el cuerpo de una trama recibida del cliente, registrando la decodificación en Java Flight Recorder
+     * @param data arreglo que contiene el cuerpo de la trama
+     * @param offset posición inicial del cuerpo en el arreglo
+     * @param length longitud del cuerpo
+     * @return objeto message decodificado
+     * @throws IOException si el cuerpo no corresponde a un objeto Message válido
+     */
+    protected Message decode(byte[] data, int offset, int length) throws IOException {
+        FrameDecodeEvent event = new FrameDecodeEvent();
+        event.begin();
+        Message message = MessageCodec.decode(data, offset, length);
+        event.commit(idClient, message.getType(), length);
+        return message;
+    }
+
+    /**
+     * Ejecuta la acción determinada en el atributo type del objeto message (confirmar conexión de un nuevo cliente
+     * "connect", confirmar desconexión de un cliente "disconnect" respondiendo "disconnect-ack", enviar mensaje a un
+     * destinatario "message" confirmándolo al emisor con "message-ack" y guardándolo en el buzón del destinatario si no
+     * se encuentra conectado, o respondiendo "message-nack" si el destinatario nunca se conectó, enviar un mensaje a
+     * una lista de destinatarios "multicast" o a todos los clientes conectados "broadcast", ingresar a un canal, salir
+     * de él o publicar en él "channel-join", "channel-leave", "channel-publish", solicitar el listado completo de
+     * clientes "roster-request", abrir, confirmar o abortar una transacción "tx-begin", "tx-commit", "tx-abort")
+     * @param message objeto que contiene la acción a ejecutar y los datos a procesar
+     */
+    protected void operations(Message message) {
+        long start = System.nanoTime();
+        try {
+            this.dispatch(message);
+        } finally {
+            server.getMetrics().recordMessage(message.getType(), System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Ejecuta la acción del mensaje según su tipo, ver operations
+     * @param message objeto que contiene la acción a ejecutar y los datos a procesar
+     */
+    private void dispatch(Message message) {
+        switch (message.getType()){
+            case "connect":
+                this.notifyConnection(message);
+                break;
+            case "disconnect":
+                this.transaction = null;
+                this.notifyDisconnection(message);
+                this.sendMessage(new Message("disconnect-ack", this.idClient));
+                this.closeAfterFlush();
+                break;
+            case "message":
+            case "multicast":
+            case "broadcast":
+            case "channel-publish":
+                if (this.transaction != null) {
+                    this.addToTransaction(message);
+                    break;
+                }
+                this.route(message);
+                break;
+            case "channel-join":
+                server.getChannels().join(message.getDestiny(), this);
+                break;
+            case "channel-leave":
+                server.getChannels().leave(message.getDestiny(), this);
+                break;
+            case "tx-begin":
+                this.beginTransaction(message.getSequence());
+                break;
+            case "tx-commit":
+                this.commitTransaction(message.getSequence());
+                break;
+            case "tx-abort":
+                this.transaction = null;
+                break;
+            case "roster-request":
+                this.sendMessage(server.getRoster().snapshot(this.idClient));
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Enruta el mensaje a sus destinatarios, o a sus buzones si no se encuentran conectados, y lo confirma al emisor
+     * con "message-ack" y el número de secuencia asignado por el emisor. Si algún destinatario nunca se conectó al
+     * servidor (ver MailboxStore.isKnown), o el mensaje se publica en un canal al que el emisor no pertenece, el
+     * mensaje no se le entrega y en lugar de la confirmación se responde "message-nack" con la lista de los destinos
+     * rechazados. La entrega a un destinatario conectado no se registra en la bitácora, por lo que es como máximo
+     * una vez: una caída del servidor puede perder un mensaje confirmado que aún no se había escrito en su socket. Si
+     * el mensaje fue guardado en algún buzón, la respuesta espera a que el registro del buzón (agregado por
+     * MailboxStore) sea durable según el modo de durabilidad
+     * @param message mensaje enrutado
+     */
+    private void route(Message message) {
+        ArrayList<String> rejected = new ArrayList<>();
+        MessageJournal journal = server.getJournal();
+        try {
+            boolean stored = this.deliver(message, rejected);
+            Message ack = new Message(rejected.isEmpty() ? "message-ack" : "message-nack", this.idClient);
+            ack.setSequence(message.getSequence());
+            if (!rejected.isEmpty()) ack.setDestinies(rejected);
+            if (stored && journal != null) {
+                journal.sync(() -> this.sendMessage(ack));
+            } else {
+                this.sendMessage(ack);
+            }
+        } catch (IOException e) {
+            System.out.println("Error entregando mensaje " + e + " - " + this.getIdClient());
+        }
+    }
+
+    /**
+     * Entrega un mensaje a sus destinatarios. Los mensajes "multicast" y "broadcast", que el cliente envía una sola
+     * vez, se expanden en el servidor: se codifica una única trama "message" que se comparte entre todos los
+     * destinatarios. Un "multicast" se entrega a cada destinatario de la lista (una sola vez por destinatario) o a su
+     * buzón si no está conectado, un "broadcast" se entrega solo a los clientes conectados, excepto al emisor, y un
+     * "channel-publish" a los miembros del canal. Los destinatarios de un "message" o "multicast" desconocidos por el
+     * servidor no reciben el mensaje y se agregan a la lista de rechazados, al igual que el canal de un
+     * "channel-publish" que no existe o al que el emisor no pertenece
+     * @param message mensaje a entregar
+     * @param rejected lista a la que se agregan los destinatarios rechazados
+     * @return true si el mensaje fue guardado en el buzón de algún destinatario
+     * @throws IOException si no es posible codificar el mensaje o guardarlo en un buzón
+     */
+    private boolean deliver(Message message, ArrayList<String> rejected) throws IOException {
+        MailboxStore mailboxes = server.getMailboxes();
+        if ("message".equals(message.getType())) {
+            if (!mailboxes.isKnown(message.getDestiny())) {
+                rejected.add(message.getDestiny());
+                return false;
+            }
+            boolean stored = mailboxes.deliver(message.getDestiny(), message);
+            if (stored) server.getMetrics().recordRoutingMiss();
+            return stored;
+        }
+        if ("channel-publish".equals(message.getType())) {
+            if (!server.getChannels().publish(message, this)) rejected.add(message.getDestiny());
+            return false;
+        }
+        Message delivered = this.delivered(message);
+        if ("broadcast".equals(message.getType())) {
+            server.broadcast(delivered, this);
+            return false;
+        }
+        if (message.getDestinies() == null) return false;
+        ByteBuffer frame = MessageCodec.frame(delivered);
+        HashSet<String> recipients = new HashSet<>();
+        boolean stored = false;
+        for (String destiny : message.getDestinies()) {
+            if (!recipients.add(RoutingTable.normalize(destiny))) continue;
+            if (!mailboxes.isKnown(destiny)) {
+                rejected.add(destiny);
+                continue;
+            }
+            if (mailboxes.deliver(destiny, frame)) {
+                server.getMetrics().recordRoutingMiss();
+                stored = true;
+            }
+        }
+        return stored;
+    }
+
+    /**
+     * Construye el mensaje "message" que reciben los destinatarios de un "multicast" o "broadcast"
+     * @param message mensaje enviado por el cliente
+     * @return mensaje a entregar, con el emisor, el texto y el número de secuencia del mensaje original
+     */
+    private Message delivered(Message message) {
+        Message delivered = new Message("message", null, message.getSender(), message.getMessage());
+        delivered.setSequence(message.getSequence());
+        return delivered;
+    }
+
+    /**
+     * Abre una transacción: los mensajes recibidos a continuación se acumulan sin registrarse ni enrutarse hasta que
+     * la transacción se confirme. Si el cliente tenía otra transacción abierta, esta se aborta
+     * @param id identificador asignado por el cliente a la transacción
+     */
+    private void beginTransaction(long id) {
+        if (this.transaction != null) this.sendTransactionResult("tx-abort", this.transactionId);
+        this.transaction = new ArrayList<>();
+        this.transactionId = id;
+        this.transactionFailed = false;
+    }
+
+    /**
+     * Agrega un mensaje a la transacción abierta. Si la transacción supera el máximo de mensajes configurado se
+     * descartan sus mensajes y se marca para ser abortada al confirmarse
+     * @param message mensaje de la transacción
+     */
+    private void addToTransaction(Message message) {
+        if (this.transactionFailed) return;
+        if (this.transaction.size() >= server.getConfig().getMaxTransactionMessages()) {
+            System.out.println("Transacción " + this.transactionId + " excede el máximo de mensajes - "
+                    + this.getIdClient());
+            this.transaction.clear();
+            this.transactionFailed = true;
+            return;
+        }
+        this.transaction.add(message);
+    }
+
+    /**
+     * Confirma la transacción abierta entregando sus mensajes con deliverTransaction. Si la transacción no corresponde
+     * a la abierta o superó el máximo de mensajes ningún mensaje es enrutado y se responde "tx-abort"
+     * @param id identificador de la transacción a confirmar
+     */
+    private void commitTransaction(long id) {
+        ArrayList<Message> messages = this.transaction;
+        this.transaction = null;
+        if (messages == null || id != this.transactionId || this.transactionFailed) {
+            this.sendTransactionResult("tx-abort", id);
+            return;
+        }
+        this.deliverTransaction(messages, id);
+    }
+
+    /**
+     * Entrega los mensajes de una transacción como una sola operación: primero se guardan, con
+     * MailboxStore.deliverAll, las tramas de los destinatarios desconectados, y solo si todas fueron guardadas se
+     * envían, en el orden de la transacción, las tramas de los destinatarios conectados, las difusiones y las
+     * publicaciones en canales. Si alguna trama no puede guardarse los buzones regresan a su estado anterior, ningún
+     * mensaje es entregado y se responde "tx-abort"; lo mismo ocurre si algún destinatario nunca se conectó al
+     * servidor (ver MailboxStore.isKnown) o si la transacción publica en un canal al que el emisor no pertenece. En
+     * caso contrario se confirma con un único "tx-ack" una vez sincronizado el registro de las tramas guardadas. Como
+     * en route, las tramas enviadas a destinatarios conectados se entregan como máximo una vez
+     * @param messages mensajes de la transacción
+     * @param id identificador de la transacción
+     */
+    private void deliverTransaction(ArrayList<Message> messages, long id) {
+        ArrayList<String> destinies = new ArrayList<>();
+        ArrayList<ByteBuffer> frames = new ArrayList<>();
+        int[] ends = new int[messages.size()];
+        ClientSession[] sessions;
+        try {
+            for (int i = 0; i < messages.size(); i++) {
+                Message message = messages.get(i);
+                if ("message".equals(message.getType())) {
+                    destinies.add(message.getDestiny());
+                    frames.add(MessageCodec.frame(message));
+                } else if ("multicast".equals(message.getType()) && message.getDestinies() != null) {
+                    ByteBuffer frame = MessageCodec.frame(this.delivered(message));
+                    HashSet<String> recipients = new HashSet<>();
+                    for (String destiny : message.getDestinies()) {
+                        if (!recipients.add(RoutingTable.normalize(destiny))) continue;
+                        destinies.add(destiny);
+                        frames.add(frame);
+                    }
+                }
+                ends[i] = frames.size();
+            }
+            for (String destiny : destinies) {
+                if (server.getMailboxes().isKnown(destiny)) continue;
+                System.out.println("Transacción " + id + " dirigida a destinatario desconocido " + destiny + " - "
+                        + this.getIdClient());
+                this.sendTransactionResult("tx-abort", id);
+                return;
+            }
+            for (Message message : messages) {
+                if (!"channel-publish".equals(message.getType())
+                        || server.getChannels().isMember(message.getDestiny(), this)) continue;
+                System.out.println("Transacción " + id + " publica en canal ajeno " + message.getDestiny() + " - "
+                        + this.getIdClient());
+                this.sendTransactionResult("tx-abort", id);
+                return;
+            }
+            sessions = server.getMailboxes().deliverAll(destinies, frames);
+        } catch (IOException e) {
+            System.out.println("Error guardando transacción en buzones " + e + " - " + this.getIdClient());
+            this.sendTransactionResult("tx-abort", id);
+            return;
+        }
+        boolean stored = false;
+        int frame = 0;
+        for (int i = 0; i < messages.size(); i++) {
+            Message message = messages.get(i);
+            if ("broadcast".equals(message.getType())) {
+                server.broadcast(this.delivered(message), this);
+            } else if ("channel-publish".equals(message.getType())) {
+//              La pertenencia se validó antes de guardar las tramas, solo se omite si el emisor se desconectó después
+                try {
+                    server.getChannels().publish(message, this);
+                } catch (IOException e) {
+//                  No se produce: la trama publicada no es mayor que la trama con la que el mensaje fue recibido
+                    System.out.println("Error publicando mensaje en canal " + e + " - " + message.getDestiny());
+                }
+            }
+            for (; frame < ends[i]; frame++) {
+                if (sessions[frame] != null) {
+                    sessions[frame].sendFrame(frames.get(frame).duplicate());
+                } else if (RoutingTable.normalize(destinies.get(frame)) != null) {
+                    server.getMetrics().recordRoutingMiss();
+                    stored = true;
+                }
+            }
+        }
+        MessageJournal journal = server.getJournal();
+        if (stored && journal != null) {
+            journal.sync(() -> this.sendTransactionResult("tx-ack", id));
+        } else {
+            this.sendTransactionResult("tx-ack", id);
+        }
+    }
+
+    /**
+     * Envía al cliente el resultado de una transacción
+     * @param type "tx-ack" si la transacción fue confirmada, "tx-abort" si fue abortada
+     * @param id identificador de la transacción
+     */
+    private void sendTransactionResult(String type, long id) {
+        Message result = new Message(type, this.idClient);
+        result.setSequence(id);
+        this.sendMessage(result);
+    }
+
+    /**
+     * Se confirma conexión establecida con el servidor, enviando al cliente el listado de clientes conectados, y se
+     * notifica a los demás clientes del nuevo cliente conectado a través del listado versionado del servidor. A
+     * continuación se vacía el buzón con los mensajes recibidos mientras el cliente estaba desconectado
+     * @param message objeto que contiene el nombre que identifica el nuevo cliente conectado
+     */
+    protected void notifyConnection(Message message) {
+        this.idClient = message.getSender();
+
+//      Pendiente cargar textos de salida en pantalla en una variable log
+        server.setMessageConsole("Nuevo cliente conectado: " + idClient + "\n");
+        System.out.println("Nuevo cliente conectado: " + idClient);
+
+//      Se registra la identidad del cliente para guardar los mensajes que reciba mientras esté desconectado
+        try {
+            server.getMailboxes().register(idClient);
+        } catch (IOException e) {
+            System.out.println("Error registrando identidad en bitácora " + e + " - " + idClient);
+        }
+
+//      Se agrega cliente nuevo al listado de clientes en servidor
+        server.addClient(this);
+        server.getMetrics().recordConnect();
+
+//      Se entregan los mensajes recibidos mientras el cliente estaba desconectado
+        server.getMailboxes().drain(this);
+    }
+
+    /**
+     * Se confirma desconexión de cliente con el servidor, se elimina el cliente del listado de clientes destino y se
+     * notifica a los demás clientes de su desconexión. El cierre del socket queda a cargo de quien invoca: cierre
+     * ordenado con closeAfterFlush cuando el cliente lo solicita, o endConnection cuando la conexión se perdió
+     * @param message objeto que contiene el nombre que identifica el cliente que se desconectara
+     */
+    protected void notifyDisconnection(Message message) {
+        if (!disconnected.compareAndSet(false, true)) return;
+        DisconnectEvent event = new DisconnectEvent();
+        event.begin();
+        server.getMetrics().recordDisconnect();
+        server.setMessageConsole("Cliente " + message.getSender() + " desconectado\n");
+        System.out.println("Cliente " + message.getSender() + " desconectado");
+
+        server.removeClient(this);
+        server.getChannels().leaveAll(this);
+        event.commit(idClient, message.getType(), (int) outbound.getQueuedBytes());
+    }
+
+    /**
+     * Envío de mensajes a cliente en el otro extremo del socket. El mensaje se codifica y se encola, de modo que quien
+     * enruta nunca espera por el socket de otro cliente
+     * @param message objeto a enviar
+     */
+    protected void sendMessage(Message message) {
+        try {
+            this.sendFrame(MessageCodec.frame(message));
+        } catch (IOException e) {
+            System.out.println("Error enviando mensaje " + e + " - " + this.getIdClient());
+        }
+    }
+
+    /**
+     * Encola una trama para el cliente aplicando la política para clientes lentos
+     * @param frame trama a enviar, iniciando en la posición cero
+     */
+    protected void sendFrame(ByteBuffer frame) {
+        EnqueueEvent event = new EnqueueEvent();
+        event.begin();
+        OutboundQueue.Result result = outbound.offer(frame);
+        event.result = result.name();
+        event.commit(idClient, frame);
+        switch (result) {
+            case ACCEPTED:
+                this.writeRequested();
+                break;
+            case DROPPED:
+                server.getMetrics().recordDroppedFrame();
+                System.out.println("Mensaje descartado para cliente lento " + this.getIdClient());
+                break;
+            case REJECTED:
+                if (!disconnected.get()) {
+                    server.getMetrics().recordSlowConsumerDisconnect();
+                    System.out.println("Cliente lento desconectado " + this.getIdClient());
+                    this.endConnection();
+                }
+                break;
+        }
+    }
+
+    /**
+     * Encola un lote de tramas de una transferencia masiva esperando a que la cola de salida tenga espacio, sin aplicar
+     * la política para clientes lentos
+     * @param frames tramas completas agrupadas en un solo buffer, iniciando en la posición cero
+     * @return true si el lote fue encolado, false si la conexión fue cerrada o la cola no liberó espacio a tiempo
+     */
+    protected boolean sendBulk(ByteBuffer frames) {
+        if (!outbound.offerWhenWritable(frames)) return false;
+        this.writeRequested();
+        return true;
+    }
+
+    /**
+     * Indica al escritor de la conexión que hay tramas pendientes en la cola de salida
+     */
+    protected abstract void writeRequested();
+
+    /**
+     * Indica si la desconexión del cliente ya fue notificada
+     * @return true si el cliente se encuentra desconectado
+     */
+    protected boolean isDisconnected() {
+        return disconnected.get();
+    }
+
+    /**
+     * Cierre ordenado de la conexión: se escriben las tramas pendientes (incluida la confirmación "disconnect-ack"),
+     * se cierra el sentido de escritura del socket y se espera a que el cliente cierre su extremo, como máximo el
+     * tiempo configurado en disconnectTimeoutMillis, antes de liberar el socket
+     */
+    protected abstract void closeAfterFlush();
+
+    /**
+     * Se indica que el cliente está desconectado y se cierra conexión del socket del lado del servidor
+     */
+    public abstract void endConnection();
+
+    /**
+     * Retorna los canales a los que pertenece el cliente
+     * @return nombres normalizados de los canales
+     */
+    Set<String> getChannels() {
+        return channels;
+    }
+
+    /**
+     * Retorna el nombre que identifica al cliente
+     * @return nombre del cliente
+     */
+    public String getIdClient() {
+        return idClient;
+    }
+}
@@ -0,0 +1,230 @@
+package servidor;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Clase Compactor, instantáneas del estado del servidor y compactación de la bitácora de mensajes. Periódicamente, o
+ * cuando la bitácora acumula el número de registros configurado, escribe en el directorio de la bitácora una
+ * instantánea con los buzones pendientes y la versión del listado de clientes, y elimina los segmentos de la bitácora
+ * que la instantánea deja obsoletos. Al iniciar el servidor el estado se reconstruye cargando la última instantánea y
+ * aplicando únicamente los registros posteriores a ella, de modo que el tiempo de arranque depende del número de
+ * registros desde la última instantánea y no del historial completo
+ * @Author Jorge Luis Velasquez Venegas
+ */
+public class Compactor implements Runnable {
+
+    /**
+     * MAGIC: identificador del formato de los archivos de instantánea
+     */
+    private static final int MAGIC = 0x534E4150;
+
+    /**
+     * SNAPSHOT_PREFIX: prefijo de los archivos de instantánea, seguido del número de secuencia de la bitácora
+     */
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+
+    /**
+     * SNAPSHOT_SUFFIX: extensión de los archivos de instantánea
+     */
+    private static final String SNAPSHOT_SUFFIX = ".snap";
+
+    /**
+     * POLL_MILLIS: intervalo con el que se revisa si la bitácora acumuló registros suficientes para una instantánea
+     */
+    private static final long POLL_MILLIS = 1000;
+
+    /**
+     * Journal: bitácora de mensajes que se compacta
+     */
+    private final MessageJournal journal;
+
+    /**
+     * Mailboxes: buzones incluidos en la instantánea
+     */
+    private final MailboxStore mailboxes;
+
+    /**
+     * Roster: listado de clientes cuya versión se incluye en la instantánea
+     */
+    private final Roster roster;
+
+    /**
+     * IntervalMillis: tiempo máximo entre dos instantáneas
+     */
+    private final long intervalMillis;
+
+    /**
+     * SnapshotRecords: número de registros a partir del cual se toma una instantánea sin esperar el intervalo
+     */
+    private final long snapshotRecords;
+
+    /**
+     * LastSequence: número de secuencia de la bitácora al tomar la última instantánea
+     */
+    private long lastSequence = -1;
+
+    /**
+     * Closed: indica que el servidor se está deteniendo y el hilo de instantáneas debe terminar
+     */
+    private boolean closed;
+
+    /**
+     * Thread: hilo que toma las instantáneas periódicas
+     */
+    private final Thread thread;
+
+    /**
+     * Constructor de la clase Compactor, reconstruye el estado del servidor a partir de la última instantánea y de la
+     * bitácora, e inicia el hilo de instantáneas periódicas. Debe construirse antes de aceptar conexiones
+     * @param journal bitácora de mensajes
+     * @param mailboxes buzones de los clientes desconectados
+     * @param roster listado de clientes conectados
+     * @param config parámetros del servidor con la frecuencia de las instantáneas
+     * @throws IOException si no es posible leer la instantánea o la bitácora
+     */
+    public Compactor(MessageJournal journal, MailboxStore mailboxes, Roster roster, ServerConfig config)
+            throws IOException {
+        this.journal = journal;
+        this.mailboxes = mailboxes;
+        this.roster = roster;
+        this.intervalMillis = config.getSnapshotIntervalMillis();
+        this.snapshotRecords = config.getSnapshotRecords();
+        this.restore();
+        this.thread = new Thread(this, "Compactor");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * Carga la última instantánea y aplica los registros de la bitácora posteriores a ella
+     * @throws IOException si no es posible leer la instantánea o la bitácora
+     */
+    private void restore() throws IOException {
+        long start = System.nanoTime();
+        long fromSequence = 0;
+        List<Path> snapshots = this.snapshots();
+        if (!snapshots.isEmpty()) {
+            Path file = snapshots.get(snapshots.size() - 1);
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+                if (in.readInt() != MAGIC) throw new StreamCorruptedException(file.toString());
+                fromSequence = in.readLong();
+                roster.restoreVersion(in.readLong());
+                mailboxes.readSnapshot(in);
+            }
+            lastSequence = fromSequence;
+        }
+        long[] records = new long[1];
+        journal.replay(fromSequence, (sequence, type, body) -> {
+            records[0]++;
+            mailboxes.replay(sequence, type, body);
+        });
+        mailboxes.finishReplay();
+        System.out.println("Estado del servidor recuperado en " + (System.nanoTime() - start) / 1_000_000
+                + " ms: instantánea " + fromSequence + ", " + records[0] + " registros, " + mailboxes.size()
+                + " buzones");
+    }
+
+    /**
+     * Loop de instantáneas: cada segundo revisa si venció el intervalo o si la bitácora acumuló el número de
+     * registros configurado desde la última instantánea
+     */
+    @Override
+    public void run() {
+        long last = System.currentTimeMillis();
+        while (true) {
+            synchronized (this) {
+                try {
+                    if (!closed) this.wait(POLL_MILLIS);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                if (closed) return;
+            }
+            long now = System.currentTimeMillis();
+            if (now - last < intervalMillis && journal.getNextSequence() - lastSequence < snapshotRecords) continue;
+            last = now;
+            try {
+                this.snapshot();
+            } catch (IOException e) {
+                System.out.println("Error tomando instantánea " + e);
+            }
+        }
+    }
+
+    /**
+     * Toma una instantánea si la bitácora avanzó desde la anterior: la escribe en un archivo temporal, lo sincroniza
+     * con el disco y lo renombra de forma atómica; a continuación elimina las instantáneas anteriores y los segmentos
+     * de la bitácora cuyos registros quedaron incluidos en ella
+     * @throws IOException si no es posible escribir la instantánea o eliminar los archivos obsoletos
+     */
+    public synchronized void snapshot() throws IOException {
+        long sequence = journal.getNextSequence();
+        if (sequence == lastSequence) return;
+        Path directory = journal.getDirectory();
+        Path file = directory.resolve(String.format("%s%020d%s", SNAPSHOT_PREFIX, sequence, SNAPSHOT_SUFFIX));
+        Path temporary = directory.resolve(file.getFileName() + ".tmp");
+        try (FileOutputStream stream = new FileOutputStream(temporary.toFile())) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream));
+            out.writeInt(MAGIC);
+            out.writeLong(sequence);
+            out.writeLong(roster.getVersion());
+            mailboxes.writeSnapshot(out);
+            out.flush();
+            stream.getFD().sync();
+        }
+        Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        for (Path old : this.snapshots()) {
+            if (!old.equals(file)) Files.deleteIfExists(old);
+        }
+        journal.deleteSegmentsBefore(sequence);
+        lastSequence = sequence;
+    }
+
+    /**
+     * Retorna los archivos de instantánea del directorio de la bitácora ordenados por número de secuencia
+     * @return archivos de instantánea
+     * @throws IOException si no es posible listar el directorio
+     */
+    private List<Path> snapshots() throws IOException {
+        List<Path> snapshots = new ArrayList<>();
+        try (Stream<Path> files = Files.list(journal.getDirectory())) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                String name = file.getFileName().toString();
+                if (name.startsWith(SNAPSHOT_PREFIX) && name.endsWith(SNAPSHOT_SUFFIX)) snapshots.add(file);
+            }
+        }
+        snapshots.sort(null);
+        return snapshots;
+    }
+
+    /**
+     * Detiene el hilo de instantáneas y toma una instantánea final, de modo que el siguiente arranque no tenga
+     * registros por aplicar
+     */
+    public void close() {
+        synchronized (this) {
+            closed = true;
+            this.notifyAll();
+        }
+        try {
+            thread.join();
+            this.snapshot();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            System.out.println("Error tomando instantánea final " + e);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package servidor;
+
+/**
+ * Clase ConsoleBuffer, buffer circular con las últimas líneas de la consola del servidor. Los oyentes de eventos
+ * agregan líneas desde cualquier hilo sin tocar la interfaz gráfica, y la ventana toma periódicamente desde el hilo de
+ * eventos de Swing las líneas agregadas desde su última lectura. Al llenarse, cada línea nueva reemplaza a la más
+ * antigua, de modo que la memoria empleada no depende del número de eventos recibidos
+ * @Author Jorge Luis Velasquez Venegas
+ */
+public class ConsoleBuffer {
+
+    /**
+     * Lines: líneas conservadas, la línea número n ocupa la posición n módulo la capacidad
+     */
+    private final String[] lines;
+
+    /**
+     * Appended: número de líneas agregadas desde la creación del buffer
+     */
+    private long appended;
+
+    /**
+     * Partial: texto recibido sin salto de línea final, se completa con el siguiente texto
+     */
+    private final StringBuilder partial = new StringBuilder();
+
+    /**
+     * Constructor de la clase ConsoleBuffer
+     * @param capacity número de líneas que se conservan
+     */
+    public ConsoleBuffer(int capacity) {
+        this.lines = new String[Math.max(1, capacity)];
+    }
+
+    /**
+     * Agrega texto a la consola, puede contener varias líneas. El texto que no termina en salto de línea queda
+     * pendiente hasta completarse
+     * @param text texto a agregar
+     */
+    public synchronized void append(String text) {
+        int start = 0;
+        int end;
+        while ((end = text.indexOf('\n', start)) >= 0) {
+            String line;
+            if (partial.length() > 0) {
+                line = partial.append(text, start, end).toString();
+                partial.setLength(0);
+            } else {
+                line = text.substring(start, end);
+            }
+            lines[(int) (appended++ % lines.length)] = line;
+            start = end + 1;
+        }
+        partial.append(text, start, text.length());
+    }
+
+    /**
+     * Retorna el número de líneas agregadas desde la creación del buffer
+     * @return líneas agregadas
+     */
+    public synchronized long getAppended() {
+        return appended;
+    }
+
+    /**
+     * Retorna el número de líneas que conserva el buffer
+     * @return capacidad en líneas
+     */
+    public int getCapacity() {
+        return lines.length;
+    }
+
+    /**
+     * Copia las líneas agregadas después de las primeras since líneas. Si algunas de ellas ya fueron reemplazadas
+     * por líneas más recientes, solo se copian las que se conservan
+     * @param since número de líneas leídas previamente
+     * @param out destino de las líneas, cada una terminada en salto de línea
+     * @return número de líneas agregadas hasta el momento, para usarse como since en la siguiente lectura
+     */
+    public synchronized long drainSince(long since, StringBuilder out) {
+        for (long line = Math.max(since, appended - lines.length); line < appended; line++) {
+            out.append(lines[(int) (line % lines.length)]).append('\n');
+        }
+        return appended;
+    }
+}
@@ -0,0 +1,17 @@
+package servidor;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Clase DisconnectEvent, evento de Java Flight Recorder del cierre de la sesión de un cliente: su retiro del índice
+ * de enrutamiento, del listado de clientes y de los canales. Su tamaño son los bytes que quedaban en la cola de
+ * salida
+ * @Author Jorge Luis Velasquez Venegas
+ */
+@Name("servidor.Disconnect")
+@Label("Desconexión")
+@Description("Cierre de la sesión de un cliente desconectado")
+class DisconnectEvent extends MessageEvent {
+}
@@ -0,0 +1,39 @@
+package servidor;
+
+/**
+ * Modos de durabilidad de la bitácora de mensajes, determinan en qué momento se confirma al emisor un mensaje
+ * registrado
+ * @Author Jorge Luis Velasquez
+ */
+public enum DurabilityMode {
+
+    /**
+     * El mensaje se confirma al copiarse en el segmento mapeado en memoria, sin esperar a que sea sincronizado con el
+     * disco. Un fallo del sistema operativo puede perder los últimos mensajes confirmados
+     */
+    NONE,
+
+    /**
+     * Los registros se sincronizan por lotes desde un único hilo de confirmación agrupada (GroupCommitter), al
+     * completar el número de registros configurado o al vencer el tiempo máximo de espera del registro más antiguo, y
+     * los mensajes del lote se confirman juntos
+     */
+    BATCHED,
+
+    /**
+     * Cada operación se sincroniza con el disco antes de confirmarse, en el mismo hilo que la registra y después de
+     * liberar los candados de los buzones; las sincronizaciones concurrentes se serializan. En modo NIO ese hilo es un
+     * hilo de eventos, por lo que se recomienda emplear este modo solo con los modos BLOCKING y VIRTUAL
+     */
+    PER_MESSAGE;
+
+    /**
+     * Retorna el modo correspondiente al nombre recibido sin distinguir mayúsculas de minúsculas
+     * @param name nombre del modo (none, batched, per-message)
+     * @return modo de durabilidad, BATCHED si el nombre es vacío
+     */
+    public static DurabilityMode parse(String name) {
+        if (name == null || name.isBlank()) return BATCHED;
+        return DurabilityMode.valueOf(name.trim().toUpperCase().replace('-', '_'));
+    }
+}
@@ -0,0 +1,22 @@
+package servidor;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Clase EnqueueEvent, evento de Java Flight Recorder del encolado de una trama en la cola de salida de un cliente,
+ * incluye el resultado de la política para clientes lentos
+ * @Author Jorge Luis Velasquez Venegas
+ */
+@Name("servidor.Enqueue")
+@Label("Encolado")
+@Description("Encolado de una trama en la cola de salida de un cliente")
+class EnqueueEvent extends MessageEvent {
+
+    /**
+     * Result: resultado del encolado según la política para clientes lentos
+     */
+    @Label("Resultado")
+    String result;
+}
@@ -15,15 +15,31 @@ public class EventChangeServer extends EventObject {
      */
     Server server;
 
+    /**
+     * Message: mensaje de consola que originó el evento, el evento se entrega después de ser publicado por lo que no
+     * debe consultarse el estado actual del servidor
+     */
+    private final String message;
+
     /**
      * Construye un prototipo de evento.
      *
      * @param source objeto en el que ocurrió inicialmente el evento
      * @param server objeto en el que ocurrió inicialmente el evento
+     * @param message mensaje de consola que originó el evento
      * @throws IllegalArgumentException if source is null
      */
-    public EventChangeServer(Object source, Server server) {
+    public EventChangeServer(Object source, Server server, String message) {
         super(source);
         this.server = server;
+        this.message = message;
+    }
+
+    /**
+     * Retorna el mensaje de consola que originó el evento
+     * @return mensaje que se debe mostrar en consola
+     */
+    public String getMessage() {
+        return message;
     }
 }
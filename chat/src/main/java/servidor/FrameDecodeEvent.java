@@ -0,0 +1,16 @@
+package servidor;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Clase FrameDecodeEvent, evento de Java Flight Recorder de la decodificación de una trama recibida de un cliente.
+ * Su tamaño es el del cuerpo de la trama
+ * @Author Jorge Luis Velasquez Venegas
+ */
+@Name("servidor.FrameDecode")
+@Label("Decodificación de trama")
+@Description("Decodificación de una trama recibida de un cliente")
+class FrameDecodeEvent extends MessageEvent {
+}
@@ -0,0 +1,203 @@
+package servidor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Clase GroupCommitter, etapa de confirmación agrupada de la bitácora de mensajes. Los hilos que registran mensajes
+ * (hilos de los clientes o hilos de eventos NIO) solo copian el registro en el segmento y encolan su confirmación; un
+ * único hilo de confirmación espera a que se complete el número de registros configurado o a que venza el tiempo
+ * máximo de espera del registro más antiguo y sincroniza el segmento con el disco una sola vez para todo el lote, de
+ * modo que el costo de cada sincronización se reparte entre todos los registros del lote. Las confirmaciones del lote
+ * (entrega de mensajes y respuestas a los emisores) se ejecutan, en orden, en un hilo aparte, para que el hilo de
+ * confirmación solo sincronice y pueda preparar el siguiente lote mientras tanto. La latencia de cada confirmación,
+ * desde que el registro es encolado hasta que es sincronizado, se registra en el histograma de la bitácora
+ * correspondiente al modo BATCHED
+ * @Author Jorge Luis Velasquez Venegas
+ */
+public class GroupCommitter implements Runnable {
+
+    /**
+     * Journal: bitácora cuyos segmentos se sincronizan
+     */
+    private final MessageJournal journal;
+
+    /**
+     * BatchSize: número de registros pendientes a partir del cual se sincroniza de inmediato
+     */
+    private final int batchSize;
+
+    /**
+     * IntervalNanos: tiempo máximo que un registro espera a ser sincronizado
+     */
+    private final long intervalNanos;
+
+    /**
+     * Latency: histograma de la latencia de confirmación de los registros
+     */
+    private final LatencyHistogram latency;
+
+    /**
+     * Pending: confirmaciones de los registros pendientes por sincronizar, en orden de registro
+     */
+    private List<PendingCommit> pending = new ArrayList<>();
+
+    /**
+     * Closed: indica que la bitácora fue cerrada y el hilo de confirmación debe terminar tras sincronizar los
+     * registros pendientes
+     */
+    private boolean closed;
+
+    /**
+     * Thread: hilo de confirmación agrupada
+     */
+    private final Thread thread;
+
+    /**
+     * Completions: hilo en el que se ejecutan, en orden de sincronización, las confirmaciones de los lotes
+     */
+    private final ExecutorService completions = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "GroupCommitter-complete");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Constructor de la clase GroupCommitter, inicia el hilo de confirmación agrupada
+     * @param journal bitácora cuyos segmentos se sincronizan
+     * @param config parámetros del servidor con el tamaño del lote y el tiempo máximo de espera
+     * @param latency histograma de la latencia de confirmación del modo BATCHED
+     */
+    public GroupCommitter(MessageJournal journal, ServerConfig config, LatencyHistogram latency) {
+        this.journal = journal;
+        this.batchSize = config.getJournalForceBatch();
+        this.intervalNanos = TimeUnit.MILLISECONDS.toNanos(config.getJournalForceIntervalMillis());
+        this.latency = latency;
+        this.thread = new Thread(this, "GroupCommitter");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * Encola la confirmación de un registro ya copiado en el segmento, debe invocarse después de copiar el registro
+     * para que la siguiente sincronización lo incluya
+     * @param onDurable confirmación que se ejecuta una vez el registro es sincronizado, puede ser null
+     * @param startNanos instante en que se inició el registro
+     */
+    public synchronized void enqueue(Runnable onDurable, long startNanos) {
+        pending.add(new PendingCommit(onDurable, startNanos));
+        if (pending.size() == 1 || pending.size() >= batchSize) this.notifyAll();
+    }
+
+    /**
+     * Loop de confirmación agrupada: espera el primer registro pendiente, luego espera a completar el lote o a que
+     * venza el tiempo máximo de espera de ese registro, y sincroniza el lote
+     */
+    @Override
+    public void run() {
+        while (true) {
+            List<PendingCommit> batch;
+            try {
+                batch = this.awaitBatch();
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (batch == null) return;
+            try {
+                journal.forceSegment();
+            } catch (RuntimeException e) {
+                System.out.println("Error sincronizando bitácora " + e);
+            }
+            this.complete(batch);
+        }
+    }
+
+    /**
+     * Espera a que haya un lote de registros listo para sincronizarse y lo retira de los pendientes
+     * @return lote de registros, null si la bitácora fue cerrada y no quedan registros pendientes
+     * @throws InterruptedException si el hilo de confirmación es interrumpido
+     */
+    private synchronized List<PendingCommit> awaitBatch() throws InterruptedException {
+        while (pending.isEmpty()) {
+            if (closed) return null;
+            this.wait();
+        }
+        long deadline = pending.get(0).startNanos + intervalNanos;
+        long remaining;
+        while (!closed && pending.size() < batchSize && (remaining = deadline - System.nanoTime()) > 0) {
+            TimeUnit.NANOSECONDS.timedWait(this, remaining);
+        }
+        List<PendingCommit> batch = pending;
+        pending = new ArrayList<>();
+        return batch;
+    }
+
+    /**
+     * Registra la latencia de un lote sincronizado y entrega sus confirmaciones al hilo de confirmaciones. Una
+     * confirmación que falla no impide ejecutar las siguientes
+     * @param batch lote de registros sincronizados
+     */
+    private void complete(List<PendingCommit> batch) {
+        long now = System.nanoTime();
+        for (PendingCommit commit : batch) {
+            latency.record(now - commit.startNanos);
+        }
+        completions.execute(() -> {
+            for (PendingCommit commit : batch) {
+                if (commit.onDurable == null) continue;
+                try {
+                    commit.onDurable.run();
+                } catch (RuntimeException e) {
+                    System.out.println("Error confirmando registro de bitácora " + e);
+                }
+            }
+        });
+    }
+
+    /**
+     * Detiene el hilo de confirmación una vez sincronizados los registros pendientes, y el hilo de confirmaciones una
+     * vez ejecutadas sus confirmaciones
+     */
+    public void close() {
+        synchronized (this) {
+            closed = true;
+            this.notifyAll();
+        }
+        try {
+            thread.join();
+            completions.shutdown();
+            completions.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Confirmación pendiente de un registro de la bitácora
+     */
+    private static final class PendingCommit {
+
+        /**
+         * OnDurable: confirmación que se ejecuta una vez el registro es sincronizado, puede ser null
+         */
+        final Runnable onDurable;
+
+        /**
+         * StartNanos: instante en que se inició el registro
+         */
+        final long startNanos;
+
+        /**
+         * Constructor de la clase PendingCommit
+         * @param onDurable confirmación del registro
+         * @param startNanos instante en que se inició el registro
+         */
+        PendingCommit(Runnable onDurable, long startNanos) {
+            this.onDurable = onDurable;
+            this.startNanos = startNanos;
+        }
+    }
+}
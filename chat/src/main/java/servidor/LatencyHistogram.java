@@ -0,0 +1,161 @@
+package servidor;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Clase LatencyHistogram, histograma concurrente de latencias en nanosegundos con buckets log-lineales: cada potencia
+ * de dos se divide en 16 buckets, por lo que el error de los percentiles es menor al 7% en cualquier escala, desde
+ * nanosegundos hasta minutos, con un arreglo fijo de contadores. Registrar una latencia no adquiere candados ni
+ * compite por una misma variable: cada contador y el máximo se reparten en celdas por hilo (LongAdder y
+ * LongAccumulator) que solo se suman al consultar el histograma, de modo que puede ser actualizado desde los hilos de
+ * todas las conexiones
+ * @Author Jorge Luis Velasquez Venegas
+ */
+public class LatencyHistogram {
+
+    /**
+     * SUB_BUCKET_BITS: bits de cada potencia de dos que se distinguen en los buckets
+     */
+    private static final int SUB_BUCKET_BITS = 4;
+
+    /**
+     * SUB_BUCKETS: número de buckets por cada potencia de dos
+     */
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    /**
+     * BUCKETS: número total de buckets, cubre todos los valores positivos de un long
+     */
+    private static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    /**
+     * Counts: número de latencias registradas en cada bucket
+     */
+    private final LongAdder[] counts = new LongAdder[BUCKETS];
+
+    /**
+     * Count: número total de latencias registradas
+     */
+    private final LongAdder count = new LongAdder();
+
+    /**
+     * Sum: suma de las latencias registradas
+     */
+    private final LongAdder sum = new LongAdder();
+
+    /**
+     * Max: máxima latencia registrada
+     */
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Constructor de la clase LatencyHistogram
+     */
+    public LatencyHistogram() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Registra una latencia
+     * @param nanos latencia en nanosegundos, los valores negativos se registran como cero
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts[index(value)].increment();
+        count.increment();
+        sum.add(value);
+        max.accumulate(value);
+    }
+
+    /**
+     * Retorna el bucket correspondiente a una latencia
+     * @param value latencia en nanosegundos
+     * @return índice del bucket
+     */
+    private static int index(long value) {
+        if (value < SUB_BUCKETS) return (int) value;
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BUCKET_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) ((value >>> shift) - SUB_BUCKETS);
+    }
+
+    /**
+     * Retorna el mayor valor que pertenece a un bucket
+     * @param index índice del bucket
+     * @return latencia en nanosegundos
+     */
+    private static long upperBound(int index) {
+        if (index < SUB_BUCKETS) return index;
+        int shift = index / SUB_BUCKETS - 1;
+        long mantissa = index % SUB_BUCKETS + SUB_BUCKETS;
+        return ((mantissa + 1) << shift) - 1;
+    }
+
+    /**
+     * Retorna el percentil indicado de las latencias registradas
+     * @param percentile percentil entre 0 y 100
+     * @return latencia en nanosegundos, cero si no hay latencias registradas
+     */
+    public long getPercentile(double percentile) {
+        long total = count.sum();
+        if (total == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(total * Math.min(100, percentile) / 100));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i].sum();
+            if (seen >= rank) return Math.min(upperBound(i), max.get());
+        }
+        return max.get();
+    }
+
+    /**
+     * Retorna el número de latencias registradas
+     * @return número de latencias
+     */
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * Retorna el promedio de las latencias registradas
+     * @return latencia promedio en nanosegundos
+     */
+    public double getMean() {
+        long total = count.sum();
+        return total == 0 ? 0 : (double) sum.sum() / total;
+    }
+
+    /**
+     * Retorna la máxima latencia registrada
+     * @return latencia máxima en nanosegundos
+     */
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * Retorna un resumen del histograma con el número de latencias, el promedio, los percentiles 50, 99 y 99.9 y el
+     * máximo en microsegundos, con punto decimal sin importar el idioma del sistema
+     * @return resumen del histograma
+     */
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "n=%d, media=%.1fus, p50=%.1fus, p99=%.1fus, p99.9=%.1fus, max=%.1fus",
+                getCount(), getMean() / 1000, micros(getPercentile(50)), micros(getPercentile(99)),
+                micros(getPercentile(99.9)), micros(getMax()));
+    }
+
+    /**
+     * Convierte nanosegundos a microsegundos
+     * @param nanos latencia en nanosegundos
+     * @return latencia en microsegundos
+     */
+    private static double micros(long nanos) {
+        return nanos / (double) TimeUnit.MICROSECONDS.toNanos(1);
+    }
+}
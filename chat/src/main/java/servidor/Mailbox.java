@@ -0,0 +1,589 @@
+package servidor;
+
+import connection.MessageCodec;
+
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Clase Mailbox, buzón de los mensajes pendientes por entregar a un cliente desconectado. Las tramas se conservan en
+ * memoria hasta el límite asignado por MailboxStore; a partir de ese punto las nuevas tramas se agregan al final de un
+ * archivo de desborde, de modo que las tramas en memoria siempre preceden a las del archivo y el orden de llegada se
+ * conserva. El canal del archivo de desborde se toma de SpillChannelPool durante cada operación, de modo que el
+ * número de archivos abiertos no crece con el número de buzones desbordados, y el archivo se elimina cuando el buzón
+ * termina de entregar sus tramas. El buzón se vacía por lotes: cada
+ * lote agrupa varias tramas completas en un solo buffer que se encola hacia el cliente, y solo se retira del buzón una
+ * vez fue aceptado por la cola de salida. Todos los métodos deben invocarse con el candado del buzón adquirido
+ * (synchronized sobre la instancia)
+ * @Author Jorge Luis Velasquez Venegas
+ */
+public class Mailbox {
+
+    /**
+     * Frames: tramas pendientes conservadas en memoria, en orden de llegada
+     */
+    private final ArrayDeque<ByteBuffer> frames = new ArrayDeque<>();
+
+    /**
+     * SpillFile: archivo de desborde con las tramas que no caben en memoria
+     */
+    private final Path spillFile;
+
+    /**
+     * MemoryBytes: bytes de las tramas conservadas en memoria
+     */
+    private long memoryBytes;
+
+    /**
+     * Spilled: indica que el archivo de desborde contiene tramas pendientes, mientras sea así las nuevas tramas se
+     * agregan al archivo para conservar el orden
+     */
+    private boolean spilled;
+
+    /**
+     * SpillOffset: posición del archivo de desborde hasta la cual las tramas ya fueron entregadas
+     */
+    private long spillOffset;
+
+    /**
+     * SpillLength: bytes escritos en el archivo de desborde, las nuevas tramas se escriben a partir de esta posición
+     */
+    private long spillLength;
+
+    /**
+     * SpillLengthKnown: indica que spillLength corresponde al tamaño del archivo de desborde, se lee al tomar por
+     * primera vez su canal
+     */
+    private boolean spillLengthKnown;
+
+    /**
+     * SpillChannels: canales abiertos de los archivos de desborde, compartidos con los demás buzones
+     */
+    private final SpillChannelPool spillChannels;
+
+    /**
+     * Draining: indica que el buzón se está vaciando hacia el cliente, las tramas que lleguen mientras tanto se
+     * agregan al final del buzón
+     */
+    private boolean draining;
+
+    /**
+     * Closed: indica que el buzón quedó vacío y fue retirado de MailboxStore
+     */
+    private boolean closed;
+
+    /**
+     * Constructor de la clase Mailbox
+     * @param spillFile archivo de desborde del buzón
+     * @param spilled true si el archivo de desborde ya contiene tramas de una ejecución anterior
+     * @param spillChannels canales abiertos de los archivos de desborde
+     */
+    Mailbox(Path spillFile, boolean spilled, SpillChannelPool spillChannels) {
+        this.spillFile = spillFile;
+        this.spilled = spilled;
+        this.spillChannels = spillChannels;
+    }
+
+    /**
+     * Agrega una trama al final del buzón: en memoria si cabe y el archivo de desborde está vacío, o al final del
+     * archivo de desborde en caso contrario
+     * @param frame trama a conservar, iniciando en la posición cero
+     * @param fitsInMemory true si la trama cabe dentro de los límites de memoria
+     * @return true si la trama quedó en memoria, false si fue escrita en el archivo de desborde
+     * @throws IOException si no es posible escribir el archivo de desborde
+     */
+    boolean append(ByteBuffer frame, boolean fitsInMemory) throws IOException {
+        if (!spilled && fitsInMemory) {
+            frames.addLast(frame);
+            memoryBytes += frame.limit();
+            return true;
+        }
+        FileChannel channel = this.acquireSpill();
+        try {
+            ByteBuffer data = frame.duplicate();
+            while (data.hasRemaining()) spillLength += channel.write(data, spillLength);
+        } finally {
+            spillChannels.release(spillFile);
+        }
+        spilled = true;
+        return false;
+    }
+
+    /**
+     * Agrega al final del archivo de desborde tramas completas leídas de un flujo, con escrituras de varias tramas a la
+     * vez en lugar de una escritura por trama. Se emplea al cargar el buzón de una instantánea una vez las primeras
+     * tramas ocuparon la memoria disponible
+     * @param source flujo del que se leen las tramas
+     * @param bytes número de bytes a copiar, deben corresponder a tramas completas
+     * @throws IOException si no es posible leer el flujo o escribir el archivo de desborde
+     */
+    void appendSpill(ReadableByteChannel source, long bytes) throws IOException {
+        FileChannel channel = this.acquireSpill();
+        try {
+            long end = spillLength + bytes;
+            while (spillLength < end) {
+                long copied = channel.transferFrom(source, spillLength, end - spillLength);
+                if (copied <= 0) throw new EOFException(spillFile.toString());
+                spillLength += copied;
+            }
+        } finally {
+            spillChannels.release(spillFile);
+        }
+        spilled = true;
+    }
+
+    /**
+     * Toma de SpillChannelPool el canal del archivo de desborde, debe devolverse con release al terminar la operación
+     * @return canal de lectura y escritura del archivo de desborde
+     * @throws IOException si no es posible abrir o crear el archivo
+     */
+    private FileChannel acquireSpill() throws IOException {
+        FileChannel channel = spillChannels.acquire(spillFile);
+        if (!spillLengthKnown) {
+            try {
+                spillLength = channel.size();
+            } catch (IOException e) {
+                spillChannels.release(spillFile);
+                throw e;
+            }
+            spillLengthKnown = true;
+        }
+        return channel;
+    }
+
+    /**
+     * Descarta la última trama del archivo de desborde si quedó escrita parcialmente (el servidor se detuvo mientras
+     * la escribía), para que las nuevas tramas se agreguen a continuación de la última trama completa
+     * @throws IOException si no es posible leer o truncar el archivo de desborde
+     */
+    void truncateTornTail() throws IOException {
+        FileChannel channel = this.acquireSpill();
+        long position = 0;
+        try {
+            ByteBuffer header = ByteBuffer.allocate(Integer.BYTES);
+            long end = spillLength;
+            while (position + Integer.BYTES <= end) {
+                int length = readHeader(channel, header, position);
+                if (length < 0 || length > MessageCodec.MAX_FRAME_LENGTH
+                        || position + Integer.BYTES + length > end) break;
+                position += Integer.BYTES + length;
+            }
+            if (position < end) {
+                System.out.println("Trama incompleta en buzón " + spillFile + " posición " + position);
+                channel.truncate(position);
+                spillLength = position;
+            }
+        } finally {
+            spillChannels.release(spillFile);
+        }
+        if (position == 0) this.deleteSpill();
+    }
+
+    /**
+     * Construye el siguiente lote de tramas completas sin retirarlas del buzón, primero las tramas en memoria y luego
+     * las del archivo de desborde
+     * @param maxBytes máximo de bytes del lote, la primera trama siempre es incluida
+     * @return lote de tramas, null si el buzón está vacío
+     * @throws IOException si no es posible leer el archivo de desborde
+     */
+    Batch nextBatch(int maxBytes) throws IOException {
+        if (!frames.isEmpty()) {
+            int count = 0;
+            long bytes = 0;
+            Iterator<ByteBuffer> iterator = frames.iterator();
+            while (iterator.hasNext()) {
+                ByteBuffer frame = iterator.next();
+                if (count > 0 && bytes + frame.limit() > maxBytes) break;
+                bytes += frame.limit();
+                count++;
+            }
+            ByteBuffer data = ByteBuffer.allocate((int) bytes);
+            iterator = frames.iterator();
+            for (int i = 0; i < count; i++) data.put(iterator.next().duplicate());
+            return new Batch(data.flip(), count, count, 0);
+        }
+        if (!spilled) return null;
+        FileChannel channel = this.acquireSpill();
+        try {
+            ByteBuffer header = ByteBuffer.allocate(Integer.BYTES);
+            long position = spillOffset;
+            long end = spillLength;
+            int count = 0;
+            while (position + Integer.BYTES <= end) {
+                int frameLength = Integer.BYTES + MessageCodec.checkLength(readHeader(channel, header, position));
+                if (position + frameLength > end) break;
+                if (position > spillOffset && position + frameLength - spillOffset > maxBytes) break;
+                position += frameLength;
+                count++;
+            }
+            if (position == spillOffset) return null;
+            ByteBuffer data = ByteBuffer.allocate((int) (position - spillOffset));
+            while (data.hasRemaining()) {
+                if (channel.read(data, spillOffset + data.position()) < 0) {
+                    throw new EOFException(spillFile.toString());
+                }
+            }
+            return new Batch(data.flip(), count, 0, position - spillOffset);
+        } finally {
+            spillChannels.release(spillFile);
+        }
+    }
+
+    /**
+     * Lee la longitud de una trama del archivo de desborde
+     * @param channel canal tomado del archivo de desborde
+     * @param header buffer de cuatro bytes reutilizado
+     * @param position posición de la trama en el archivo
+     * @return longitud del cuerpo de la trama
+     * @throws IOException
+     */
+    private int readHeader(FileChannel channel, ByteBuffer header, long position) throws IOException {
+        header.clear();
+        while (header.hasRemaining()) {
+            if (channel.read(header, position + header.position()) < 0) {
+                throw new EOFException(spillFile.toString());
+            }
+        }
+        return header.getInt(0);
+    }
+
+    /**
+     * Retira del buzón las tramas de un lote que ya fue aceptado por la cola de salida del cliente. Si el archivo de
+     * desborde queda vacío se elimina
+     * @param batch lote entregado
+     * @return bytes liberados de memoria
+     * @throws IOException
+     */
+    long commit(Batch batch) throws IOException {
+        long released = 0;
+        for (int i = 0; i < batch.memoryFrames; i++) {
+            released += frames.pollFirst().limit();
+        }
+        memoryBytes -= released;
+        spillOffset += batch.spillBytes;
+        if (batch.spillBytes > 0 && spillOffset >= spillLength) this.deleteSpill();
+        return released;
+    }
+
+    /**
+     * Descarta las primeras tramas del buzón, se emplea al reconstruir el buzón a partir de la bitácora para aplicar
+     * las entregas registradas. Si el buzón tiene menos tramas que las indicadas queda vacío
+     * @param count número de tramas a descartar
+     * @return bytes liberados de memoria
+     * @throws IOException si no es posible leer el archivo de desborde
+     */
+    long discard(int count) throws IOException {
+        long released = 0;
+        while (count > 0 && !frames.isEmpty()) {
+            released += frames.pollFirst().limit();
+            count--;
+        }
+        memoryBytes -= released;
+        if (count > 0 && spilled) {
+            FileChannel channel = this.acquireSpill();
+            try {
+                ByteBuffer header = ByteBuffer.allocate(Integer.BYTES);
+                while (count > 0 && spillOffset + Integer.BYTES <= spillLength) {
+                    spillOffset += Integer.BYTES + readHeader(channel, header, spillOffset);
+                    count--;
+                }
+            } finally {
+                spillChannels.release(spillFile);
+            }
+            if (spillOffset >= spillLength) this.deleteSpill();
+        }
+        return released;
+    }
+
+    /**
+     * Retorna la posición actual del final del buzón, a la que puede regresar con rollback mientras ningún otro hilo
+     * modifique el buzón
+     * @return marca del final del buzón
+     */
+    Mark mark() {
+        return new Mark(frames.size(), spilled, spillLength);
+    }
+
+    /**
+     * Descarta las tramas agregadas al final del buzón después de tomar la marca, truncando el archivo de desborde o
+     * eliminándolo si fue creado después de la marca. Se emplea para deshacer las tramas de una transacción que no
+     * pudo guardarse completa
+     * @param mark marca tomada antes de agregar las tramas
+     * @return bytes liberados de memoria
+     * @throws IOException si no es posible truncar o eliminar el archivo de desborde
+     */
+    long rollback(Mark mark) throws IOException {
+        long released = 0;
+        while (frames.size() > mark.frames) {
+            released += frames.pollLast().limit();
+        }
+        memoryBytes -= released;
+        if (spilled && !mark.spilled) {
+            this.deleteSpill();
+        } else if (spilled && spillLength > mark.spillLength) {
+            FileChannel channel = this.acquireSpill();
+            try {
+                channel.truncate(mark.spillLength);
+            } finally {
+                spillChannels.release(spillFile);
+            }
+            spillLength = mark.spillLength;
+        }
+        return released;
+    }
+
+    /**
+     * Captura las tramas pendientes del buzón para escribirlas en una instantánea sin mantener su candado: se copian
+     * las referencias a las tramas en memoria y se abre un canal de lectura propio sobre el rango pendiente del archivo
+     * de desborde. El archivo solo crece por el final, y si se elimina el canal abierto conserva su contenido, por lo
+     * que el rango capturado no cambia mientras se copia
+     * @return tramas pendientes del buzón, debe cerrarse una vez escritas
+     * @throws IOException si no es posible abrir el archivo de desborde
+     */
+    Snapshot snapshot() throws IOException {
+        ArrayList<ByteBuffer> copy = new ArrayList<>(frames.size());
+        for (ByteBuffer frame : frames) {
+            copy.add(frame.duplicate());
+        }
+        long spillBytes = spilled ? spillLength - spillOffset : 0;
+        FileChannel channel = spillBytes > 0 ? FileChannel.open(spillFile, StandardOpenOption.READ) : null;
+        return new Snapshot(copy, memoryBytes, channel, spillOffset, spillBytes);
+    }
+
+    /**
+     * Cierra el canal y elimina el archivo de desborde una vez todas sus tramas fueron entregadas
+     * @throws IOException
+     */
+    private void deleteSpill() throws IOException {
+        spillChannels.close(spillFile);
+        Files.deleteIfExists(spillFile);
+        spilled = false;
+        spillOffset = 0;
+        spillLength = 0;
+        spillLengthKnown = false;
+    }
+
+    /**
+     * Finaliza el vaciado del buzón, el archivo de desborde se conserva mientras contenga tramas pendientes
+     */
+    void stopDraining() {
+        draining = false;
+    }
+
+    /**
+     * Indica si el buzón no tiene tramas pendientes
+     * @return true si el buzón está vacío
+     */
+    boolean isEmpty() {
+        return frames.isEmpty() && !spilled;
+    }
+
+    /**
+     * Indica si el archivo de desborde contiene tramas pendientes, en cuyo caso las nuevas tramas se agregan a él
+     * @return true si el buzón tiene tramas en el archivo de desborde
+     */
+    boolean isSpilled() {
+        return spilled;
+    }
+
+    /**
+     * Retorna los bytes de las tramas conservadas en memoria
+     * @return bytes en memoria
+     */
+    long getMemoryBytes() {
+        return memoryBytes;
+    }
+
+    /**
+     * Indica si el buzón se está vaciando hacia el cliente
+     * @return true si hay un vaciado en curso
+     */
+    boolean isDraining() {
+        return draining;
+    }
+
+    /**
+     * Marca el inicio del vaciado del buzón hacia el cliente
+     */
+    void startDraining() {
+        this.draining = true;
+    }
+
+    /**
+     * Indica si el buzón fue retirado de MailboxStore, quien lo obtuvo antes de ser retirado debe buscarlo de nuevo
+     * @return true si el buzón fue retirado
+     */
+    boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Marca el buzón como retirado de MailboxStore y cierra el canal del archivo de desborde
+     */
+    void close() {
+        this.closed = true;
+        spillChannels.close(spillFile);
+    }
+
+    /**
+     * Posición del final del buzón en un momento dado, ver mark
+     */
+    static final class Mark {
+
+        /**
+         * Frames: número de tramas en memoria
+         */
+        final int frames;
+
+        /**
+         * Spilled: indica si el archivo de desborde contenía tramas pendientes
+         */
+        final boolean spilled;
+
+        /**
+         * SpillLength: bytes escritos en el archivo de desborde
+         */
+        final long spillLength;
+
+        /**
+         * Constructor de la clase Mark
+         * @param frames número de tramas en memoria
+         * @param spilled true si el archivo de desborde contenía tramas pendientes
+         * @param spillLength bytes escritos en el archivo de desborde
+         */
+        Mark(int frames, boolean spilled, long spillLength) {
+            this.frames = frames;
+            this.spilled = spilled;
+            this.spillLength = spillLength;
+        }
+    }
+
+    /**
+     * Lote de tramas completas agrupadas en un solo buffer para ser encoladas hacia el cliente
+     */
+    static final class Batch {
+
+        /**
+         * Data: tramas del lote, iniciando en la posición cero
+         */
+        final ByteBuffer data;
+
+        /**
+         * Frames: número total de tramas del lote
+         */
+        final int frames;
+
+        /**
+         * MemoryFrames: número de tramas del lote tomadas de memoria
+         */
+        final int memoryFrames;
+
+        /**
+         * SpillBytes: número de bytes del lote tomados del archivo de desborde
+         */
+        final long spillBytes;
+
+        /**
+         * Constructor de la clase Batch
+         * @param data tramas del lote
+         * @param frames número total de tramas del lote
+         * @param memoryFrames número de tramas tomadas de memoria
+         * @param spillBytes número de bytes tomados del archivo de desborde
+         */
+        Batch(ByteBuffer data, int frames, int memoryFrames, long spillBytes) {
+            this.data = data;
+            this.frames = frames;
+            this.memoryFrames = memoryFrames;
+            this.spillBytes = spillBytes;
+        }
+    }
+
+    /**
+     * Tramas pendientes de un buzón capturadas para una instantánea, ver snapshot
+     */
+    static final class Snapshot implements Closeable {
+
+        /**
+         * Frames: tramas en memoria, en orden
+         */
+        private final List<ByteBuffer> frames;
+
+        /**
+         * MemoryBytes: número total de bytes de las tramas en memoria
+         */
+        private final long memoryBytes;
+
+        /**
+         * Channel: canal de lectura del archivo de desborde, null si el buzón no tiene tramas en el archivo
+         */
+        private final FileChannel channel;
+
+        /**
+         * SpillOffset: posición en el archivo de desborde de la primera trama pendiente
+         */
+        private final long spillOffset;
+
+        /**
+         * SpillBytes: número de bytes pendientes del archivo de desborde
+         */
+        private final long spillBytes;
+
+        /**
+         * Constructor de la clase Snapshot
+         * @param frames tramas en memoria
+         * @param memoryBytes número total de bytes de las tramas en memoria
+         * @param channel canal de lectura del archivo de desborde, null si no hay tramas en el archivo
+         * @param spillOffset posición de la primera trama pendiente del archivo
+         * @param spillBytes número de bytes pendientes del archivo
+         */
+        Snapshot(List<ByteBuffer> frames, long memoryBytes, FileChannel channel, long spillOffset, long spillBytes) {
+            this.frames = frames;
+            this.memoryBytes = memoryBytes;
+            this.channel = channel;
+            this.spillOffset = spillOffset;
+            this.spillBytes = spillBytes;
+        }
+
+        /**
+         * Escribe las tramas capturadas, en orden, precedidas por su número total de bytes
+         * @param out flujo de la instantánea
+         * @throws IOException si no es posible leer el archivo de desborde o escribir la instantánea
+         */
+        void writeTo(DataOutputStream out) throws IOException {
+            out.writeLong(memoryBytes + spillBytes);
+            for (ByteBuffer frame : frames) {
+                out.write(frame.array(), frame.arrayOffset(), frame.limit());
+            }
+            long copied = 0;
+            WritableByteChannel target = Channels.newChannel(out);
+            while (copied < spillBytes) {
+                long transferred = channel.transferTo(spillOffset + copied, spillBytes - copied, target);
+                if (transferred <= 0) throw new EOFException("Archivo de desborde truncado");
+                copied += transferred;
+            }
+        }
+
+        /**
+         * Cierra el canal de lectura del archivo de desborde
+         * @throws IOException si no es posible cerrar el canal
+         */
+        @Override
+        public void close() throws IOException {
+            if (channel != null) channel.close();
+        }
+    }
+}
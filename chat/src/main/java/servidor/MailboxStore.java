@@ -0,0 +1,650 @@
+package servidor;
+
+import connection.Message;
+import connection.MessageCodec;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * Clase MailboxStore, buzones de los mensajes dirigidos a clientes que no se encuentran conectados. Cuando el
+ * destinatario de un mensaje no está conectado, o aún tiene mensajes pendientes por recibir, el mensaje se agrega a su
+ * buzón en lugar de descartarse; al conectarse el destinatario ("connect") su buzón se vacía en orden mediante lotes
+ * de varias tramas, esperando a que su cola de salida tenga espacio entre un lote y otro. La memoria empleada por los
+ * buzones está acotada por buzón y en total, las tramas que superan esos límites se escriben en el archivo de desborde
+ * del buzón. Con la bitácora habilitada cada mensaje guardado y cada lote entregado se registra en ella, de modo que
+ * los buzones se reconstruyen al iniciar el servidor a partir de la última instantánea y de los registros posteriores
+ * (ver Compactor); sin bitácora se recuperan los archivos de desborde de la ejecución anterior. Los registros se
+ * copian en la bitácora con los candados de los buzones adquiridos, pero se sincronizan con el disco (sync) después
+ * de liberarlos, de modo que la sincronización no bloquea el almacenamiento ni la entrega de otros mensajes
+ * @Author Jorge Luis Velasquez Venegas
+ */
+public class MailboxStore {
+
+    /**
+     * SPILL_SUFFIX: extensión de los archivos de desborde
+     */
+    private static final String SPILL_SUFFIX = ".box";
+
+    /**
+     * Mailboxes: buzones con mensajes pendientes indexados por el identificador normalizado del destinatario
+     */
+    private final ConcurrentHashMap<String, Mailbox> mailboxes = new ConcurrentHashMap<>();
+
+    /**
+     * Identities: identificadores normalizados de los clientes que se han conectado al servidor. Solo se crean buzones
+     * para estos destinatarios, de modo que un mensaje dirigido a un nombre que nunca se conectó no ocupa un buzón de
+     * forma permanente. Con bitácora se conservan entre reinicios mediante la instantánea y los registros de identidad
+     */
+    private final Set<String> identities = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Transactions: candado que permite a una transacción guardar sus tramas en varios buzones como una sola operación.
+     * Quien agrega, entrega o lee las tramas de un buzón adquiere el candado compartido, y la transacción el exclusivo,
+     * de modo que mientras guarda sus tramas ningún otro hilo las observa ni agrega tramas detrás de ellas, y si falla
+     * puede retirarlas truncando cada buzón a su estado anterior
+     */
+    private final ReentrantReadWriteLock transactions = new ReentrantReadWriteLock();
+
+    /**
+     * Clients: índice de las sesiones de los clientes conectados
+     */
+    private final RoutingTable clients;
+
+    /**
+     * Journal: bitácora en la que se registran los mensajes guardados y entregados, null si se encuentra deshabilitada
+     */
+    private final MessageJournal journal;
+
+    /**
+     * ReplayCursors: número de secuencia de la bitácora desde el cual se aplican los registros de cada buzón cargado
+     * de la instantánea, solo se usa mientras se reconstruyen los buzones
+     */
+    private final Map<String, Long> replayCursors = new HashMap<>();
+
+    /**
+     * Directory: directorio de los archivos de desborde
+     */
+    private final Path directory;
+
+    /**
+     * MailboxMemoryBytes: máximo de bytes que un buzón conserva en memoria
+     */
+    private final long mailboxMemoryBytes;
+
+    /**
+     * TotalMemoryBytes: máximo de bytes que el conjunto de buzones conserva en memoria
+     */
+    private final long totalMemoryBytes;
+
+    /**
+     * MemoryBytes: bytes conservados en memoria por el conjunto de buzones
+     */
+    private final AtomicLong memoryBytes = new AtomicLong();
+
+    /**
+     * SpillChannels: canales abiertos de los archivos de desborde de todos los buzones, acotados por
+     * ServerConfig.getMailboxOpenFiles
+     */
+    private final SpillChannelPool spillChannels;
+
+    /**
+     * Mode: modelo de ejecución con el que se crean los hilos de vaciado de los buzones
+     */
+    private final ServerMode mode;
+
+    /**
+     * BatchBytes: máximo de bytes de cada lote encolado al vaciar un buzón
+     */
+    private final int batchBytes;
+
+    /**
+     * Constructor de la clase MailboxStore, crea el directorio de desborde y recupera los buzones de los archivos de
+     * desborde existentes si la bitácora está deshabilitada; con bitácora los archivos de desborde anteriores se
+     * descartan, pues los buzones se reconstruyen a partir de la instantánea y la bitácora
+     * @param clients índice de las sesiones de los clientes conectados
+     * @param journal bitácora de mensajes, null si se encuentra deshabilitada
+     * @param config parámetros del servidor con el directorio y los límites de memoria de los buzones
+     * @throws IOException si no es posible crear o leer el directorio de desborde
+     */
+    public MailboxStore(RoutingTable clients, MessageJournal journal, ServerConfig config) throws IOException {
+        this.clients = clients;
+        this.journal = journal;
+        this.directory = Path.of(config.getMailboxDirectory());
+        this.mailboxMemoryBytes = config.getMailboxMemoryBytes();
+        this.totalMemoryBytes = config.getMailboxTotalMemoryBytes();
+        this.spillChannels = new SpillChannelPool(config.getMailboxOpenFiles());
+        this.mode = config.getMode();
+        this.batchBytes = config.getWriteBatchBytes();
+        Files.createDirectories(directory);
+        this.recover();
+    }
+
+    /**
+     * Registra la identidad de un cliente que se conectó, a partir de ese momento los mensajes dirigidos a él se
+     * guardan en su buzón mientras se encuentre desconectado. La primera conexión de cada cliente se agrega a la
+     * bitácora, y se hace durable con la siguiente sincronización
+     * @param idClient nombre que identifica al cliente
+     * @throws IOException si no es posible registrar la identidad en la bitácora
+     */
+    public void register(String idClient) throws IOException {
+        String key = RoutingTable.normalize(idClient);
+        if (key == null || !identities.add(key) || journal == null) return;
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(key.length() + 2);
+        new DataOutputStream(bytes).writeUTF(key);
+        journal.write(MessageJournal.RECORD_IDENTITY, bytes.toByteArray());
+    }
+
+    /**
+     * Indica si un destinatario puede recibir mensajes: se encuentra conectado o se conectó alguna vez, en cuyo caso
+     * los mensajes se guardan en su buzón
+     * @param destiny nombre del cliente destino
+     * @return true si el destinatario es conocido, false si su nombre es inválido o nunca se conectó
+     */
+    public boolean isKnown(String destiny) {
+        String key = RoutingTable.normalize(destiny);
+        return key != null && (identities.contains(key) || clients.find(key) != null);
+    }
+
+    /**
+     * Entrega un mensaje a su destinatario si se encuentra conectado y no tiene mensajes pendientes, en caso contrario
+     * lo agrega al final de su buzón registrándolo en la bitácora. El registro no se sincroniza con el disco: quien
+     * invoca confirma el mensaje con MessageJournal.sync
+     * @param destiny nombre del cliente destino
+     * @param message mensaje a entregar
+     * @return true si el mensaje fue guardado en el buzón, false si fue entregado o descartado por destino inválido o
+     * desconocido (ver isKnown)
+     * @throws IOException si no es posible guardar el mensaje en el buzón o registrarlo en la bitácora
+     */
+    public boolean deliver(String destiny, Message message) throws IOException {
+        return this.deliver(destiny, MessageCodec.frame(message));
+    }
+
+    /**
+     * Entrega una trama ya codificada a su destinatario, o la agrega a su buzón. La trama puede compartirse entre
+     * varios destinatarios, pues cada uno recibe una vista propia de sus bytes
+     * @param destiny nombre del cliente destino
+     * @param frame trama a entregar, iniciando en la posición cero, no se modifica
+     * @return true si la trama fue guardada en el buzón, false si fue entregada o descartada por destino inválido o
+     * desconocido
+     * @throws IOException si no es posible guardar la trama en el buzón o registrarla en la bitácora
+     */
+    public boolean deliver(String destiny, ByteBuffer frame) throws IOException {
+        String key = RoutingTable.normalize(destiny);
+        if (key == null) return false;
+        RoutingLookupEvent event = new RoutingLookupEvent();
+        event.begin();
+        boolean stored = this.route(key, frame);
+        event.stored = stored;
+        event.commit(destiny, frame);
+        return stored;
+    }
+
+    /**
+     * Entrega una trama a la sesión del destinatario si se encuentra conectado y no tiene mensajes pendientes en su
+     * buzón, de lo contrario la agrega al buzón. Ver deliver(String, ByteBuffer)
+     * @param key identificador normalizado del destinatario
+     * @param frame trama a entregar, iniciando en la posición cero, no se modifica
+     * @return true si la trama fue guardada en el buzón, false si fue entregada o el destinatario es desconocido
+     * @throws IOException si no es posible guardar la trama en el buzón o registrarla en la bitácora
+     */
+    private boolean route(String key, ByteBuffer frame) throws IOException {
+        while (true) {
+            Mailbox mailbox = mailboxes.get(key);
+            if (mailbox == null) {
+                ClientSession session = clients.find(key);
+                if (session != null) {
+                    session.sendFrame(frame.duplicate());
+                    return false;
+                }
+                if (!identities.contains(key)) return false;
+                mailbox = mailboxes.computeIfAbsent(key, this::newMailbox);
+            }
+            transactions.readLock().lock();
+            try {
+                synchronized (mailbox) {
+                    if (mailbox.isClosed()) continue;
+                    ClientSession session = clients.find(key);
+                    if (session != null && mailbox.isEmpty() && !mailbox.isDraining()) {
+                        session.sendFrame(frame.duplicate());
+//                      Se retira el buzón vacío creado mientras el destinatario se conectaba
+                        mailbox.close();
+                        mailboxes.remove(key, mailbox);
+                        return false;
+                    }
+                    if (journal != null) {
+                        journal.write(MessageJournal.RECORD_STORED, this.storedRecord(key, frame));
+                    }
+                    this.store(mailbox, frame.duplicate());
+                    return true;
+                }
+            } finally {
+                transactions.readLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Guarda las tramas de una transacción en los buzones de sus destinatarios desconectados como una sola operación:
+     * si alguna trama no puede guardarse, o el registro de las tramas guardadas no puede agregarse a la bitácora, los
+     * buzones regresan a su estado anterior y no se entrega ninguna trama. Las tramas de los destinatarios conectados
+     * no se envían aquí: se retornan sus sesiones para que quien invoca las envíe, en orden, una vez la operación fue
+     * exitosa
+     * @param destinies destinatario de cada trama
+     * @param frames tramas a entregar, iniciando en la posición cero, no se modifican
+     * @return sesión a la que debe enviarse cada trama, en la misma posición de la trama; null si la trama fue guardada
+     * en un buzón o su destino es inválido o desconocido
+     * @throws IOException si no es posible guardar las tramas o registrarlas en la bitácora, los buzones no cambian
+     */
+    public ClientSession[] deliverAll(List<String> destinies, List<ByteBuffer> frames) throws IOException {
+        ClientSession[] sessions = new ClientSession[frames.size()];
+        HashMap<String, Mailbox.Mark> marks = new HashMap<>();
+        ArrayList<String> storedKeys = new ArrayList<>();
+        ArrayList<ByteBuffer> storedFrames = new ArrayList<>();
+        transactions.writeLock().lock();
+        try {
+            for (int i = 0; i < frames.size(); i++) {
+                String key = RoutingTable.normalize(destinies.get(i));
+                if (key == null) continue;
+                Mailbox mailbox = mailboxes.get(key);
+                ClientSession session = clients.find(key);
+                if (session != null && (mailbox == null || mailbox.isEmpty() && !mailbox.isDraining())) {
+                    sessions[i] = session;
+                    continue;
+                }
+                if (mailbox == null && !identities.contains(key)) continue;
+                if (mailbox == null) mailbox = mailboxes.computeIfAbsent(key, this::newMailbox);
+                synchronized (mailbox) {
+                    if (!marks.containsKey(key)) marks.put(key, mailbox.mark());
+                    this.store(mailbox, frames.get(i).duplicate());
+                }
+                storedKeys.add(key);
+                storedFrames.add(frames.get(i));
+            }
+            if (journal != null && !storedKeys.isEmpty()) {
+                journal.write(MessageJournal.RECORD_STORED_BATCH, this.storedRecord(storedKeys, storedFrames));
+            }
+        } catch (IOException e) {
+            this.rollback(marks);
+            throw e;
+        } finally {
+            transactions.writeLock().unlock();
+        }
+        return sessions;
+    }
+
+    /**
+     * Regresa los buzones a su estado anterior a una transacción fallida, retirando los buzones que quedan vacíos.
+     * Debe invocarse con el candado exclusivo de las transacciones adquirido
+     * @param marks marca de cada buzón modificado por la transacción, tomada antes de modificarlo
+     */
+    private void rollback(Map<String, Mailbox.Mark> marks) {
+        for (Map.Entry<String, Mailbox.Mark> entry : marks.entrySet()) {
+            Mailbox mailbox = mailboxes.get(entry.getKey());
+            synchronized (mailbox) {
+                try {
+                    memoryBytes.addAndGet(-mailbox.rollback(entry.getValue()));
+                } catch (IOException e) {
+                    System.out.println("Error deshaciendo transacción en buzón " + e + " - " + entry.getKey());
+                }
+                if (mailbox.isEmpty() && !mailbox.isDraining()) {
+                    mailbox.close();
+                    mailboxes.remove(entry.getKey(), mailbox);
+                }
+            }
+        }
+    }
+
+    /**
+     * Agrega una trama al buzón, en memoria si no supera los límites de memoria o en el archivo de desborde
+     * @param mailbox buzón del destinatario, con su candado adquirido
+     * @param frame trama a conservar
+     * @throws IOException si no es posible escribir el archivo de desborde
+     */
+    private void store(Mailbox mailbox, ByteBuffer frame) throws IOException {
+        int length = frame.limit();
+        boolean fits = mailbox.getMemoryBytes() + length <= mailboxMemoryBytes && this.reserve(length);
+        if (!mailbox.append(frame, fits) && fits) memoryBytes.addAndGet(-length);
+    }
+
+    /**
+     * Construye el cuerpo de un registro "guardado en buzón": identificador del destinatario seguido de la trama
+     * @param key identificador normalizado del destinatario
+     * @param frame trama guardada
+     * @return cuerpo del registro
+     * @throws IOException no se produce al escribir en memoria
+     */
+    private byte[] storedRecord(String key, ByteBuffer frame) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(frame.limit() + key.length() + 8);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeUTF(key);
+        out.write(frame.array(), frame.arrayOffset(), frame.limit());
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Construye el cuerpo de un registro "tramas de una transacción guardadas en buzones": número de tramas seguido,
+     * por cada trama, del identificador del destinatario y la trama
+     * @param keys identificador normalizado del destinatario de cada trama
+     * @param frames tramas guardadas
+     * @return cuerpo del registro
+     * @throws IOException no se produce al escribir en memoria
+     */
+    private byte[] storedRecord(List<String> keys, List<ByteBuffer> frames) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(frames.size());
+        for (int i = 0; i < frames.size(); i++) {
+            ByteBuffer frame = frames.get(i);
+            out.writeUTF(keys.get(i));
+            out.write(frame.array(), frame.arrayOffset(), frame.limit());
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Reserva memoria del límite total de los buzones
+     * @param length bytes a reservar
+     * @return true si la reserva no supera el límite total
+     */
+    private boolean reserve(int length) {
+        if (memoryBytes.addAndGet(length) <= totalMemoryBytes) return true;
+        memoryBytes.addAndGet(-length);
+        return false;
+    }
+
+    /**
+     * Inicia el vaciado del buzón de un cliente que acaba de conectarse, en un hilo propio para no detener la lectura
+     * de la conexión mientras se espera a que su cola de salida tenga espacio
+     * @param session sesión del cliente conectado
+     */
+    public void drain(ClientSession session) {
+        String key = RoutingTable.normalize(session.getIdClient());
+        Mailbox mailbox = key == null ? null : mailboxes.get(key);
+        if (mailbox == null) return;
+        synchronized (mailbox) {
+            if (mailbox.isClosed() || mailbox.isDraining()) return;
+            mailbox.startDraining();
+        }
+        mode.start("Mailbox-" + session.getIdClient(), () -> this.drain(key, mailbox, session));
+    }
+
+    /**
+     * Encola hacia el cliente los lotes del buzón hasta vaciarlo. Cada lote se retira del buzón solo si fue aceptado
+     * por la cola de salida; si el cliente se desconecta o no libera espacio a tiempo, los mensajes restantes
+     * permanecen en el buzón hasta su siguiente conexión
+     * @param key identificador normalizado del destinatario
+     * @param mailbox buzón del destinatario
+     * @param session sesión del destinatario
+     */
+    private void drain(String key, Mailbox mailbox, ClientSession session) {
+        try {
+            while (true) {
+                Mailbox.Batch batch;
+                transactions.readLock().lock();
+                try {
+                    synchronized (mailbox) {
+                        batch = mailbox.nextBatch(batchBytes);
+                        if (batch == null) {
+                            mailbox.stopDraining();
+                            if (mailbox.isEmpty()) {
+                                mailbox.close();
+                                mailboxes.remove(key, mailbox);
+                            }
+                            return;
+                        }
+                    }
+                } finally {
+                    transactions.readLock().unlock();
+                }
+                if (!session.sendBulk(batch.data)) break;
+                transactions.readLock().lock();
+                try {
+                    synchronized (mailbox) {
+                        memoryBytes.addAndGet(-mailbox.commit(batch));
+                        if (journal != null) this.journalDelivered(key, batch.frames);
+                    }
+                } finally {
+                    transactions.readLock().unlock();
+                }
+//              El registro de la entrega se sincroniza fuera de los candados del buzón
+                if (journal != null) journal.sync(null);
+            }
+        } catch (IOException e) {
+            System.out.println("Error vaciando buzón " + e + " - " + session.getIdClient());
+        }
+        synchronized (mailbox) {
+            mailbox.stopDraining();
+        }
+    }
+
+    /**
+     * Registra en la bitácora la entrega de las primeras tramas de un buzón
+     * @param key identificador normalizado del destinatario
+     * @param frames número de tramas entregadas
+     * @throws IOException si no es posible registrar la entrega
+     */
+    private void journalDelivered(String key, int frames) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(key.length() + 8);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeUTF(key);
+        out.writeInt(frames);
+        journal.write(MessageJournal.RECORD_DELIVERED, bytes.toByteArray());
+    }
+
+    /**
+     * Escribe en la instantánea las tramas pendientes de cada buzón junto con el número de secuencia de la bitácora
+     * desde el cual los registros posteriores de ese buzón deben aplicarse. Con el candado del buzón adquirido solo se
+     * capturan el número de secuencia, las tramas en memoria y el rango pendiente del archivo de desborde, de modo que
+     * la instantánea refleja exactamente los registros anteriores a ese número de secuencia; la copia del archivo se
+     * realiza después, sin bloquear la entrega ni el almacenamiento de mensajes en el buzón. A continuación de los
+     * buzones se escriben las identidades de los clientes que se han conectado
+     * @param out flujo de la instantánea
+     * @throws IOException si no es posible escribir la instantánea
+     */
+    void writeSnapshot(DataOutputStream out) throws IOException {
+        for (Map.Entry<String, Mailbox> entry : mailboxes.entrySet()) {
+            Mailbox mailbox = entry.getValue();
+            long cursor;
+            Mailbox.Snapshot snapshot;
+            transactions.readLock().lock();
+            try {
+                synchronized (mailbox) {
+                    if (mailbox.isClosed() || mailbox.isEmpty()) continue;
+                    cursor = journal.getNextSequence();
+                    snapshot = mailbox.snapshot();
+                }
+            } finally {
+                transactions.readLock().unlock();
+            }
+            try (snapshot) {
+                out.writeBoolean(true);
+                out.writeUTF(entry.getKey());
+                out.writeLong(cursor);
+                snapshot.writeTo(out);
+            }
+        }
+        out.writeBoolean(false);
+        ArrayList<String> known = new ArrayList<>(identities);
+        out.writeInt(known.size());
+        for (String key : known) {
+            out.writeUTF(key);
+        }
+    }
+
+    /**
+     * Carga los buzones de la instantánea, debe invocarse antes de aceptar conexiones. Las tramas de cada buzón ocupan
+     * la memoria disponible y las restantes se copian en bloque a su archivo de desborde. Se cargan también las
+     * identidades de los clientes que se han conectado
+     * @param in flujo de la instantánea
+     * @throws IOException si no es posible leer la instantánea o escribir los archivos de desborde
+     */
+    void readSnapshot(DataInputStream in) throws IOException {
+        while (in.readBoolean()) {
+            String key = in.readUTF();
+            replayCursors.put(key, in.readLong());
+            Mailbox mailbox = mailboxes.computeIfAbsent(key, this::newMailbox);
+            long remaining = in.readLong();
+            while (remaining > 0 && !mailbox.isSpilled()) {
+                int length = MessageCodec.checkLength(in.readInt());
+                ByteBuffer frame = ByteBuffer.allocate(Integer.BYTES + length).putInt(length);
+                in.readFully(frame.array(), Integer.BYTES, length);
+                this.store(mailbox, frame.position(0));
+                remaining -= frame.limit();
+            }
+//          Las tramas que siguen a la primera trama desbordada se copian al archivo de desborde en bloque
+            if (remaining > 0) mailbox.appendSpill(Channels.newChannel(in), remaining);
+        }
+        for (int count = in.readInt(); count > 0; count--) {
+            identities.add(in.readUTF());
+        }
+    }
+
+    /**
+     * Aplica a los buzones un registro de la bitácora posterior a la instantánea: agrega la trama de un registro
+     * "guardado en buzón", descarta las tramas de un registro "entregado" o agrega la identidad de un registro de
+     * identidad. Los registros anteriores al número de
+     * secuencia con el que el buzón fue escrito en la instantánea se ignoran, pues ya están incluidos en ella
+     * @param sequence número de secuencia del registro
+     * @param type tipo del registro
+     * @param body cuerpo del registro
+     * @throws IOException si no es posible escribir o leer los archivos de desborde
+     */
+    void replay(long sequence, byte type, ByteBuffer body) throws IOException {
+        if (type == MessageJournal.RECORD_STORED_BATCH) {
+            this.replayStoredBatch(sequence, body);
+            return;
+        }
+        if (type != MessageJournal.RECORD_STORED && type != MessageJournal.RECORD_DELIVERED
+                && type != MessageJournal.RECORD_IDENTITY) return;
+        byte[] bytes = new byte[body.remaining()];
+        body.get(bytes);
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+        String key = in.readUTF();
+        if (type == MessageJournal.RECORD_IDENTITY) {
+            identities.add(key);
+            return;
+        }
+        Long cursor = replayCursors.get(key);
+        if (cursor != null && sequence < cursor) return;
+        if (type == MessageJournal.RECORD_STORED) {
+            int offset = bytes.length - in.available();
+            ByteBuffer frame = ByteBuffer.wrap(bytes, offset, bytes.length - offset).slice();
+            this.store(mailboxes.computeIfAbsent(key, this::newMailbox), frame);
+        } else {
+            Mailbox mailbox = mailboxes.get(key);
+            if (mailbox != null) memoryBytes.addAndGet(-mailbox.discard(in.readInt()));
+        }
+    }
+
+    /**
+     * Aplica a los buzones un registro con las tramas de una transacción guardadas en buzones, ver replay
+     * @param sequence número de secuencia del registro
+     * @param body cuerpo del registro
+     * @throws IOException si el registro se encuentra corrupto o no es posible escribir los archivos de desborde
+     */
+    private void replayStoredBatch(long sequence, ByteBuffer body) throws IOException {
+        byte[] bytes = new byte[body.remaining()];
+        body.get(bytes);
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            String key = in.readUTF();
+            int length = MessageCodec.checkLength(in.readInt());
+            ByteBuffer frame = ByteBuffer.allocate(Integer.BYTES + length).putInt(length);
+            in.readFully(frame.array(), Integer.BYTES, length);
+            Long cursor = replayCursors.get(key);
+            if (cursor != null && sequence < cursor) continue;
+            this.store(mailboxes.computeIfAbsent(key, this::newMailbox), frame.position(0));
+        }
+    }
+
+    /**
+     * Termina la reconstrucción de los buzones retirando los buzones que quedaron vacíos
+     */
+    void finishReplay() {
+        replayCursors.clear();
+        mailboxes.entrySet().removeIf(entry -> {
+            if (!entry.getValue().isEmpty()) return false;
+            entry.getValue().close();
+            return true;
+        });
+    }
+
+    /**
+     * Recupera como buzones con desborde los archivos de desborde existentes si la bitácora está deshabilitada, junto
+     * con la identidad de sus destinatarios, o los elimina si está habilitada
+     * @throws IOException si no es posible leer o eliminar los archivos de desborde
+     */
+    private void recover() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                String name = file.getFileName().toString();
+                if (!name.endsWith(SPILL_SUFFIX)) continue;
+                if (journal != null) {
+                    Files.delete(file);
+                    continue;
+                }
+                String key = new String(HexFormat.of().parseHex(name, 0, name.length() - SPILL_SUFFIX.length()),
+                        StandardCharsets.UTF_8);
+                Mailbox mailbox = new Mailbox(file, true, spillChannels);
+                mailbox.truncateTornTail();
+                identities.add(key);
+                if (!mailbox.isEmpty()) mailboxes.put(key, mailbox);
+            }
+        }
+    }
+
+    /**
+     * Crea el buzón vacío de un destinatario
+     * @param key identificador normalizado del destinatario
+     * @return buzón sin tramas
+     */
+    private Mailbox newMailbox(String key) {
+        return new Mailbox(spillPath(key), false, spillChannels);
+    }
+
+    /**
+     * Retorna la ruta del archivo de desborde de un destinatario, el identificador se codifica en hexadecimal para
+     * obtener un nombre de archivo válido
+     * @param key identificador normalizado del destinatario
+     * @return ruta del archivo de desborde
+     */
+    private Path spillPath(String key) {
+        return directory.resolve(HexFormat.of().formatHex(key.getBytes(StandardCharsets.UTF_8)) + SPILL_SUFFIX);
+    }
+
+    /**
+     * Retorna el número de buzones con mensajes pendientes
+     * @return número de buzones
+     */
+    public int size() {
+        return mailboxes.size();
+    }
+
+    /**
+     * Retorna los bytes conservados en memoria por el conjunto de buzones
+     * @return bytes en memoria
+     */
+    public long getMemoryBytes() {
+        return memoryBytes.get();
+    }
+}
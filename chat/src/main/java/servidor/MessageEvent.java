@@ -0,0 +1,92 @@
+package servidor;
+
+import connection.MessageCodec;
+import connection.OpCode;
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.StackTrace;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Clase abstracta MessageEvent, evento de Java Flight Recorder de una etapa del recorrido de un mensaje por el
+ * servidor. Cada etapa se registra como un evento con duración que identifica al cliente, el tipo de mensaje y su
+ * tamaño, de modo que los picos de latencia pueden compararse en una misma grabación con las pausas del recolector
+ * de basura y la entrada/salida de los sockets. Se emplea así: se crea el evento, se invoca begin() antes de la etapa
+ * y commit(...) al terminarla. Con la grabación apagada begin() y shouldCommit() no hacen nada, el evento no escapa
+ * del método y no se asigna, y los campos solo se calculan si el evento será registrado. Los eventos se agrupan en la
+ * categoría "Chat" y pueden configurarse (habilitarse o fijar un umbral de duración) por su nombre servidor.*
+ * @Author Jorge Luis Velasquez Venegas
+ */
+@Category("Chat")
+@StackTrace(false)
+abstract class MessageEvent extends Event {
+
+    /**
+     * ClientId: nombre del cliente al que corresponde la etapa
+     */
+    @Label("Cliente")
+    String clientId;
+
+    /**
+     * MessageType: tipo de acción del mensaje
+     */
+    @Label("Tipo de mensaje")
+    String messageType;
+
+    /**
+     * Size: tamaño de la trama en bytes
+     */
+    @Label("Tamaño")
+    @DataAmount
+    int size;
+
+    /**
+     * Registra el evento si la grabación lo requiere
+     * @param clientId nombre del cliente
+     * @param messageType tipo de acción del mensaje
+     * @param size tamaño en bytes
+     */
+    void commit(String clientId, String messageType, int size) {
+        if (!this.shouldCommit()) return;
+        this.clientId = clientId;
+        this.messageType = messageType;
+        this.size = size;
+        this.commit();
+    }
+
+    /**
+     * Registra el evento de una trama codificada si la grabación lo requiere, el tipo de mensaje se obtiene de la
+     * trama solo en ese caso
+     * @param clientId nombre del cliente
+     * @param frame trama completa, iniciando en la posición cero
+     */
+    void commit(String clientId, ByteBuffer frame) {
+        this.commit(clientId, frame, frame.limit());
+    }
+
+    /**
+     * Registra el evento de una escritura que agrupa varias tramas si la grabación lo requiere, el tipo de mensaje se
+     * obtiene de la primera trama solo en ese caso
+     * @param clientId nombre del cliente
+     * @param frame primera trama de la escritura, su encabezado debe iniciar en la posición cero
+     * @param size tamaño en bytes de la escritura
+     */
+    void commit(String clientId, ByteBuffer frame, int size) {
+        if (!this.shouldCommit()) return;
+        this.commit(clientId, typeOf(frame), size);
+    }
+
+    /**
+     * Retorna el tipo de acción de una trama codificada
+     * @param frame trama completa, iniciando en la posición cero
+     * @return tipo de acción, null si la trama no lo contiene
+     */
+    private static String typeOf(ByteBuffer frame) {
+        if (frame.limit() <= MessageCodec.HEADER_LENGTH) return null;
+        OpCode opCode = OpCode.of(frame.get(MessageCodec.HEADER_LENGTH));
+        return opCode == null ? null : opCode.getType();
+    }
+}
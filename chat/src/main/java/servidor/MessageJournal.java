@@ -0,0 +1,451 @@
+package servidor;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Clase MessageJournal, bitácora durable de solo escritura al final en la que se registran los cambios de los buzones
+ * de los clientes desconectados (tramas guardadas y entregadas) antes de confirmarlos al emisor. Los mensajes
+ * entregados directamente a un cliente conectado no se registran: su entrega es como máximo una vez, y solo los
+ * mensajes confirmados que fueron guardados en un buzón sobreviven a una caída del servidor. La bitácora se divide en
+ * segmentos de tamaño fijo mapeados en memoria: agregar un registro es una copia en memoria y la sincronización con
+ * el disco (force) depende del modo de durabilidad: por lotes desde el hilo de GroupCommitter, por cada registro, o
+ * ninguna. Las confirmaciones de los registros se ejecutan una vez el registro es durable según el modo, y su latencia
+ * se registra en un histograma. Cada registro se compone de: longitud (int), CRC32C (int), número de secuencia (long),
+ * tipo de registro (byte) y el cuerpo: el guardado o la entrega de mensajes de un buzón, o la identidad de un
+ * cliente. Los segmentos se crean llenos de ceros, por lo que una longitud cero marca el final de los registros; al
+ * reiniciar, el último segmento se recorre validando el CRC de cada registro para ubicar la posición de escritura y
+ * descartar un registro escrito parcialmente
+ * @Author Jorge Luis Velasquez Venegas
+ */
+public class MessageJournal implements Closeable {
+
+    /**
+     * RECORD_STORED: tipo de registro que indica que un mensaje fue guardado en el buzón de un cliente desconectado,
+     * contiene el destinatario y la trama del mensaje
+     */
+    public static final byte RECORD_STORED = 3;
+
+    /**
+     * RECORD_DELIVERED: tipo de registro que indica que se entregaron los primeros mensajes del buzón de un cliente,
+     * contiene el destinatario y el número de mensajes entregados
+     */
+    public static final byte RECORD_DELIVERED = 4;
+
+    /**
+     * RECORD_STORED_BATCH: tipo de registro que indica que las tramas de una transacción fueron guardadas en los
+     * buzones de sus destinatarios, contiene el número de tramas y, por cada una, el destinatario y la trama
+     */
+    public static final byte RECORD_STORED_BATCH = 5;
+
+    /**
+     * RECORD_IDENTITY: tipo de registro que indica que un cliente se conectó por primera vez, contiene su identificador
+     * normalizado. Solo los clientes registrados tienen buzón
+     */
+    public static final byte RECORD_IDENTITY = 6;
+
+    /**
+     * RECORD_HEADER: bytes del encabezado de un registro (longitud y CRC)
+     */
+    private static final int RECORD_HEADER = 8;
+
+    /**
+     * RECORD_PREFIX: bytes del número de secuencia y del tipo de registro, cubiertos por la longitud y el CRC
+     */
+    private static final int RECORD_PREFIX = 9;
+
+    /**
+     * SEGMENT_SUFFIX: extensión de los archivos de segmento
+     */
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    /**
+     * Directory: directorio en el que se almacenan los segmentos
+     */
+    private final Path directory;
+
+    /**
+     * SegmentBytes: tamaño de cada segmento en bytes
+     */
+    private final int segmentBytes;
+
+    /**
+     * Durability: modo de durabilidad que determina cuándo se confirma un registro
+     */
+    private final DurabilityMode durability;
+
+    /**
+     * Segment: segmento activo mapeado en memoria
+     */
+    private MappedByteBuffer segment;
+
+    /**
+     * ForcedPosition: posición del segmento activo hasta la cual los registros ya fueron sincronizados con el disco,
+     * solo se sincronizan los bytes escritos a partir de ella
+     */
+    private int forcedPosition;
+
+    /**
+     * NextSequence: número de secuencia que se asignará al siguiente registro
+     */
+    private long nextSequence = 1;
+
+    /**
+     * ForceLock: candado que serializa las sincronizaciones del segmento activo, se adquiere antes que el candado de la
+     * bitácora
+     */
+    private final Object forceLock = new Object();
+
+    /**
+     * CRC: calculador de CRC32C, solo es usado con el candado de la bitácora adquirido
+     */
+    private final CRC32C crc = new CRC32C();
+
+    /**
+     * CommitLatency: histograma de la latencia de confirmación de los registros, desde que se inicia el registro hasta
+     * que es durable según el modo de durabilidad. Cada modo tiene su propio histograma, pues sus latencias difieren en
+     * órdenes de magnitud
+     */
+    private final LatencyHistogram commitLatency;
+
+    /**
+     * Committer: etapa de confirmación agrupada, null si el modo de durabilidad no es BATCHED
+     */
+    private final GroupCommitter committer;
+
+    /**
+     * Constructor de la clase MessageJournal, abre o crea la bitácora en el directorio indicado y recupera la posición
+     * de escritura del último segmento
+     * @param config parámetros del servidor con el directorio, tamaño de segmento y modo de durabilidad
+     * @throws IOException si no es posible abrir o crear los segmentos
+     */
+    public MessageJournal(ServerConfig config) throws IOException {
+        this(config, new LatencyHistogram());
+    }
+
+    /**
+     * Constructor de la clase MessageJournal, abre o crea la bitácora en el directorio indicado y recupera la posición
+     * de escritura del último segmento
+     * @param config parámetros del servidor con el directorio, tamaño de segmento y modo de durabilidad
+     * @param commitLatency histograma del modo de durabilidad configurado en el que se registra la latencia de
+     * confirmación
+     * @throws IOException si no es posible abrir o crear los segmentos
+     */
+    public MessageJournal(ServerConfig config, LatencyHistogram commitLatency) throws IOException {
+        this.commitLatency = commitLatency;
+        this.directory = Path.of(config.getJournalDirectory());
+        this.segmentBytes = config.getJournalSegmentBytes();
+        this.durability = config.getDurabilityMode();
+        Files.createDirectories(directory);
+        this.recover();
+        this.committer = durability == DurabilityMode.BATCHED
+                ? new GroupCommitter(this, config, commitLatency)
+                : null;
+    }
+
+    /**
+     * Agrega un registro al final del segmento activo y ejecuta su confirmación una vez es durable según el modo de
+     * durabilidad, ver sync
+     * @param type tipo de registro
+     * @param body cuerpo del registro
+     * @param onDurable confirmación que se ejecuta una vez el registro es sincronizado con el disco, puede ser null
+     * @return número de secuencia asignado al registro
+     * @throws IOException si el registro excede el tamaño de un segmento o no es posible crear un nuevo segmento
+     */
+    long append(byte type, byte[] body, Runnable onDurable) throws IOException {
+        long startNanos = System.nanoTime();
+        long sequence = this.write(type, body);
+        this.sync(onDurable, startNanos);
+        return sequence;
+    }
+
+    /**
+     * Copia un registro al final del segmento activo, creando un nuevo segmento si el registro no cabe en él, sin
+     * sincronizarlo con el disco. Permite registrar un cambio mientras se mantiene un candado y hacerlo durable con
+     * sync después de liberarlo
+     * @param type tipo de registro
+     * @param body cuerpo del registro
+     * @return número de secuencia asignado al registro
+     * @throws IOException si el registro excede el tamaño de un segmento o no es posible crear un nuevo segmento
+     */
+    synchronized long write(byte type, byte[] body) throws IOException {
+        int length = RECORD_PREFIX + body.length;
+        if (RECORD_HEADER + length > segmentBytes) {
+            throw new IOException("Registro de " + length + " bytes excede el tamaño de segmento de la bitácora");
+        }
+        if (segment.position() + RECORD_HEADER + length > segment.capacity()) {
+            this.roll();
+        }
+        long sequence = nextSequence++;
+        int start = segment.position();
+        segment.position(start + RECORD_HEADER);
+        segment.putLong(sequence).put(type).put(body);
+        crc.reset();
+        crc.update(segment.duplicate().position(start + RECORD_HEADER).limit(segment.position()));
+        segment.putInt(start, length).putInt(start + 4, (int) crc.getValue());
+        return sequence;
+    }
+
+    /**
+     * Ejecuta la confirmación recibida una vez son durables todos los registros agregados antes de la invocación, sin
+     * agregar un registro propio. En modo BATCHED la confirmación se encola en GroupCommitter, en modo PER_MESSAGE el
+     * segmento se sincroniza en el hilo que invoca y en modo NONE la confirmación se ejecuta de inmediato. Permite
+     * confirmar una operación que agregó varios registros con write
+     * @param onDurable confirmación a ejecutar, puede ser null
+     */
+    public void sync(Runnable onDurable) {
+        this.sync(onDurable, System.nanoTime());
+    }
+
+    /**
+     * Ejecuta la confirmación recibida una vez son durables todos los registros agregados antes de la invocación y
+     * registra su latencia, ver sync(Runnable)
+     * @param onDurable confirmación a ejecutar, puede ser null
+     * @param startNanos instante en que se inició la operación a confirmar
+     */
+    private void sync(Runnable onDurable, long startNanos) {
+        if (committer != null) {
+            committer.enqueue(onDurable, startNanos);
+            return;
+        }
+        if (durability == DurabilityMode.PER_MESSAGE) this.forceSegment();
+        commitLatency.record(System.nanoTime() - startNanos);
+        if (onDurable != null) onDurable.run();
+    }
+
+    /**
+     * Recorre en orden los registros de la bitácora a partir del número de secuencia indicado, validando el CRC de cada
+     * registro. Se emplea al iniciar el servidor para reconstruir el estado posterior a la última instantánea
+     * @param fromSequence número de secuencia del primer registro a recorrer
+     * @param handler receptor de los registros
+     * @throws IOException si no es posible leer los segmentos o el receptor falla
+     */
+    public void replay(long fromSequence, RecordHandler handler) throws IOException {
+        List<Path> segments = this.segments();
+        for (int i = 0; i < segments.size(); i++) {
+            if (i + 1 < segments.size() && baseSequence(segments.get(i + 1)) <= fromSequence) continue;
+            ByteBuffer data;
+            try (FileChannel channel = FileChannel.open(segments.get(i), StandardOpenOption.READ)) {
+                data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+            CRC32C check = new CRC32C();
+            int position = 0;
+            while (position + RECORD_HEADER + RECORD_PREFIX <= data.capacity()) {
+                int length = data.getInt(position);
+                if (length < RECORD_PREFIX || position + RECORD_HEADER + length > data.capacity()) break;
+                ByteBuffer record = data.slice(position + RECORD_HEADER, length);
+                check.reset();
+                check.update(record.duplicate());
+                if ((int) check.getValue() != data.getInt(position + 4)) break;
+                long sequence = record.getLong(0);
+                if (sequence >= fromSequence) {
+                    ByteBuffer body = record.slice(RECORD_PREFIX, length - RECORD_PREFIX);
+                    handler.accept(sequence, record.get(Long.BYTES), body);
+                }
+                position += RECORD_HEADER + length;
+            }
+        }
+    }
+
+    /**
+     * Elimina los segmentos cuyos registros tienen todos un número de secuencia menor al indicado. El segmento activo
+     * nunca se elimina
+     * @param sequence número de secuencia a partir del cual se conservan los registros
+     * @return número de segmentos eliminados
+     * @throws IOException si no es posible eliminar un segmento
+     */
+    public int deleteSegmentsBefore(long sequence) throws IOException {
+        List<Path> segments = this.segments();
+        int deleted = 0;
+        for (int i = 0; i + 1 < segments.size() && baseSequence(segments.get(i + 1)) <= sequence; i++) {
+            Files.deleteIfExists(segments.get(i));
+            deleted++;
+        }
+        return deleted;
+    }
+
+    /**
+     * Sincroniza con el disco el segmento activo. Los segmentos anteriores ya fueron sincronizados al ser reemplazados,
+     * por lo que al terminar todos los registros agregados antes de la invocación son durables. Las sincronizaciones se
+     * serializan: una invocación que encuentra su rango ya tomado por otra espera a que esa sincronización termine
+     */
+    void forceSegment() {
+        synchronized (forceLock) {
+            MappedByteBuffer active;
+            int from;
+            int to;
+            synchronized (this) {
+                active = segment;
+                from = forcedPosition;
+                to = segment.position();
+                forcedPosition = to;
+            }
+            if (to > from) active.force(from, to - from);
+        }
+    }
+
+    /**
+     * Cierra el segmento activo y crea uno nuevo a partir del siguiente número de secuencia. El segmento cerrado se
+     * sincroniza antes de continuar
+     * @throws IOException
+     */
+    private void roll() throws IOException {
+        segment.force();
+        segment = this.map(segmentPath(nextSequence));
+        forcedPosition = 0;
+    }
+
+    /**
+     * Ubica el último segmento y recorre sus registros validando el CRC para recuperar la posición de escritura y el
+     * siguiente número de secuencia. Si se encuentra un registro incompleto o corrupto, se limpia el resto del segmento
+     * @throws IOException
+     */
+    private void recover() throws IOException {
+        List<Path> segments = this.segments();
+        if (segments.isEmpty()) {
+            segment = this.map(segmentPath(nextSequence));
+            return;
+        }
+        Path last = segments.get(segments.size() - 1);
+        segment = this.map(last);
+        nextSequence = baseSequence(last);
+        while (segment.position() + RECORD_HEADER + RECORD_PREFIX <= segment.capacity()) {
+            int start = segment.position();
+            int length = segment.getInt(start);
+            if (length == 0) break;
+            if (length < RECORD_PREFIX || start + RECORD_HEADER + length > segment.capacity()
+                    || !this.validCrc(start, length)) {
+                System.out.println("Registro incompleto en bitácora " + last + " posición " + start);
+                for (int i = start; i < segment.capacity(); i++) segment.put(i, (byte) 0);
+                segment.force();
+                break;
+            }
+            nextSequence = segment.getLong(start + RECORD_HEADER) + 1;
+            segment.position(start + RECORD_HEADER + length);
+        }
+        forcedPosition = segment.position();
+    }
+
+    /**
+     * Valida el CRC de un registro del segmento activo
+     * @param start posición del registro
+     * @param length longitud del registro sin el encabezado
+     * @return true si el CRC coincide
+     */
+    private boolean validCrc(int start, int length) {
+        crc.reset();
+        crc.update(segment.duplicate().position(start + RECORD_HEADER).limit(start + RECORD_HEADER + length));
+        return (int) crc.getValue() == segment.getInt(start + 4);
+    }
+
+    /**
+     * Retorna los segmentos existentes ordenados por su número de secuencia inicial
+     * @return rutas de los segmentos
+     * @throws IOException
+     */
+    List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Mapea en memoria un segmento, creándolo con el tamaño configurado si no existe
+     * @param path ruta del segmento
+     * @return segmento mapeado posicionado al inicio
+     * @throws IOException
+     */
+    private MappedByteBuffer map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(channel.size(), segmentBytes));
+        }
+    }
+
+    /**
+     * Retorna la ruta del segmento que inicia en el número de secuencia indicado
+     * @param sequence número de secuencia inicial del segmento
+     * @return ruta del segmento
+     */
+    private Path segmentPath(long sequence) {
+        return directory.resolve(String.format("%020d%s", sequence, SEGMENT_SUFFIX));
+    }
+
+    /**
+     * Retorna el número de secuencia inicial de un segmento a partir de su nombre
+     * @param path ruta del segmento
+     * @return número de secuencia inicial
+     */
+    static long baseSequence(Path path) {
+        String name = path.getFileName().toString();
+        return Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    /**
+     * Retorna el número de secuencia que se asignará al siguiente registro
+     * @return siguiente número de secuencia
+     */
+    public synchronized long getNextSequence() {
+        return nextSequence;
+    }
+
+    /**
+     * Retorna el directorio en el que se almacenan los segmentos
+     * @return ruta del directorio
+     */
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Retorna el modo de durabilidad de la bitácora
+     * @return modo de durabilidad
+     */
+    public DurabilityMode getDurability() {
+        return durability;
+    }
+
+    /**
+     * Retorna el histograma de la latencia de confirmación de los registros
+     * @return histograma de latencia
+     */
+    public LatencyHistogram getCommitLatency() {
+        return commitLatency;
+    }
+
+    /**
+     * Detiene la confirmación agrupada, confirmando los registros pendientes, y sincroniza el segmento activo
+     */
+    @Override
+    public void close() {
+        if (committer != null) committer.close();
+        this.forceSegment();
+    }
+
+    /**
+     * Receptor de los registros recorridos al reconstruir el estado a partir de la bitácora
+     */
+    public interface RecordHandler {
+
+        /**
+         * Procesa un registro de la bitácora
+         * @param sequence número de secuencia del registro
+         * @param type tipo de registro
+         * @param body cuerpo del registro
+         * @throws IOException si el cuerpo del registro se encuentra corrupto
+         */
+        void accept(long sequence, byte type, ByteBuffer body) throws IOException;
+    }
+}
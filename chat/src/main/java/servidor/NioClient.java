@@ -0,0 +1,206 @@
+package servidor;
+
+import connection.Message;
+import connection.MessageCodec;
+
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Clase NioClient, representa del lado del servidor a un cliente atendido por un hilo de eventos NIO. Acumula los
+ * bytes recibidos en un buffer hasta completar tramas y las procesa con la lógica de ClientSession; las tramas de su
+ * cola de salida se escriben desde el hilo de eventos cuando el canal está listo para escritura, sin bloquearlo
+ * @Author Jorge Luis Velasquez Venegas
+ */
+public class NioClient extends ClientSession {
+
+    /**
+     * INITIAL_BUFFER: capacidad inicial del buffer de lectura
+     */
+    private static final int INITIAL_BUFFER = 8 * 1024;
+
+    /**
+     * Channel: canal no bloqueante del cliente
+     */
+    private final SocketChannel channel;
+
+    /**
+     * Key: llave de registro del canal en el selector
+     */
+    private final SelectionKey key;
+
+    /**
+     * EventLoop: hilo de eventos propietario del canal
+     */
+    private final NioEventLoop eventLoop;
+
+    /**
+     * ReadBuffer: bytes recibidos pendientes por completar una trama
+     */
+    private ByteBuffer readBuffer = ByteBuffer.allocate(INITIAL_BUFFER);
+
+    /**
+     * FlushScheduled: indica que ya existe una tarea de escritura pendiente en el hilo de eventos, evita encolar una
+     * tarea por cada trama
+     */
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+
+    /**
+     * CloseRequested: indica que el canal debe cerrarse una vez se escriban las tramas pendientes
+     */
+    private volatile boolean closeRequested;
+
+    /**
+     * OutputShutdown: indica que ya se cerró el sentido de escritura del canal en un cierre ordenado
+     */
+    private boolean outputShutdown;
+
+    /**
+     * Constructor de la clase NioClient
+     * @param channel canal no bloqueante del cliente
+     * @param key llave de registro del canal en el selector
+     * @param server instancia de la clase servidor para manejo de los datos de comunicación
+     * @param eventLoop hilo de eventos propietario del canal
+     */
+    public NioClient(SocketChannel channel, SelectionKey key, Server server, NioEventLoop eventLoop) {
+        super(server);
+        this.channel = channel;
+        this.key = key;
+        this.eventLoop = eventLoop;
+    }
+
+    /**
+     * Lee los bytes disponibles en el canal y procesa todas las tramas completas recibidas
+     */
+    void handleRead() {
+        try {
+            int read = channel.read(readBuffer);
+            if (read < 0) {
+                this.endConnection();
+                return;
+            }
+            server.getMetrics().recordBytesIn(read);
+            readBuffer.flip();
+            while (readBuffer.remaining() >= MessageCodec.HEADER_LENGTH) {
+                int length = MessageCodec.checkLength(readBuffer.getInt(readBuffer.position()));
+                int frameLength = MessageCodec.HEADER_LENGTH + length;
+                if (readBuffer.remaining() < frameLength) {
+                    if (readBuffer.capacity() < frameLength) {
+                        readBuffer = ByteBuffer.allocate(frameLength).put(readBuffer).flip();
+                    }
+                    break;
+                }
+                int start = readBuffer.position() + MessageCodec.HEADER_LENGTH;
+                Message message = this.decode(readBuffer.array(), start, length);
+                readBuffer.position(start + length);
+                this.operations(message);
+                if (!channel.isOpen()) return;
+            }
+            readBuffer.compact();
+        } catch (StreamCorruptedException e) {
+            System.out.println("Error en handleRead() NioClient error de datos recibidos: " + e.getMessage());
+            this.endConnection();
+        } catch (IOException e) {
+            if (!this.isDisconnected()) System.out.println("Error en handleRead() NioClient: " + e.getMessage());
+            this.endConnection();
+        }
+    }
+
+    /**
+     * Escribe las tramas pendientes mientras el canal acepte bytes, agrupando en cada escritura todas las tramas que
+     * quepan en un lote. Si el canal se llena se mantiene el interés de escritura para continuar cuando el selector
+     * indique que está disponible
+     */
+    void handleWrite() {
+        ByteBuffer[] batch = eventLoop.getWriteBatch();
+        int maxBytes = server.getConfig().getWriteBatchBytes();
+        try {
+            int count;
+            while ((count = outbound.peekBatch(batch, maxBytes)) > 0) {
+                SocketWriteEvent event = new SocketWriteEvent();
+                event.begin();
+                long start = System.nanoTime();
+                long written = channel.write(batch, 0, count);
+                long nanos = System.nanoTime() - start;
+                int completed = 0;
+                while (completed < count && !batch[completed].hasRemaining()) {
+                    outbound.poll();
+                    completed++;
+                }
+                server.getWriteStats().record(completed, written);
+                server.getMetrics().recordWrite(nanos, completed < count);
+                event.frames = completed;
+                event.commit(idClient, batch[0], (int) written);
+                Arrays.fill(batch, 0, count, null);
+                if (completed < count) {
+                    key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                    return;
+                }
+            }
+            key.interestOps(SelectionKey.OP_READ);
+            if (closeRequested && !outputShutdown) this.shutdownOutput();
+        } catch (IOException e) {
+            Arrays.fill(batch, null);
+            System.out.println("Error enviando mensaje " + e + " - " + this.getIdClient());
+            this.endConnection();
+        }
+    }
+
+    /**
+     * Solicita al hilo de eventos la escritura de las tramas encoladas
+     */
+    @Override
+    protected void writeRequested() {
+        if (flushScheduled.compareAndSet(false, true)) {
+            eventLoop.execute(this::flush);
+        }
+    }
+
+    /**
+     * Intenta escribir las tramas pendientes desde el hilo de eventos
+     */
+    private void flush() {
+        flushScheduled.set(false);
+        if (key.isValid()) this.handleWrite();
+    }
+
+    /**
+     * Cierre ordenado: marca el canal para que, una vez escritas las tramas pendientes, se cierre su sentido de
+     * escritura
+     */
+    @Override
+    protected void closeAfterFlush() {
+        closeRequested = true;
+        eventLoop.execute(this::flush);
+    }
+
+    /**
+     * Cierra el sentido de escritura del canal y programa su cierre definitivo al vencer el tiempo de espera, en caso
+     * de que el cliente no cierre antes su extremo
+     * @throws IOException
+     */
+    private void shutdownOutput() throws IOException {
+        outputShutdown = true;
+        channel.shutdownOutput();
+        eventLoop.schedule(this::endConnection, server.getConfig().getDisconnectTimeoutMillis());
+    }
+
+    /**
+     * Cierra el canal del cliente y lo retira del selector. Si la conexión es cerrada por el servidor (cliente lento,
+     * datos corruptos) se notifica la desconexión al resto de clientes
+     */
+    @Override
+    public void endConnection() {
+        eventLoop.execute(() -> {
+            outbound.close();
+            key.cancel();
+            NioEventLoop.closeQuietly(channel);
+            if (!this.isDisconnected()) this.notifyDisconnection(new Message("disconnect", this.idClient));
+        });
+    }
+}
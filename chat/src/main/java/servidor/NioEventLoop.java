@@ -0,0 +1,200 @@
+package servidor;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Clase NioEventLoop, hilo de eventos que atiende mediante un único Selector las lecturas y escrituras de todos los
+ * clientes que le son asignados. Las tareas que deben ejecutarse sobre los canales (registro de nuevas conexiones,
+ * habilitar escritura, cierre) se encolan desde otros hilos y se ejecutan en el hilo del selector, al igual que las
+ * tareas programadas (tiempo límite del cierre ordenado de una conexión), de modo que cada canal solo es manipulado
+ * por su propio hilo de eventos
+ * @Author Jorge Luis Velasquez Venegas
+ */
+public class NioEventLoop implements Runnable {
+
+    /**
+     * Selector: multiplexor de los canales de los clientes asignados a este hilo de eventos
+     */
+    private final Selector selector;
+
+    /**
+     * Tasks: tareas pendientes por ejecutar en el hilo del selector
+     */
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Scheduled: tareas programadas para ejecutarse en un instante futuro ordenadas por su instante de ejecución,
+     * solo es usada desde el hilo de eventos
+     */
+    private final PriorityQueue<ScheduledTask> scheduled = new PriorityQueue<>();
+
+    /**
+     * Thread: hilo en el que se ejecuta el loop de eventos
+     */
+    private final Thread thread;
+
+    /**
+     * WriteBatch: arreglo reutilizado por los clientes de este hilo para agrupar sus tramas pendientes en una sola
+     * escritura, solo es usado desde el hilo de eventos
+     */
+    private final ByteBuffer[] writeBatch = new ByteBuffer[ClientSession.BATCH_FRAMES];
+
+    /**
+     * Constructor de la clase NioEventLoop, abre el selector e inicia el hilo de eventos
+     * @param name nombre del hilo de eventos
+     * @throws IOException
+     */
+    public NioEventLoop(String name) throws IOException {
+        this.selector = Selector.open();
+        this.thread = new Thread(this, name);
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * Registra un nuevo canal de cliente en el selector de este hilo de eventos
+     * @param channel canal del cliente aceptado por el servidor
+     * @param server instancia de la clase servidor para manejo de los datos de comunicación
+     */
+    public void register(SocketChannel channel, Server server) {
+        execute(() -> {
+            try {
+                channel.configureBlocking(false);
+                SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+                key.attach(new NioClient(channel, key, server, this));
+            } catch (IOException e) {
+                System.out.println("Error registrando cliente " + e);
+                closeQuietly(channel);
+            }
+        });
+    }
+
+    /**
+     * Encola una tarea para ser ejecutada en el hilo del selector y lo despierta. Si es invocado desde el mismo hilo
+     * de eventos la tarea se ejecuta de inmediato
+     * @param task tarea a ejecutar
+     */
+    public void execute(Runnable task) {
+        if (Thread.currentThread() == thread) {
+            task.run();
+        } else {
+            tasks.add(task);
+            selector.wakeup();
+        }
+    }
+
+    /**
+     * Programa una tarea para ser ejecutada en el hilo del selector una vez transcurrido el tiempo indicado
+     * @param task tarea a ejecutar
+     * @param delayMillis tiempo de espera en milisegundos
+     */
+    public void schedule(Runnable task, long delayMillis) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delayMillis);
+        execute(() -> scheduled.add(new ScheduledTask(deadline, task)));
+    }
+
+    /**
+     * Retorna el arreglo empleado para agrupar tramas en una sola escritura, solo debe usarse desde el hilo de eventos
+     * @return arreglo de tramas del lote
+     */
+    ByteBuffer[] getWriteBatch() {
+        return writeBatch;
+    }
+
+    /**
+     * Loop de eventos: espera canales listos para lectura o escritura y delega su atención al cliente asociado
+     */
+    @Override
+    public void run() {
+        while (selector.isOpen()) {
+            try {
+                ScheduledTask next = scheduled.peek();
+                if (next == null) {
+                    selector.select();
+                } else {
+                    long millis = TimeUnit.NANOSECONDS.toMillis(next.deadline - System.nanoTime());
+                    if (millis > 0) selector.select(millis);
+                    else selector.selectNow();
+                }
+                runTasks();
+                runScheduled();
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    NioClient client = (NioClient) key.attachment();
+                    try {
+                        if (key.isReadable()) client.handleRead();
+                        if (key.isValid() && key.isWritable()) client.handleWrite();
+                    } catch (CancelledKeyException e) {
+                        client.endConnection();
+                    }
+                }
+            } catch (IOException e) {
+                System.out.println("Error en run() NioEventLoop: " + e);
+            }
+        }
+    }
+
+    /**
+     * Ejecuta las tareas encoladas desde otros hilos
+     */
+    private void runTasks() {
+        Runnable task;
+        while ((task = tasks.poll()) != null) {
+            task.run();
+        }
+    }
+
+    /**
+     * Ejecuta las tareas programadas cuyo instante de ejecución ya se cumplió
+     */
+    private void runScheduled() {
+        long now = System.nanoTime();
+        while (!scheduled.isEmpty() && scheduled.peek().deadline - now <= 0) {
+            scheduled.poll().task.run();
+        }
+    }
+
+    /**
+     * Tarea programada para ejecutarse en un instante futuro
+     */
+    private static final class ScheduledTask implements Comparable<ScheduledTask> {
+
+        private final long deadline;
+
+        private final Runnable task;
+
+        ScheduledTask(long deadline, Runnable task) {
+            this.deadline = deadline;
+            this.task = task;
+        }
+
+        @Override
+        public int compareTo(ScheduledTask other) {
+            return Long.compare(deadline - other.deadline, 0);
+        }
+    }
+
+    /**
+     * Cierra un canal ignorando los errores de cierre
+     * @param channel canal a cerrar
+     */
+    static void closeQuietly(SocketChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            System.out.println(e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,287 @@
+package servidor;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Clase OutboundQueue, cola acotada de tramas pendientes por escribir en el socket de un cliente. Los hilos que
+ * enrutan mensajes solo encolan la trama y continúan, mientras un escritor dedicado a la conexión (hilo escritor o
+ * hilo de eventos NIO) la vacía. El tamaño de la cola se mide en bytes: al alcanzar la marca alta la cola queda
+ * saturada y se aplica la política para clientes lentos hasta que el escritor la vacíe por debajo de la marca baja.
+ * Las tramas encoladas deben iniciar en la posición cero y no deben ser modificadas por quien las encola
+ * @Author Jorge Luis Velasquez Venegas
+ */
+public class OutboundQueue {
+
+    /**
+     * Resultado de encolar una trama
+     */
+    public enum Result {
+        /**
+         * La trama fue encolada
+         */
+        ACCEPTED,
+        /**
+         * La trama fue descartada por la política DROP
+         */
+        DROPPED,
+        /**
+         * La trama fue rechazada y el cliente debe ser desconectado
+         */
+        REJECTED
+    }
+
+    /**
+     * Frames: tramas pendientes por escribir
+     */
+    private final ArrayDeque<ByteBuffer> frames = new ArrayDeque<>();
+
+    /**
+     * Lock: protege el estado de la cola
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * NotEmpty: condición señalada cuando se encola una trama
+     */
+    private final Condition notEmpty = lock.newCondition();
+
+    /**
+     * Writable: condición señalada cuando la cola baja de la marca baja
+     */
+    private final Condition writable = lock.newCondition();
+
+    /**
+     * HighWatermark: número de bytes encolados a partir del cual la cola queda saturada
+     */
+    private final int highWatermark;
+
+    /**
+     * LowWatermark: número de bytes encolados por debajo del cual la cola deja de estar saturada
+     */
+    private final int lowWatermark;
+
+    /**
+     * Policy: política aplicada mientras la cola se encuentra saturada
+     */
+    private final SlowConsumerPolicy policy;
+
+    /**
+     * BlockTimeoutMillis: tiempo máximo que una transferencia masiva espera a que la cola deje de estar saturada
+     */
+    private final long blockTimeoutMillis;
+
+    /**
+     * QueuedBytes: número de bytes encolados
+     */
+    private long queuedBytes;
+
+    /**
+     * Saturated: indica que la cola alcanzó la marca alta y aún no baja de la marca baja
+     */
+    private boolean saturated;
+
+    /**
+     * Closed: indica que la conexión fue cerrada y no se aceptan más tramas
+     */
+    private boolean closed;
+
+    /**
+     * Constructor de la clase OutboundQueue
+     * @param config parámetros del servidor con las marcas de la cola y la política para clientes lentos
+     */
+    public OutboundQueue(ServerConfig config) {
+        this.highWatermark = config.getHighWatermark();
+        this.lowWatermark = Math.min(config.getLowWatermark(), config.getHighWatermark());
+        this.policy = config.getSlowConsumerPolicy();
+        this.blockTimeoutMillis = config.getBlockTimeoutMillis();
+    }
+
+    /**
+     * Encola una trama aplicando la política para clientes lentos si la cola se encuentra saturada, sin esperar nunca
+     * a que el escritor la vacíe
+     * @param frame trama a encolar
+     * @return resultado de la operación
+     */
+    public Result offer(ByteBuffer frame) {
+        lock.lock();
+        try {
+            if (closed) return Result.REJECTED;
+            if (saturated) {
+                return policy == SlowConsumerPolicy.DROP ? Result.DROPPED : Result.REJECTED;
+            }
+            frames.addLast(frame);
+            queuedBytes += frame.limit();
+            if (queuedBytes >= highWatermark) saturated = true;
+            notEmpty.signal();
+            return Result.ACCEPTED;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Encola una trama esperando a que la cola deje de estar saturada, sin importar la política para clientes lentos.
+     * Es empleado por las transferencias masivas (vaciado de buzones), que se ejecutan en un hilo propio del
+     * destinatario y se detienen en lugar de descartar tramas
+     * @param frame trama a encolar
+     * @return true si la trama fue encolada, false si la cola fue cerrada o no dejó de estar saturada a tiempo
+     */
+    public boolean offerWhenWritable(ByteBuffer frame) {
+        lock.lock();
+        try {
+            if (closed || (saturated && !awaitWritable())) return false;
+            frames.addLast(frame);
+            queuedBytes += frame.limit();
+            if (queuedBytes >= highWatermark) saturated = true;
+            notEmpty.signal();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Espera a que la cola deje de estar saturada, debe invocarse con el candado adquirido
+     * @return true si la cola dejó de estar saturada antes del tiempo límite
+     */
+    private boolean awaitWritable() {
+        long nanos = TimeUnit.MILLISECONDS.toNanos(blockTimeoutMillis);
+        try {
+            while (saturated && !closed) {
+                if (nanos <= 0) return false;
+                nanos = writable.awaitNanos(nanos);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        return !closed;
+    }
+
+    /**
+     * Retira la trama al frente de la cola sin esperar
+     * @return trama retirada, null si la cola está vacía
+     */
+    public ByteBuffer poll() {
+        lock.lock();
+        try {
+            return removeFirst();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Retira un lote de tramas del frente de la cola esperando a que haya al menos una disponible. Si hay varias tramas
+     * pendientes se retiran todas las que quepan en el lote, de modo que bajo carga se escriban juntas y con la cola
+     * vacía la única trama disponible se escriba de inmediato
+     * @param batch arreglo en el que se depositan las tramas retiradas
+     * @param maxBytes máximo de bytes del lote, la primera trama siempre es incluida
+     * @return número de tramas retiradas, cero si la cola fue cerrada y no quedan tramas pendientes
+     * @throws InterruptedException si el hilo escritor es interrumpido
+     */
+    public int takeBatch(ByteBuffer[] batch, int maxBytes) throws InterruptedException {
+        lock.lock();
+        try {
+            while (frames.isEmpty()) {
+                if (closed) return 0;
+                notEmpty.await();
+            }
+            int count = 0;
+            long bytes = 0;
+            while (count < batch.length && !frames.isEmpty()
+                    && (count == 0 || bytes + frames.peekFirst().limit() <= maxBytes)) {
+                ByteBuffer frame = removeFirst();
+                bytes += frame.limit();
+                batch[count++] = frame;
+            }
+            return count;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Copia sin retirarlas las tramas del frente de la cola que quepan en el lote, para ser escritas con una única
+     * escritura agrupada
+     * @param batch arreglo en el que se depositan las tramas
+     * @param maxBytes máximo de bytes del lote, la primera trama siempre es incluida
+     * @return número de tramas copiadas
+     */
+    public int peekBatch(ByteBuffer[] batch, int maxBytes) {
+        lock.lock();
+        try {
+            int count = 0;
+            long bytes = 0;
+            for (ByteBuffer frame : frames) {
+                if (count == batch.length || (count > 0 && bytes + frame.remaining() > maxBytes)) break;
+                bytes += frame.remaining();
+                batch[count++] = frame;
+            }
+            return count;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Retira la trama al frente de la cola y actualiza el estado de saturación, debe invocarse con el candado
+     * adquirido
+     * @return trama retirada, null si la cola está vacía
+     */
+    private ByteBuffer removeFirst() {
+        ByteBuffer frame = frames.pollFirst();
+        if (frame != null) {
+            queuedBytes -= frame.limit();
+            if (saturated && queuedBytes <= lowWatermark) {
+                saturated = false;
+                writable.signalAll();
+            }
+        }
+        return frame;
+    }
+
+    /**
+     * Cierra la cola: no se aceptan nuevas tramas y se liberan los hilos en espera
+     */
+    public void close() {
+        lock.lock();
+        try {
+            closed = true;
+            notEmpty.signalAll();
+            writable.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Indica si la cola no tiene tramas pendientes
+     * @return true si la cola está vacía
+     */
+    public boolean isEmpty() {
+        lock.lock();
+        try {
+            return frames.isEmpty();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Retorna el número de bytes encolados
+     * @return bytes pendientes por escribir
+     */
+    public long getQueuedBytes() {
+        lock.lock();
+        try {
+            return queuedBytes;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
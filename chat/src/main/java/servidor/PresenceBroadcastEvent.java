@@ -0,0 +1,23 @@
+package servidor;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Clase PresenceBroadcastEvent, evento de Java Flight Recorder de la difusión de un cambio del listado de clientes
+ * conectados. El cliente es el que ingresa o sale del listado y el tamaño el de la trama compartida por todos los
+ * destinatarios
+ * @Author Jorge Luis Velasquez Venegas
+ */
+@Name("servidor.PresenceBroadcast")
+@Label("Difusión de presencia")
+@Description("Difusión a los clientes conectados del ingreso o salida de un cliente")
+class PresenceBroadcastEvent extends MessageEvent {
+
+    /**
+     * Recipients: número de clientes notificados
+     */
+    @Label("Destinatarios")
+    int recipients;
+}
@@ -0,0 +1,138 @@
+package servidor;
+
+import connection.Message;
+import connection.MessageCodec;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+
+/**
+ * Clase Roster, listado versionado de los clientes conectados al servidor. Cada ingreso o salida de un cliente
+ * incrementa la versión del listado y se notifica a los demás clientes solo el cambio ("new-client" o
+ * "disconnect-client" con la nueva versión), en lugar de reenviar el listado completo a cada cliente. Un cliente que
+ * detecta un salto en la versión solicita el listado completo ("roster-request") y recibe una instantánea
+ * ("roster-snapshot"). Los cambios se encolan hacia los clientes mientras se mantiene el candado del listado, de modo
+ * que cada cliente recibe los cambios en el mismo orden de sus versiones; cada cambio se codifica una sola vez para
+ * todos los clientes
+ * @Author Jorge Luis Velasquez Venegas
+ */
+public class Roster {
+
+    /**
+     * Clients: índice de las sesiones de los clientes conectados, contiene los miembros del listado
+     */
+    private final RoutingTable clients;
+
+    /**
+     * Version: versión del listado, se incrementa con cada ingreso o salida de un cliente
+     */
+    private long version;
+
+    /**
+     * Constructor de la clase Roster
+     * @param clients índice de las sesiones de los clientes conectados
+     */
+    public Roster(RoutingTable clients) {
+        this.clients = clients;
+    }
+
+    /**
+     * Agrega un cliente al listado: le envía la confirmación de conexión con el listado completo y notifica a los
+     * demás clientes del nuevo cliente conectado
+     * @param session sesión del cliente que ingresa, debe tener un identificador asignado
+     */
+    public synchronized void join(ClientSession session) {
+        String idClient = session.getIdClient();
+        if (RoutingTable.normalize(idClient) == null) return;
+        version++;
+
+        Message accept = this.snapshot("connection-accept", idClient);
+        session.sendMessage(accept);
+
+        Message delta = new Message("new-client", idClient);
+        delta.setSequence(version);
+        this.broadcast(idClient, delta, session);
+        clients.add(session);
+    }
+
+    /**
+     * Elimina un cliente del listado y notifica a los demás clientes de su desconexión. Si el cliente ya no se
+     * encuentra en el listado (nunca se conectó o fue reemplazado por otra sesión con el mismo nombre) no se genera
+     * una nueva versión
+     * @param session sesión del cliente que sale
+     */
+    public synchronized void leave(ClientSession session) {
+        if (!clients.remove(session)) return;
+        version++;
+
+        Message delta = new Message("disconnect-client", session.getIdClient());
+        delta.setSequence(version);
+        this.broadcast(session.getIdClient(), delta, null);
+    }
+
+    /**
+     * Difunde un cambio del listado a los clientes conectados codificándolo una sola vez, y registra la difusión en
+     * Java Flight Recorder
+     * @param idClient nombre del cliente que ingresa o sale del listado
+     * @param delta mensaje con el cambio del listado
+     * @param except sesión que no recibe el cambio, puede ser null
+     */
+    private void broadcast(String idClient, Message delta, ClientSession except) {
+        PresenceBroadcastEvent event = new PresenceBroadcastEvent();
+        event.begin();
+        ByteBuffer frame;
+        try {
+            frame = MessageCodec.frame(delta);
+        } catch (IOException e) {
+            System.out.println("Error enviando mensaje " + e + " - " + delta.getType());
+            return;
+        }
+        event.recipients = clients.broadcast(frame, except);
+        event.commit(idClient, frame);
+    }
+
+    /**
+     * Construye la instantánea del listado para el cliente que la solicita
+     * @param idClient nombre del cliente que solicita la instantánea, es excluido del listado
+     * @return mensaje "roster-snapshot" con el listado completo y su versión
+     */
+    public synchronized Message snapshot(String idClient) {
+        return this.snapshot("roster-snapshot", idClient);
+    }
+
+    /**
+     * Construye un mensaje con el listado completo de clientes, excluyendo al cliente destino, y la versión actual
+     * @param type tipo de acción del mensaje
+     * @param idClient nombre del cliente destino
+     * @return mensaje con el listado
+     */
+    private Message snapshot(String type, String idClient) {
+        String key = RoutingTable.normalize(idClient);
+        ArrayList<String> destinies = new ArrayList<>(clients.size());
+        for (ClientSession client : clients.sessions()) {
+            if (!RoutingTable.normalize(client.getIdClient()).equals(key)) destinies.add(client.getIdClient());
+        }
+        Message message = new Message(type, idClient);
+        message.setDestinies(destinies);
+        message.setSequence(version);
+        return message;
+    }
+
+    /**
+     * Restablece la versión del listado recuperada de la instantánea del servidor, de modo que las versiones de una
+     * nueva ejecución continúen las de la anterior
+     * @param version versión recuperada
+     */
+    public synchronized void restoreVersion(long version) {
+        this.version = Math.max(this.version, version);
+    }
+
+    /**
+     * Retorna la versión actual del listado
+     * @return versión del listado
+     */
+    public synchronized long getVersion() {
+        return version;
+    }
+}
@@ -0,0 +1,22 @@
+package servidor;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Clase RoutingLookupEvent, evento de Java Flight Recorder de la búsqueda del destinatario de una trama y su entrega
+ * a su cola de salida o a su buzón. El cliente es el destinatario
+ * @Author Jorge Luis Velasquez Venegas
+ */
+@Name("servidor.RoutingLookup")
+@Label("Enrutamiento")
+@Description("Búsqueda del destinatario de una trama y entrega a su cola de salida o a su buzón")
+class RoutingLookupEvent extends MessageEvent {
+
+    /**
+     * Stored: indica si la trama fue guardada en el buzón porque el destinatario no estaba conectado
+     */
+    @Label("Guardado en buzón")
+    boolean stored;
+}
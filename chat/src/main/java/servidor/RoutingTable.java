@@ -0,0 +1,117 @@
+package servidor;
+
+import connection.Message;
+import connection.MessageCodec;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Collection;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Clase RoutingTable, índice concurrente de las sesiones de los clientes conectados al servidor, indexado por el
+ * identificador normalizado del cliente (sin distinguir mayúsculas de minúsculas). Permite localizar, agregar y
+ * eliminar el destinatario de un mensaje en tiempo constante, y puede ser modificado por los hilos de varias
+ * conexiones al mismo tiempo mientras otros enrutan mensajes
+ * @Author Jorge Luis Velasquez Venegas
+ */
+public class RoutingTable {
+
+    /**
+     * Routes: sesiones de los clientes conectados indexadas por su identificador normalizado
+     */
+    private final ConcurrentHashMap<String, ClientSession> routes = new ConcurrentHashMap<>();
+
+    /**
+     * Normaliza el identificador de un cliente para ser usado como llave del índice
+     * @param idClient nombre que identifica al cliente
+     * @return identificador normalizado, null si el identificador es null
+     */
+    public static String normalize(String idClient) {
+        return idClient == null ? null : idClient.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Agrega o reemplaza la ruta hacia la sesión del cliente
+     * @param client sesión del cliente, debe tener un identificador asignado
+     */
+    public void add(ClientSession client) {
+        String key = normalize(client.getIdClient());
+        if (key != null) routes.put(key, client);
+    }
+
+    /**
+     * Elimina la ruta hacia la sesión del cliente, solo si la ruta aún apunta a esa misma sesión. Así una sesión
+     * antigua que se desconecta no elimina la ruta de una nueva sesión registrada con el mismo identificador
+     * @param client sesión del cliente
+     * @return true si la ruta fue eliminada
+     */
+    public boolean remove(ClientSession client) {
+        String key = normalize(client.getIdClient());
+        return key != null && routes.remove(key, client);
+    }
+
+    /**
+     * Retorna la sesión del cliente con el identificador recibido
+     * @param idClient nombre que identifica al cliente
+     * @return sesión del cliente, null si no se encuentra conectado
+     */
+    public ClientSession find(String idClient) {
+        String key = normalize(idClient);
+        return key == null ? null : routes.get(key);
+    }
+
+    /**
+     * Envía el mismo mensaje a todas las sesiones registradas excepto una. El mensaje se codifica una sola vez y la
+     * trama resultante se comparte entre todos los destinatarios: cada cola de salida recibe una vista con su propia
+     * posición sobre los mismos bytes, que no se modifican después de codificarse, de modo que un envío a N clientes
+     * cuesta una codificación y N escrituras
+     * @param message mensaje a enviar, no se modifica
+     * @param except sesión que no recibe el mensaje, puede ser null
+     */
+    public void broadcast(Message message, ClientSession except) {
+        ByteBuffer frame;
+        try {
+            frame = MessageCodec.frame(message);
+        } catch (IOException e) {
+            System.out.println("Error enviando mensaje " + e + " - " + message.getType());
+            return;
+        }
+        this.broadcast(frame, except);
+    }
+
+    /**
+     * Envía una trama ya codificada a todas las sesiones registradas excepto una, cada cola de salida recibe una vista
+     * propia de la trama. Ver broadcast(Message, ClientSession)
+     * @param frame trama a enviar, iniciando en la posición cero, no se modifica
+     * @param except sesión que no recibe la trama, puede ser null
+     * @return número de sesiones a las que se envió la trama
+     */
+    public int broadcast(ByteBuffer frame, ClientSession except) {
+        int recipients = 0;
+        for (ClientSession client : routes.values()) {
+            if (client == except) continue;
+            client.sendFrame(frame.duplicate());
+            recipients++;
+        }
+        return recipients;
+    }
+
+    /**
+     * Retorna una vista concurrente de las sesiones registradas, puede recorrerse mientras otros hilos modifican el
+     * índice
+     * @return sesiones de los clientes conectados
+     */
+    public Collection<ClientSession> sessions() {
+        return routes.values();
+    }
+
+    /**
+     * Retorna el número de clientes registrados
+     * @return número de clientes
+     */
+    public int size() {
+        return routes.size();
+    }
+}
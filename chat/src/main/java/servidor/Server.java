@@ -0,0 +1,384 @@
+package servidor;
+
+import connection.Connection;
+import connection.EventBus;
+import connection.Message;
+
+import java.io.IOException;
+import java.nio.channels.SocketChannel;
+import java.util.Collection;
+
+/**
+ * Clase Server para crear servidor de conexión mediante sockets, creando un chat bidireccional
+ * con clientes. Permanece en escucha activa a la espera de objetos de la clase Message. Hereda
+ * de la clase Connection para establecer una conexión empleando sockets, está a su vés hereda
+ * de la clase Thread lo cual permite generar hilos para manejar la concurrencia del programa.
+ * Asi mientras la clase principal está atenta a la interfaz, se ejecuta un hilo que está
+ * atento a los mensajes de los clientes
+ * @Author Jorge Luis Velasquez Venegas
+ */
+public class Server extends Connection {
+
+    /**
+     * MessageConsole: último mensaje que se debe mostrar en la consola del servidor
+     */
+    private volatile String messageConsole;
+
+    /**
+     * Closed: indica que el servidor dejó de aceptar conexiones con close
+     */
+    private volatile boolean closed;
+
+    /**
+     * Índice de las sesiones de los clientes habilitados y conectados al
+     * servidor, indexado por el identificador normalizado del cliente
+     */
+    private final RoutingTable clients = new RoutingTable();
+
+    /**
+     * Listado versionado de los clientes conectados, notifica a los clientes
+     * los ingresos y salidas como cambios incrementales
+     */
+    private final Roster roster = new Roster(clients);
+
+    /**
+     * Config: parámetros de arranque del servidor (modelo de ejecución, hilos de eventos)
+     */
+    private final ServerConfig config;
+
+    /**
+     * WriteStats: contadores de las escrituras realizadas en los sockets de
+     * los clientes
+     */
+    private final WriteStats writeStats = new WriteStats();
+
+    /**
+     * Metrics: métricas del servidor publicadas mediante JMX
+     */
+    private final ServerMetrics metrics = new ServerMetrics(clients, writeStats);
+
+    /**
+     * Journal: bitácora durable en la que se registran los mensajes guardados
+     * en buzones antes de confirmarlos a su emisor, null si se encuentra
+     * deshabilitada
+     */
+    private final MessageJournal journal;
+
+    /**
+     * Mailboxes: buzones de los mensajes dirigidos a clientes desconectados
+     */
+    private final MailboxStore mailboxes;
+
+    /**
+     * Channels: canales de conversación con sus miembros
+     */
+    private final ChannelRegistry channels;
+
+    /**
+     * Compactor: instantáneas del estado del servidor que compactan la
+     * bitácora, null si la bitácora se encuentra deshabilitada
+     */
+    private final Compactor compactor;
+
+    /**
+     * Events: bus que entrega los eventos de consola a los oyentes fuera de los hilos de red, combinando en un solo
+     * evento los mensajes de consola acumulados durante una ráfaga
+     */
+    private final EventBus<EventChangeServer> events;
+
+    /**
+     * Constructor de la clase Server para crear servidor de conexión mediante
+     * sockets, el servidor permanece en escucha permanente de las solicitudes
+     * de los clientes que se conectan al servidor
+     * @throws IOException
+     */
+    public Server() throws IOException {
+        this(null, ServerConfig.fromSystemProperties());
+    }
+
+    /**
+     * Constructor de la clase Server para crear servidor de conexión mediante
+     * sockets, el servidor permanece en escucha permanente de las solicitudes
+     * de los clientes que se conectan al servidor
+     * @param port puerto en el que estará escuchando el servidor
+     * @throws IOException
+     */
+    public Server(Integer port) throws IOException {
+        this(port, ServerConfig.fromSystemProperties());
+    }
+
+    /**
+     * Constructor de la clase Server para crear servidor de conexión mediante
+     * sockets, el servidor permanece en escucha permanente de las solicitudes
+     * de los clientes que se conectan al servidor
+     * @param port puerto en el que estará escuchando el servidor
+     * @param config parámetros de arranque del servidor
+     * @throws IOException
+     */
+    public Server(Integer port, ServerConfig config) throws IOException {
+        super("servidor", port);
+        this.config = config;
+        this.journal = openJournal(config, metrics);
+        this.mailboxes = new MailboxStore(clients, journal, config);
+        this.channels = new ChannelRegistry(config);
+        this.compactor = this.openCompactor();
+        this.events = this.createEventBus();
+        metrics.register(serverSocket.getLocalPort());
+        this.start();
+    }
+
+    /**
+     * Crea el bus de eventos de consola del servidor
+     * @return bus de eventos
+     */
+    private EventBus<EventChangeServer> createEventBus() {
+        return new EventBus<>("servidor", config.getEventQueueCapacity(), (previous, next) ->
+                previous.getMessage() == null || next.getMessage() == null ? null
+                        : new EventChangeServer(this, this, previous.getMessage() + next.getMessage()));
+    }
+
+    /**
+     * Abre la bitácora durable de mensajes si se encuentra habilitada
+     * @param config parámetros de arranque del servidor
+     * @param metrics métricas del servidor, la bitácora registra la latencia de confirmación en el histograma de su
+     * modo de durabilidad
+     * @return bitácora de mensajes, null si se encuentra deshabilitada
+     * @throws IOException si no es posible abrir la bitácora
+     */
+    private static MessageJournal openJournal(ServerConfig config, ServerMetrics metrics) throws IOException {
+        if (!config.isJournalEnabled()) return null;
+        return new MessageJournal(config, metrics.getCommitLatency(config.getDurabilityMode()));
+    }
+
+    /**
+     * Reconstruye el estado del servidor a partir de la última instantánea y
+     * de la bitácora, y registra la instantánea final y el cierre de la
+     * bitácora al detener la aplicación
+     * @return compactador de la bitácora, null si se encuentra deshabilitada
+     * @throws IOException si no es posible leer la instantánea o la bitácora
+     */
+    private Compactor openCompactor() throws IOException {
+        if (journal == null) return null;
+        Compactor compactor = new Compactor(journal, mailboxes, roster, config);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            compactor.close();
+            journal.close();
+        }, "MessageJournal-close"));
+        return compactor;
+    }
+
+    /**
+     * Método que se ejecuta al terminar de construir el objeto de la clase
+     * Server, el cual da inicio al hilo de programación concurrente,
+     * habilitando la escucha permanente del servidor y creando un nuevo
+     * hilo de cliente (de plataforma o virtual según el modo), cada vez que
+     * se conecta un cliente nuevo. En modo NIO las conexiones aceptadas se
+     * reparten entre los hilos de eventos
+     */
+    @Override
+    public void run() {
+        try {
+            System.out.println("Esperando.... (modo " + config.getMode() + ")");
+            if (config.getMode() == ServerMode.NIO) {
+                this.acceptNio();
+            }
+            while (true) {
+                ThreadClient client;
+
+                clientSocket = serverSocket.accept();
+                metrics.recordAccept();
+
+                client = new ThreadClient(clientSocket, this);
+                config.getMode().start("ThreadClient-" + clientSocket.getPort(), client);
+            }
+
+        } catch (Exception e) {
+            if (closed) return;
+            System.out.println("Error en run() server: " + e);
+            System.exit(0);
+        }
+    }
+
+    /**
+     * Deja de aceptar conexiones cerrando el socket de servidor, lo que termina el hilo del servidor. Las sesiones de
+     * los clientes ya conectados no se cierran
+     * @throws IOException si no es posible cerrar el socket de servidor
+     */
+    public void close() throws IOException {
+        closed = true;
+        serverChannel.close();
+    }
+
+    /**
+     * Acepta conexiones de forma indefinida y las asigna en orden
+     * circular a un grupo fijo de hilos de eventos NIO, de modo que
+     * todas las conexiones son atendidas sin crear un hilo por cliente
+     * @throws IOException
+     */
+    private void acceptNio() throws IOException {
+        NioEventLoop[] eventLoops = new NioEventLoop[config.getEventLoops()];
+        for (int i = 0; i < eventLoops.length; i++) {
+            eventLoops[i] = new NioEventLoop("NioEventLoop-" + i);
+        }
+        int next = 0;
+        while (true) {
+            SocketChannel channel = serverChannel.accept();
+            metrics.recordAccept();
+            eventLoops[next].register(channel, this);
+            next = (next + 1) % eventLoops.length;
+        }
+    }
+
+    /**
+     * Retorna una vista concurrente de las sesiones correspondientes
+     * a los clientes conectados al servidor
+     * @return sesiones de los clientes conectados
+     */
+    public Collection<ClientSession> getClients() {
+        return clients.sessions();
+    }
+
+    /**
+     * Envía un mensaje a todos los clientes conectados excepto uno,
+     * codificándolo una sola vez para todos ellos
+     * @param message mensaje a enviar
+     * @param except sesión que no recibe el mensaje, puede ser null
+     */
+    public void broadcast(Message message, ClientSession except) {
+        clients.broadcast(message, except);
+    }
+
+    /**
+     * Retorna la sesión del cliente con el identificador recibido, sin
+     * distinguir mayúsculas de minúsculas
+     * @param idClient nombre que identifica al cliente
+     * @return sesión del cliente, null si no se encuentra conectado
+     */
+    public ClientSession findClient(String idClient) {
+        return clients.find(idClient);
+    }
+
+    /**
+     * Agrega una sesión de cliente al listado de clientes conectados
+     * al servidor, notificando a los demás clientes de su ingreso
+     * @param client sesión del cliente
+     */
+    public void addClient(ClientSession client) {
+        this.roster.join(client);
+    }
+
+    /**
+     * Elimina una sesión de cliente del listado de clientes conectados
+     * al servidor, notificando a los demás clientes de su salida
+     * @param client sesión del cliente
+     */
+    public void removeClient(ClientSession client){
+        this.roster.leave(client);
+    }
+
+    /**
+     * Retorna el listado versionado de los clientes conectados
+     * @return listado de clientes
+     */
+    public Roster getRoster() {
+        return roster;
+    }
+
+    /**
+     * Retorna los parámetros de arranque del servidor
+     * @return configuración del servidor
+     */
+    public ServerConfig getConfig() {
+        return config;
+    }
+
+    /**
+     * Retorna los contadores de las escrituras realizadas en los sockets
+     * de los clientes (escrituras por mensaje, bytes por escritura)
+     * @return contadores de escritura
+     */
+    public WriteStats getWriteStats() {
+        return writeStats;
+    }
+
+    /**
+     * Retorna las métricas del servidor
+     * @return métricas del servidor
+     */
+    public ServerMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Retorna la bitácora durable de los buzones de mensajes
+     * @return bitácora de mensajes, null si se encuentra deshabilitada
+     */
+    public MessageJournal getJournal() {
+        return journal;
+    }
+
+    /**
+     * Retorna los buzones de los mensajes dirigidos a clientes desconectados
+     * @return buzones de mensajes
+     */
+    public MailboxStore getMailboxes() {
+        return mailboxes;
+    }
+
+    /**
+     * Retorna los canales de conversación del servidor
+     * @return canales de conversación
+     */
+    public ChannelRegistry getChannels() {
+        return channels;
+    }
+
+    /**
+     * Retorna el compactador de la bitácora de mensajes
+     * @return compactador, null si la bitácora se encuentra deshabilitada
+     */
+    public Compactor getCompactor() {
+        return compactor;
+    }
+
+    /**
+     * Retorna el mensaje que se debe imprimir en la consola
+     * @return String con mensaje que se debe mostrar en consola
+     */
+    public String getMessageConsole() {
+        return messageConsole;
+    }
+
+    /**
+     * Establece el valor del mensaje que se debe mostrar en consola
+     * @param messageConsole String con el mensaje que se debe mostrar
+     *                       en consola
+     */
+    public void setMessageConsole(String messageConsole) {
+        this.messageConsole = messageConsole;
+        this.triggerMessageEvent(messageConsole);
+    }
+
+    /**
+     * Agrega un evento al listado de eventos a escuchar. El oyente es invocado por el bus de eventos, fuera de los
+     * hilos de red, y recibe en el evento el mensaje de consola
+     * @param listener oyente a agregar
+     */
+    public void addEventListener(EventChangeServerListener listener) {
+        events.subscribe(event -> {
+            long start = System.nanoTime();
+            listener.onMessageChange(event);
+            metrics.recordListener(System.nanoTime() - start);
+        });
+    }
+
+    /**
+     * Método para disparar el evento cuando cambie la variable
+     * message que contiene el mensaje que se debe mostrar en
+     * consola, el evento se publica sin esperar a los oyentes
+     * @param messageConsole mensaje que se debe mostrar en consola
+     */
+    private void triggerMessageEvent(String messageConsole) {
+        events.publish(new EventChangeServer(this, this, messageConsole));
+    }
+}
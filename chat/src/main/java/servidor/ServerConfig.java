@@ -0,0 +1,631 @@
+package servidor;
+
+import connection.MessageCodec;
+
+import java.nio.file.Path;
+
+/**
+ * Clase ServerConfig, agrupa los parámetros de arranque del servidor. Los valores por defecto pueden ser modificados
+ * mediante propiedades del sistema al iniciar la aplicación, por ejemplo: -Dservidor.modo=nio
+ * -Dservidor.eventLoops=4 o -Dservidor.modo=virtual. Las colas de salida de los clientes se configuran con
+ * -Dservidor.highWatermark, -Dservidor.lowWatermark (bytes), -Dservidor.slowConsumer=drop|disconnect y
+ * -Dservidor.blockTimeoutMs (espera del vaciado de un buzón). El tamaño máximo de cada escritura agrupada se configura
+ * con -Dservidor.writeBatchBytes y la espera máxima del cierre ordenado de una conexión con
+ * -Dservidor.disconnectTimeoutMs. La bitácora de mensajes se configura con -Dservidor.journal=true|false,
+ * -Dservidor.journalDir, -Dservidor.journalSegmentBytes, -Dservidor.journalForceBatch (registros),
+ * -Dservidor.journalForceIntervalMs y -Dservidor.durability=none|batched|per-message, y los buzones de los clientes
+ * desconectados con -Dservidor.mailboxDir, -Dservidor.mailboxMemoryBytes (por buzón),
+ * -Dservidor.mailboxTotalMemoryBytes (todos los buzones) y -Dservidor.mailboxOpenFiles (archivos de desborde
+ * abiertos). Los directorios de la bitácora y de los buzones se ubican por defecto en ~/.chat, fuera del directorio
+ * de trabajo. El máximo de mensajes de una transacción se configura con -Dservidor.maxTransactionMessages y la
+ * frecuencia de las instantáneas que compactan la bitácora con -Dservidor.snapshotIntervalMs y
+ * -Dservidor.snapshotRecords. La difusión de los canales se configura con -Dservidor.channelFanOutThreshold (miembros a
+ * partir de los cuales se delega a un hilo de difusión) y -Dservidor.fanOutWorkers, y el máximo de eventos de consola
+ * pendientes por entregar a la ventana del servidor con -Dservidor.eventQueueCapacity. La consola de la ventana del
+ * servidor conserva las últimas -Dservidor.consoleLines líneas y se actualiza cada -Dservidor.consoleRefreshMs
+ * @Author Jorge Luis Velasquez
+ */
+public class ServerConfig {
+
+    /**
+     * DATA_DIRECTORY: directorio por defecto del estado durable del servidor, dentro del directorio del usuario
+     */
+    private static final Path DATA_DIRECTORY = Path.of(System.getProperty("user.home"), ".chat");
+
+    /**
+     * Mode: modelo de ejecución empleado para atender las conexiones de los clientes
+     */
+    private ServerMode mode = ServerMode.BLOCKING;
+
+    /**
+     * EventLoops: número de hilos de eventos empleados en el modo NIO
+     */
+    private int eventLoops = Math.max(1, Runtime.getRuntime().availableProcessors());
+
+    /**
+     * HighWatermark: bytes pendientes en la cola de salida de un cliente a partir de los cuales se considera lento
+     */
+    private int highWatermark = 1024 * 1024;
+
+    /**
+     * LowWatermark: bytes pendientes por debajo de los cuales un cliente lento vuelve a recibir tramas
+     */
+    private int lowWatermark = 256 * 1024;
+
+    /**
+     * SlowConsumerPolicy: política aplicada a los clientes cuya cola de salida alcanza la marca alta
+     */
+    private SlowConsumerPolicy slowConsumerPolicy = SlowConsumerPolicy.DISCONNECT;
+
+    /**
+     * BlockTimeoutMillis: tiempo máximo que el vaciado de un buzón espera a que la cola de salida del cliente tenga
+     * espacio
+     */
+    private long blockTimeoutMillis = 5000;
+
+    /**
+     * WriteBatchBytes: máximo de bytes de tramas pendientes que se agrupan en una sola escritura al socket
+     */
+    private int writeBatchBytes = 64 * 1024;
+
+    /**
+     * DisconnectTimeoutMillis: tiempo máximo que el servidor espera a que el cliente cierre su extremo del socket tras
+     * confirmar su desconexión
+     */
+    private long disconnectTimeoutMillis = 2000;
+
+    /**
+     * JournalEnabled: indica si los mensajes enrutados se registran en la bitácora durable antes de confirmarlos
+     */
+    private boolean journalEnabled = true;
+
+    /**
+     * JournalDirectory: directorio en el que se almacenan los segmentos de la bitácora
+     */
+    private String journalDirectory = DATA_DIRECTORY.resolve("journal").toString();
+
+    /**
+     * JournalSegmentBytes: tamaño en bytes de cada segmento de la bitácora
+     */
+    private int journalSegmentBytes = 64 * 1024 * 1024;
+
+    /**
+     * JournalForceBatch: número de registros sin sincronizar a partir del cual se sincroniza la bitácora con el disco
+     */
+    private int journalForceBatch = 1024;
+
+    /**
+     * JournalForceIntervalMillis: tiempo máximo que un registro permanece sin sincronizar con el disco
+     */
+    private long journalForceIntervalMillis = 10;
+
+    /**
+     * DurabilityMode: modo de durabilidad de la bitácora, determina cuándo se confirma un mensaje registrado
+     */
+    private DurabilityMode durabilityMode = DurabilityMode.BATCHED;
+
+    /**
+     * MailboxDirectory: directorio de los archivos de desborde de los buzones de clientes desconectados
+     */
+    private String mailboxDirectory = DATA_DIRECTORY.resolve("mailbox").toString();
+
+    /**
+     * MailboxMemoryBytes: máximo de bytes que el buzón de un cliente desconectado conserva en memoria
+     */
+    private long mailboxMemoryBytes = 64 * 1024;
+
+    /**
+     * MailboxTotalMemoryBytes: máximo de bytes que el conjunto de buzones conserva en memoria
+     */
+    private long mailboxTotalMemoryBytes = 64L * 1024 * 1024;
+
+    /**
+     * MailboxOpenFiles: máximo de archivos de desborde de los buzones que se mantienen abiertos a la vez
+     */
+    private int mailboxOpenFiles = 256;
+
+    /**
+     * MaxTransactionMessages: máximo de mensajes que puede acumular una transacción antes de ser abortada
+     */
+    private int maxTransactionMessages = 10000;
+
+    /**
+     * SnapshotIntervalMillis: tiempo máximo entre dos instantáneas del estado del servidor
+     */
+    private long snapshotIntervalMillis = 60_000;
+
+    /**
+     * SnapshotRecords: número de registros de la bitácora a partir del cual se toma una instantánea sin esperar a
+     * que venza el intervalo, acota el número de registros que se aplican al reiniciar el servidor
+     */
+    private long snapshotRecords = 1_000_000;
+
+    /**
+     * ChannelFanOutThreshold: número de miembros a partir del cual la difusión de un canal se delega a un hilo de
+     * difusión
+     */
+    private int channelFanOutThreshold = 64;
+
+    /**
+     * FanOutWorkers: número de hilos de difusión de los canales
+     */
+    private int fanOutWorkers = Math.max(1, Runtime.getRuntime().availableProcessors());
+
+    /**
+     * EventQueueCapacity: máximo de eventos pendientes por entregar a los oyentes del servidor
+     */
+    private int eventQueueCapacity = 4096;
+
+    /**
+     * ConsoleLines: número de líneas que conserva la consola de la ventana del servidor
+     */
+    private int consoleLines = 1000;
+
+    /**
+     * ConsoleRefreshMillis: intervalo en milisegundos entre actualizaciones de la consola de la ventana del servidor
+     */
+    private long consoleRefreshMillis = 100;
+
+    /**
+     * Crea una configuración a partir de las propiedades del sistema, empleando los valores por defecto para las
+     * propiedades que no se encuentren definidas
+     * @return configuración del servidor
+     */
+    public static ServerConfig fromSystemProperties() {
+        ServerConfig config = new ServerConfig();
+        config.setMode(ServerMode.parse(System.getProperty("servidor.modo")));
+        config.setEventLoops(Integer.getInteger("servidor.eventLoops", config.getEventLoops()));
+        config.setHighWatermark(Integer.getInteger("servidor.highWatermark", config.getHighWatermark()));
+        config.setLowWatermark(Integer.getInteger("servidor.lowWatermark", config.getLowWatermark()));
+        config.setSlowConsumerPolicy(SlowConsumerPolicy.parse(System.getProperty("servidor.slowConsumer")));
+        config.setBlockTimeoutMillis(Long.getLong("servidor.blockTimeoutMs", config.getBlockTimeoutMillis()));
+        config.setWriteBatchBytes(Integer.getInteger("servidor.writeBatchBytes", config.getWriteBatchBytes()));
+        config.setDisconnectTimeoutMillis(Long.getLong("servidor.disconnectTimeoutMs",
+                config.getDisconnectTimeoutMillis()));
+        config.setJournalEnabled(Boolean.parseBoolean(System.getProperty("servidor.journal", "true")));
+        config.setJournalDirectory(System.getProperty("servidor.journalDir", config.getJournalDirectory()));
+        config.setJournalSegmentBytes(Integer.getInteger("servidor.journalSegmentBytes",
+                config.getJournalSegmentBytes()));
+        config.setJournalForceBatch(Integer.getInteger("servidor.journalForceBatch", config.getJournalForceBatch()));
+        config.setJournalForceIntervalMillis(Long.getLong("servidor.journalForceIntervalMs",
+                config.getJournalForceIntervalMillis()));
+        config.setDurabilityMode(DurabilityMode.parse(System.getProperty("servidor.durability")));
+        config.setMailboxDirectory(System.getProperty("servidor.mailboxDir", config.getMailboxDirectory()));
+        config.setMailboxMemoryBytes(Long.getLong("servidor.mailboxMemoryBytes", config.getMailboxMemoryBytes()));
+        config.setMailboxTotalMemoryBytes(Long.getLong("servidor.mailboxTotalMemoryBytes",
+                config.getMailboxTotalMemoryBytes()));
+        config.setMailboxOpenFiles(Integer.getInteger("servidor.mailboxOpenFiles", config.getMailboxOpenFiles()));
+        config.setMaxTransactionMessages(Integer.getInteger("servidor.maxTransactionMessages",
+                config.getMaxTransactionMessages()));
+        config.setSnapshotIntervalMillis(Long.getLong("servidor.snapshotIntervalMs",
+                config.getSnapshotIntervalMillis()));
+        config.setSnapshotRecords(Long.getLong("servidor.snapshotRecords", config.getSnapshotRecords()));
+        config.setChannelFanOutThreshold(Integer.getInteger("servidor.channelFanOutThreshold",
+                config.getChannelFanOutThreshold()));
+        config.setFanOutWorkers(Integer.getInteger("servidor.fanOutWorkers", config.getFanOutWorkers()));
+        config.setEventQueueCapacity(Integer.getInteger("servidor.eventQueueCapacity",
+                config.getEventQueueCapacity()));
+        config.setConsoleLines(Integer.getInteger("servidor.consoleLines", config.getConsoleLines()));
+        config.setConsoleRefreshMillis(Long.getLong("servidor.consoleRefreshMs", config.getConsoleRefreshMillis()));
+        return config;
+    }
+
+    /**
+     * Retorna el modelo de ejecución del servidor
+     * @return modelo de ejecución
+     */
+    public ServerMode getMode() {
+        return mode;
+    }
+
+    /**
+     * Establece el modelo de ejecución del servidor
+     * @param mode modelo de ejecución
+     */
+    public void setMode(ServerMode mode) {
+        this.mode = mode;
+    }
+
+    /**
+     * Retorna el número de hilos de eventos empleados en el modo NIO
+     * @return número de hilos de eventos
+     */
+    public int getEventLoops() {
+        return eventLoops;
+    }
+
+    /**
+     * Establece el número de hilos de eventos empleados en el modo NIO
+     * @param eventLoops número de hilos de eventos, mínimo uno
+     */
+    public void setEventLoops(int eventLoops) {
+        this.eventLoops = Math.max(1, eventLoops);
+    }
+
+    /**
+     * Retorna los bytes pendientes a partir de los cuales un cliente se considera lento
+     * @return marca alta de la cola de salida
+     */
+    public int getHighWatermark() {
+        return highWatermark;
+    }
+
+    /**
+     * Establece los bytes pendientes a partir de los cuales un cliente se considera lento
+     * @param highWatermark marca alta de la cola de salida
+     */
+    public void setHighWatermark(int highWatermark) {
+        this.highWatermark = Math.max(1, highWatermark);
+    }
+
+    /**
+     * Retorna los bytes pendientes por debajo de los cuales un cliente lento vuelve a recibir tramas
+     * @return marca baja de la cola de salida
+     */
+    public int getLowWatermark() {
+        return lowWatermark;
+    }
+
+    /**
+     * Establece los bytes pendientes por debajo de los cuales un cliente lento vuelve a recibir tramas
+     * @param lowWatermark marca baja de la cola de salida
+     */
+    public void setLowWatermark(int lowWatermark) {
+        this.lowWatermark = Math.max(0, lowWatermark);
+    }
+
+    /**
+     * Retorna la política aplicada a los clientes lentos
+     * @return política para clientes lentos
+     */
+    public SlowConsumerPolicy getSlowConsumerPolicy() {
+        return slowConsumerPolicy;
+    }
+
+    /**
+     * Establece la política aplicada a los clientes lentos
+     * @param slowConsumerPolicy política para clientes lentos
+     */
+    public void setSlowConsumerPolicy(SlowConsumerPolicy slowConsumerPolicy) {
+        this.slowConsumerPolicy = slowConsumerPolicy;
+    }
+
+    /**
+     * Retorna el tiempo máximo que el vaciado de un buzón espera a que la cola de salida del cliente tenga espacio
+     * @return tiempo de espera en milisegundos
+     */
+    public long getBlockTimeoutMillis() {
+        return blockTimeoutMillis;
+    }
+
+    /**
+     * Establece el tiempo máximo que el vaciado de un buzón espera a que la cola de salida del cliente tenga espacio
+     * @param blockTimeoutMillis tiempo de espera en milisegundos
+     */
+    public void setBlockTimeoutMillis(long blockTimeoutMillis) {
+        this.blockTimeoutMillis = Math.max(0, blockTimeoutMillis);
+    }
+
+    /**
+     * Retorna el máximo de bytes que se agrupan en una sola escritura al socket
+     * @return bytes por escritura agrupada
+     */
+    public int getWriteBatchBytes() {
+        return writeBatchBytes;
+    }
+
+    /**
+     * Establece el máximo de bytes que se agrupan en una sola escritura al socket
+     * @param writeBatchBytes bytes por escritura agrupada
+     */
+    public void setWriteBatchBytes(int writeBatchBytes) {
+        this.writeBatchBytes = Math.max(1024, writeBatchBytes);
+    }
+
+    /**
+     * Retorna el tiempo máximo de espera del cierre ordenado de una conexión
+     * @return tiempo de espera en milisegundos
+     */
+    public long getDisconnectTimeoutMillis() {
+        return disconnectTimeoutMillis;
+    }
+
+    /**
+     * Establece el tiempo máximo de espera del cierre ordenado de una conexión
+     * @param disconnectTimeoutMillis tiempo de espera en milisegundos, mínimo un milisegundo
+     */
+    public void setDisconnectTimeoutMillis(long disconnectTimeoutMillis) {
+        this.disconnectTimeoutMillis = Math.max(1, disconnectTimeoutMillis);
+    }
+
+    /**
+     * Indica si los mensajes enrutados se registran en la bitácora durable
+     * @return true si la bitácora se encuentra habilitada
+     */
+    public boolean isJournalEnabled() {
+        return journalEnabled;
+    }
+
+    /**
+     * Habilita o deshabilita la bitácora durable de mensajes
+     * @param journalEnabled true para registrar los mensajes enrutados
+     */
+    public void setJournalEnabled(boolean journalEnabled) {
+        this.journalEnabled = journalEnabled;
+    }
+
+    /**
+     * Retorna el directorio de los segmentos de la bitácora
+     * @return ruta del directorio
+     */
+    public String getJournalDirectory() {
+        return journalDirectory;
+    }
+
+    /**
+     * Establece el directorio de los segmentos de la bitácora
+     * @param journalDirectory ruta del directorio
+     */
+    public void setJournalDirectory(String journalDirectory) {
+        this.journalDirectory = journalDirectory;
+    }
+
+    /**
+     * Retorna el tamaño de cada segmento de la bitácora
+     * @return tamaño del segmento en bytes
+     */
+    public int getJournalSegmentBytes() {
+        return journalSegmentBytes;
+    }
+
+    /**
+     * Establece el tamaño de cada segmento de la bitácora, como mínimo dos veces el tamaño máximo de una trama para
+     * que cualquier mensaje quepa en un segmento
+     * @param journalSegmentBytes tamaño del segmento en bytes
+     */
+    public void setJournalSegmentBytes(int journalSegmentBytes) {
+        this.journalSegmentBytes = Math.max(2 * MessageCodec.MAX_FRAME_LENGTH, journalSegmentBytes);
+    }
+
+    /**
+     * Retorna el número de registros sin sincronizar a partir del cual se sincroniza la bitácora
+     * @return registros por sincronización
+     */
+    public int getJournalForceBatch() {
+        return journalForceBatch;
+    }
+
+    /**
+     * Establece el número de registros sin sincronizar a partir del cual se sincroniza la bitácora
+     * @param journalForceBatch registros por sincronización, mínimo uno
+     */
+    public void setJournalForceBatch(int journalForceBatch) {
+        this.journalForceBatch = Math.max(1, journalForceBatch);
+    }
+
+    /**
+     * Retorna el tiempo máximo que un registro permanece sin sincronizar con el disco
+     * @return tiempo en milisegundos
+     */
+    public long getJournalForceIntervalMillis() {
+        return journalForceIntervalMillis;
+    }
+
+    /**
+     * Establece el tiempo máximo que un registro permanece sin sincronizar con el disco
+     * @param journalForceIntervalMillis tiempo en milisegundos, mínimo un milisegundo
+     */
+    public void setJournalForceIntervalMillis(long journalForceIntervalMillis) {
+        this.journalForceIntervalMillis = Math.max(1, journalForceIntervalMillis);
+    }
+
+    /**
+     * Retorna el modo de durabilidad de la bitácora
+     * @return modo de durabilidad
+     */
+    public DurabilityMode getDurabilityMode() {
+        return durabilityMode;
+    }
+
+    /**
+     * Establece el modo de durabilidad de la bitácora
+     * @param durabilityMode modo de durabilidad
+     */
+    public void setDurabilityMode(DurabilityMode durabilityMode) {
+        this.durabilityMode = durabilityMode;
+    }
+
+    /**
+     * Retorna el directorio de los archivos de desborde de los buzones
+     * @return ruta del directorio
+     */
+    public String getMailboxDirectory() {
+        return mailboxDirectory;
+    }
+
+    /**
+     * Establece el directorio de los archivos de desborde de los buzones
+     * @param mailboxDirectory ruta del directorio
+     */
+    public void setMailboxDirectory(String mailboxDirectory) {
+        this.mailboxDirectory = mailboxDirectory;
+    }
+
+    /**
+     * Retorna el máximo de bytes que un buzón conserva en memoria
+     * @return bytes en memoria por buzón
+     */
+    public long getMailboxMemoryBytes() {
+        return mailboxMemoryBytes;
+    }
+
+    /**
+     * Establece el máximo de bytes que un buzón conserva en memoria, cero para escribir todos los mensajes en disco
+     * @param mailboxMemoryBytes bytes en memoria por buzón
+     */
+    public void setMailboxMemoryBytes(long mailboxMemoryBytes) {
+        this.mailboxMemoryBytes = Math.max(0, mailboxMemoryBytes);
+    }
+
+    /**
+     * Retorna el máximo de bytes que el conjunto de buzones conserva en memoria
+     * @return bytes en memoria de todos los buzones
+     */
+    public long getMailboxTotalMemoryBytes() {
+        return mailboxTotalMemoryBytes;
+    }
+
+    /**
+     * Establece el máximo de bytes que el conjunto de buzones conserva en memoria
+     * @param mailboxTotalMemoryBytes bytes en memoria de todos los buzones
+     */
+    public void setMailboxTotalMemoryBytes(long mailboxTotalMemoryBytes) {
+        this.mailboxTotalMemoryBytes = Math.max(0, mailboxTotalMemoryBytes);
+    }
+
+    /**
+     * Retorna el máximo de archivos de desborde de los buzones que se mantienen abiertos a la vez
+     * @return máximo de archivos abiertos
+     */
+    public int getMailboxOpenFiles() {
+        return mailboxOpenFiles;
+    }
+
+    /**
+     * Establece el máximo de archivos de desborde de los buzones que se mantienen abiertos a la vez
+     * @param mailboxOpenFiles máximo de archivos abiertos, mínimo uno
+     */
+    public void setMailboxOpenFiles(int mailboxOpenFiles) {
+        this.mailboxOpenFiles = Math.max(1, mailboxOpenFiles);
+    }
+
+    /**
+     * Retorna el máximo de mensajes que puede acumular una transacción
+     * @return máximo de mensajes por transacción
+     */
+    public int getMaxTransactionMessages() {
+        return maxTransactionMessages;
+    }
+
+    /**
+     * Establece el máximo de mensajes que puede acumular una transacción
+     * @param maxTransactionMessages máximo de mensajes por transacción, mínimo uno
+     */
+    public void setMaxTransactionMessages(int maxTransactionMessages) {
+        this.maxTransactionMessages = Math.max(1, maxTransactionMessages);
+    }
+
+    /**
+     * Retorna el tiempo máximo entre dos instantáneas del estado del servidor
+     * @return intervalo en milisegundos
+     */
+    public long getSnapshotIntervalMillis() {
+        return snapshotIntervalMillis;
+    }
+
+    /**
+     * Establece el tiempo máximo entre dos instantáneas del estado del servidor
+     * @param snapshotIntervalMillis intervalo en milisegundos, mínimo un segundo
+     */
+    public void setSnapshotIntervalMillis(long snapshotIntervalMillis) {
+        this.snapshotIntervalMillis = Math.max(1000, snapshotIntervalMillis);
+    }
+
+    /**
+     * Retorna el número de registros de la bitácora a partir del cual se toma una instantánea
+     * @return número de registros
+     */
+    public long getSnapshotRecords() {
+        return snapshotRecords;
+    }
+
+    /**
+     * Establece el número de registros de la bitácora a partir del cual se toma una instantánea
+     * @param snapshotRecords número de registros, mínimo uno
+     */
+    public void setSnapshotRecords(long snapshotRecords) {
+        this.snapshotRecords = Math.max(1, snapshotRecords);
+    }
+
+    /**
+     * Retorna el número de miembros a partir del cual la difusión de un canal se delega a un hilo de difusión
+     * @return número de miembros
+     */
+    public int getChannelFanOutThreshold() {
+        return channelFanOutThreshold;
+    }
+
+    /**
+     * Establece el número de miembros a partir del cual la difusión de un canal se delega a un hilo de difusión
+     * @param channelFanOutThreshold número de miembros, mínimo uno
+     */
+    public void setChannelFanOutThreshold(int channelFanOutThreshold) {
+        this.channelFanOutThreshold = Math.max(1, channelFanOutThreshold);
+    }
+
+    /**
+     * Retorna el número de hilos de difusión de los canales
+     * @return número de hilos de difusión
+     */
+    public int getFanOutWorkers() {
+        return fanOutWorkers;
+    }
+
+    /**
+     * Establece el número de hilos de difusión de los canales
+     * @param fanOutWorkers número de hilos de difusión, mínimo uno
+     */
+    public void setFanOutWorkers(int fanOutWorkers) {
+        this.fanOutWorkers = Math.max(1, fanOutWorkers);
+    }
+
+    /**
+     * Retorna el máximo de eventos pendientes por entregar a los oyentes del servidor
+     * @return máximo de eventos pendientes
+     */
+    public int getEventQueueCapacity() {
+        return eventQueueCapacity;
+    }
+
+    /**
+     * Establece el máximo de eventos pendientes por entregar a los oyentes del servidor, los eventos publicados con
+     * la cola llena se descartan
+     * @param eventQueueCapacity máximo de eventos pendientes, mínimo uno
+     */
+    public void setEventQueueCapacity(int eventQueueCapacity) {
+        this.eventQueueCapacity = Math.max(1, eventQueueCapacity);
+    }
+
+    /**
+     * Retorna el número de líneas que conserva la consola de la ventana del servidor
+     * @return número de líneas
+     */
+    public int getConsoleLines() {
+        return consoleLines;
+    }
+
+    /**
+     * Establece el número de líneas que conserva la consola de la ventana del servidor, las más antiguas se descartan
+     * @param consoleLines número de líneas, mínimo uno
+     */
+    public void setConsoleLines(int consoleLines) {
+        this.consoleLines = Math.max(1, consoleLines);
+    }
+
+    /**
+     * Retorna el intervalo entre actualizaciones de la consola de la ventana del servidor
+     * @return intervalo en milisegundos
+     */
+    public long getConsoleRefreshMillis() {
+        return consoleRefreshMillis;
+    }
+
+    /**
+     * Establece el intervalo entre actualizaciones de la consola de la ventana del servidor, limita la frecuencia con
+     * la que se redibuja la consola sin importar la frecuencia de los eventos
+     * @param consoleRefreshMillis intervalo en milisegundos, mínimo 10
+     */
+    public void setConsoleRefreshMillis(long consoleRefreshMillis) {
+        this.consoleRefreshMillis = Math.max(10, consoleRefreshMillis);
+    }
+}
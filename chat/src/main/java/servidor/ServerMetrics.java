@@ -0,0 +1,472 @@
+package servidor;
+
+import connection.OpCode;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Clase ServerMetrics, métricas del servidor de bajo costo: contadores LongAdder, que reparten sus incrementos entre
+ * varias celdas para que los hilos de los clientes no compitan por la misma variable, e histogramas de latencia. Se
+ * registran desde las sesiones de los clientes, los hilos de escritura y el aceptador de conexiones, y se publican
+ * como MXBean en el servidor JMX de la plataforma para ser consultadas localmente. Las métricas calculadas a partir del
+ * estado del servidor (clientes conectados, colas de salida) se obtienen al ser consultadas
+ * @Author Jorge Luis Velasquez Venegas
+ */
+public class ServerMetrics implements ServerMetricsMXBean {
+
+    /**
+     * STALL_NANOS: duración a partir de la cual una escritura bloqueante se considera detenida
+     */
+    static final long STALL_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    /**
+     * Accepts: conexiones aceptadas
+     */
+    private final LongAdder accepts = new LongAdder();
+
+    /**
+     * Connects: clientes que completaron la conexión
+     */
+    private final LongAdder connects = new LongAdder();
+
+    /**
+     * Disconnects: clientes desconectados
+     */
+    private final LongAdder disconnects = new LongAdder();
+
+    /**
+     * Messages: mensajes recibidos indexados por el código de su tipo de acción
+     */
+    private final LongAdder[] messages = new LongAdder[Byte.MAX_VALUE + 1];
+
+    /**
+     * BytesIn: bytes recibidos de los clientes
+     */
+    private final LongAdder bytesIn = new LongAdder();
+
+    /**
+     * RoutingMisses: mensajes cuyo destinatario no estaba conectado
+     */
+    private final LongAdder routingMisses = new LongAdder();
+
+    /**
+     * WriteStalls: escrituras detenidas porque el socket no aceptó los bytes de inmediato
+     */
+    private final LongAdder writeStalls = new LongAdder();
+
+    /**
+     * DroppedFrames: tramas descartadas a clientes lentos
+     */
+    private final LongAdder droppedFrames = new LongAdder();
+
+    /**
+     * SlowConsumerDisconnects: clientes lentos desconectados
+     */
+    private final LongAdder slowConsumerDisconnects = new LongAdder();
+
+    /**
+     * DispatchLatency: latencia del procesamiento de cada mensaje recibido
+     */
+    private final LatencyHistogram dispatchLatency = new LatencyHistogram();
+
+    /**
+     * WriteLatency: latencia de cada escritura al socket
+     */
+    private final LatencyHistogram writeLatency = new LatencyHistogram();
+
+    /**
+     * ListenerLatency: latencia de los eventos de consola de la ventana del servidor
+     */
+    private final LatencyHistogram listenerLatency = new LatencyHistogram();
+
+    /**
+     * CommitLatency: latencia de confirmación de la bitácora, un histograma por modo de durabilidad para no mezclar
+     * latencias de escritura en memoria con latencias de sincronización con el disco
+     */
+    private final EnumMap<DurabilityMode, LatencyHistogram> commitLatency = new EnumMap<>(DurabilityMode.class);
+
+    /**
+     * Clients: índice de las sesiones de los clientes conectados
+     */
+    private final RoutingTable clients;
+
+    /**
+     * WriteStats: contadores de escritura del servidor
+     */
+    private final WriteStats writeStats;
+
+    /**
+     * Constructor de la clase ServerMetrics
+     * @param clients índice de las sesiones de los clientes conectados
+     * @param writeStats contadores de escritura del servidor
+     */
+    public ServerMetrics(RoutingTable clients, WriteStats writeStats) {
+        this.clients = clients;
+        this.writeStats = writeStats;
+        for (OpCode opCode : OpCode.values()) {
+            messages[opCode.getCode()] = new LongAdder();
+        }
+        for (DurabilityMode mode : DurabilityMode.values()) {
+            commitLatency.put(mode, new LatencyHistogram());
+        }
+    }
+
+    /**
+     * Publica las métricas en el servidor JMX de la plataforma
+     * @param port puerto del servidor, identifica las métricas cuando hay varios servidores en el mismo proceso
+     */
+    public void register(int port) {
+        try {
+            ManagementFactory.getPlatformMBeanServer()
+                    .registerMBean(this, new ObjectName("servidor:type=ServerMetrics,port=" + port));
+        } catch (JMException e) {
+            System.out.println("Error publicando métricas del servidor " + e);
+        }
+    }
+
+    /**
+     * Registra una conexión aceptada
+     */
+    public void recordAccept() {
+        accepts.increment();
+    }
+
+    /**
+     * Registra un cliente que completó la conexión
+     */
+    public void recordConnect() {
+        connects.increment();
+    }
+
+    /**
+     * Registra un cliente desconectado
+     */
+    public void recordDisconnect() {
+        disconnects.increment();
+    }
+
+    /**
+     * Registra un mensaje recibido y la latencia de su procesamiento
+     * @param type tipo de acción del mensaje
+     * @param nanos duración del procesamiento en nanosegundos
+     */
+    public void recordMessage(String type, long nanos) {
+        OpCode opCode = OpCode.of(type);
+        if (opCode != null) messages[opCode.getCode()].increment();
+        dispatchLatency.record(nanos);
+    }
+
+    /**
+     * Registra bytes recibidos de un cliente
+     * @param bytes bytes recibidos
+     */
+    public void recordBytesIn(long bytes) {
+        bytesIn.add(bytes);
+    }
+
+    /**
+     * Registra un mensaje cuyo destinatario no estaba conectado
+     */
+    public void recordRoutingMiss() {
+        routingMisses.increment();
+    }
+
+    /**
+     * Registra la duración de una escritura al socket
+     * @param nanos duración de la escritura en nanosegundos
+     * @param stalled true si el socket no aceptó todos los bytes de inmediato
+     */
+    public void recordWrite(long nanos, boolean stalled) {
+        writeLatency.record(nanos);
+        if (stalled) writeStalls.increment();
+    }
+
+    /**
+     * Registra una trama descartada a un cliente lento
+     */
+    public void recordDroppedFrame() {
+        droppedFrames.increment();
+    }
+
+    /**
+     * Registra un cliente lento desconectado
+     */
+    public void recordSlowConsumerDisconnect() {
+        slowConsumerDisconnects.increment();
+    }
+
+    /**
+     * Registra la duración de un evento de consola de la ventana del servidor
+     * @param nanos duración del evento en nanosegundos
+     */
+    public void recordListener(long nanos) {
+        listenerLatency.record(nanos);
+    }
+
+    /**
+     * Retorna el histograma de la latencia de confirmación de la bitácora en un modo de durabilidad, en el que la
+     * bitácora abierta en ese modo registra sus confirmaciones
+     * @param mode modo de durabilidad
+     * @return histograma de latencia del modo
+     */
+    public LatencyHistogram getCommitLatency(DurabilityMode mode) {
+        return commitLatency.get(mode);
+    }
+
+    /**
+     * Retorna el número de conexiones aceptadas
+     * @return conexiones aceptadas
+     */
+    @Override
+    public long getAccepts() {
+        return accepts.sum();
+    }
+
+    /**
+     * Retorna el número de clientes que completaron la conexión ("connect")
+     * @return conexiones completadas
+     */
+    @Override
+    public long getConnects() {
+        return connects.sum();
+    }
+
+    /**
+     * Retorna el número de clientes desconectados
+     * @return desconexiones
+     */
+    @Override
+    public long getDisconnects() {
+        return disconnects.sum();
+    }
+
+    /**
+     * Retorna el número de clientes conectados
+     * @return clientes conectados
+     */
+    @Override
+    public int getConnectedClients() {
+        return clients.size();
+    }
+
+    /**
+     * Retorna el número de mensajes recibidos de los clientes
+     * @return mensajes recibidos
+     */
+    @Override
+    public long getMessages() {
+        long total = 0;
+        for (LongAdder counter : messages) {
+            if (counter != null) total += counter.sum();
+        }
+        return total;
+    }
+
+    /**
+     * Retorna el número de mensajes recibidos de los clientes por tipo de acción
+     * @return mensajes recibidos indexados por tipo
+     */
+    @Override
+    public Map<String, Long> getMessagesByType() {
+        Map<String, Long> byType = new LinkedHashMap<>();
+        for (OpCode opCode : OpCode.values()) {
+            byType.put(opCode.getType(), messages[opCode.getCode()].sum());
+        }
+        return byType;
+    }
+
+    /**
+     * Retorna los bytes recibidos de los clientes
+     * @return bytes recibidos
+     */
+    @Override
+    public long getBytesIn() {
+        return bytesIn.sum();
+    }
+
+    /**
+     * Retorna los bytes escritos hacia los clientes
+     * @return bytes enviados
+     */
+    @Override
+    public long getBytesOut() {
+        return writeStats.getBytes();
+    }
+
+    /**
+     * Retorna el número de escrituras al socket
+     * @return escrituras
+     */
+    @Override
+    public long getWrites() {
+        return writeStats.getWrites();
+    }
+
+    /**
+     * Retorna el número de mensajes cuyo destinatario no estaba conectado
+     * @return mensajes sin destinatario conectado
+     */
+    @Override
+    public long getRoutingMisses() {
+        return routingMisses.sum();
+    }
+
+    /**
+     * Retorna los bytes pendientes en las colas de salida de todos los clientes
+     * @return bytes encolados
+     */
+    @Override
+    public long getQueuedBytes() {
+        long total = 0;
+        for (ClientSession session : clients.sessions()) {
+            total += session.outbound.getQueuedBytes();
+        }
+        return total;
+    }
+
+    /**
+     * Retorna los bytes pendientes de la cola de salida más larga
+     * @return bytes encolados en la cola más larga
+     */
+    @Override
+    public long getMaxQueuedBytes() {
+        long max = 0;
+        for (ClientSession session : clients.sessions()) {
+            max = Math.max(max, session.outbound.getQueuedBytes());
+        }
+        return max;
+    }
+
+    /**
+     * Retorna el número de escrituras detenidas porque el socket no aceptó los bytes de inmediato
+     * @return escrituras detenidas
+     */
+    @Override
+    public long getWriteStalls() {
+        return writeStalls.sum();
+    }
+
+    /**
+     * Retorna el número de tramas descartadas a clientes lentos
+     * @return tramas descartadas
+     */
+    @Override
+    public long getDroppedFrames() {
+        return droppedFrames.sum();
+    }
+
+    /**
+     * Retorna el número de clientes lentos desconectados
+     * @return clientes lentos desconectados
+     */
+    @Override
+    public long getSlowConsumerDisconnects() {
+        return slowConsumerDisconnects.sum();
+    }
+
+    /**
+     * Retorna la latencia del procesamiento de los mensajes recibidos en el percentil 50
+     * @return latencia en microsegundos
+     */
+    @Override
+    public double getDispatchLatencyP50() {
+        return dispatchLatency.getPercentile(50) / 1e3;
+    }
+
+    /**
+     * Retorna la latencia del procesamiento de los mensajes recibidos en el percentil 99
+     * @return latencia en microsegundos
+     */
+    @Override
+    public double getDispatchLatencyP99() {
+        return dispatchLatency.getPercentile(99) / 1e3;
+    }
+
+    /**
+     * Retorna la latencia del procesamiento de los mensajes recibidos en el percentil 99.9
+     * @return latencia en microsegundos
+     */
+    @Override
+    public double getDispatchLatencyP999() {
+        return dispatchLatency.getPercentile(99.9) / 1e3;
+    }
+
+    /**
+     * Retorna la latencia de las escrituras al socket en el percentil 99
+     * @return latencia en microsegundos
+     */
+    @Override
+    public double getWriteLatencyP99() {
+        return writeLatency.getPercentile(99) / 1e3;
+    }
+
+    /**
+     * Retorna la latencia de los eventos de consola de la ventana del servidor en el percentil 99
+     * @return latencia en microsegundos
+     */
+    @Override
+    public double getListenerLatencyP99() {
+        return listenerLatency.getPercentile(99) / 1e3;
+    }
+
+    /**
+     * Retorna la latencia de confirmación de la bitácora en modo de durabilidad NONE en el percentil 50
+     * @return latencia en microsegundos, cero si la bitácora no ha operado en ese modo
+     */
+    @Override
+    public double getCommitLatencyNoneP50() {
+        return commitLatency.get(DurabilityMode.NONE).getPercentile(50) / 1e3;
+    }
+
+    /**
+     * Retorna la latencia de confirmación de la bitácora en modo de durabilidad NONE en el percentil 99
+     * @return latencia en microsegundos, cero si la bitácora no ha operado en ese modo
+     */
+    @Override
+    public double getCommitLatencyNoneP99() {
+        return commitLatency.get(DurabilityMode.NONE).getPercentile(99) / 1e3;
+    }
+
+    /**
+     * Retorna la latencia de confirmación de la bitácora en modo de durabilidad BATCHED en el percentil 50
+     * @return latencia en microsegundos, cero si la bitácora no ha operado en ese modo
+     */
+    @Override
+    public double getCommitLatencyBatchedP50() {
+        return commitLatency.get(DurabilityMode.BATCHED).getPercentile(50) / 1e3;
+    }
+
+    /**
+     * Retorna la latencia de confirmación de la bitácora en modo de durabilidad BATCHED en el percentil 99
+     * @return latencia en microsegundos, cero si la bitácora no ha operado en ese modo
+     */
+    @Override
+    public double getCommitLatencyBatchedP99() {
+        return commitLatency.get(DurabilityMode.BATCHED).getPercentile(99) / 1e3;
+    }
+
+    /**
+     * Retorna la latencia de confirmación de la bitácora en modo de durabilidad PER_MESSAGE en el percentil 50
+     * @return latencia en microsegundos, cero si la bitácora no ha operado en ese modo
+     */
+    @Override
+    public double getCommitLatencyPerMessageP50() {
+        return commitLatency.get(DurabilityMode.PER_MESSAGE).getPercentile(50) / 1e3;
+    }
+
+    /**
+     * Retorna la latencia de confirmación de la bitácora en modo de durabilidad PER_MESSAGE en el percentil 99
+     * @return latencia en microsegundos, cero si la bitácora no ha operado en ese modo
+     */
+    @Override
+    public double getCommitLatencyPerMessageP99() {
+        return commitLatency.get(DurabilityMode.PER_MESSAGE).getPercentile(99) / 1e3;
+    }
+}
@@ -0,0 +1,168 @@
+package servidor;
+
+import java.util.Map;
+
+/**
+ * Interfaz ServerMetricsMXBean, atributos de las métricas del servidor publicados mediante JMX. Pueden consultarse
+ * localmente con jconsole o cualquier cliente JMX bajo el nombre servidor:type=ServerMetrics,port=&lt;puerto&gt;.
+ * Las latencias se expresan en microsegundos
+ * @Author Jorge Luis Velasquez Venegas
+ */
+public interface ServerMetricsMXBean {
+
+    /**
+     * Retorna el número de conexiones aceptadas
+     * @return conexiones aceptadas
+     */
+    long getAccepts();
+
+    /**
+     * Retorna el número de clientes que completaron la conexión ("connect")
+     * @return conexiones completadas
+     */
+    long getConnects();
+
+    /**
+     * Retorna el número de clientes desconectados
+     * @return desconexiones
+     */
+    long getDisconnects();
+
+    /**
+     * Retorna el número de clientes conectados
+     * @return clientes conectados
+     */
+    int getConnectedClients();
+
+    /**
+     * Retorna el número de mensajes recibidos de los clientes
+     * @return mensajes recibidos
+     */
+    long getMessages();
+
+    /**
+     * Retorna el número de mensajes recibidos de los clientes por tipo de acción
+     * @return mensajes recibidos indexados por tipo
+     */
+    Map<String, Long> getMessagesByType();
+
+    /**
+     * Retorna los bytes recibidos de los clientes
+     * @return bytes recibidos
+     */
+    long getBytesIn();
+
+    /**
+     * Retorna los bytes escritos hacia los clientes
+     * @return bytes enviados
+     */
+    long getBytesOut();
+
+    /**
+     * Retorna el número de escrituras al socket
+     * @return escrituras
+     */
+    long getWrites();
+
+    /**
+     * Retorna el número de mensajes cuyo destinatario no estaba conectado
+     * @return mensajes sin destinatario conectado
+     */
+    long getRoutingMisses();
+
+    /**
+     * Retorna los bytes pendientes en las colas de salida de todos los clientes
+     * @return bytes encolados
+     */
+    long getQueuedBytes();
+
+    /**
+     * Retorna los bytes pendientes de la cola de salida más larga
+     * @return bytes encolados en la cola más larga
+     */
+    long getMaxQueuedBytes();
+
+    /**
+     * Retorna el número de escrituras detenidas porque el socket no aceptó los bytes de inmediato
+     * @return escrituras detenidas
+     */
+    long getWriteStalls();
+
+    /**
+     * Retorna el número de tramas descartadas a clientes lentos
+     * @return tramas descartadas
+     */
+    long getDroppedFrames();
+
+    /**
+     * Retorna el número de clientes lentos desconectados
+     * @return clientes lentos desconectados
+     */
+    long getSlowConsumerDisconnects();
+
+    /**
+     * Retorna la latencia del procesamiento de los mensajes recibidos en el percentil 50
+     * @return latencia en microsegundos
+     */
+    double getDispatchLatencyP50();
+
+    /**
+     * Retorna la latencia del procesamiento de los mensajes recibidos en el percentil 99
+     * @return latencia en microsegundos
+     */
+    double getDispatchLatencyP99();
+
+    /**
+     * Retorna la latencia del procesamiento de los mensajes recibidos en el percentil 99.9
+     * @return latencia en microsegundos
+     */
+    double getDispatchLatencyP999();
+
+    /**
+     * Retorna la latencia de las escrituras al socket en el percentil 99
+     * @return latencia en microsegundos
+     */
+    double getWriteLatencyP99();
+
+    /**
+     * Retorna la latencia de los eventos de consola de la ventana del servidor en el percentil 99
+     * @return latencia en microsegundos
+     */
+    double getListenerLatencyP99();
+
+    /**
+     * Retorna la latencia de confirmación de la bitácora en modo de durabilidad NONE en el percentil 50
+     * @return latencia en microsegundos, cero si la bitácora no ha operado en ese modo
+     */
+    double getCommitLatencyNoneP50();
+
+    /**
+     * Retorna la latencia de confirmación de la bitácora en modo de durabilidad NONE en el percentil 99
+     * @return latencia en microsegundos, cero si la bitácora no ha operado en ese modo
+     */
+    double getCommitLatencyNoneP99();
+
+    /**
+     * Retorna la latencia de confirmación de la bitácora en modo de durabilidad BATCHED en el percentil 50
+     * @return latencia en microsegundos, cero si la bitácora no ha operado en ese modo
+     */
+    double getCommitLatencyBatchedP50();
+
+    /**
+     * Retorna la latencia de confirmación de la bitácora en modo de durabilidad BATCHED en el percentil 99
+     * @return latencia en microsegundos, cero si la bitácora no ha operado en ese modo
+     */
+    double getCommitLatencyBatchedP99();
+
+    /**
+     * Retorna la latencia de confirmación de la bitácora en modo de durabilidad PER_MESSAGE en el percentil 50
+     * @return latencia en microsegundos, cero si la bitácora no ha operado en ese modo
+     */
+    double getCommitLatencyPerMessageP50();
+
+    /**
+     * Retorna la latencia de confirmación de la bitácora en modo de durabilidad PER_MESSAGE en el percentil 99
+     * @return latencia en microsegundos, cero si la bitácora no ha operado en ese modo
+     */
+    double getCommitLatencyPerMessageP99();
+}
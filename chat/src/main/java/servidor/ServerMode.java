@@ -0,0 +1,48 @@
+package servidor;
+
+/**
+ * Modelos de ejecución disponibles para atender las conexiones de los clientes en el servidor
+ * @Author Jorge Luis Velasquez
+ */
+public enum ServerMode {
+
+    /**
+     * Un hilo de plataforma por cada cliente conectado, bloqueado en la lectura del socket
+     */
+    BLOCKING,
+
+    /**
+     * Un grupo reducido y fijo de hilos de eventos que atienden todas las conexiones con selectores no bloqueantes
+     */
+    NIO,
+
+    /**
+     * Un hilo virtual por cada cliente conectado, conserva la lectura bloqueante del modo BLOCKING sin reservar un
+     * hilo de plataforma por conexión
+     */
+    VIRTUAL;
+
+    /**
+     * Crea e inicia el hilo que ejecuta la tarea recibida según el modelo de ejecución: hilo virtual en el modo
+     * VIRTUAL e hilo de plataforma en los demás modos
+     * @param name nombre del hilo
+     * @param task tarea a ejecutar
+     * @return hilo iniciado
+     */
+    public Thread start(String name, Runnable task) {
+        if (this == VIRTUAL) {
+            return Thread.ofVirtual().name(name).start(task);
+        }
+        return Thread.ofPlatform().name(name).start(task);
+    }
+
+    /**
+     * Retorna el modo correspondiente al nombre recibido sin distinguir mayúsculas de minúsculas
+     * @param name nombre del modo (blocking, nio, virtual)
+     * @return modo de ejecución, BLOCKING si el nombre es vacío
+     */
+    public static ServerMode parse(String name) {
+        if (name == null || name.isBlank()) return BLOCKING;
+        return ServerMode.valueOf(name.trim().toUpperCase());
+    }
+}
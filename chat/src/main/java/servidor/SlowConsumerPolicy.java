@@ -0,0 +1,31 @@
+package servidor;
+
+/**
+ * Políticas aplicadas a un cliente lento, es decir, aquel cuya cola de salida alcanza la marca alta porque su socket no
+ * consume las tramas al ritmo en que le son enviadas. Ninguna política detiene a quien enruta: el hilo que encola puede
+ * ser un hilo de eventos NIO, el hilo de confirmación de la bitácora o un hilo que difunde el listado de clientes, y
+ * detenerlo por un cliente lento afectaría a todos los demás
+ * @Author Jorge Luis Velasquez
+ */
+public enum SlowConsumerPolicy {
+
+    /**
+     * Descarta las tramas nuevas hasta que la cola baje de la marca baja
+     */
+    DROP,
+
+    /**
+     * Desconecta al cliente lento
+     */
+    DISCONNECT;
+
+    /**
+     * Retorna la política correspondiente al nombre recibido sin distinguir mayúsculas de minúsculas
+     * @param name nombre de la política (drop, disconnect)
+     * @return política para clientes lentos, DISCONNECT si el nombre es vacío
+     */
+    public static SlowConsumerPolicy parse(String name) {
+        if (name == null || name.isBlank()) return DISCONNECT;
+        return SlowConsumerPolicy.valueOf(name.trim().toUpperCase());
+    }
+}
@@ -0,0 +1,22 @@
+package servidor;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Clase SocketWriteEvent, evento de Java Flight Recorder de una escritura al socket de un cliente. Una escritura
+ * puede agrupar varias tramas, su tipo de mensaje es el de la primera trama y su tamaño el de los bytes escritos
+ * @Author Jorge Luis Velasquez Venegas
+ */
+@Name("servidor.SocketWrite")
+@Label("Escritura al socket")
+@Description("Escritura de un lote de tramas al socket de un cliente")
+class SocketWriteEvent extends MessageEvent {
+
+    /**
+     * Frames: número de tramas agrupadas en la escritura
+     */
+    @Label("Tramas")
+    int frames;
+}
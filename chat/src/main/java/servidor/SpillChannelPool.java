@@ -0,0 +1,135 @@
+package servidor;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Clase SpillChannelPool, canales abiertos de los archivos de desborde de los buzones, compartidos por todos los
+ * buzones de MailboxStore. El número de canales abiertos está acotado: al superar el máximo se cierran los canales
+ * usados menos recientemente, de modo que el número de descriptores de archivo del servidor no crece con el número de
+ * buzones desbordados. Un buzón toma el canal de su archivo con acquire durante cada operación y lo devuelve con
+ * release; un canal tomado nunca se cierra, por lo que mientras varias operaciones están en curso el número de canales
+ * puede superar temporalmente el máximo
+ * @Author Jorge Luis Velasquez Venegas
+ */
+public class SpillChannelPool {
+
+    /**
+     * MaxOpen: máximo de canales abiertos que no están tomados por ningún buzón
+     */
+    private final int maxOpen;
+
+    /**
+     * Open: canales abiertos indexados por la ruta de su archivo, en orden de uso (el menos reciente primero)
+     */
+    private final LinkedHashMap<Path, PooledChannel> open = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * Constructor de la clase SpillChannelPool
+     * @param maxOpen máximo de canales abiertos
+     */
+    public SpillChannelPool(int maxOpen) {
+        this.maxOpen = maxOpen;
+    }
+
+    /**
+     * Toma el canal de lectura y escritura de un archivo de desborde, abriéndolo o creando el archivo si es necesario.
+     * Cada invocación debe corresponder con una invocación de release
+     * @param file archivo de desborde
+     * @return canal del archivo
+     * @throws IOException si no es posible abrir o crear el archivo
+     */
+    public synchronized FileChannel acquire(Path file) throws IOException {
+        PooledChannel pooled = open.get(file);
+        if (pooled == null) {
+            pooled = new PooledChannel(FileChannel.open(file,
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE));
+            open.put(file, pooled);
+        }
+        pooled.leases++;
+        this.evict();
+        return pooled.channel;
+    }
+
+    /**
+     * Devuelve el canal tomado con acquire, que permanece abierto hasta ser desplazado por canales usados más
+     * recientemente
+     * @param file archivo de desborde
+     */
+    public synchronized void release(Path file) {
+        PooledChannel pooled = open.get(file);
+        if (pooled != null) pooled.leases--;
+        this.evict();
+    }
+
+    /**
+     * Cierra el canal de un archivo de desborde, se invoca antes de eliminar el archivo o al retirar su buzón. El
+     * canal no debe estar tomado
+     * @param file archivo de desborde
+     */
+    public synchronized void close(Path file) {
+        PooledChannel pooled = open.remove(file);
+        if (pooled != null) pooled.close();
+    }
+
+    /**
+     * Cierra los canales usados menos recientemente que no están tomados hasta respetar el máximo de canales abiertos
+     */
+    private void evict() {
+        Iterator<Map.Entry<Path, PooledChannel>> iterator = open.entrySet().iterator();
+        while (open.size() > maxOpen && iterator.hasNext()) {
+            PooledChannel pooled = iterator.next().getValue();
+            if (pooled.leases > 0) continue;
+            iterator.remove();
+            pooled.close();
+        }
+    }
+
+    /**
+     * Retorna el número de canales abiertos
+     * @return canales abiertos
+     */
+    public synchronized int size() {
+        return open.size();
+    }
+
+    /**
+     * Canal abierto de un archivo de desborde junto con el número de operaciones que lo tienen tomado
+     */
+    private static final class PooledChannel {
+
+        /**
+         * Channel: canal de lectura y escritura del archivo
+         */
+        final FileChannel channel;
+
+        /**
+         * Leases: número de operaciones en curso que tomaron el canal
+         */
+        int leases;
+
+        /**
+         * Constructor de la clase PooledChannel
+         * @param channel canal abierto
+         */
+        PooledChannel(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        /**
+         * Cierra el canal ignorando los errores de cierre
+         */
+        void close() {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                System.out.println(e.getMessage());
+            }
+        }
+    }
+}
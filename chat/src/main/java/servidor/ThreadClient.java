@@ -0,0 +1,234 @@
+package servidor;
+
+
+import connection.Message;
+import connection.MessageCodec;
+
+import java.io.*;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Clase ThreadClient permite crear sockets del lado del servidor para cada cliente conectado a este, y de este modo
+ * cada socket creado trabaja en un hilo diferente para escuchar los mensajes enviados por los clientes, y así
+ * establecer la comunicación en el chat bidireccional entre los clientes conectados al servidor. Extiende la clase
+ * ClientSession, que contiene la lógica del protocolo, e implementa la interfaz Runnable para ser ejecutada por el
+ * servidor en un hilo de plataforma o en un hilo virtual según el modo de ejecución seleccionado. Cada conexión
+ * cuenta además con un hilo escritor dedicado que vacía su cola de salida
+ * @Author Jorge Luis Velasquez Venegas
+ */
+public class ThreadClient extends ClientSession implements Runnable {
+
+    /**
+     * Socket: punto final para la comunicación entre clientes.
+     */
+    private Socket socket;
+
+    /**
+     * DataInputStream: recepción de tramas con objetos de la clase Message
+     */
+    private DataInputStream dataInputStream;
+
+    /**
+     * OutputStream: envío de tramas con objetos de la clase Message, solo es usado por el hilo escritor
+     */
+    private OutputStream outputStream;
+
+    /**
+     * Connected: estado en que se encuentra el cliente (conectado, desconectado)
+     */
+    private volatile boolean connected;
+
+    /**
+     * Constructor de la clase ThreadClient crea una conexión del lado del servidor mediante sockets para la escucha de
+     * clientes conectados al servidor. El hilo de escucha es iniciado por el servidor
+     * @param socket punto final para la comunicación entre clientes.
+     * @param server instancia de la clase servidor para manejo de los datos de comunicación
+     */
+    public ThreadClient(Socket socket, Server server) {
+        super(server);
+        this.socket = socket;
+        try {
+            dataInputStream = new DataInputStream(new BufferedInputStream(
+                    new CountingInputStream(socket.getInputStream(), server.getMetrics())));
+            outputStream = socket.getOutputStream();
+        } catch (IOException e) {
+            System.out.println(e.getMessage());
+        }
+    }
+
+    /**
+     * Método que se ejecuta en el hilo asignado por el servidor al cliente, el cual inicia el hilo escritor y da
+     * inicio a la escucha activa del lado del servidor
+     */
+    @Override
+    public void run() {
+        server.getConfig().getMode().start("ThreadClient-writer-" + socket.getPort(), this::write);
+        try{
+            listen();
+        }catch (Exception e){
+            System.out.println("Error al escuchar cliente " + e);
+        }
+    }
+
+    /**
+     * Loop de escucha activa de mensajes enviados por el cliente
+     */
+    public void listen(){
+        connected = true;
+        while (connected){
+            try {
+                int length = MessageCodec.checkLength(dataInputStream.readInt());
+                byte[] body = new byte[length];
+                dataInputStream.readFully(body);
+                Message message = this.decode(body, 0, length);
+                this.operations(message);
+            } catch (StreamCorruptedException e) {
+                System.out.println("Error en listen() HiloCliente error de datos recibidos: " + e.getMessage());
+                this.endConnection();
+            } catch (IOException e) {
+                if (!socket.isClosed() && !this.isDisconnected()) {
+                    System.out.println("Error en listen() HiloCliente: " + e.getMessage());
+                }
+                this.notifyDisconnection(new Message("disconnect", this.idClient));
+                this.endConnection();
+            }
+        }
+    }
+
+    /**
+     * Loop del hilo escritor: toma de la cola de salida todas las tramas pendientes que quepan en un lote y las escribe
+     * en el socket con una sola escritura. Con la cola vacía cada trama se escribe apenas llega, bajo carga las tramas
+     * acumuladas mientras se escribía el lote anterior viajan juntas. Cuando la cola es cerrada en un cierre ordenado,
+     * se escriben las tramas restantes y se cierra el sentido de escritura del socket
+     */
+    private void write() {
+        int maxBytes = server.getConfig().getWriteBatchBytes();
+        ByteBuffer[] batch = new ByteBuffer[BATCH_FRAMES];
+        byte[] buffer = new byte[maxBytes];
+        try {
+            int count;
+            while ((count = outbound.takeBatch(batch, maxBytes)) > 0) {
+                int length;
+                SocketWriteEvent event = new SocketWriteEvent();
+                event.begin();
+                long start = System.nanoTime();
+                if (count == 1) {
+                    length = batch[0].limit();
+                    outputStream.write(batch[0].array(), batch[0].arrayOffset(), length);
+                } else {
+                    length = 0;
+                    for (int i = 0; i < count; i++) {
+                        int frameLength = batch[i].limit();
+                        System.arraycopy(batch[i].array(), batch[i].arrayOffset(), buffer, length, frameLength);
+                        length += frameLength;
+                    }
+                    outputStream.write(buffer, 0, length);
+                }
+                long nanos = System.nanoTime() - start;
+                server.getWriteStats().record(count, length);
+                server.getMetrics().recordWrite(nanos, nanos > ServerMetrics.STALL_NANOS);
+                event.frames = count;
+                event.commit(idClient, batch[0], length);
+                Arrays.fill(batch, 0, count, null);
+            }
+            if (!socket.isClosed()) socket.shutdownOutput();
+        } catch (IOException e) {
+            if (!socket.isClosed()) {
+                System.out.println("Error enviando mensaje " + e + " - " + this.getIdClient());
+                this.endConnection();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * El hilo escritor espera en la cola de salida, por lo que no requiere ser notificado
+     */
+    @Override
+    protected void writeRequested() {
+    }
+
+    /**
+     * Cierre ordenado: se cierra la cola de salida para que el hilo escritor envíe las tramas pendientes y cierre el
+     * sentido de escritura del socket, y se limita la espera de lectura para que el hilo de escucha libere el socket
+     * apenas el cliente cierre su extremo o, a más tardar, al vencer el tiempo de espera
+     */
+    @Override
+    protected void closeAfterFlush() {
+        try {
+            socket.setSoTimeout((int) server.getConfig().getDisconnectTimeoutMillis());
+        } catch (SocketException e) {
+            System.out.println(e.getMessage());
+        }
+        outbound.close();
+    }
+
+    /**
+     * Se indica que el cliente está desconectado para finalizar el loop y se cierra conexión del socket del lado del
+     * servidor
+     */
+    @Override
+    public void endConnection(){
+        try {
+            outbound.close();
+            socket.close();
+            connected = false;
+        } catch (IOException e) {
+            System.out.println(e.getMessage());
+        }
+    }
+
+
+    /**
+     * Flujo de entrada que registra en las métricas del servidor los bytes leídos del socket. Se ubica debajo del
+     * buffer de lectura, de modo que registra una vez por cada bloque leído y no por cada campo de la trama
+     */
+    private static final class CountingInputStream extends FilterInputStream {
+
+        /**
+         * Metrics: métricas del servidor
+         */
+        private final ServerMetrics metrics;
+
+        /**
+         * Constructor de la clase CountingInputStream
+         * @param in flujo de entrada del socket
+         * @param metrics métricas del servidor
+         */
+        CountingInputStream(InputStream in, ServerMetrics metrics) {
+            super(in);
+            this.metrics = metrics;
+        }
+
+        /**
+         * Lee un byte del socket y lo registra
+         * @return byte leído, -1 al final del flujo
+         * @throws IOException si no es posible leer el socket
+         */
+        @Override
+        public int read() throws IOException {
+            int value = super.read();
+            if (value >= 0) metrics.recordBytesIn(1);
+            return value;
+        }
+
+        /**
+         * Lee un bloque de bytes del socket y lo registra
+         * @param buffer arreglo destino
+         * @param offset posición inicial en el arreglo
+         * @param length máximo de bytes a leer
+         * @return bytes leídos, -1 al final del flujo
+         * @throws IOException si no es posible leer el socket
+         */
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = super.read(buffer, offset, length);
+            if (read > 0) metrics.recordBytesIn(read);
+            return read;
+        }
+    }
+}
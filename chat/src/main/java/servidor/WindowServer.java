@@ -1,6 +1,9 @@
 package servidor;
 
 import javax.swing.*;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import javax.swing.text.Element;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
@@ -12,7 +15,9 @@ import java.io.IOException;
  * En esta clase se genera una primera ventana de tipo dialog para establecer la configuración puerto del servidor
  * socket. Cuando se es aceptada la configuración, se genera una segunda ventana de tipo JFrame en la cual se
  * visualiza cuando un cliente se conecta o desconecta. El uso de eventos permite la actualización en segundo plano del
- * TextArea en el que se visualiza cuando un cliente se conecta o desconecta
+ * TextArea en el que se visualiza cuando un cliente se conecta o desconecta: los eventos se acumulan en un buffer
+ * circular y la consola se actualiza en lotes desde el hilo de eventos de Swing a una frecuencia limitada,
+ * conservando solo las últimas líneas
  * @Author Jorge Luis Velasquez
  */
 public class WindowServer extends JFrame {
@@ -38,9 +43,14 @@ public class WindowServer extends JFrame {
     private Server server;
 
     /**
-     * MessageActual: String que contiene el mensaje actual que se visualiza en Text Área como estado del servidor
+     * ConsoleBuffer: últimas líneas de la consola recibidas de los eventos del servidor
      */
-    private String messageActual;
+    private ConsoleBuffer consoleBuffer;
+
+    /**
+     * Rendered: número de líneas del buffer de la consola que ya fueron agregadas al TextArea
+     */
+    private long rendered;
 
     /**
      * Constructor de la clase WindowServer. Crea los objetos para visualización gráfica de ventana de configuración,
@@ -59,7 +69,8 @@ public class WindowServer extends JFrame {
     }
 
     /**
-     * Método que permite crear la ventana de configuración para la conexión
+     * Método que permite crear la ventana de configuración para la conexión, en la que se define el puerto y el modelo
+     * de ejecución con el que el servidor atenderá a los clientes
      */
     private void setUp() {
 
@@ -69,11 +80,18 @@ public class WindowServer extends JFrame {
         JFormattedTextField port = new JFormattedTextField(2022);
         windowConfiguration.add(port);
 
+        ServerConfig config = ServerConfig.fromSystemProperties();
+        windowConfiguration.add(new JLabel("Modo de ejecución:"));
+        JComboBox<ServerMode> mode = new JComboBox<>(ServerMode.values());
+        mode.setSelectedItem(config.getMode());
+        windowConfiguration.add(mode);
+
         int option = JOptionPane.showConfirmDialog(null, windowConfiguration,
                 "Configuraciones de puerto de servidor", JOptionPane.OK_CANCEL_OPTION);
         if (option == JOptionPane.OK_OPTION) {
             try {
-                this.server = new Server((Integer) port.getValue());
+                config.setMode((ServerMode) mode.getSelectedItem());
+                this.server = new Server((Integer) port.getValue(), config);
             } catch (IOException e) {
                 throw new RuntimeException(e);
             }
@@ -85,21 +103,60 @@ public class WindowServer extends JFrame {
     /**
      * Método para manejar el evento que se genera en el objeto de clase Server cuando se recibe una nueva conexión o
      * se solicita desconexión y asi actualizar el área multi línea donde se visualizan los mensajes enviados y
-     * recibidos en segundo plano
+     * recibidos en segundo plano. El evento solo agrega el mensaje al buffer de la consola, un temporizador de Swing
+     * lleva al TextArea las líneas acumuladas, de modo que la consola se redibuja a lo sumo una vez por intervalo sin
+     * importar cuántos eventos se reciban
      */
     private void printDataIntoConsole() {
+        consoleBuffer = new ConsoleBuffer(server.getConfig().getConsoleLines());
         EventChangeServerListener messageConsoleListener = new EventChangeServerListener() {
             @Override
             public void onMessageChange(EventChangeServer evt) {
-                String messageServer = server.getMessageConsole();
-                if (messageServer != null && !messageServer.equals(messageActual)) {
-                    console.append(server.getMessageConsole());
-                    messageActual = messageServer;
-                }
+                if (evt.getMessage() != null) consoleBuffer.append(evt.getMessage());
             }
         };
         server.addEventListener(messageConsoleListener);
 
+        Timer refresh = new Timer((int) server.getConfig().getConsoleRefreshMillis(), new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                flushConsole();
+            }
+        });
+        refresh.start();
+    }
+
+    /**
+     * Agrega al TextArea las líneas acumuladas en el buffer desde la última actualización, se ejecuta en el hilo de
+     * eventos de Swing. Si se recibieron más líneas de las que se conservan se reemplaza todo el contenido
+     */
+    private void flushConsole() {
+        StringBuilder text = new StringBuilder();
+        long appended = consoleBuffer.drainSince(rendered, text);
+        if (appended == rendered) return;
+        if (appended - rendered >= consoleBuffer.getCapacity()) {
+            console.setText(text.toString());
+        } else {
+            console.append(text.toString());
+            this.trimConsole();
+        }
+        rendered = appended;
+    }
+
+    /**
+     * Elimina del inicio del TextArea las líneas que exceden la capacidad del buffer de la consola
+     */
+    private void trimConsole() {
+        Document document = console.getDocument();
+        Element root = document.getDefaultRootElement();
+//      Se descuenta la línea vacía que sigue al último salto de línea
+        int excess = root.getElementCount() - 1 - consoleBuffer.getCapacity();
+        if (excess <= 0) return;
+        try {
+            document.remove(0, root.getElement(excess - 1).getEndOffset());
+        } catch (BadLocationException e) {
+            System.out.println("Error actualizando consola " + e);
+        }
     }
 
     /**
@@ -109,7 +166,7 @@ public class WindowServer extends JFrame {
         exit.addActionListener(new ActionListener() {
             @Override
             public void actionPerformed(ActionEvent e) {
-                server.getClients().forEach(ThreadClient::endConnection);
+                server.getClients().forEach(ClientSession::endConnection);
                 System.exit(0);
             }
         });
@@ -0,0 +1,87 @@
+package servidor;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Clase WriteStats, contadores de las escrituras realizadas en los sockets de los clientes. Permiten comprobar el
+ * efecto de agrupar las tramas pendientes de una conexión en una sola escritura: bajo carga el número de escrituras
+ * (llamadas al sistema) por mensaje debe bajar y el número de bytes por escritura debe subir. Emplea contadores
+ * LongAdder para que los escritores de todas las conexiones los actualicen sin competir entre sí
+ * @Author Jorge Luis Velasquez Venegas
+ */
+public class WriteStats {
+
+    /**
+     * Writes: número de escrituras realizadas en los sockets
+     */
+    private final LongAdder writes = new LongAdder();
+
+    /**
+     * Frames: número de tramas escritas
+     */
+    private final LongAdder frames = new LongAdder();
+
+    /**
+     * Bytes: número de bytes escritos
+     */
+    private final LongAdder bytes = new LongAdder();
+
+    /**
+     * Registra una escritura en un socket
+     * @param frames número de tramas completadas en la escritura
+     * @param bytes número de bytes escritos
+     */
+    public void record(int frames, long bytes) {
+        this.writes.increment();
+        this.frames.add(frames);
+        this.bytes.add(bytes);
+    }
+
+    /**
+     * Retorna el número de escrituras realizadas en los sockets
+     * @return número de escrituras
+     */
+    public long getWrites() {
+        return writes.sum();
+    }
+
+    /**
+     * Retorna el número de tramas escritas
+     * @return número de tramas
+     */
+    public long getFrames() {
+        return frames.sum();
+    }
+
+    /**
+     * Retorna el número de bytes escritos
+     * @return número de bytes
+     */
+    public long getBytes() {
+        return bytes.sum();
+    }
+
+    /**
+     * Retorna el promedio de escrituras (llamadas al sistema) por mensaje
+     * @return escrituras por mensaje
+     */
+    public double getWritesPerMessage() {
+        long sent = frames.sum();
+        return sent == 0 ? 0 : (double) writes.sum() / sent;
+    }
+
+    /**
+     * Retorna el promedio de bytes por escritura
+     * @return bytes por escritura
+     */
+    public double getBytesPerWrite() {
+        long count = writes.sum();
+        return count == 0 ? 0 : (double) bytes.sum() / count;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("escrituras=%d, mensajes=%d, bytes=%d, escrituras/mensaje=%.3f, bytes/escritura=%.1f",
+                getWrites(), getFrames(), getBytes(), getWritesPerMessage(), getBytesPerWrite());
+    }
+}
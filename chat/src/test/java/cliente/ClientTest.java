@@ -0,0 +1,235 @@
+package cliente;
+
+import connection.Message;
+import connection.MessageCodec;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Pruebas de la clase Client frente a un servidor simulado que escribe y lee las tramas directamente del socket:
+ * aplicación de los cambios versionados del listado de destinatarios, solicitud del listado completo al detectar un
+ * salto de versión, y cierre de la conexión con y sin confirmación del servidor
+ * @Author Jorge Luis Velasquez Venegas
+ */
+class ClientTest {
+
+    /**
+     * Extremo del servidor simulado de la conexión con el cliente de prueba
+     */
+    private static final class Peer implements AutoCloseable {
+
+        /**
+         * Socket: socket aceptado por el servidor simulado
+         */
+        final Socket socket;
+
+        /**
+         * In: tramas enviadas por el cliente
+         */
+        final DataInputStream in;
+
+        /**
+         * Out: tramas enviadas al cliente
+         */
+        final DataOutputStream out;
+
+        /**
+         * Constructor de la clase Peer
+         * @param socket socket aceptado por el servidor simulado
+         * @throws IOException si no es posible obtener los flujos del socket
+         */
+        Peer(Socket socket) throws IOException {
+            this.socket = socket;
+            this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            this.out = new DataOutputStream(socket.getOutputStream());
+            socket.setSoTimeout(5000);
+        }
+
+        /**
+         * Lee la siguiente trama enviada por el cliente
+         * @return mensaje recibido
+         * @throws IOException si la trama no llega a tiempo
+         */
+        Message read() throws IOException {
+            return MessageCodec.readFrame(in);
+        }
+
+        /**
+         * Envía un mensaje al cliente
+         * @param message mensaje a enviar
+         * @throws IOException si no es posible escribir la trama
+         */
+        void write(Message message) throws IOException {
+            MessageCodec.writeFrame(out, message);
+            out.flush();
+        }
+
+        /**
+         * Cierra el socket del servidor simulado
+         * @throws IOException si no es posible cerrar el socket
+         */
+        @Override
+        public void close() throws IOException {
+            socket.close();
+        }
+    }
+
+    /**
+     * Crea un mensaje con el listado completo de destinatarios
+     * @param type tipo de acción ("connection-accept" o "roster-snapshot")
+     * @param version versión del listado
+     * @param destinies destinatarios del listado
+     * @return mensaje del listado
+     */
+    private static Message roster(String type, long version, String... destinies) {
+        Message message = new Message(type, "ana");
+        message.setDestinies(new ArrayList<>(List.of(destinies)));
+        message.setSequence(version);
+        return message;
+    }
+
+    /**
+     * Crea un cambio del listado de destinatarios
+     * @param type tipo de cambio ("new-client" o "disconnect-client")
+     * @param version versión del listado con el cambio
+     * @param idClient cliente que ingresa o sale
+     * @return mensaje del cambio
+     */
+    private static Message delta(String type, long version, String idClient) {
+        Message message = new Message(type, idClient);
+        message.setSequence(version);
+        return message;
+    }
+
+    /**
+     * Espera, como máximo cinco segundos, a que el valor observado sea el esperado
+     * @param expected valor esperado
+     * @param actual valor observado
+     * @throws InterruptedException si se interrumpe la espera
+     */
+    private static void await(Object expected, Supplier<Object> actual) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!expected.equals(actual.get()) && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(expected, actual.get());
+    }
+
+    /**
+     * Retorna los destinatarios del cliente en orden alfabético, sin importar el orden en que se agregaron
+     * @param client cliente de prueba
+     * @return destinatarios ordenados, vacío si el cliente aún no recibe el listado
+     */
+    private static List<String> sortedDestinies(Client client) {
+        List<String> destinies = client.getDestinies() == null ? new ArrayList<>()
+                : new ArrayList<>(client.getDestinies());
+        destinies.sort(String.CASE_INSENSITIVE_ORDER);
+        return destinies;
+    }
+
+    /**
+     * Conecta un cliente al servidor simulado y le envía la confirmación de conexión con el listado recibido
+     * @param listener socket del servidor simulado
+     * @param destinies destinatarios del listado inicial, en la versión 1
+     * @return extremo del servidor simulado y cliente conectado
+     * @throws IOException si la conexión falla
+     */
+    private static Connected connect(ServerSocket listener, String... destinies) throws IOException {
+        Client client = new Client("localhost", listener.getLocalPort(), "ana");
+        Peer peer = new Peer(listener.accept());
+        assertEquals("connect", peer.read().getType());
+        peer.write(roster("connection-accept", 1, destinies));
+        return new Connected(client, peer);
+    }
+
+    /**
+     * Cliente de prueba conectado al servidor simulado
+     * @param client cliente de prueba
+     * @param peer extremo del servidor simulado
+     */
+    private record Connected(Client client, Peer peer) {
+    }
+
+    /**
+     * Los cambios con la versión siguiente se aplican; ante un salto el cliente solicita el listado completo e ignora
+     * los cambios hasta recibirlo, y después ignora los cambios ya reflejados en él
+     * @throws Exception si la conexión falla o los destinatarios no se actualizan a tiempo
+     */
+    @Test
+    void requestsSnapshotOnVersionGap() throws Exception {
+        try (ServerSocket listener = new ServerSocket(0)) {
+            Connected connected = connect(listener, "luis");
+            Client client = connected.client();
+            try (Peer peer = connected.peer()) {
+                peer.write(delta("new-client", 2, "carla"));
+                await(List.of("carla", "luis"), () -> sortedDestinies(client));
+
+                peer.write(delta("new-client", 4, "pedro"));
+                peer.write(delta("disconnect-client", 5, "luis"));
+                assertEquals("roster-request", peer.read().getType());
+                peer.write(delta("new-client", 6, "beto"));
+                peer.write(roster("roster-snapshot", 5, "carla", "pedro"));
+                peer.write(delta("new-client", 3, "viejo"));
+                peer.write(delta("new-client", 6, "beto"));
+                await(List.of("beto", "carla", "pedro"), () -> sortedDestinies(client));
+            }
+        }
+    }
+
+    /**
+     * Al cerrar la conexión el cliente envía "disconnect", espera "disconnect-ack" y solo entonces cierra su sentido
+     * de escritura, sin esperar el tiempo máximo de la confirmación
+     * @throws Exception si la conexión falla o el cierre no se completa a tiempo
+     */
+    @Test
+    void closesAfterDisconnectAck() throws Exception {
+        try (ServerSocket listener = new ServerSocket(0)) {
+            Connected connected = connect(listener);
+            try (Peer peer = connected.peer()) {
+                long start = System.nanoTime();
+                CompletableFuture<Void> closed = CompletableFuture.runAsync(connected.client()::closeConnection);
+                assertEquals("disconnect", peer.read().getType());
+                assertFalse(closed.isDone());
+                peer.write(new Message("disconnect-ack", "ana"));
+                assertEquals(-1, peer.in.read());
+                closed.get(5, TimeUnit.SECONDS);
+                assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(1500));
+            }
+        }
+    }
+
+    /**
+     * Si el servidor no confirma la desconexión, el cliente cierra el socket al vencer el tiempo máximo de espera
+     * @throws Exception si la conexión falla o el cierre no se completa a tiempo
+     */
+    @Test
+    void closesWhenDisconnectAckTimesOut() throws Exception {
+        try (ServerSocket listener = new ServerSocket(0)) {
+            Connected connected = connect(listener);
+            try (Peer peer = connected.peer()) {
+                long start = System.nanoTime();
+                CompletableFuture<Void> closed = CompletableFuture.runAsync(connected.client()::closeConnection);
+                assertEquals("disconnect", peer.read().getType());
+                assertEquals(-1, peer.in.read());
+                closed.get(5, TimeUnit.SECONDS);
+                assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(1900));
+                assertFalse(connected.client().isConnected());
+            }
+        }
+    }
+}
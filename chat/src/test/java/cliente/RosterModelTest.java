@@ -0,0 +1,121 @@
+package cliente;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Pruebas de la clase RosterModel: orden alfabético sin distinguir mayúsculas, filtro por prefijo y conservación de
+ * la selección
+ * @Author Jorge Luis Velasquez Venegas
+ */
+class RosterModelTest {
+
+    /**
+     * Retorna los destinatarios visibles del modelo
+     * @param model modelo de la lista
+     * @return nombres visibles en orden
+     */
+    private static List<String> visible(RosterModel model) {
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < model.getSize(); i++) {
+            names.add(model.getElementAt(i));
+        }
+        return names;
+    }
+
+    /**
+     * Los nombres se ordenan sin distinguir mayúsculas de minúsculas, tanto al reemplazar la lista como al agregar
+     */
+    @Test
+    void keepsCaseInsensitiveOrder() {
+        RosterModel model = new RosterModel();
+        model.setAll(List.of("luis", "Ana", "beto"));
+        model.add("Carla");
+        model.add("alberto");
+        assertEquals(List.of("alberto", "Ana", "beto", "Carla", "luis"), visible(model));
+    }
+
+    /**
+     * Agregar un nombre existente o retirar uno ausente no modifica la lista
+     */
+    @Test
+    void ignoresDuplicateAddsAndMissingRemoves() {
+        RosterModel model = new RosterModel();
+        model.setAll(List.of("ana", "luis"));
+        model.add("ana");
+        model.remove("pedro");
+        assertEquals(List.of("ana", "luis"), visible(model));
+    }
+
+    /**
+     * La lista crece más allá de su capacidad inicial conservando el orden
+     */
+    @Test
+    void growsBeyondInitialCapacity() {
+        RosterModel model = new RosterModel();
+        List<String> expected = new ArrayList<>();
+        for (int i = 99; i >= 0; i--) {
+            model.add(String.format("cliente%02d", i));
+        }
+        for (int i = 0; i < 100; i++) {
+            expected.add(String.format("cliente%02d", i));
+        }
+        assertEquals(expected, visible(model));
+    }
+
+    /**
+     * El filtro deja visibles los nombres que inician con el texto sin distinguir mayúsculas, y los ingresos y salidas
+     * posteriores respetan el filtro
+     */
+    @Test
+    void filtersByPrefix() {
+        RosterModel model = new RosterModel();
+        model.setAll(List.of("ana", "Andrés", "beto", "luis", "ANTONIO"));
+        model.setFilter("an");
+        assertEquals(List.of("ana", "Andrés", "ANTONIO"), visible(model));
+
+        model.add("anibal");
+        model.add("carla");
+        model.remove("Andrés");
+        assertEquals(List.of("ana", "anibal", "ANTONIO"), visible(model));
+
+        model.setFilter("");
+        assertEquals(List.of("ana", "anibal", "ANTONIO", "beto", "carla", "luis"), visible(model));
+    }
+
+    /**
+     * Un filtro sin coincidencias deja la lista vacía y sin selección
+     */
+    @Test
+    void filterWithoutMatchesClearsSelection() {
+        RosterModel model = new RosterModel();
+        model.setAll(List.of("ana", "luis"));
+        model.setFilter("zz");
+        assertEquals(0, model.getSize());
+        assertNull(model.getSelectedItem());
+    }
+
+    /**
+     * La selección se conserva mientras el destinatario siga visible, y pasa al primer visible cuando sale
+     */
+    @Test
+    void keepsSelectionWhileVisible() {
+        RosterModel model = new RosterModel();
+        model.setAll(List.of("ana", "beto", "luis"));
+        model.setSelectedItem("luis");
+        model.add("carla");
+        model.setFilter("l");
+        assertEquals("luis", model.getSelectedItem());
+
+        model.remove("luis");
+        assertNull(model.getSelectedItem());
+
+        model.setFilter("");
+        assertEquals("ana", model.getSelectedItem());
+    }
+}
@@ -0,0 +1,172 @@
+package connection;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Pruebas de la clase EventBus: orden de entrega, combinación de eventos, descarte con la cola llena y reemplazo de
+ * los eventos de estado descartados por el estado completo. El bus se ejecuta sobre un ejecutor manual, de modo que
+ * cada prueba decide cuándo se realiza cada turno de entrega
+ * @Author Jorge Luis Velasquez Venegas
+ */
+class EventBusTest {
+
+    /**
+     * Ejecutor que acumula las tareas hasta que la prueba las ejecuta
+     */
+    private static final class ManualExecutor implements Executor {
+
+        /**
+         * Tasks: tareas pendientes por ejecutar
+         */
+        private final ConcurrentLinkedQueue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+
+        /**
+         * Acumula una tarea
+         * @param task tarea a ejecutar
+         */
+        @Override
+        public void execute(Runnable task) {
+            tasks.add(task);
+        }
+
+        /**
+         * Ejecuta las tareas pendientes, incluidas las que se programen mientras se ejecutan
+         */
+        void runAll() {
+            Runnable task;
+            while ((task = tasks.poll()) != null) {
+                task.run();
+            }
+        }
+    }
+
+    /**
+     * Los eventos se entregan a cada suscriptor en el orden en que fueron publicados
+     */
+    @Test
+    void deliversInPublicationOrder() {
+        ManualExecutor executor = new ManualExecutor();
+        EventBus<Integer> bus = new EventBus<>("prueba", 1024, null, executor);
+        List<Integer> first = new ArrayList<>();
+        List<Integer> second = new ArrayList<>();
+        bus.subscribe(first::add);
+        bus.subscribe(second::add);
+        List<Integer> expected = new ArrayList<>();
+        for (int i = 0; i < 600; i++) {
+            assertTrue(bus.publish(i));
+            expected.add(i);
+        }
+        executor.runAll();
+        assertEquals(expected, first);
+        assertEquals(expected, second);
+        assertEquals(0, bus.getPending());
+    }
+
+    /**
+     * Sin suscriptores los eventos se ignoran y no ocupan la cola
+     */
+    @Test
+    void ignoresEventsWithoutSubscribers() {
+        ManualExecutor executor = new ManualExecutor();
+        EventBus<Integer> bus = new EventBus<>("prueba", 1, null, executor);
+        assertTrue(bus.publish(1));
+        assertTrue(bus.publish(2));
+        assertEquals(0, bus.getPending());
+        assertEquals(0, bus.getDropped());
+    }
+
+    /**
+     * Los eventos consecutivos acumulados en un turno se combinan, y los que no pueden combinarse conservan su orden
+     */
+    @Test
+    void coalescesConsecutiveEvents() {
+        ManualExecutor executor = new ManualExecutor();
+        EventBus<String> bus = new EventBus<>("prueba", 16,
+                (previous, next) -> previous.startsWith("+") && next.startsWith("+") ? previous + next : null,
+                executor);
+        List<String> delivered = new ArrayList<>();
+        bus.subscribe(delivered::add);
+        bus.publish("+a");
+        bus.publish("+b");
+        bus.publish("x");
+        bus.publish("+c");
+        bus.publish("+d");
+        executor.runAll();
+        assertEquals(List.of("+a+b", "x", "+c+d"), delivered);
+    }
+
+    /**
+     * Con la cola llena los eventos se descartan y se contabilizan
+     */
+    @Test
+    void dropsWhenQueueIsFull() {
+        ManualExecutor executor = new ManualExecutor();
+        EventBus<Integer> bus = new EventBus<>("prueba", 2, null, executor);
+        List<Integer> delivered = new ArrayList<>();
+        bus.subscribe(delivered::add);
+        assertTrue(bus.publish(1));
+        assertTrue(bus.publish(2));
+        assertFalse(bus.publish(3));
+        executor.runAll();
+        assertEquals(List.of(1, 2), delivered);
+        assertEquals(1, bus.getDropped());
+    }
+
+    /**
+     * Un evento de estado descartado se reemplaza por un único evento con el estado completo, entregado después de
+     * los eventos que lo precedían y antes de los publicados una vez liberada la cola
+     */
+    @Test
+    void replacesDroppedStateEventsWithResync() {
+        ManualExecutor executor = new ManualExecutor();
+        EventBus<String> bus = new EventBus<>("prueba", 2, null, executor);
+        List<String> delivered = new ArrayList<>();
+        bus.subscribe(delivered::add);
+        List<String> state = new ArrayList<>();
+        for (String name : List.of("a", "b", "c", "d")) {
+            state.add(name);
+            bus.publish("+" + name, () -> "estado" + state);
+        }
+        executor.runAll();
+        state.add("e");
+        bus.publish("+e", () -> "estado" + state);
+        executor.runAll();
+        assertEquals(List.of("+a", "+b", "estado[a, b, c, d]", "+e"), delivered);
+        assertEquals(2, bus.getDropped());
+    }
+
+    /**
+     * Con la cola llena la publicación bloqueante espera a que el hilo de entrega libere espacio en lugar de descartar
+     * el evento
+     * @throws InterruptedException si la espera de la prueba es interrumpida
+     */
+    @Test
+    void blockingPublishWaitsForSpace() throws InterruptedException {
+        ManualExecutor executor = new ManualExecutor();
+        EventBus<Integer> bus = new EventBus<>("prueba", 2, null, executor);
+        List<Integer> delivered = new ArrayList<>();
+        bus.subscribe(delivered::add);
+        bus.publishBlocking(1);
+        bus.publishBlocking(2);
+        Thread publisher = new Thread(() -> bus.publishBlocking(3));
+        publisher.start();
+        publisher.join(100);
+        assertTrue(publisher.isAlive());
+
+        executor.runAll();
+        publisher.join(5000);
+        assertFalse(publisher.isAlive());
+        executor.runAll();
+        assertEquals(List.of(1, 2, 3), delivered);
+        assertEquals(0, bus.getDropped());
+    }
+}
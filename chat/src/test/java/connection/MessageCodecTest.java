@@ -0,0 +1,114 @@
+package connection;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Pruebas de la clase MessageCodec: codificación y decodificación de mensajes y validación de tramas incompletas
+ * @Author Jorge Luis Velasquez Venegas
+ */
+class MessageCodecTest {
+
+    /**
+     * Construye un mensaje con todos sus atributos
+     * @return mensaje multicast con destinatarios, texto con caracteres no ASCII y número de secuencia
+     */
+    private static Message multicast() {
+        Message message = new Message("multicast", null, "ana", "¡Hola, año nuevo!");
+        message.setDestinies(new ArrayList<>(List.of("luis", "María")));
+        message.setSequence(1L << 40);
+        return message;
+    }
+
+    /**
+     * Un mensaje codificado y decodificado conserva todos sus atributos
+     * @throws IOException no se produce
+     */
+    @Test
+    void encodeDecodeRoundTrip() throws IOException {
+        Message message = multicast();
+        byte[] body = MessageCodec.encode(message);
+        assertEquals(message, MessageCodec.decode(body, 0, body.length));
+    }
+
+    /**
+     * Una trama escrita en un stream se lee completa, y su encabezado contiene la longitud del cuerpo
+     * @throws IOException no se produce
+     */
+    @Test
+    void frameRoundTripThroughStream() throws IOException {
+        Message first = multicast();
+        Message second = new Message("message", "luis", "ana", "");
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        MessageCodec.writeFrame(out, first);
+        MessageCodec.writeFrame(out, second);
+
+        ByteBuffer frame = MessageCodec.frame(first);
+        assertEquals(frame.limit() - MessageCodec.HEADER_LENGTH, frame.getInt(0));
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        assertEquals(first, MessageCodec.readFrame(in));
+        assertEquals(second, MessageCodec.readFrame(in));
+    }
+
+    /**
+     * Un cuerpo truncado en cualquier posición se rechaza en lugar de decodificarse parcialmente
+     * @throws IOException no se produce al codificar
+     */
+    @Test
+    void truncatedBodyIsRejected() throws IOException {
+        byte[] body = MessageCodec.encode(multicast());
+        for (int length = 0; length < body.length; length++) {
+            int truncated = length;
+            assertThrows(StreamCorruptedException.class, () -> MessageCodec.decode(body, 0, truncated));
+        }
+    }
+
+    /**
+     * Una trama cortada antes de completar su cuerpo produce EOFException al leerse del stream
+     * @throws IOException no se produce al codificar
+     */
+    @Test
+    void truncatedFrameInStreamIsRejected() throws IOException {
+        ByteBuffer frame = MessageCodec.frame(multicast());
+        byte[] truncated = Arrays.copyOf(frame.array(), frame.limit() - 1);
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(truncated));
+        assertThrows(EOFException.class, () -> MessageCodec.readFrame(in));
+    }
+
+    /**
+     * Las longitudes de encabezado negativas o mayores que el máximo se rechazan antes de reservar memoria
+     */
+    @Test
+    void invalidLengthIsRejected() {
+        assertThrows(StreamCorruptedException.class, () -> MessageCodec.checkLength(-1));
+        assertThrows(StreamCorruptedException.class,
+                () -> MessageCodec.checkLength(MessageCodec.MAX_FRAME_LENGTH + 1));
+    }
+
+    /**
+     * Un cuerpo con bytes sobrantes al final se rechaza
+     * @throws IOException no se produce al codificar
+     */
+    @Test
+    void trailingBytesAreRejected() throws IOException {
+        byte[] body = MessageCodec.encode(multicast());
+        byte[] padded = Arrays.copyOf(body, body.length + 1);
+        assertThrows(StreamCorruptedException.class, () -> MessageCodec.decode(padded, 0, padded.length));
+    }
+}
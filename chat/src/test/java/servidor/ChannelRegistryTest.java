@@ -0,0 +1,130 @@
+package servidor;
+
+import connection.Message;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Pruebas de la clase ChannelRegistry: orden de entrega de las publicaciones en línea y delegadas al hilo de difusión,
+ * y rechazo de las publicaciones de quien no es miembro del canal
+ * @Author Jorge Luis Velasquez Venegas
+ */
+class ChannelRegistryTest {
+
+    /**
+     * Directory: directorio temporal de los buzones del servidor
+     */
+    @TempDir
+    Path directory;
+
+    /**
+     * Server: servidor al que pertenecen las sesiones de prueba, sin bitácora
+     */
+    private Server server;
+
+    /**
+     * Inicia el servidor de las sesiones de prueba
+     * @throws IOException si no es posible iniciar el servidor
+     */
+    @BeforeEach
+    void startServer() throws IOException {
+        ServerConfig config = new ServerConfig();
+        config.setJournalEnabled(false);
+        config.setMailboxDirectory(directory.toString());
+        server = TestSession.startServer(config);
+    }
+
+    /**
+     * Detiene el servidor
+     * @throws IOException si no es posible cerrar el socket del servidor
+     */
+    @AfterEach
+    void stopServer() throws IOException {
+        server.close();
+    }
+
+    /**
+     * Crea un mensaje "channel-publish"
+     * @param channel nombre del canal
+     * @param sender emisor
+     * @param sequence número de secuencia del mensaje
+     * @return mensaje a publicar
+     */
+    private static Message publish(String channel, String sender, long sequence) {
+        Message message = new Message("channel-publish", channel, sender, "mensaje " + sequence);
+        message.setSequence(sequence);
+        return message;
+    }
+
+    /**
+     * Las publicaciones llegan a cada miembro en el orden en que se publicaron, también cuando el canal crece por
+     * encima del umbral y la difusión pasa del hilo que publica al hilo de difusión del canal, y el emisor no recibe
+     * sus propias publicaciones
+     * @throws Exception si las tramas no llegan a tiempo
+     */
+    @Test
+    void fansOutInPublishOrder() throws Exception {
+        ServerConfig config = new ServerConfig();
+        config.setChannelFanOutThreshold(3);
+        config.setFanOutWorkers(2);
+        ChannelRegistry channels = new ChannelRegistry(config);
+        TestSession ana = new TestSession(server, "ana");
+        TestSession luis = new TestSession(server, "luis");
+        TestSession carla = new TestSession(server, "carla");
+        assertTrue(channels.join("General", ana));
+        assertTrue(channels.join("general", luis));
+
+        for (int i = 1; i <= 50; i++) {
+            if (i == 20) assertTrue(channels.join("general", carla));
+            assertTrue(channels.publish(publish("general", "ana", i), ana));
+        }
+
+        List<Message> toLuis = luis.received(50);
+        for (int i = 0; i < 50; i++) {
+            assertEquals("channel-message", toLuis.get(i).getType());
+            assertEquals(i + 1, toLuis.get(i).getSequence());
+        }
+        List<Message> toCarla = carla.received(31);
+        for (int i = 0; i < 31; i++) {
+            assertEquals(i + 20, toCarla.get(i).getSequence());
+        }
+        assertTrue(ana.outbound.isEmpty());
+    }
+
+    /**
+     * Solo los miembros de un canal pueden publicar en él: la publicación de quien no es miembro, o en un canal que no
+     * existe, se rechaza sin entregarse
+     * @throws Exception si las tramas no llegan a tiempo
+     */
+    @Test
+    void rejectsPublishFromNonMember() throws Exception {
+        ChannelRegistry channels = new ChannelRegistry(new ServerConfig());
+        TestSession ana = new TestSession(server, "ana");
+        TestSession luis = new TestSession(server, "luis");
+        channels.join("general", luis);
+
+        assertFalse(channels.isMember("general", ana));
+        assertFalse(channels.publish(publish("general", "ana", 1), ana));
+        assertFalse(channels.publish(publish("privado", "ana", 2), ana));
+        assertTrue(luis.outbound.isEmpty());
+
+        channels.join("general", ana);
+        assertTrue(channels.publish(publish("general", "ana", 3), ana));
+        assertEquals(3, luis.received(1).get(0).getSequence());
+
+        channels.leave("general", ana);
+        channels.leave("general", luis);
+        assertEquals(0, channels.size());
+        assertFalse(channels.publish(publish("general", "luis", 4), luis));
+    }
+}
@@ -0,0 +1,166 @@
+package servidor;
+
+import connection.Message;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Pruebas de la clase Compactor: reconstrucción del estado del servidor a partir de la última instantánea y de los
+ * registros de la bitácora posteriores a ella, como ocurre al reiniciar el servidor tras una caída o un cierre ordenado
+ * @Author Jorge Luis Velasquez Venegas
+ */
+class CompactorTest {
+
+    /**
+     * Directory: directorio temporal de la bitácora y de los buzones
+     */
+    @TempDir
+    Path directory;
+
+    /**
+     * Journals: bitácoras abiertas por la prueba, se cierran al terminar
+     */
+    private final List<MessageJournal> journals = new ArrayList<>();
+
+    /**
+     * Cierra las bitácoras abiertas por la prueba
+     */
+    @AfterEach
+    void closeJournals() {
+        journals.forEach(MessageJournal::close);
+    }
+
+    /**
+     * Crea la configuración del servidor, con instantáneas periódicas tan espaciadas que solo se toman al invocar
+     * snapshot o close
+     * @return parámetros del servidor
+     */
+    private ServerConfig config() {
+        ServerConfig config = new ServerConfig();
+        config.setJournalDirectory(directory.resolve("journal").toString());
+        config.setDurabilityMode(DurabilityMode.NONE);
+        config.setMailboxDirectory(directory.resolve("buzones").toString());
+        config.setMailboxMemoryBytes(200);
+        config.setSnapshotIntervalMillis(Long.MAX_VALUE);
+        config.setSnapshotRecords(Long.MAX_VALUE);
+        return config;
+    }
+
+    /**
+     * Estado del servidor reconstruido al construir el compactador
+     * @param journal bitácora de mensajes
+     * @param mailboxes buzones de los clientes desconectados
+     * @param roster listado de clientes
+     * @param compactor compactador de la bitácora
+     */
+    private record State(MessageJournal journal, MailboxStore mailboxes, Roster roster, Compactor compactor) {
+    }
+
+    /**
+     * Inicia el estado del servidor a partir del directorio de la bitácora, como lo hace Server al arrancar
+     * @return estado reconstruido
+     * @throws IOException si no es posible leer la instantánea o la bitácora
+     */
+    private State start() throws IOException {
+        ServerConfig config = this.config();
+        MessageJournal journal = new MessageJournal(config);
+        journals.add(journal);
+        MailboxStore mailboxes = new MailboxStore(new RoutingTable(), journal, config);
+        Roster roster = new Roster(new RoutingTable());
+        return new State(journal, mailboxes, roster, new Compactor(journal, mailboxes, roster, config));
+    }
+
+    /**
+     * Crea un mensaje de prueba
+     * @param destiny destinatario
+     * @param i número del mensaje
+     * @return mensaje de ana al destinatario
+     */
+    private static Message message(String destiny, int i) {
+        return new Message("message", destiny, "ana", "mensaje " + i);
+    }
+
+    /**
+     * Entrega el buzón de un destinatario a una sesión de prueba y espera a que el buzón se retire
+     * @param mailboxes buzones de los clientes desconectados
+     * @param idClient destinatario que se conecta
+     * @throws Exception si el buzón no se entrega a tiempo
+     */
+    private void drain(MailboxStore mailboxes, String idClient) throws Exception {
+        ServerConfig config = new ServerConfig();
+        config.setJournalEnabled(false);
+        config.setMailboxDirectory(directory.resolve("sesiones").toString());
+        Server server = TestSession.startServer(config);
+        try {
+            int pending = mailboxes.size();
+            TestSession session = new TestSession(server, idClient);
+            mailboxes.drain(session);
+            session.received(1);
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (mailboxes.size() == pending && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+            assertEquals(pending - 1, mailboxes.size());
+        } finally {
+            server.close();
+        }
+    }
+
+    /**
+     * Retorna los archivos de instantánea del directorio de la bitácora
+     * @return nombres de los archivos de instantánea
+     * @throws IOException si no es posible listar el directorio
+     */
+    private List<String> snapshots() throws IOException {
+        try (Stream<Path> files = Files.list(directory.resolve("journal"))) {
+            return files.map(file -> file.getFileName().toString()).filter(name -> name.endsWith(".snap")).toList();
+        }
+    }
+
+    /**
+     * Tras una caída, el estado reconstruido con la última instantánea y los registros posteriores es igual al que
+     * había: los registros incluidos en la instantánea no se aplican dos veces, los mensajes entregados después de la
+     * instantánea no reaparecen y la versión del listado continúa la anterior
+     * @throws Exception si el buzón no se entrega a tiempo
+     */
+    @Test
+    void restoresSnapshotPlusTail() throws Exception {
+        State before = this.start();
+        before.mailboxes().register("luis");
+        before.mailboxes().register("carla");
+        before.roster().restoreVersion(7);
+        for (int i = 0; i < 20; i++) {
+            before.mailboxes().deliver("luis", message("luis", i));
+        }
+        before.compactor().snapshot();
+        before.compactor().snapshot();
+        for (int i = 20; i < 30; i++) {
+            before.mailboxes().deliver("luis", message("luis", i));
+            before.mailboxes().deliver("carla", message("carla", i));
+        }
+        before.mailboxes().register("pedro");
+        before.mailboxes().deliver("pedro", message("pedro", 30));
+        before.compactor().snapshot();
+        this.drain(before.mailboxes(), "pedro");
+        before.mailboxes().deliver("luis", message("luis", 31));
+        assertEquals(1, this.snapshots().size());
+        Map<String, List<Message>> expected = MailboxStoreTest.contents(before.mailboxes());
+        before.journal().close();
+
+        State after = this.start();
+        assertEquals(expected, MailboxStoreTest.contents(after.mailboxes()));
+        assertEquals(7, after.roster().getVersion());
+    }
+}
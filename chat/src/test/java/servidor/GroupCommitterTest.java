@@ -0,0 +1,129 @@
+package servidor;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Pruebas de la confirmación agrupada (GroupCommitter) y de los modos de durabilidad de la bitácora: cuándo y en qué
+ * hilo se ejecutan las confirmaciones de los registros
+ * @Author Jorge Luis Velasquez Venegas
+ */
+class GroupCommitterTest {
+
+    /**
+     * Directory: directorio temporal de la bitácora
+     */
+    @TempDir
+    Path directory;
+
+    /**
+     * Crea la configuración de la bitácora
+     * @param mode modo de durabilidad
+     * @param batch número de registros a partir del cual se sincroniza de inmediato
+     * @param intervalMillis tiempo máximo que un registro espera a ser sincronizado
+     * @return parámetros con el directorio temporal y el tamaño mínimo de segmento
+     */
+    private ServerConfig config(DurabilityMode mode, int batch, long intervalMillis) {
+        ServerConfig config = new ServerConfig();
+        config.setJournalDirectory(directory.toString());
+        config.setJournalSegmentBytes(0);
+        config.setDurabilityMode(mode);
+        config.setJournalForceBatch(batch);
+        config.setJournalForceIntervalMillis(intervalMillis);
+        return config;
+    }
+
+    /**
+     * Al completar el número de registros del lote se sincroniza sin esperar el tiempo máximo, y las confirmaciones se
+     * ejecutan en orden fuera del hilo de confirmación
+     * @throws Exception si la espera falla
+     */
+    @Test
+    void completesFullBatchInOrderOffCommitterThread() throws Exception {
+        LatencyHistogram latency = new LatencyHistogram();
+        List<Integer> order = new ArrayList<>();
+        List<String> threads = new ArrayList<>();
+        CountDownLatch done = new CountDownLatch(4);
+        try (MessageJournal journal = new MessageJournal(this.config(DurabilityMode.BATCHED, 4, 60_000), latency)) {
+            for (int i = 0; i < 4; i++) {
+                int value = i;
+                journal.append(MessageJournal.RECORD_DELIVERED, new byte[]{(byte) i}, () -> {
+                    order.add(value);
+                    threads.add(Thread.currentThread().getName());
+                    done.countDown();
+                });
+            }
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+        }
+        assertEquals(List.of(0, 1, 2, 3), order);
+        assertEquals(List.of("GroupCommitter-complete"), threads.stream().distinct().toList());
+        assertEquals(4, latency.getCount());
+    }
+
+    /**
+     * Un lote incompleto se sincroniza al vencer el tiempo máximo de espera de su registro más antiguo
+     * @throws Exception si la espera falla
+     */
+    @Test
+    void completesPartialBatchAfterInterval() throws Exception {
+        CountDownLatch done = new CountDownLatch(1);
+        try (MessageJournal journal = new MessageJournal(this.config(DurabilityMode.BATCHED, 1000, 50))) {
+            long start = System.nanoTime();
+            journal.append(MessageJournal.RECORD_DELIVERED, new byte[1], done::countDown);
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+            assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50));
+        }
+    }
+
+    /**
+     * Al cerrar la bitácora se sincronizan los registros pendientes y se ejecutan sus confirmaciones sin esperar el
+     * tiempo máximo, y una confirmación que falla no impide ejecutar las siguientes
+     * @throws IOException no se produce
+     */
+    @Test
+    void closeCompletesPendingRecords() throws IOException {
+        List<Integer> order = new ArrayList<>();
+        MessageJournal journal = new MessageJournal(this.config(DurabilityMode.BATCHED, 1000, 60_000));
+        journal.append(MessageJournal.RECORD_DELIVERED, new byte[1], () -> order.add(1));
+        journal.append(MessageJournal.RECORD_DELIVERED, new byte[1], () -> {
+            throw new IllegalStateException("falla");
+        });
+        journal.sync(() -> order.add(2));
+        assertTrue(order.isEmpty());
+        journal.close();
+        assertEquals(List.of(1, 2), order);
+    }
+
+    /**
+     * En los modos NONE y PER_MESSAGE no hay hilo de confirmación: la confirmación se ejecuta en el hilo que registra,
+     * antes de retornar, y su latencia se registra en el histograma del modo
+     * @throws IOException no se produce
+     */
+    @Test
+    void completesInlineWithoutGroupCommit() throws IOException {
+        for (DurabilityMode mode : new DurabilityMode[]{DurabilityMode.NONE, DurabilityMode.PER_MESSAGE}) {
+            LatencyHistogram latency = new LatencyHistogram();
+            List<String> threads = new ArrayList<>();
+            try (MessageJournal journal = new MessageJournal(this.config(mode, 4, 60_000), latency)) {
+                journal.append(MessageJournal.RECORD_DELIVERED, new byte[1],
+                        () -> threads.add(Thread.currentThread().getName()));
+                journal.write(MessageJournal.RECORD_DELIVERED, new byte[1]);
+                assertFalse(threads.isEmpty());
+                journal.sync(() -> threads.add(Thread.currentThread().getName()));
+            }
+            assertEquals(List.of(Thread.currentThread().getName(), Thread.currentThread().getName()), threads);
+            assertEquals(2, latency.getCount());
+        }
+    }
+}
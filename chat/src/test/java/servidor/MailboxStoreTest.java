@@ -0,0 +1,417 @@
+package servidor;
+
+import connection.Message;
+import connection.MessageCodec;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Pruebas de la clase MailboxStore: almacenamiento con desborde a disco, vaciado en orden al conectarse el
+ * destinatario, instantáneas, reconstrucción a partir de la bitácora o de los archivos de desborde, transacciones
+ * confirmadas o abortadas y destinatarios desconocidos. Ningún destinatario se encuentra conectado, por lo que todas
+ * las tramas dirigidas a clientes conocidos se guardan en buzones. El contenido de los buzones se inspecciona a través
+ * de la instantánea
+ * @Author Jorge Luis Velasquez Venegas
+ */
+class MailboxStoreTest {
+
+    /**
+     * Directory: directorio temporal de la bitácora y de los buzones
+     */
+    @TempDir
+    Path directory;
+
+    /**
+     * Journals: bitácoras abiertas por la prueba, se cierran al terminar
+     */
+    private final List<MessageJournal> journals = new ArrayList<>();
+
+    /**
+     * Server: servidor al que pertenecen las sesiones de prueba, sin bitácora
+     */
+    private Server server;
+
+    /**
+     * Inicia el servidor de las sesiones de prueba
+     * @throws IOException si no es posible iniciar el servidor
+     */
+    @BeforeEach
+    void startServer() throws IOException {
+        ServerConfig config = new ServerConfig();
+        config.setJournalEnabled(false);
+        config.setMailboxDirectory(directory.resolve("servidor").toString());
+        server = TestSession.startServer(config);
+    }
+
+    /**
+     * Detiene el servidor y cierra las bitácoras abiertas por la prueba
+     * @throws IOException si no es posible cerrar el socket del servidor
+     */
+    @AfterEach
+    void close() throws IOException {
+        server.close();
+        journals.forEach(MessageJournal::close);
+    }
+
+    /**
+     * Crea la configuración de un servidor con bitácora y buzones en subdirectorios del directorio temporal
+     * @param name nombre del subdirectorio de los buzones
+     * @param mailboxMemoryBytes límite de memoria de cada buzón
+     * @return parámetros del servidor
+     */
+    private ServerConfig config(String name, long mailboxMemoryBytes) {
+        ServerConfig config = new ServerConfig();
+        config.setJournalDirectory(directory.resolve("journal").toString());
+        config.setJournalSegmentBytes(0);
+        config.setDurabilityMode(DurabilityMode.NONE);
+        config.setMailboxDirectory(directory.resolve(name).toString());
+        config.setMailboxMemoryBytes(mailboxMemoryBytes);
+        return config;
+    }
+
+    /**
+     * Abre la bitácora de la configuración
+     * @param config parámetros del servidor
+     * @return bitácora abierta
+     * @throws IOException si no es posible abrir la bitácora
+     */
+    private MessageJournal journal(ServerConfig config) throws IOException {
+        MessageJournal journal = new MessageJournal(config);
+        journals.add(journal);
+        return journal;
+    }
+
+    /**
+     * Crea los buzones de un servidor en el que luis y carla ya se conectaron alguna vez
+     * @param config parámetros del servidor
+     * @param journal bitácora de mensajes, null si se encuentra deshabilitada
+     * @return buzones vacíos
+     * @throws IOException si no es posible crear el directorio de desborde o registrar las identidades
+     */
+    private static MailboxStore store(ServerConfig config, MessageJournal journal) throws IOException {
+        MailboxStore store = new MailboxStore(new RoutingTable(), journal, config);
+        store.register("luis");
+        store.register("carla");
+        return store;
+    }
+
+    /**
+     * Crea un mensaje de prueba
+     * @param destiny destinatario
+     * @param i número del mensaje
+     * @return mensaje de ana al destinatario
+     */
+    private static Message message(String destiny, int i) {
+        return new Message("message", destiny, "ana", "mensaje " + i);
+    }
+
+    /**
+     * Vacía el buzón hacia una sesión de prueba del destinatario y decodifica las tramas de los lotes encolados,
+     * esperando como máximo cinco segundos
+     * @param store buzones
+     * @param idClient nombre del destinatario
+     * @param count número de mensajes esperados
+     * @return mensajes entregados, en orden
+     * @throws Exception si los mensajes no llegan a tiempo o no pueden decodificarse
+     */
+    private List<Message> drain(MailboxStore store, String idClient, int count) throws Exception {
+        TestSession session = new TestSession(server, idClient);
+        store.drain(session);
+        List<Message> messages = new ArrayList<>();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (messages.size() < count) {
+            ByteBuffer frames = session.outbound.poll();
+            if (frames == null) {
+                assertTrue(System.nanoTime() < deadline, "faltan mensajes: " + messages.size() + " de " + count);
+                Thread.sleep(5);
+                continue;
+            }
+            while (frames.hasRemaining()) {
+                int length = frames.getInt();
+                messages.add(MessageCodec.decode(frames.array(), frames.arrayOffset() + frames.position(), length));
+                frames.position(frames.position() + length);
+            }
+        }
+        return messages;
+    }
+
+    /**
+     * Espera, como máximo cinco segundos, a que los buzones queden vacíos
+     * @param store buzones
+     * @throws InterruptedException si se interrumpe la espera
+     */
+    private static void awaitEmpty(MailboxStore store) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (store.size() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(0, store.size());
+    }
+
+    /**
+     * Retorna el contenido de los buzones escribiendo y leyendo una instantánea
+     * @param store buzones
+     * @return mensajes pendientes de cada destinatario, en orden
+     * @throws IOException si no es posible escribir la instantánea
+     */
+    static Map<String, List<Message>> contents(MailboxStore store) throws IOException {
+        Map<String, List<Message>> contents = new TreeMap<>();
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(snapshot(store)));
+        while (in.readBoolean()) {
+            List<Message> messages = new ArrayList<>();
+            contents.put(in.readUTF(), messages);
+            in.readLong();
+            long remaining = in.readLong();
+            while (remaining > 0) {
+                Message message = MessageCodec.readFrame(in);
+                messages.add(message);
+                remaining -= MessageCodec.frame(message).limit();
+            }
+        }
+        return contents;
+    }
+
+    /**
+     * Escribe la instantánea de los buzones
+     * @param store buzones
+     * @return bytes de la instantánea
+     * @throws IOException si no es posible escribir la instantánea
+     */
+    private static byte[] snapshot(MailboxStore store) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        store.writeSnapshot(new DataOutputStream(bytes));
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Ruta del archivo de desborde de un destinatario
+     * @param config parámetros del servidor
+     * @param key identificador normalizado del destinatario
+     * @return ruta del archivo de desborde
+     */
+    private static Path spillPath(ServerConfig config, String key) {
+        return Path.of(config.getMailboxDirectory())
+                .resolve(HexFormat.of().formatHex(key.getBytes(StandardCharsets.UTF_8)) + ".box");
+    }
+
+    /**
+     * Las tramas que superan el límite de memoria del buzón se desbordan a disco sin alterar el orden de entrega, y
+     * el buzón vaciado libera su memoria y su archivo de desborde
+     * @throws Exception si los mensajes no llegan a tiempo
+     */
+    @Test
+    void spillsBeyondMemoryLimit() throws Exception {
+        ServerConfig config = this.config("buzones", 200);
+        MailboxStore store = store(config, this.journal(config));
+        List<Message> expected = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            expected.add(message("luis", i));
+            assertTrue(store.deliver("Luis", expected.get(i)));
+        }
+        assertEquals(1, store.size());
+        assertTrue(store.getMemoryBytes() <= 200);
+        assertTrue(Files.size(spillPath(config, "luis")) > 0);
+        assertEquals(Map.of("luis", expected), contents(store));
+
+        assertEquals(expected, this.drain(store, "LUIS", 20));
+        awaitEmpty(store);
+        assertEquals(0, store.getMemoryBytes());
+        assertFalse(Files.exists(spillPath(config, "luis")));
+    }
+
+    /**
+     * Los buzones cargados de una instantánea contienen las mismas tramas, tanto las de memoria como las desbordadas
+     * @throws IOException no se produce
+     */
+    @Test
+    void snapshotRoundTrip() throws IOException {
+        ServerConfig config = this.config("buzones", 200);
+        MessageJournal journal = this.journal(config);
+        MailboxStore store = store(config, journal);
+        for (int i = 0; i < 20; i++) {
+            store.deliver("luis", message("luis", i));
+            store.deliver("carla", message("carla", i));
+        }
+        byte[] snapshot = snapshot(store);
+
+        ServerConfig restored = this.config("restaurados", 200);
+        MailboxStore copy = new MailboxStore(new RoutingTable(), journal, restored);
+        copy.readSnapshot(new DataInputStream(new ByteArrayInputStream(snapshot)));
+        copy.finishReplay();
+        assertEquals(contents(store), contents(copy));
+        assertEquals(store.getMemoryBytes(), copy.getMemoryBytes());
+        assertTrue(Files.exists(spillPath(restored, "carla")));
+    }
+
+    /**
+     * Los buzones reconstruidos a partir de la instantánea y los registros posteriores de la bitácora son iguales a
+     * los originales, y los registros incluidos en la instantánea no se aplican dos veces
+     * @throws IOException no se produce
+     */
+    @Test
+    void replaysJournalAfterSnapshot() throws IOException {
+        ServerConfig config = this.config("buzones", 200);
+        MessageJournal journal = this.journal(config);
+        MailboxStore store = store(config, journal);
+        for (int i = 0; i < 10; i++) {
+            store.deliver("luis", message("luis", i));
+        }
+        byte[] snapshot = snapshot(store);
+        for (int i = 10; i < 20; i++) {
+            store.deliver("luis", message("luis", i));
+            store.deliver("carla", message("carla", i));
+        }
+
+        MailboxStore copy = new MailboxStore(new RoutingTable(), journal, this.config("restaurados", 200));
+        copy.readSnapshot(new DataInputStream(new ByteArrayInputStream(snapshot)));
+        journal.replay(1, copy::replay);
+        copy.finishReplay();
+        assertEquals(contents(store), contents(copy));
+    }
+
+    /**
+     * Sin bitácora, los archivos de desborde de una ejecución anterior se recuperan como buzones, junto con la
+     * identidad de sus destinatarios
+     * @throws Exception si los mensajes no llegan a tiempo
+     */
+    @Test
+    void recoversSpillFiles() throws Exception {
+        ServerConfig config = this.config("buzones", 0);
+        MailboxStore store = store(config, null);
+        List<Message> expected = List.of(message("carla", 1), message("carla", 2));
+        for (Message message : expected) {
+            store.deliver("carla", message);
+        }
+
+        MailboxStore recovered = new MailboxStore(new RoutingTable(), null, config);
+        assertEquals(1, recovered.size());
+        assertTrue(recovered.isKnown("Carla"));
+        assertEquals(expected, this.drain(recovered, "carla", 2));
+        awaitEmpty(recovered);
+    }
+
+    /**
+     * Una transacción confirmada guarda cada trama en el buzón de su destinatario con un único registro de bitácora,
+     * que reconstruye los mismos buzones
+     * @throws IOException no se produce
+     */
+    @Test
+    void commitsTransaction() throws IOException {
+        ServerConfig config = this.config("buzones", 200);
+        MessageJournal journal = this.journal(config);
+        MailboxStore store = store(config, journal);
+        List<Message> messages = List.of(message("luis", 1), message("carla", 2), message("luis", 3));
+        List<String> destinies = List.of("Luis", "carla", "luis");
+        List<ByteBuffer> frames = new ArrayList<>();
+        for (Message message : messages) {
+            frames.add(MessageCodec.frame(message));
+        }
+        long sequence = journal.getNextSequence();
+        assertArrayEquals(new ClientSession[3], store.deliverAll(destinies, frames));
+        assertEquals(sequence + 1, journal.getNextSequence());
+
+        Map<String, List<Message>> expected = new LinkedHashMap<>();
+        expected.put("carla", List.of(messages.get(1)));
+        expected.put("luis", List.of(messages.get(0), messages.get(2)));
+        assertEquals(expected, contents(store));
+
+        MailboxStore copy = new MailboxStore(new RoutingTable(), journal, this.config("restaurados", 200));
+        List<Byte> types = new ArrayList<>();
+        journal.replay(1, (seq, type, body) -> {
+            types.add(type);
+            copy.replay(seq, type, body);
+        });
+        copy.finishReplay();
+        assertEquals(List.of(MessageJournal.RECORD_IDENTITY, MessageJournal.RECORD_IDENTITY,
+                MessageJournal.RECORD_STORED_BATCH), types);
+        assertEquals(expected, contents(copy));
+    }
+
+    /**
+     * Si una trama de la transacción no puede guardarse, los buzones regresan a su estado anterior, el buzón creado
+     * por la transacción se retira y no se agrega ningún registro a la bitácora
+     * @throws IOException no se produce
+     */
+    @Test
+    void abortsTransaction() throws IOException {
+        ServerConfig config = this.config("buzones", 0);
+        MessageJournal journal = this.journal(config);
+        MailboxStore store = store(config, journal);
+        List<Message> pending = List.of(message("luis", 1), message("luis", 2));
+        for (Message message : pending) {
+            store.deliver("luis", message);
+        }
+        long spilled = Files.size(spillPath(config, "luis"));
+//      Un directorio en la ruta del archivo de desborde de carla impide guardar su trama
+        Files.createDirectory(spillPath(config, "carla"));
+
+        long sequence = journal.getNextSequence();
+        List<String> destinies = List.of("luis", "luis", "carla");
+        List<ByteBuffer> frames = List.of(MessageCodec.frame(message("luis", 3)),
+                MessageCodec.frame(message("luis", 4)), MessageCodec.frame(message("carla", 5)));
+        assertThrows(IOException.class, () -> store.deliverAll(destinies, frames));
+
+        assertEquals(sequence, journal.getNextSequence());
+        assertEquals(1, store.size());
+        assertEquals(spilled, Files.size(spillPath(config, "luis")));
+        assertEquals(Map.of("luis", pending), contents(store));
+    }
+
+    /**
+     * Los mensajes dirigidos a un cliente que nunca se conectó se descartan sin crear un buzón; una vez registrado, su
+     * identidad se conserva en la instantánea y en la bitácora
+     * @throws IOException no se produce
+     */
+    @Test
+    void storesOnlyForKnownIdentities() throws IOException {
+        ServerConfig config = this.config("buzones", 200);
+        MessageJournal journal = this.journal(config);
+        MailboxStore store = new MailboxStore(new RoutingTable(), journal, config);
+        assertFalse(store.isKnown("Pedro"));
+        assertFalse(store.deliver("Pedro", message("pedro", 1)));
+        assertEquals(0, store.size());
+        assertArrayEquals(new ClientSession[1], store.deliverAll(List.of("pedro"),
+                List.of(MessageCodec.frame(message("pedro", 2)))));
+        assertEquals(0, store.size());
+        assertFalse(Files.exists(spillPath(config, "pedro")));
+
+        store.register("Pedro");
+        byte[] snapshot = snapshot(store);
+        store.register("ana");
+        assertTrue(store.deliver("pedro", message("pedro", 3)));
+
+        MailboxStore copy = new MailboxStore(new RoutingTable(), journal, this.config("restaurados", 200));
+        copy.readSnapshot(new DataInputStream(new ByteArrayInputStream(snapshot)));
+        assertTrue(copy.isKnown("pedro"));
+        assertFalse(copy.isKnown("ana"));
+        journal.replay(1, copy::replay);
+        copy.finishReplay();
+        assertTrue(copy.isKnown("ana"));
+        assertEquals(contents(store), contents(copy));
+    }
+}
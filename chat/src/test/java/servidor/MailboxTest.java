@@ -0,0 +1,170 @@
+package servidor;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Pruebas de la clase Mailbox: desborde a disco, entrega por lotes en orden, recuperación de una trama escrita
+ * parcialmente, reversión de las tramas agregadas después de una marca y canales de desborde compartidos
+ * @Author Jorge Luis Velasquez Venegas
+ */
+class MailboxTest {
+
+    /**
+     * Directory: directorio temporal de los archivos de desborde
+     */
+    @TempDir
+    Path directory;
+
+    /**
+     * SpillChannels: canales abiertos de los archivos de desborde, con un máximo de dos canales
+     */
+    private final SpillChannelPool spillChannels = new SpillChannelPool(2);
+
+    /**
+     * Crea una trama cuyo cuerpo es un único byte
+     * @param value valor del byte
+     * @return trama con encabezado de longitud
+     */
+    private static ByteBuffer frame(int value) {
+        return ByteBuffer.allocate(Integer.BYTES + 1).putInt(1).put((byte) value).flip();
+    }
+
+    /**
+     * Retira del buzón todas sus tramas, lote por lote, y retorna el valor del cuerpo de cada una
+     * @param mailbox buzón a vaciar
+     * @param maxBytes máximo de bytes de cada lote
+     * @return valores de las tramas, en orden de entrega
+     * @throws IOException si no es posible leer el archivo de desborde
+     */
+    private static List<Integer> drain(Mailbox mailbox, int maxBytes) throws IOException {
+        List<Integer> values = new ArrayList<>();
+        Mailbox.Batch batch;
+        while ((batch = mailbox.nextBatch(maxBytes)) != null) {
+            ByteBuffer data = batch.data;
+            for (int i = 0; i < batch.frames; i++) {
+                assertEquals(1, data.getInt());
+                values.add((int) data.get());
+            }
+            assertFalse(data.hasRemaining());
+            mailbox.commit(batch);
+        }
+        return values;
+    }
+
+    /**
+     * Desde la primera trama desbordada las siguientes se escriben en el archivo aunque quepan en memoria, y el buzón
+     * entrega primero las tramas en memoria y luego las del archivo, eliminándolo al vaciarse
+     * @throws IOException no se produce
+     */
+    @Test
+    void spillsAndDrainsInOrder() throws IOException {
+        Path spill = directory.resolve("a.box");
+        Mailbox mailbox = new Mailbox(spill, false, spillChannels);
+        assertTrue(mailbox.append(frame(1), true));
+        assertTrue(mailbox.append(frame(2), true));
+        assertFalse(mailbox.append(frame(3), false));
+        assertFalse(mailbox.append(frame(4), true));
+        assertTrue(mailbox.isSpilled());
+        assertEquals(2 * frame(0).limit(), mailbox.getMemoryBytes());
+        assertEquals(2 * frame(0).limit(), Files.size(spill));
+
+        assertEquals(List.of(1, 2, 3, 4), drain(mailbox, frame(0).limit()));
+        assertTrue(mailbox.isEmpty());
+        assertEquals(0, mailbox.getMemoryBytes());
+        assertFalse(Files.exists(spill));
+    }
+
+    /**
+     * Una trama escrita parcialmente al final del archivo de desborde se descarta al recuperar el buzón, y las nuevas
+     * tramas se agregan a continuación de la última trama completa
+     * @throws IOException no se produce
+     */
+    @Test
+    void truncatesTornTail() throws IOException {
+        Path spill = directory.resolve("b.box");
+        ByteBuffer content = ByteBuffer.allocate(3 * frame(0).limit() - 2);
+        content.put(frame(1)).put(frame(2)).put(frame(3).limit(frame(0).limit() - 2));
+        Files.write(spill, content.array());
+
+        Mailbox mailbox = new Mailbox(spill, true, spillChannels);
+        mailbox.truncateTornTail();
+        assertEquals(2 * frame(0).limit(), Files.size(spill));
+        mailbox.append(frame(4), true);
+        assertEquals(List.of(1, 2, 4), drain(mailbox, Integer.MAX_VALUE));
+    }
+
+    /**
+     * Un archivo de desborde sin ninguna trama completa se elimina al recuperar el buzón
+     * @throws IOException no se produce
+     */
+    @Test
+    void deletesSpillWithoutCompleteFrames() throws IOException {
+        Path spill = directory.resolve("c.box");
+        Files.write(spill, new byte[]{0, 0, 0});
+        Mailbox mailbox = new Mailbox(spill, true, spillChannels);
+        mailbox.truncateTornTail();
+        assertTrue(mailbox.isEmpty());
+        assertFalse(Files.exists(spill));
+        assertNull(mailbox.nextBatch(Integer.MAX_VALUE));
+    }
+
+    /**
+     * La reversión descarta las tramas agregadas después de la marca, en memoria y en el archivo de desborde
+     * @throws IOException no se produce
+     */
+    @Test
+    void rollsBackToMark() throws IOException {
+        Path spill = directory.resolve("d.box");
+        Mailbox mailbox = new Mailbox(spill, false, spillChannels);
+        mailbox.append(frame(1), true);
+        Mailbox.Mark empty = mailbox.mark();
+        mailbox.append(frame(2), true);
+        mailbox.append(frame(3), false);
+        assertEquals(frame(0).limit(), mailbox.rollback(empty));
+        assertFalse(mailbox.isSpilled());
+        assertFalse(Files.exists(spill));
+
+        mailbox.append(frame(4), false);
+        Mailbox.Mark spilled = mailbox.mark();
+        mailbox.append(frame(5), false);
+        assertEquals(0, mailbox.rollback(spilled));
+        assertEquals(List.of(1, 4), drain(mailbox, Integer.MAX_VALUE));
+    }
+
+    /**
+     * Los buzones comparten un número acotado de canales abiertos: los canales menos recientes se cierran y se vuelven
+     * a abrir al usarse, sin alterar las tramas de cada buzón
+     * @throws IOException no se produce
+     */
+    @Test
+    void boundsOpenSpillChannels() throws IOException {
+        List<Mailbox> mailboxes = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            Mailbox mailbox = new Mailbox(directory.resolve("e" + i + ".box"), false, spillChannels);
+            mailbox.append(frame(i), false);
+            mailboxes.add(mailbox);
+            assertTrue(spillChannels.size() <= 2);
+        }
+        for (int i = 0; i < 5; i++) {
+            mailboxes.get(i).append(frame(10 + i), false);
+            assertTrue(spillChannels.size() <= 2);
+        }
+        for (int i = 0; i < 5; i++) {
+            assertEquals(List.of(i, 10 + i), drain(mailboxes.get(i), Integer.MAX_VALUE));
+        }
+        assertEquals(0, spillChannels.size());
+    }
+}
@@ -0,0 +1,187 @@
+package servidor;
+
+import connection.Message;
+import connection.MessageCodec;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Pruebas de la clase MessageJournal: recuperación de la posición de escritura, validación del CRC de los registros,
+ * recorrido de varios segmentos y rechazo de registros que no caben en un segmento
+ * @Author Jorge Luis Velasquez Venegas
+ */
+class MessageJournalTest {
+
+    /**
+     * Directory: directorio temporal de la bitácora
+     */
+    @TempDir
+    Path directory;
+
+    /**
+     * Crea la configuración de la bitácora sin confirmación agrupada
+     * @return parámetros con el directorio temporal y el tamaño mínimo de segmento
+     */
+    private ServerConfig config() {
+        ServerConfig config = new ServerConfig();
+        config.setJournalDirectory(directory.toString());
+        config.setJournalSegmentBytes(0);
+        config.setDurabilityMode(DurabilityMode.NONE);
+        return config;
+    }
+
+    /**
+     * Crea un mensaje de prueba
+     * @param i número del mensaje
+     * @param size tamaño del texto del mensaje
+     * @return mensaje dirigido a luis
+     */
+    private static Message message(int i, int size) {
+        return new Message("message", "luis", "ana", i + "-" + "x".repeat(size));
+    }
+
+    /**
+     * Agrega un mensaje a la bitácora en un registro de guardado en buzón, cuyo cuerpo es el mensaje codificado
+     * @param journal bitácora
+     * @param message mensaje a registrar
+     * @param onDurable confirmación del registro, puede ser null
+     * @return número de secuencia asignado al registro
+     * @throws IOException si no es posible agregar el registro
+     */
+    private static long append(MessageJournal journal, Message message, Runnable onDurable) throws IOException {
+        return journal.append(MessageJournal.RECORD_STORED, MessageCodec.encode(message), onDurable);
+    }
+
+    /**
+     * Recorre los mensajes de la bitácora a partir de un número de secuencia
+     * @param journal bitácora
+     * @param from número de secuencia del primer registro
+     * @return mensajes recorridos, en orden
+     * @throws IOException si no es posible leer la bitácora
+     */
+    private static List<Message> replay(MessageJournal journal, long from) throws IOException {
+        List<Message> messages = new ArrayList<>();
+        journal.replay(from, (sequence, type, body) -> {
+            assertEquals(MessageJournal.RECORD_STORED, type);
+            byte[] bytes = new byte[body.remaining()];
+            body.get(bytes);
+            messages.add(MessageCodec.decode(bytes, 0, bytes.length));
+        });
+        return messages;
+    }
+
+    /**
+     * Al reabrir la bitácora se recupera el siguiente número de secuencia y se recorren todos los registros en orden
+     * @throws IOException no se produce
+     */
+    @Test
+    void recoversSequenceAndReplaysInOrder() throws IOException {
+        List<Message> written = new ArrayList<>();
+        AtomicBoolean durable = new AtomicBoolean();
+        try (MessageJournal journal = new MessageJournal(this.config())) {
+            for (int i = 0; i < 10; i++) {
+                written.add(message(i, 10));
+                assertEquals(i + 1, append(journal, written.get(i), () -> durable.set(true)));
+            }
+        }
+        assertTrue(durable.get());
+
+        try (MessageJournal journal = new MessageJournal(this.config())) {
+            assertEquals(11, journal.getNextSequence());
+            assertEquals(written, replay(journal, 1));
+            assertEquals(written.subList(4, 10), replay(journal, 5));
+        }
+    }
+
+    /**
+     * Un registro cuyo CRC no coincide se descarta junto con el resto del segmento, y la bitácora continúa a partir
+     * del último registro válido
+     * @throws IOException no se produce
+     */
+    @Test
+    void discardsRecordWithInvalidCrc() throws IOException {
+        List<Message> written = new ArrayList<>();
+        Path segment;
+        int end = 0;
+        try (MessageJournal journal = new MessageJournal(this.config())) {
+            for (int i = 0; i < 5; i++) {
+                written.add(message(i, 10));
+                append(journal, written.get(i), null);
+                end += 8 + 9 + MessageCodec.encode(written.get(i)).length;
+            }
+            segment = journal.segments().get(0);
+        }
+//      Se altera el último byte del último registro
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{(byte) 0xFF}), end - 1);
+        }
+
+        try (MessageJournal journal = new MessageJournal(this.config())) {
+            assertEquals(5, journal.getNextSequence());
+            assertEquals(written.subList(0, 4), replay(journal, 1));
+            Message replacement = message(99, 10);
+            assertEquals(5, append(journal, replacement, null));
+            written.set(4, replacement);
+        }
+        try (MessageJournal journal = new MessageJournal(this.config())) {
+            assertEquals(written, replay(journal, 1));
+        }
+    }
+
+    /**
+     * Los registros que no caben en el segmento activo crean un nuevo segmento; el recorrido atraviesa todos los
+     * segmentos y los segmentos anteriores a un número de secuencia pueden eliminarse
+     * @throws IOException no se produce
+     */
+    @Test
+    void rollsAndReplaysAcrossSegments() throws IOException {
+        List<Message> written = new ArrayList<>();
+        try (MessageJournal journal = new MessageJournal(this.config())) {
+            for (int i = 0; i < 60; i++) {
+                written.add(message(i, 100_000));
+                append(journal, written.get(i), null);
+            }
+            assertTrue(journal.segments().size() >= 3);
+            assertEquals(written, replay(journal, 1));
+        }
+
+        try (MessageJournal journal = new MessageJournal(this.config())) {
+            assertEquals(61, journal.getNextSequence());
+            List<Path> segments = journal.segments();
+            long second = MessageJournal.baseSequence(segments.get(1));
+            assertEquals(1, journal.deleteSegmentsBefore(second));
+            assertEquals(written.subList((int) second - 1, 60), replay(journal, 1));
+        }
+    }
+
+    /**
+     * Un registro mayor que un segmento se rechaza sin consumir un número de secuencia ni ejecutar su confirmación
+     * @throws IOException no se produce
+     */
+    @Test
+    void rejectsRecordLargerThanSegment() throws IOException {
+        AtomicBoolean durable = new AtomicBoolean();
+        try (MessageJournal journal = new MessageJournal(this.config())) {
+            byte[] body = new byte[this.config().getJournalSegmentBytes()];
+            assertThrows(IOException.class, () -> journal.append(MessageJournal.RECORD_STORED, body,
+                    () -> durable.set(true)));
+            assertFalse(durable.get());
+            assertEquals(1, journal.getNextSequence());
+            assertEquals(1, append(journal, message(1, 5), null));
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package servidor;
+
+import cliente.Client;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Pruebas del servidor en modo NIO con clientes conectados por sockets reales: conexión y listado de destinatarios,
+ * envío de mensajes, incluyendo tramas que llegan en varias lecturas, mensajes a varios destinatarios y desconexión
+ * @Author Jorge Luis Velasquez Venegas
+ */
+class NioServerTest {
+
+    /**
+     * Directory: directorio temporal de los buzones del servidor
+     */
+    @TempDir
+    Path directory;
+
+    /**
+     * Port: puerto en el que escucha el servidor
+     */
+    private int port;
+
+    /**
+     * Server: servidor en modo NIO, sin bitácora
+     */
+    private Server server;
+
+    /**
+     * Inicia el servidor en modo NIO con dos hilos de eventos
+     * @throws IOException si no es posible iniciar el servidor
+     */
+    @BeforeEach
+    void startServer() throws IOException {
+        ServerConfig config = new ServerConfig();
+        config.setMode(ServerMode.NIO);
+        config.setEventLoops(2);
+        config.setJournalEnabled(false);
+        config.setMailboxDirectory(directory.toString());
+        port = TestSession.freePort();
+        server = new Server(port, config);
+    }
+
+    /**
+     * Detiene el servidor
+     * @throws IOException si no es posible cerrar el socket del servidor
+     */
+    @AfterEach
+    void stopServer() throws IOException {
+        server.close();
+    }
+
+    /**
+     * Espera, como máximo cinco segundos, a que el valor observado sea el esperado
+     * @param expected valor esperado
+     * @param actual valor observado
+     * @throws InterruptedException si se interrumpe la espera
+     */
+    private static void await(Object expected, Supplier<Object> actual) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!expected.equals(actual.get()) && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(expected, actual.get());
+    }
+
+    /**
+     * Dos clientes atendidos por hilos de eventos distintos se conectan, se ven en sus listados, intercambian
+     * mensajes y uno de ellos se desconecta con la confirmación del servidor, que lo retira del listado del otro
+     * @throws Exception si la conexión falla o los cambios no llegan a tiempo
+     */
+    @Test
+    void connectsRoutesAndDisconnects() throws Exception {
+        Client ana = new Client("localhost", port, "ana");
+        await(1, () -> server.getClients().size());
+        Client luis = new Client("localhost", port, "luis");
+        await(List.of("luis"), ana::getDestinies);
+        await(List.of("ana"), luis::getDestinies);
+
+        ana.sendMessage("hola", "luis");
+        await("hola", luis::getMessage);
+        assertEquals("ana", luis.getSender());
+        await(1L, ana::getAcknowledgedSequence);
+
+//      Un mensaje mayor que el búfer de lectura inicial llega al servidor en varias lecturas del canal
+        String large = "x".repeat(64 * 1024);
+        luis.sendMessage(large, "ana");
+        await(large, ana::getMessage);
+
+        long start = System.nanoTime();
+        luis.closeConnection();
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1));
+        await(List.of(), ana::getDestinies);
+        await(1, () -> server.getClients().size());
+        ana.closeConnection();
+        await(0, () -> server.getClients().size());
+    }
+
+    /**
+     * Un "multicast" llega una sola vez a cada destinatario conocido, aunque se repita en la lista, y el servidor lo
+     * rechaza con "message-nack" si algún destinatario nunca se conectó; un "broadcast" llega a todos excepto al emisor
+     * @throws Exception si la conexión falla o los mensajes no llegan a tiempo
+     */
+    @Test
+    void multicastsAndBroadcasts() throws Exception {
+        Client ana = new Client("localhost", port, "ana");
+        Client luis = new Client("localhost", port, "luis");
+        Client carla = new Client("localhost", port, "carla");
+        await(3, () -> server.getClients().size());
+        await(2, () -> carla.getDestinies() == null ? 0 : carla.getDestinies().size());
+
+        ana.sendMessage("a todos", List.of("luis", "carla", "Luis"));
+        await("a todos", luis::getMessage);
+        await("a todos", carla::getMessage);
+        await(1L, ana::getAcknowledgedSequence);
+
+        ana.sendMessage("a pedro", List.of("luis", "pedro"));
+        await("a pedro", luis::getMessage);
+        await(2L, ana::getRejectedSequence);
+        assertEquals(1L, ana.getAcknowledgedSequence());
+
+        luis.broadcastMessage("difusión");
+        await("difusión", ana::getMessage);
+        await("difusión", carla::getMessage);
+        assertEquals("luis", carla.getSender());
+        assertEquals("a pedro", luis.getMessage());
+
+        ana.closeConnection();
+        luis.closeConnection();
+        carla.closeConnection();
+    }
+}
@@ -0,0 +1,152 @@
+package servidor;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Pruebas de la clase OutboundQueue: marcas alta y baja, políticas para clientes lentos y transferencias masivas
+ * @Author Jorge Luis Velasquez Venegas
+ */
+class OutboundQueueTest {
+
+    /**
+     * FRAME: tamaño de las tramas de prueba
+     */
+    private static final int FRAME = 30;
+
+    /**
+     * Crea una cola con marca alta de 100 bytes y marca baja de 60 bytes
+     * @param policy política para clientes lentos
+     * @param blockTimeoutMillis tiempo máximo de espera de las transferencias masivas
+     * @return cola de salida
+     */
+    private static OutboundQueue queue(SlowConsumerPolicy policy, long blockTimeoutMillis) {
+        ServerConfig config = new ServerConfig();
+        config.setHighWatermark(100);
+        config.setLowWatermark(60);
+        config.setSlowConsumerPolicy(policy);
+        config.setBlockTimeoutMillis(blockTimeoutMillis);
+        return new OutboundQueue(config);
+    }
+
+    /**
+     * Crea una trama de prueba
+     * @return trama de FRAME bytes
+     */
+    private static ByteBuffer frame() {
+        return ByteBuffer.allocate(FRAME);
+    }
+
+    /**
+     * Con la política DROP la cola descarta las tramas desde que alcanza la marca alta hasta que baja de la marca baja
+     */
+    @Test
+    void dropPolicyDiscardsWhileSaturated() {
+        OutboundQueue queue = queue(SlowConsumerPolicy.DROP, 0);
+        for (int i = 0; i < 4; i++) {
+            assertEquals(OutboundQueue.Result.ACCEPTED, queue.offer(frame()));
+        }
+        assertEquals(4 * FRAME, queue.getQueuedBytes());
+        assertEquals(OutboundQueue.Result.DROPPED, queue.offer(frame()));
+
+//      Por encima de la marca baja la cola sigue saturada
+        queue.poll();
+        assertEquals(3 * FRAME, queue.getQueuedBytes());
+        assertEquals(OutboundQueue.Result.DROPPED, queue.offer(frame()));
+
+        queue.poll();
+        assertEquals(OutboundQueue.Result.ACCEPTED, queue.offer(frame()));
+    }
+
+    /**
+     * Con la política DISCONNECT una cola saturada rechaza la trama para que el cliente sea desconectado
+     */
+    @Test
+    void disconnectPolicyRejectsWhileSaturated() {
+        OutboundQueue queue = queue(SlowConsumerPolicy.DISCONNECT, 0);
+        for (int i = 0; i < 4; i++) {
+            queue.offer(frame());
+        }
+        assertEquals(OutboundQueue.Result.REJECTED, queue.offer(frame()));
+        assertEquals(4 * FRAME, queue.getQueuedBytes());
+    }
+
+    /**
+     * Una cola cerrada rechaza las tramas con cualquier política
+     */
+    @Test
+    void closedQueueRejects() {
+        OutboundQueue queue = queue(SlowConsumerPolicy.DROP, 0);
+        queue.close();
+        assertEquals(OutboundQueue.Result.REJECTED, queue.offer(frame()));
+        assertFalse(queue.offerWhenWritable(frame()));
+    }
+
+    /**
+     * Las tramas se retiran en orden y los lotes respetan el máximo de bytes, incluyendo siempre la primera trama
+     * @throws InterruptedException no se produce
+     */
+    @Test
+    void batchesRespectMaxBytes() throws InterruptedException {
+        OutboundQueue queue = queue(SlowConsumerPolicy.DROP, 0);
+        ByteBuffer first = frame();
+        ByteBuffer second = frame();
+        ByteBuffer third = frame();
+        queue.offer(first);
+        queue.offer(second);
+        queue.offer(third);
+
+        ByteBuffer[] batch = new ByteBuffer[8];
+        assertEquals(2, queue.peekBatch(batch, 2 * FRAME));
+        assertEquals(3 * FRAME, queue.getQueuedBytes());
+        assertEquals(1, queue.takeBatch(batch, 1));
+        assertSame(first, batch[0]);
+        assertEquals(2, queue.takeBatch(batch, 10 * FRAME));
+        assertSame(second, batch[0]);
+        assertSame(third, batch[1]);
+        assertTrue(queue.isEmpty());
+        assertNull(queue.poll());
+    }
+
+    /**
+     * Una transferencia masiva espera a que la cola baje de la marca baja en lugar de descartar la trama
+     * @throws Exception si la espera falla
+     */
+    @Test
+    void offerWhenWritableWaitsForLowWatermark() throws Exception {
+        OutboundQueue queue = queue(SlowConsumerPolicy.DROP, 10_000);
+        for (int i = 0; i < 4; i++) {
+            queue.offer(frame());
+        }
+        CompletableFuture<Boolean> offered = CompletableFuture.supplyAsync(() -> queue.offerWhenWritable(frame()));
+        Thread.sleep(50);
+        assertFalse(offered.isDone());
+
+        queue.poll();
+        queue.poll();
+        assertTrue(offered.get(5, TimeUnit.SECONDS));
+        assertEquals(3 * FRAME, queue.getQueuedBytes());
+    }
+
+    /**
+     * Una transferencia masiva que no logra encolar antes del tiempo límite retorna false sin encolar la trama
+     */
+    @Test
+    void offerWhenWritableTimesOut() {
+        OutboundQueue queue = queue(SlowConsumerPolicy.DROP, 20);
+        for (int i = 0; i < 4; i++) {
+            queue.offer(frame());
+        }
+        assertFalse(queue.offerWhenWritable(frame()));
+        assertEquals(4 * FRAME, queue.getQueuedBytes());
+    }
+}
@@ -0,0 +1,130 @@
+package servidor;
+
+import connection.Message;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Pruebas de la clase Roster: versiones de los cambios del listado, cambios enviados a los demás clientes e
+ * instantáneas del listado completo
+ * @Author Jorge Luis Velasquez Venegas
+ */
+class RosterTest {
+
+    /**
+     * Directory: directorio temporal de los buzones del servidor
+     */
+    @TempDir
+    Path directory;
+
+    /**
+     * Server: servidor al que pertenecen las sesiones de prueba, sin bitácora
+     */
+    private Server server;
+
+    /**
+     * Inicia el servidor de las sesiones de prueba
+     * @throws IOException si no es posible iniciar el servidor
+     */
+    @BeforeEach
+    void startServer() throws IOException {
+        ServerConfig config = new ServerConfig();
+        config.setJournalEnabled(false);
+        config.setMailboxDirectory(directory.toString());
+        server = TestSession.startServer(config);
+    }
+
+    /**
+     * Detiene el servidor
+     * @throws IOException si no es posible cerrar el socket del servidor
+     */
+    @AfterEach
+    void stopServer() throws IOException {
+        server.close();
+    }
+
+    /**
+     * Cada ingreso y salida incrementa la versión: el cliente que ingresa recibe el listado completo con la versión
+     * vigente y los demás reciben solo el cambio, con versiones consecutivas
+     * @throws Exception si las tramas no llegan o no pueden decodificarse
+     */
+    @Test
+    void sendsVersionedDeltas() throws Exception {
+        Roster roster = new Roster(new RoutingTable());
+        TestSession ana = new TestSession(server, "ana");
+        TestSession luis = new TestSession(server, "luis");
+        TestSession carla = new TestSession(server, "carla");
+
+        roster.join(ana);
+        roster.join(luis);
+        Message accept = luis.received(1).get(0);
+        assertEquals("connection-accept", accept.getType());
+        assertEquals(List.of("ana"), accept.getDestinies());
+        assertEquals(2, accept.getSequence());
+
+        roster.join(carla);
+        roster.leave(luis);
+        assertEquals("disconnect-client", carla.received(2).get(1).getType());
+        List<Message> toAna = ana.received(4);
+        assertEquals("connection-accept", toAna.get(0).getType());
+        assertEquals(1, toAna.get(0).getSequence());
+        for (int i = 1; i < 4; i++) {
+            assertEquals(i + 1, toAna.get(i).getSequence());
+        }
+        assertEquals("new-client", toAna.get(1).getType());
+        assertEquals("luis", toAna.get(1).getSender());
+        assertEquals("disconnect-client", toAna.get(3).getType());
+        assertEquals("luis", toAna.get(3).getSender());
+        assertEquals(List.of("carla"), luis.received(1).stream().map(Message::getSender).toList());
+        assertEquals(4, roster.getVersion());
+    }
+
+    /**
+     * La salida de una sesión que ya fue reemplazada por otra con el mismo nombre no genera una nueva versión ni
+     * notifica a los demás clientes
+     * @throws Exception si las tramas no llegan o no pueden decodificarse
+     */
+    @Test
+    void ignoresLeaveOfReplacedSession() throws Exception {
+        Roster roster = new Roster(new RoutingTable());
+        TestSession ana = new TestSession(server, "ana");
+        TestSession previous = new TestSession(server, "luis");
+        TestSession current = new TestSession(server, "Luis");
+        roster.join(ana);
+        roster.join(previous);
+        roster.join(current);
+        ana.received(3);
+
+        roster.leave(previous);
+        assertEquals(3, roster.getVersion());
+        assertTrue(ana.outbound.isEmpty());
+    }
+
+    /**
+     * La instantánea solicitada por un cliente contiene a los demás clientes y la versión vigente, de modo que el
+     * cliente que detectó un salto puede retomar los cambios siguientes; la versión recuperada de una ejecución
+     * anterior nunca retrocede
+     */
+    @Test
+    void snapshotCarriesCurrentVersion() {
+        Roster roster = new Roster(new RoutingTable());
+        roster.restoreVersion(10);
+        roster.join(new TestSession(server, "ana"));
+        roster.join(new TestSession(server, "luis"));
+        roster.restoreVersion(5);
+
+        Message snapshot = roster.snapshot("LUIS");
+        assertEquals("roster-snapshot", snapshot.getType());
+        assertEquals(List.of("ana"), snapshot.getDestinies());
+        assertEquals(12, snapshot.getSequence());
+    }
+}
@@ -0,0 +1,121 @@
+package servidor;
+
+import connection.Message;
+import connection.MessageCodec;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Pruebas de la clase RoutingTable: búsqueda sin distinguir mayúsculas, reemplazo de sesiones con el mismo nombre y
+ * difusión de una sola trama compartida
+ * @Author Jorge Luis Velasquez Venegas
+ */
+class RoutingTableTest {
+
+    /**
+     * Directory: directorio temporal de los buzones del servidor
+     */
+    @TempDir
+    Path directory;
+
+    /**
+     * Server: servidor al que pertenecen las sesiones de prueba, sin bitácora
+     */
+    private Server server;
+
+    /**
+     * Inicia el servidor de las sesiones de prueba
+     * @throws IOException si no es posible iniciar el servidor
+     */
+    @BeforeEach
+    void startServer() throws IOException {
+        ServerConfig config = new ServerConfig();
+        config.setJournalEnabled(false);
+        config.setMailboxDirectory(directory.toString());
+        server = TestSession.startServer(config);
+    }
+
+    /**
+     * Detiene el servidor
+     * @throws IOException si no es posible cerrar el socket del servidor
+     */
+    @AfterEach
+    void stopServer() throws IOException {
+        server.close();
+    }
+
+    /**
+     * Los clientes se localizan por su nombre sin distinguir mayúsculas ni espacios alrededor
+     */
+    @Test
+    void findsIgnoringCase() {
+        RoutingTable routes = new RoutingTable();
+        TestSession ana = new TestSession(server, "Ana");
+        routes.add(ana);
+
+        assertSame(ana, routes.find("ana"));
+        assertSame(ana, routes.find(" ANA "));
+        assertNull(routes.find("luis"));
+        assertNull(routes.find(null));
+        assertEquals(1, routes.size());
+    }
+
+    /**
+     * Una sesión nueva con el mismo nombre reemplaza a la anterior, y la desconexión tardía de la sesión anterior no
+     * elimina la ruta de la nueva
+     */
+    @Test
+    void keepsRouteOfReplacingSession() {
+        RoutingTable routes = new RoutingTable();
+        TestSession previous = new TestSession(server, "ana");
+        TestSession current = new TestSession(server, "ANA");
+        routes.add(previous);
+        routes.add(current);
+
+        assertFalse(routes.remove(previous));
+        assertSame(current, routes.find("ana"));
+        assertTrue(routes.remove(current));
+        assertNull(routes.find("ana"));
+        assertEquals(0, routes.size());
+    }
+
+    /**
+     * La difusión codifica el mensaje una sola vez: todos los destinatarios reciben vistas de los mismos bytes, y el
+     * cliente excluido no recibe nada
+     * @throws Exception si las tramas no llegan o no pueden decodificarse
+     */
+    @Test
+    void broadcastsOneSharedFrame() throws Exception {
+        RoutingTable routes = new RoutingTable();
+        TestSession ana = new TestSession(server, "ana");
+        TestSession luis = new TestSession(server, "luis");
+        TestSession carla = new TestSession(server, "carla");
+        routes.add(ana);
+        routes.add(luis);
+        routes.add(carla);
+
+        Message message = new Message("broadcast", "todos", "ana", "hola");
+        assertEquals(2, routes.broadcast(MessageCodec.frame(message), ana));
+        assertTrue(ana.outbound.isEmpty());
+        ByteBuffer toLuis = luis.outbound.poll();
+        ByteBuffer toCarla = carla.outbound.poll();
+        assertSame(toLuis.array(), toCarla.array());
+
+        routes.broadcast(message, luis);
+        assertEquals("hola", ana.received(1).get(0).getMessage());
+        assertEquals("ana", carla.received(1).get(0).getSender());
+        assertTrue(luis.outbound.isEmpty());
+    }
+}
@@ -0,0 +1,97 @@
+package servidor;
+
+import connection.Message;
+import connection.MessageCodec;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Clase TestSession, sesión de cliente sin socket para las pruebas del servidor: las tramas que recibe permanecen en
+ * su cola de salida, de donde las pruebas las leen y decodifican
+ * @Author Jorge Luis Velasquez Venegas
+ */
+class TestSession extends ClientSession {
+
+    /**
+     * Constructor de la clase TestSession
+     * @param server servidor al que pertenece la sesión
+     * @param idClient nombre del cliente
+     */
+    TestSession(Server server, String idClient) {
+        super(server);
+        this.idClient = idClient;
+    }
+
+    /**
+     * Retorna un puerto libre en el que puede escuchar un servidor de prueba
+     * @return número de puerto
+     * @throws IOException si no es posible obtener un puerto
+     */
+    static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    /**
+     * Inicia un servidor en un puerto libre
+     * @param config parámetros de arranque del servidor
+     * @return servidor iniciado, debe detenerse con close
+     * @throws IOException si no es posible iniciar el servidor
+     */
+    static Server startServer(ServerConfig config) throws IOException {
+        return new Server(freePort(), config);
+    }
+
+    /**
+     * Espera a que la cola de salida contenga el número de tramas indicado, como máximo cinco segundos, y las
+     * decodifica. La cola debe quedar vacía
+     * @param count número de tramas esperadas
+     * @return mensajes recibidos, en orden
+     * @throws Exception si las tramas no llegan a tiempo o no pueden decodificarse
+     */
+    List<Message> received(int count) throws Exception {
+        List<Message> messages = new ArrayList<>();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (messages.size() < count) {
+            ByteBuffer frame = outbound.poll();
+            if (frame == null) {
+                assertTrue(System.nanoTime() < deadline, "faltan tramas: " + messages.size() + " de " + count);
+                Thread.sleep(5);
+                continue;
+            }
+            messages.add(MessageCodec.decode(frame.array(), frame.arrayOffset() + MessageCodec.HEADER_LENGTH,
+                    frame.getInt(0)));
+        }
+        assertTrue(outbound.isEmpty());
+        return messages;
+    }
+
+    /**
+     * Las tramas permanecen en la cola de salida hasta que la prueba las lee
+     */
+    @Override
+    protected void writeRequested() {
+    }
+
+    /**
+     * La sesión no tiene socket que cerrar
+     */
+    @Override
+    protected void closeAfterFlush() {
+    }
+
+    /**
+     * La sesión no tiene socket que cerrar
+     */
+    @Override
+    public void endConnection() {
+    }
+}